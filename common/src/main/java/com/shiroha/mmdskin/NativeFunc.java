@@ -49,6 +49,15 @@ public class NativeFunc {
 
     public native long GetUVs(long model);
 
+    /**
+     * 获取 CPU 蒙皮输出的直接视图（零拷贝，指向 Rust 端固定分配）
+     * 首次调用时启用双缓冲：两组输出交替写入，最新一组的序号由 ExecuteFrameCommands 输出标志给出
+     * @param slot 分配序号（0/1）
+     * @param stream 0 = 位置(3f)，1 = 法线(3f)，2 = UV(2f)
+     * @return 直接缓冲区；DeleteModel 之后不得再访问；GPU 常驻模式或模型无效时返回 null
+     */
+    public native ByteBuffer GetSkinningOutputView(long model, int slot, int stream);
+
     public native long GetIndexElementSize(long model);
 
     public native long GetIndexCount(long model);
@@ -415,6 +424,41 @@ public class NativeFunc {
      */
     public native int CopyBoneWeightsToBuffer(long model, java.nio.ByteBuffer buffer, int vertexCount);
     
+    /**
+     * 复制 3×4 仿射蒙皮矩阵到 ByteBuffer（每骨骼为矩阵前三行，48 字节）
+     * @param model 模型句柄
+     * @param buffer 目标缓冲区（骨骼数 * 48 字节，不足时截断）
+     * @return 复制的骨骼数量
+     */
+    public native int CopySkinningMatrices3x4ToBuffer(long model, java.nio.ByteBuffer buffer);
+    
+    /**
+     * 复制紧凑骨骼索引到 ByteBuffer（每顶点 4 个 uint16，无效索引为 0xFFFF）
+     * @param model 模型句柄
+     * @param buffer 目标缓冲区（需要 vertexCount * 8 字节）
+     * @param vertexCount 顶点数量
+     * @return 复制的顶点数量
+     */
+    public native int CopyCompactBoneIndicesToBuffer(long model, java.nio.ByteBuffer buffer, int vertexCount);
+    
+    /**
+     * 复制紧凑骨骼权重到 ByteBuffer（每顶点 4 个 unorm16）
+     * @param model 模型句柄
+     * @param buffer 目标缓冲区（需要 vertexCount * 8 字节）
+     * @param vertexCount 顶点数量
+     * @return 复制的顶点数量
+     */
+    public native int CopyCompactBoneWeightsToBuffer(long model, java.nio.ByteBuffer buffer, int vertexCount);
+    
+    /**
+     * 复制紧凑原始法线到 ByteBuffer（每顶点 4 个 snorm16，第 4 分量为 0）
+     * @param model 模型句柄
+     * @param buffer 目标缓冲区（需要 vertexCount * 8 字节）
+     * @param vertexCount 顶点数量
+     * @return 复制的顶点数量
+     */
+    public native int CopyCompactNormalsToBuffer(long model, java.nio.ByteBuffer buffer, int vertexCount);
+    
     /**
      * 获取原始顶点位置数据指针（未蒙皮）
      * @param model 模型句柄
@@ -461,12 +505,63 @@ public class NativeFunc {
      */
     public native void UpdateAnimationOnly(long model, float deltaTime);
     
+    /**
+     * 执行逐帧命令缓冲区：一次调用完成多个模型的实体输入（头部、眼球、物理位置）、姿态更新与输出回传，
+     * Rust 端在线程池上并行执行（记录布局见 FrameCommandBuffer）
+     * @param commands 命令记录，每条 64 字节
+     * @param count 记录数
+     * @param output 输出缓冲区：各命令在其输出偏移处写入标志、左右手矩阵与材质 Morph 结果
+     */
+    public native void ExecuteFrameCommands(ByteBuffer commands, int count, ByteBuffer output);
+    
+    /**
+     * 仅推进动画时钟（不评估姿态、不执行物理与蒙皮，用于被遮挡的模型）
+     * @param model 模型句柄
+     * @param deltaTime 时间增量（秒）
+     */
+    public native void AdvanceAnimationClock(long model, float deltaTime);
+    
+    /**
+     * 最近一次动画更新的蒙皮矩阵与 Morph 权重是否与上一次一致
+     * 为 true 时上一次的蒙皮输出仍然有效，可跳过顶点拷贝、上传与 Compute 分派
+     * @param model 模型句柄
+     */
+    public native boolean IsPoseUnchanged(long model);
+    
     /**
      * 初始化 GPU 蒙皮数据（模型加载后调用一次）
      * @param model 模型句柄
      */
     public native void InitGpuSkinningData(long model);
     
+    /**
+     * 进入 GPU 常驻模式（仅在配置开启时，GPU 蒙皮模型的静态数据与 Morph 数据全部上传后调用）
+     * 释放 Rust 侧 CPU 蒙皮输入/输出与上传用数组，此后 GetPoss/GetNormals/GetUVs 返回 0，
+     * 该句柄不能再用于 CPU 蒙皮渲染
+     * @param model 模型句柄
+     * @return 释放的 Rust 堆字节数
+     */
+    public native long EnterGpuResidentMode(long model);
+
+    /**
+     * 烘焙群体动画：按 30 FPS 整数帧逐帧求值动画，生成供 GPU 采样的蒙皮矩阵与活动 Morph 列表
+     * 不含物理、头部/眼球追踪、自动眨眼与 VPD；含物理动态骨骼的模型不烘焙。会覆盖模型当前姿态
+     * @param model 模型句柄
+     * @param anim 动画句柄
+     * @return 烘焙数据块字节数（0 = 模型不可烘焙，-1 = 句柄无效）
+     */
+    public native long BakeCrowdAnimation(long model, long anim);
+
+    /**
+     * 取走群体动画烘焙数据块并复制到 DirectByteBuffer
+     * 布局：头部 [帧数, 骨骼数, Morph 记录总数, 材质 Morph 记录总数]，
+     * 随后为蒙皮矩阵（帧数 × 骨骼数 × 48 字节）、Morph 帧索引与记录、材质 Morph 帧索引与记录
+     * @param model 模型句柄
+     * @param buffer 目标缓冲区（容量 ≥ BakeCrowdAnimation 返回值）
+     * @return 烘焙帧数（0 = 失败）
+     */
+    public native int CopyCrowdBakeToBuffer(long model, ByteBuffer buffer);
+    
     // ========== GPU Morph 相关 ==========
     
     /**
@@ -484,14 +579,14 @@ public class NativeFunc {
     public native int GetVertexMorphCount(long model);
     
     /**
-     * 获取 GPU Morph 偏移数据指针（密集格式：morph_count * vertex_count * 3）
+     * 获取 GPU Morph 稀疏条目指针（每条 16 字节：顶点索引 + xyz 偏移，按 Morph 连续存放）
      * @param model 模型句柄
      * @return 数据指针
      */
     public native long GetGpuMorphOffsets(long model);
     
     /**
-     * 获取 GPU Morph 偏移数据大小（字节）
+     * 获取 GPU Morph 稀疏条目大小（字节）
      * @param model 模型句柄
      * @return 数据大小
      */
@@ -511,7 +606,7 @@ public class NativeFunc {
     public native void SyncGpuMorphWeights(long model);
     
     /**
-     * 复制 GPU Morph 偏移数据到 ByteBuffer
+     * 复制 GPU Morph 稀疏条目到 ByteBuffer
      * @param model 模型句柄
      * @param buffer 目标缓冲区
      * @return 复制的字节数
@@ -598,7 +693,7 @@ public class NativeFunc {
     
     /**
      * 初始化 GPU UV Morph 数据
-     * 将稀疏的 UV Morph 偏移转换为密集格式，供 GPU Compute Shader 使用
+     * 将 UV Morph 偏移整理为稀疏条目（格式同顶点 Morph），供 GPU Compute Shader 使用
      * @param model 模型句柄
      */
     public native void InitGpuUvMorphData(long model);
@@ -611,14 +706,14 @@ public class NativeFunc {
     public native int GetUvMorphCount(long model);
     
     /**
-     * 获取 GPU UV Morph 偏移数据大小（字节）
+     * 获取 GPU UV Morph 稀疏条目大小（字节）
      * @param model 模型句柄
      * @return 数据大小
      */
     public native long GetGpuUvMorphOffsetsSize(long model);
     
     /**
-     * 复制 GPU UV Morph 偏移数据到 ByteBuffer
+     * 复制 GPU UV Morph 稀疏条目到 ByteBuffer
      * @param model 模型句柄
      * @param buffer 目标缓冲区
      * @return 复制的字节数
@@ -633,6 +728,51 @@ public class NativeFunc {
      */
     public native int CopyGpuUvMorphWeightsToBuffer(long model, java.nio.ByteBuffer buffer);
     
+    /**
+     * 复制本帧活动 Morph 列表到 ByteBuffer（顶点 Morph 在前，UV Morph 在后，只含权重非零的 Morph）
+     * 每条 16 字节：起始条目（相对各自稀疏条目数组）、条目数、权重（float）、目标（0 = 位置，1 = UV）
+     * @param model 模型句柄
+     * @param buffer 目标缓冲区（容量不足时截断）
+     * @return 写出的记录数
+     */
+    public native int CopyGpuActiveMorphsToBuffer(long model, java.nio.ByteBuffer buffer);
+    
+    // ========== GPU 材质 Morph 相关 ==========
+    
+    /**
+     * 初始化 GPU 材质 Morph 数据
+     * 存在材质 Morph 时改由 GPU 求值：此后 CopyMaterialMorphResultsToBuffer 只返回单位值，
+     * 每帧通过 CopyGpuActiveMaterialMorphsToBuffer 取得活动材质 Morph 的有效权重
+     * @param model 模型句柄
+     * @return 含条目的材质 Morph 数量（活动列表记录数上限），0 表示没有材质 Morph
+     */
+    public native int InitGpuMaterialMorphData(long model);
+    
+    /**
+     * 获取 GPU 材质 Morph 条目大小（字节）
+     * @param model 模型句柄
+     * @return 数据大小
+     */
+    public native long GetGpuMaterialMorphEntriesSize(long model);
+    
+    /**
+     * 复制 GPU 材质 Morph 条目到 ByteBuffer
+     * 每条 32 字节：材质索引（int，-1 = 全部材质）、运算（0 = 乘算，1 = 加算）、diffuse.a、边缘色 rgba、边缘大小
+     * @param model 模型句柄
+     * @param buffer 目标缓冲区
+     * @return 复制的字节数
+     */
+    public native long CopyGpuMaterialMorphEntriesToBuffer(long model, java.nio.ByteBuffer buffer);
+    
+    /**
+     * 复制本帧活动材质 Morph 列表到 ByteBuffer（有效权重已展开 Group/Flip）
+     * 每条 16 字节：起始条目、条目数、权重（float）、保留
+     * @param model 模型句柄
+     * @param buffer 目标缓冲区（容量不足时截断）
+     * @return 写出的记录数
+     */
+    public native int CopyGpuActiveMaterialMorphsToBuffer(long model, java.nio.ByteBuffer buffer);
+    
     // ========== 材质 Morph 结果相关 ==========
     
     /**
@@ -667,12 +807,60 @@ public class NativeFunc {
      * - offset 17: byte bothFace  (0/1)
      * - offset 18-19: padding
      * 
+     * 相邻等价材质的子网格（加载时检测）可见时合并为一次绘制：
+     * 组首条目的 vertexCount 覆盖整组，其余条目 isVisible = 0。
+     * 
      * @param model  模型句柄
      * @param buffer 输出缓冲区（DirectByteBuffer，需预分配 subMeshCount * 20 字节）
      * @return 写入的子网格数量
      */
     public native int BatchGetSubMeshData(long model, java.nio.ByteBuffer buffer);
-    
+
+    /**
+     * 批量获取所有材质的边缘（描边）参数，供屏幕空间描边使用
+     * 
+     * 每材质 20 字节：
+     * - offset  0: float[4] edgeColor (r, g, b, a)
+     * - offset 16: float edgeSize（材质未开启边缘标志时为 0）
+     * 
+     * @param model  模型句柄
+     * @param buffer 输出缓冲区（DirectByteBuffer，需预分配 materialCount * 20 字节）
+     * @return 写入的材质数量
+     */
+    public native int BatchGetMaterialEdgeData(long model, java.nio.ByteBuffer buffer);
+
+    // ========== 网格 LOD ==========
+
+    /**
+     * 获取加载时生成的简化 LOD 级别数量（不含原始网格）
+     * @param model 模型句柄
+     * @return LOD 级别数量，0 表示无简化网格
+     */
+    public native int GetLodLevelCount(long model);
+
+    /**
+     * 设置当前 LOD 级别，之后 BatchGetSubMeshData 返回该级别的索引范围
+     * @param model 模型句柄
+     * @param level 0 = 原始网格，1..GetLodLevelCount 为逐级简化网格
+     */
+    public native void SetLodLevel(long model, int level);
+
+    /**
+     * 获取所有 LOD 级别拼接后的索引总数
+     * @param model 模型句柄
+     * @return 索引数量（u32）
+     */
+    public native long GetLodIndexCount(long model);
+
+    /**
+     * 复制所有 LOD 级别的索引到 ByteBuffer（u32，按级别拼接）
+     * 必须上传到 IBO 中原始索引之后的位置，子网格范围已按此布局计算
+     * @param model 模型句柄
+     * @param buffer 目标缓冲区（需要 GetLodIndexCount * 4 字节）
+     * @return 复制的索引数量
+     */
+    public native int CopyLodIndicesToBuffer(long model, java.nio.ByteBuffer buffer);
+
     // ========== 物理配置相关 ==========
     
     /**
@@ -753,7 +941,8 @@ public class NativeFunc {
     
     /**
      * 复制实时 UV 数据到 ByteBuffer（经过 UV Morph 变形后的坐标）
-     * 每个顶点 2 个 float (u, v)，共 vertexCount * 8 字节
+     * 每个顶点 2 个 float (u, v)，共 vertexCount * 8 字节，按 PMX 顶点顺序排列
+     * （运行时顶点在加载时按缓存顺序重排过，GetUVs 等渲染用接口返回的是运行时顺序）
      * @param model 模型句柄
      * @param buffer 目标缓冲区（需要 vertexCount * 8 字节）
      * @return 复制的顶点数量
@@ -82,7 +82,7 @@ public final class MmdSkinApi {
      * 获取玩家当前模型的实时 UV 坐标（经过 UV Morph 变形后）
      *
      * @param player 目标玩家
-     * @return UV 数组 [u0, v0, u1, v1, ...]，模型未加载时返回 null
+     * @return UV 数组 [u0, v0, u1, v1, ...]，第 i 组对应 PMX 文件中的第 i 个顶点，模型未加载时返回 null
      */
     public static float[] getUV(Player player) {
         long handle = resolveModelHandle(player);
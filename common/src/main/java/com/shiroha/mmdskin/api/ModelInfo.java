@@ -28,7 +28,7 @@ public final class ModelInfo {
     /** 骨骼数量 */
     public int getBoneCount() { return boneCount; }
 
-    /** 顶点数量 */
+    /** 顶点数量（与 PMX 文件一致，按顶点返回的 API 数据均按 PMX 顶点顺序排列） */
     public int getVertexCount() { return vertexCount; }
 
     /** 材质数量 */
@@ -27,7 +27,9 @@ public class ConfigData {
     // GPU 加速
     public boolean gpuSkinningEnabled = false;
     public boolean gpuMorphEnabled = false;
+    public boolean gpuResidentModeEnabled = false;
     public int maxBones = 2048;
+    public int skinningWorkgroupSize = 0;
     
     // Toon 渲染（3渲2）
     public boolean toonRenderingEnabled = false;
@@ -65,6 +67,21 @@ public class ConfigData {
     // 纹理缓存
     public int textureCacheBudgetMB = 256;
     
+    // 远景替身（Impostor）
+    public boolean impostorEnabled = true;
+    public int impostorDistance = 64;
+    public int impostorFadeRange = 8;
+    
+    // 屏幕空间描边
+    public boolean toonOutlineScreenSpace = false;
+    public int toonOutlineScreenWidth = 2;
+    
+    // 遮挡剔除
+    public boolean occlusionCullingEnabled = true;
+    
+    // 群体动画（GPU 烘焙）
+    public boolean gpuCrowdAnimationEnabled = false;
+    
     // 调试
     public boolean debugHudEnabled = false;
     
@@ -126,7 +143,9 @@ public class ConfigData {
         // GPU 加速
         other.gpuSkinningEnabled = this.gpuSkinningEnabled;
         other.gpuMorphEnabled = this.gpuMorphEnabled;
+        other.gpuResidentModeEnabled = this.gpuResidentModeEnabled;
         other.maxBones = this.maxBones;
+        other.skinningWorkgroupSize = this.skinningWorkgroupSize;
         // Toon 渲染
         other.toonRenderingEnabled = this.toonRenderingEnabled;
         other.toonLevels = this.toonLevels;
@@ -158,6 +177,17 @@ public class ConfigData {
         other.firstPersonCameraVerticalOffset = this.firstPersonCameraVerticalOffset;
         // 纹理缓存
         other.textureCacheBudgetMB = this.textureCacheBudgetMB;
+        // 远景替身（Impostor）
+        other.impostorEnabled = this.impostorEnabled;
+        other.impostorDistance = this.impostorDistance;
+        other.impostorFadeRange = this.impostorFadeRange;
+        // 屏幕空间描边
+        other.toonOutlineScreenSpace = this.toonOutlineScreenSpace;
+        other.toonOutlineScreenWidth = this.toonOutlineScreenWidth;
+        // 遮挡剔除
+        other.occlusionCullingEnabled = this.occlusionCullingEnabled;
+        // 群体动画
+        other.gpuCrowdAnimationEnabled = this.gpuCrowdAnimationEnabled;
         // 调试
         other.debugHudEnabled = this.debugHudEnabled;
     }
@@ -61,6 +61,14 @@ public class ConfigManager {
         return provider != null ? provider.isGpuMorphEnabled() : false;
     }
     
+    /**
+     * 获取 GPU 常驻模式启用状态
+     * 开启后 GPU 蒙皮模型上传完成即释放 Rust 侧 CPU 网格副本，getUV 等 CPU 侧数据接口对这些模型返回 null
+     */
+    public static boolean isGpuResidentModeEnabled() {
+        return provider != null ? provider.isGpuResidentModeEnabled() : false;
+    }
+    
     // ==================== Toon 渲染配置 ====================
     
     /**
@@ -140,6 +148,14 @@ public class ConfigManager {
         return provider != null ? provider.getMaxBones() : 2048;
     }
     
+    /**
+     * 获取 GPU 蒙皮 Compute Shader 工作组大小
+     * 0 表示在首次初始化时以微基准测定
+     */
+    public static int getSkinningWorkgroupSize() {
+        return provider != null ? provider.getSkinningWorkgroupSize() : 0;
+    }
+    
     // ==================== 物理引擎配置（Bullet3） ====================
     
     public static boolean isPhysicsEnabled() {
@@ -211,6 +227,65 @@ public class ConfigManager {
         return provider != null ? provider.getTextureCacheBudgetMB() : 256;
     }
     
+    // ==================== 远景替身（Impostor） ====================
+    
+    /**
+     * 获取远景替身启用状态
+     */
+    public static boolean isImpostorEnabled() {
+        return provider != null ? provider.isImpostorEnabled() : true;
+    }
+    
+    /**
+     * 获取切换为替身的距离（方块）
+     */
+    public static int getImpostorDistance() {
+        return provider != null ? provider.getImpostorDistance() : 64;
+    }
+    
+    /**
+     * 获取替身切换的回滞范围（方块）
+     * 达到切换距离时切换为替身，回到 [切换距离 - 范围] 以内才切回网格
+     */
+    public static int getImpostorFadeRange() {
+        return provider != null ? provider.getImpostorFadeRange() : 8;
+    }
+    
+    // ==================== 屏幕空间描边 ====================
+    
+    /**
+     * 获取描边是否使用屏幕空间后处理
+     * 开启后不再绘制背面扩张的描边几何体，改为在世界渲染结束后对 MMD 像素做一次边缘检测
+     */
+    public static boolean isToonOutlineScreenSpace() {
+        return provider != null ? provider.isToonOutlineScreenSpace() : false;
+    }
+    
+    /**
+     * 获取屏幕空间描边宽度（像素，再乘以各材质的边缘大小）
+     */
+    public static int getToonOutlineScreenWidth() {
+        return provider != null ? provider.getToonOutlineScreenWidth() : 2;
+    }
+    
+    // ==================== 遮挡剔除 ====================
+    
+    /**
+     * 获取硬件遮挡剔除启用状态
+     */
+    public static boolean isOcclusionCullingEnabled() {
+        return provider != null ? provider.isOcclusionCullingEnabled() : true;
+    }
+    
+    // ==================== 群体动画 ====================
+    
+    /**
+     * 获取 GPU 烘焙群体动画启用状态
+     */
+    public static boolean isGpuCrowdAnimationEnabled() {
+        return provider != null ? provider.isGpuCrowdAnimationEnabled() : false;
+    }
+    
     // ==================== 调试设置 ====================
     
     /**
@@ -15,9 +15,15 @@ public interface IRenderConfig {
     /** GPU Morph 启用状态（默认关闭） */
     default boolean isGpuMorphEnabled() { return false; }
 
+    /** GPU 常驻模式启用状态（默认关闭） */
+    default boolean isGpuResidentModeEnabled() { return false; }
+
     /** GPU 蒙皮最大骨骼数量（默认2048） */
     default int getMaxBones() { return 2048; }
 
+    /** GPU 蒙皮 Compute Shader 工作组大小（0 = 启动时自动测定，默认 0） */
+    default int getSkinningWorkgroupSize() { return 0; }
+
     /** 第一人称模型显示是否启用（默认 false） */
     default boolean isFirstPersonModelEnabled() { return false; }
 
@@ -32,4 +38,19 @@ public interface IRenderConfig {
 
     /** 纹理缓存 VRAM 软预算（MB），仅约束延迟释放队列（默认 256） */
     default int getTextureCacheBudgetMB() { return 256; }
+
+    /** 远景替身是否启用（默认 true） */
+    default boolean isImpostorEnabled() { return true; }
+
+    /** 切换为替身的距离（方块，默认 64） */
+    default int getImpostorDistance() { return 64; }
+
+    /** 替身切回网格的回滞范围（方块，默认 8） */
+    default int getImpostorFadeRange() { return 8; }
+
+    /** 硬件遮挡剔除是否启用（默认 true） */
+    default boolean isOcclusionCullingEnabled() { return true; }
+
+    /** 通用实体的循环动画是否以 GPU 烘焙群体动画播放（默认 false） */
+    default boolean isGpuCrowdAnimationEnabled() { return false; }
 }
@@ -34,4 +34,10 @@ public interface IToonConfig {
     default float getToonOutlineR() { return 0.0f; }
     default float getToonOutlineG() { return 0.0f; }
     default float getToonOutlineB() { return 0.0f; }
+
+    /** 描边是否使用屏幕空间后处理（默认 false，使用背面扩张） */
+    default boolean isToonOutlineScreenSpace() { return false; }
+
+    /** 屏幕空间描边宽度（像素，默认 2） */
+    default int getToonOutlineScreenWidth() { return 2; }
 }
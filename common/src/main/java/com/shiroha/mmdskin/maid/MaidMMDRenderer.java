@@ -1,9 +1,9 @@
 package com.shiroha.mmdskin.maid;
 
-import com.shiroha.mmdskin.renderer.animation.MMDAnimManager;
 import com.shiroha.mmdskin.renderer.core.EntityAnimState;
 import com.shiroha.mmdskin.renderer.core.RenderContext;
 import com.shiroha.mmdskin.renderer.model.MMDModelManager;
+import com.shiroha.mmdskin.renderer.render.EntityAnimationResolver;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.PoseStack;
 import net.minecraft.client.renderer.GameRenderer;
@@ -112,7 +112,7 @@ public class MaidMMDRenderer {
         if (entityData.stateLayers[0] != targetState) {
             entityData.stateLayers[0] = targetState;
             String animName = EntityAnimState.getPropertyName(targetState);
-            modelData.model.changeAnim(MMDAnimManager.GetAnimModel(modelData.model, animName), 0);
+            EntityAnimationResolver.playStateAnim(modelData.model, animName, 0);
         }
     }
     
@@ -1,6 +1,7 @@
 package com.shiroha.mmdskin.renderer.camera;
 
 import com.shiroha.mmdskin.NativeFunc;
+import com.shiroha.mmdskin.renderer.core.FrameClock;
 import com.shiroha.mmdskin.renderer.model.MMDModelManager;
 import com.shiroha.mmdskin.ui.network.StageNetworkHandler;
 import com.shiroha.mmdskin.ui.stage.StageSelectScreen;
@@ -154,7 +155,7 @@ public class MMDCameraController {
         computeIntroAndStandby(mc);
         
         this.introElapsed = 0.0f;
-        this.lastTickTimeNs = System.nanoTime();
+        this.lastTickTimeNs = FrameClock.now();
         this.escWasPressed = false;
         this.lastEscTimeNs = 0;
         this.mouseReleased = false;
@@ -225,7 +226,7 @@ public class MMDCameraController {
         }
         
         this.state = StageState.PLAYING;
-        this.lastTickTimeNs = System.nanoTime();
+        this.lastTickTimeNs = FrameClock.now();
         this.escWasPressed = false;
         this.lastEscTimeNs = 0;
         this.mouseReleased = false;
@@ -287,7 +288,7 @@ public class MMDCameraController {
         this.outroStartFov = cameraFov;
         
         this.outroElapsed = 0.0f;
-        this.lastTickTimeNs = System.nanoTime();
+        this.lastTickTimeNs = FrameClock.now();
         this.state = StageState.OUTRO;
         
         // 广播舞台结束到其他客户端
@@ -419,7 +420,7 @@ public class MMDCameraController {
      * INTRO 阶段：从当前相机平滑过渡到待机展示位置
      */
     private void updateIntro() {
-        long now = System.nanoTime();
+        long now = FrameClock.now();
         float deltaTime = (now - lastTickTimeNs) / 1_000_000_000.0f;
         lastTickTimeNs = now;
         deltaTime = Math.min(deltaTime, 0.1f);
@@ -452,7 +453,7 @@ public class MMDCameraController {
      * PLAYING 阶段：VMD 帧推进 + 相机数据读取
      */
     private void updatePlaying() {
-        long now = System.nanoTime();
+        long now = FrameClock.now();
         float deltaTime = (now - lastTickTimeNs) / 1_000_000_000.0f;
         lastTickTimeNs = now;
         deltaTime = Math.min(deltaTime, 0.1f);
@@ -492,7 +493,7 @@ public class MMDCameraController {
      * OUTRO 阶段：从 VMD 最后一帧平滑过渡回待机展示位置
      */
     private void updateOutro() {
-        long now = System.nanoTime();
+        long now = FrameClock.now();
         float deltaTime = (now - lastTickTimeNs) / 1_000_000_000.0f;
         lastTickTimeNs = now;
         deltaTime = Math.min(deltaTime, 0.1f);
@@ -21,6 +21,11 @@ public final class EyeTrackingHelper {
     /** 最小水平距离阈值，避免除零 */
     private static final float MIN_HORIZONTAL_DIST = 0.01f;
     
+    /** computeEyeTracking 结果：不修改眼球追踪状态 / 禁用 / 启用并写出角度 */
+    public static final int EYE_UNCHANGED = 0;
+    public static final int EYE_DISABLED = 1;
+    public static final int EYE_ENABLED = 2;
+    
     private EyeTrackingHelper() {
         // 工具类，禁止实例化
     }
@@ -58,15 +63,53 @@ public final class EyeTrackingHelper {
         updateEyeTrackingInternal(nf, modelHandle, entity, entityYaw, tickDelta, MAX_EYE_ANGLE);
     }
     
+    /**
+     * 计算眼球追踪输入（不调用 native，供逐帧命令缓冲区编码）
+     * 
+     * @param out 写出 最大角度、上下角度、左右角度（弧度），仅返回 EYE_ENABLED 时有效
+     * @param offset out 中的起始位置
+     * @return EYE_UNCHANGED / EYE_DISABLED / EYE_ENABLED
+     */
+    public static int computeEyeTracking(LivingEntity entity, float entityYaw, float tickDelta,
+            String modelName, float[] out, int offset) {
+        ModelConfigData modelConfig = ModelConfigManager.getConfig(modelName);
+        if (!modelConfig.eyeTrackingEnabled) {
+            return EYE_DISABLED;
+        }
+        out[offset] = modelConfig.eyeMaxAngle;
+        if (!computeEyeAngles(entity, entityYaw, tickDelta, modelConfig.eyeMaxAngle, out, offset + 1)) {
+            return EYE_UNCHANGED;
+        }
+        return EYE_ENABLED;
+    }
+    
     /**
      * 眼球追踪内部实现
      */
     private static void updateEyeTrackingInternal(NativeFunc nf, long modelHandle, 
             LivingEntity entity, float entityYaw, float tickDelta, float maxAngle) {
+        float[] angles = new float[2];
+        if (!computeEyeAngles(entity, entityYaw, tickDelta, maxAngle, angles, 0)) {
+            return;
+        }
+        
+        // 启用眼球追踪并设置角度
+        nf.SetEyeTrackingEnabled(modelHandle, true);
+        nf.SetEyeMaxAngle(modelHandle, maxAngle);
+        nf.SetEyeAngle(modelHandle, angles[0], angles[1]);
+    }
+    
+    /**
+     * 计算看向摄像头的眼球角度（上下、左右，弧度），写入 out[offset]、out[offset + 1]
+     * 
+     * @return 是否计算成功（玩家或摄像头不可用时返回 false）
+     */
+    private static boolean computeEyeAngles(LivingEntity entity, float entityYaw, float tickDelta,
+            float maxAngle, float[] out, int offset) {
         
         Minecraft mc = Minecraft.getInstance();
         if (mc.player == null || mc.gameRenderer == null) {
-            return;
+            return false;
         }
         
         // 获取摄像头位置
@@ -111,10 +154,9 @@ public final class EyeTrackingHelper {
         eyeAngleX = Mth.clamp(eyeAngleX, -maxAngle, maxAngle);
         eyeAngleY = Mth.clamp(eyeAngleY, -maxAngle, maxAngle);
         
-        // 启用眼球追踪并设置角度
-        nf.SetEyeTrackingEnabled(modelHandle, true);
-        nf.SetEyeMaxAngle(modelHandle, maxAngle);
-        nf.SetEyeAngle(modelHandle, eyeAngleX, eyeAngleY);
+        out[offset] = eyeAngleX;
+        out[offset + 1] = eyeAngleY;
+        return true;
     }
     
     /**
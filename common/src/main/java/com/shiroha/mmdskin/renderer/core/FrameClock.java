@@ -0,0 +1,62 @@
+package com.shiroha.mmdskin.renderer.core;
+
+/**
+ * 渲染帧时钟
+ *
+ * 每帧开始时由 GameRenderer Mixin 推进一次，并采样一次 System.nanoTime 作为本帧时间戳。
+ * 所有 MMD 模型、舞台相机与舞台播放共享同一时间戳，保证同一帧内各处的 deltaTime 一致。
+ * 同一模型在一帧内可能被渲染多次（Iris 阴影 pass、主 pass、第一人称、物品栏预览），
+ * 模型以帧序号为键，只在本帧首次渲染时更新姿态并蒙皮，其余 pass 复用结果。
+ */
+public final class FrameClock {
+    /** 单帧最大间隔（秒），防止卡顿/暂停后动画跳跃 */
+    public static final float MAX_FRAME_DELTA = 0.25f;
+
+    private static long frameIndex = 0;
+    private static long frameTimeNanos = 0;
+    private static float frameDeltaSeconds = 0.0f;
+
+    private FrameClock() {}
+
+    /**
+     * 新一帧开始（渲染线程，GameRenderer.render 入口调用）
+     */
+    public static void beginFrame() {
+        long now = System.nanoTime();
+        if (frameIndex > 0) {
+            float delta = (now - frameTimeNanos) / 1_000_000_000.0f;
+            frameDeltaSeconds = Math.max(0.0f, Math.min(delta, MAX_FRAME_DELTA));
+        }
+        frameTimeNanos = now;
+        frameIndex++;
+    }
+
+    /**
+     * 获取当前帧序号
+     */
+    public static long getFrameIndex() {
+        return frameIndex;
+    }
+
+    /**
+     * 帧计数器是否在推进（Mixin 未生效时为 false，调用方应退回逐次更新）
+     */
+    public static boolean isActive() {
+        return frameIndex > 0;
+    }
+
+    /**
+     * 获取当前时间（纳秒）
+     * 帧时钟生效时返回本帧采样的时间戳，否则退回实时 System.nanoTime
+     */
+    public static long now() {
+        return frameIndex > 0 ? frameTimeNanos : System.nanoTime();
+    }
+
+    /**
+     * 获取上一帧到本帧的间隔（秒，已限制在 MAX_FRAME_DELTA 内）
+     */
+    public static float getFrameDeltaSeconds() {
+        return frameDeltaSeconds;
+    }
+}
@@ -3,6 +3,7 @@ package com.shiroha.mmdskin.renderer.core;
 import com.mojang.blaze3d.vertex.PoseStack;
 
 import net.minecraft.world.entity.Entity;
+import org.joml.Matrix4f;
 import org.joml.Vector3f;
 
 /**
@@ -45,6 +46,26 @@ public interface IMMDModel {
      */
     void transitionAnim(long anim, long layer, float transitionTime);
 
+    /**
+     * 以群体动画方式播放循环动画（基础层）：动画按模型烘焙一次，之后每帧只在 GPU 上按帧号插值骨骼矩阵，
+     * 不经过 Rust 端逐帧求值；头部/眼球追踪、自动眨眼与物理不生效
+     * 
+     * @param anim 动画句柄
+     * @param clipKey 动画在模型内的唯一名称（同一模型目录下的实例共享烘焙结果）
+     * @param transitionTime 过渡时间（秒），0 = 立即切换
+     * @return 是否进入群体动画；false 时调用方应改用 changeAnim（模型不支持、含物理动态骨骼等）
+     */
+    default boolean playCrowdAnim(long anim, String clipKey, float transitionTime) { return false; }
+
+    /**
+     * 取本帧姿态更新时随命令输出一并取回的手部矩阵（物品渲染用）
+     * 
+     * @param rightHand true=右手，false=左手
+     * @param dst 输出矩阵
+     * @return 是否有本帧的结果；false 时调用方应直接向 native 查询
+     */
+    default boolean copyHandMatrix(boolean rightHand, Matrix4f dst) { return false; }
+
     /**
      * 设置动画层是否循环播放
      * 
@@ -4,6 +4,8 @@ import com.shiroha.mmdskin.NativeFunc;
 import com.shiroha.mmdskin.config.ConfigManager;
 import com.shiroha.mmdskin.renderer.model.MMDModelManager;
 import com.shiroha.mmdskin.renderer.resource.MMDTextureManager;
+import com.shiroha.mmdskin.renderer.shader.GpuBufferArena;
+import com.shiroha.mmdskin.renderer.shader.SkinningBatch;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.Font;
@@ -141,6 +143,10 @@ public class PerformanceHud {
         addLine(String.format("  RAM    %s", fmtB(totalRam)), VALUE_COLOR);
         addLine(String.format("  VRAM   %s (\u6a21\u578b %s + \u7eb9\u7406 %s)",
                 fmtB(totalMmdVram), fmtB(totalVram), fmtB(texVram)), VALUE_COLOR);
+        // 缓冲区池与共享蒙皮存储按实际容量计（含未分配的空闲空间）
+        addLine(String.format("  \u7f13\u51b2\u6c60 \u5df2\u7528 %s / \u5bb9\u91cf %s  \u8499\u76ae %s",
+                fmtB(GpuBufferArena.getTotalUsed()), fmtB(GpuBufferArena.getTotalCapacity()),
+                fmtB(SkinningBatch.getVramUsage())), LABEL_COLOR);
         
         // ===== 模型详情 =====
         if (!models.isEmpty()) {
@@ -1,10 +1,19 @@
 package com.shiroha.mmdskin.renderer.model;
 
 import com.shiroha.mmdskin.NativeFunc;
+import com.shiroha.mmdskin.config.ConfigManager;
 import com.shiroha.mmdskin.renderer.camera.MMDCameraController;
 import com.shiroha.mmdskin.renderer.core.EyeTrackingHelper;
+import com.shiroha.mmdskin.renderer.core.FrameClock;
 import com.shiroha.mmdskin.renderer.core.IMMDModel;
+import com.shiroha.mmdskin.renderer.core.IrisCompat;
 import com.shiroha.mmdskin.renderer.core.RenderContext;
+import com.shiroha.mmdskin.renderer.shader.GpuBufferArena;
+import com.shiroha.mmdskin.renderer.shader.GpuBufferRange;
+import com.shiroha.mmdskin.renderer.shader.ToonConfig;
+import com.shiroha.mmdskin.renderer.shader.ToonMaterialBlock;
+import com.shiroha.mmdskin.renderer.shader.ToonOutlinePass;
+import com.shiroha.mmdskin.renderer.shader.ToonShaderBase;
 import com.mojang.blaze3d.platform.Window;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.PoseStack;
@@ -15,8 +24,10 @@ import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.LivingEntity;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joml.Matrix4f;
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
+import org.lwjgl.opengl.GL46C;
 import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
@@ -32,6 +43,9 @@ import java.util.List;
  * - 模型名称缓存
  * - 材质 Morph 结果处理
  * - Shader Uniform 设置
+ * - 网格 LOD 与远景替身（Impostor）层级选择
+ * - 硬件遮挡剔除（被遮挡时仅推进动画时钟）
+ * - 世界渲染前的姿态预处理（供批量蒙皮统一分派）
  */
 public abstract class AbstractMMDModel implements IMMDModel {
     protected static final Logger logger = LogManager.getLogger();
@@ -40,20 +54,74 @@ public abstract class AbstractMMDModel implements IMMDModel {
     protected static final float MAX_DELTA_TIME = 0.25f;
     protected static final float MODEL_SCALE = 0.09f;
 
+    /** 模型在屏幕上的高度占比低于阈值时切换到对应 LOD 级别（依次为级别 1、2、3） */
+    private static final float[] LOD_SCREEN_THRESHOLDS = {0.25f, 0.12f, 0.05f};
+
     protected long model;
     protected String modelDir;
     private String cachedModelName;
 
-    // 时间追踪
+    // 时间追踪（纳秒，来自 FrameClock）
     protected long lastUpdateTime = -1;
 
+    // 逐帧蒙皮复用：同一帧内仅首次渲染更新姿态并蒙皮
+    private long lastSkinnedFrame = -1;
+    private boolean skinningReused = false;
+    private long lastOcclusionFrame = -1;
+
+    // 世界渲染前预处理：记录本帧世界中绘制网格时的实体输入，下一帧入口据此提前更新姿态
+    private Entity prepassEntity;
+    private float prepassYaw;
+    private RenderContext prepassContext;
+
+    // 本帧实体输入（编码进逐帧命令，随姿态更新一并提交）
+    private final float[] entityInput = new float[FrameCommandBuffer.INPUT_FLOATS];
+    private int entityInputFlags = 0;
+
+    // 左右手矩阵（随逐帧命令输出取回，本帧物品渲染直接使用）
+    private final Matrix4f rightHandMatrix = new Matrix4f();
+    private final Matrix4f leftHandMatrix = new Matrix4f();
+    private long handMatrixFrame = -1;
+
+    // 最新 CPU 蒙皮输出所在的双缓冲分配序号（随逐帧命令输出取回）
+    private int skinningOutputSlot = 0;
+
+    /** 绘制时更新（本帧未经预处理）使用的单条命令缓冲区 */
+    private static FrameCommandBuffer immediateCommands;
+
     // 预分配临时对象
     protected final Quaternionf tempQuat = new Quaternionf();
+    private final Vector3f tempViewPos = new Vector3f();
+
+    // 网格 LOD（索引缓冲中原始索引之后拼接各级简化索引）
+    protected int lodLevelCount = 0;
+    protected long lodIndexCount = 0;
+    private int currentLodLevel = 0;
+
+    // 远景替身（懒创建，首次进入替身距离时分配 FBO）
+    private ImpostorAtlas impostor;
+    private final Matrix4f impostorPose = new Matrix4f();
+    private final Matrix4f impostorInverse = new Matrix4f();
+    private final Vector3f impostorViewDir = new Vector3f();
+    /** 当前是否处于替身层级（回滞切换） */
+    private boolean impostorActive = false;
 
-    // 材质 Morph
+    // 硬件遮挡查询（懒创建）
+    private OcclusionQuery occlusionQuery;
+
+    // 材质 Morph（materialMorphDirty：拉取了新结果，逐材质 Uniform 块尚未刷新）
     protected FloatBuffer materialMorphResultsBuffer;
     protected ByteBuffer materialMorphResultsByteBuffer;
     protected int materialMorphResultCount = 0;
+    private boolean materialMorphDirty = false;
+
+    // 材质边缘参数（屏幕空间描边用，首次使用时拉取）
+    private ByteBuffer materialEdgeDataBuf;
+    private int materialEdgeCount = -1;
+    protected final float[] screenOutlineEdge = new float[4];
+
+    // 逐材质 Toon Uniform 块（首次 Toon 绘制时构建）
+    private ToonMaterialBlock toonMaterialBlock;
 
     // 纹理引用键（dispose 时用于批量释放引用计数）
     protected List<String> textureKeys;
@@ -73,23 +141,54 @@ public abstract class AbstractMMDModel implements IMMDModel {
                        int packedLight, RenderContext context) {
         if (model == 0 || !isReady()) return;
 
-        if (entityIn instanceof LivingEntity living) {
-            handleLivingEntity(living, entityYaw, entityPitch, entityTrans,
-                    tickDelta, mat, packedLight, context);
+        // 遮挡剔除：包围盒上一次查询完全被遮挡时跳过姿态评估、蒙皮与绘制，仅推进动画时钟
+        if (testOccluded(entityIn, mat, context)) {
+            advanceAnimationClock();
             return;
         }
-        update();
+
+        updateLodLevel(entityIn, mat, context);
+
+        // 远景替身：处于替身层级时只绘制公告板（尚无可用视角时回退到网格）
+        if (updateImpostorState(entityIn, mat, context)) {
+            impostorPose.set(mat.last().pose());
+            if (renderImpostor(entityIn, entityYaw, entityPitch, entityTrans, tickDelta, packedLight, context)) {
+                return;
+            }
+        }
+
+        // 世界中绘制网格：记录实体输入，下一帧世界渲染入口据此预处理姿态
+        if (context.isWorldScene() && !context.isFirstPerson() && !context.isMirror()) {
+            prepassEntity = entityIn;
+            prepassYaw = entityYaw;
+            prepassContext = context;
+            onPrepassRecorded();
+        }
+
+        // 本帧已蒙皮（预处理 / 阴影 pass / 第一人称 / 物品栏等后续 pass）：跳过姿态更新，直接复用蒙皮结果
+        long frame = FrameClock.getFrameIndex();
+        skinningReused = FrameClock.isActive() && frame == lastSkinnedFrame;
+        lastSkinnedFrame = frame;
+        if (!skinningReused) {
+            if (entityIn instanceof LivingEntity living) {
+                recordLivingEntityState(living, entityYaw, tickDelta, context);
+            }
+            // 姿态与 Morph 权重和上一次蒙皮一致（静止模型）：缓冲区内容仍有效，同样跳过拷贝、上传与分派
+            skinningReused = updateImmediate(consumeDeltaTime());
+        }
         doRenderModel(entityIn, entityYaw, entityPitch, entityTrans, mat, packedLight);
     }
 
     @Override
     public void changeAnim(long anim, long layer) {
         if (model != 0) getNf().ChangeModelAnim(model, anim, layer);
+        invalidateImpostor();
     }
 
     @Override
     public void transitionAnim(long anim, long layer, float transitionTime) {
         if (model != 0) getNf().TransitionLayerTo(model, layer, anim, transitionTime);
+        invalidateImpostor();
     }
 
     @Override
@@ -119,16 +218,21 @@ public abstract class AbstractMMDModel implements IMMDModel {
     // ===== 公共逻辑（模板方法） =====
 
     /**
-     * 处理 LivingEntity 的公共逻辑：头部角度、眼球追踪、物理位置
+     * 记录 LivingEntity 的公共输入：头部角度、眼球追踪、物理位置（随下一条逐帧命令提交）
      */
-    private void handleLivingEntity(LivingEntity entityIn, float entityYaw, float entityPitch,
-                                     Vector3f entityTrans, float tickDelta, PoseStack mat,
-                                     int packedLight, RenderContext context) {
+    private void recordLivingEntityState(LivingEntity entityIn, float entityYaw, float tickDelta,
+                                         RenderContext context) {
+        // 群体动画不经过 Rust 端求值，头部、眼球与物理输入均不生效
+        entityInputFlags = 0;
+        if (isCrowdPlayback()) return;
+
         boolean stagePlaying = MMDCameraController.getInstance().isStagePlayingModel(model);
+        int flags = FrameCommandBuffer.FLAG_ENTITY_INPUT;
 
         // 头部角度（舞台播放时归零，由 VMD 动画控制）
         if (stagePlaying) {
-            getNf().SetHeadAngle(model, 0.0f, 0.0f, 0.0f, context.isWorldScene());
+            entityInput[FrameCommandBuffer.INPUT_HEAD] = 0.0f;
+            entityInput[FrameCommandBuffer.INPUT_HEAD + 1] = 0.0f;
         } else {
             float headAngleX = Mth.clamp(entityIn.getXRot(), -50.0f, 50.0f);
             float headAngleY = (entityYaw - Mth.lerp(tickDelta, entityIn.yHeadRotO, entityIn.yHeadRot)) % 360.0f;
@@ -136,46 +240,427 @@ public abstract class AbstractMMDModel implements IMMDModel {
             else if (headAngleY > 180.0f) headAngleY -= 360.0f;
             headAngleY = Mth.clamp(headAngleY, -80.0f, 80.0f);
 
-            float pitchRad = headAngleX * ((float) Math.PI / 180F);
-            float yawRad = context.isInventoryScene()
+            entityInput[FrameCommandBuffer.INPUT_HEAD] = headAngleX * ((float) Math.PI / 180F);
+            entityInput[FrameCommandBuffer.INPUT_HEAD + 1] = context.isInventoryScene()
                     ? -headAngleY * ((float) Math.PI / 180F)
                     : headAngleY * ((float) Math.PI / 180F);
-            getNf().SetHeadAngle(model, pitchRad, yawRad, 0.0f, context.isWorldScene());
         }
+        entityInput[FrameCommandBuffer.INPUT_HEAD + 2] = 0.0f;
 
         // 眼球追踪
         if (!stagePlaying) {
-            EyeTrackingHelper.updateEyeTracking(getNf(), model, entityIn, entityYaw, tickDelta, getModelName());
+            int eyeState = EyeTrackingHelper.computeEyeTracking(entityIn, entityYaw, tickDelta, getModelName(),
+                    entityInput, FrameCommandBuffer.INPUT_EYE);
+            if (eyeState == EyeTrackingHelper.EYE_ENABLED) {
+                flags |= FrameCommandBuffer.FLAG_EYE_SET | FrameCommandBuffer.FLAG_EYE_ENABLED;
+            } else if (eyeState == EyeTrackingHelper.EYE_DISABLED) {
+                flags |= FrameCommandBuffer.FLAG_EYE_SET;
+            }
         }
 
-        // 传递实体位置和朝向给物理系统（用于人物移动时的惯性效果）
-        float posX = (float)(Mth.lerp(tickDelta, entityIn.xo, entityIn.getX()) * MODEL_SCALE);
-        float posY = (float)(Mth.lerp(tickDelta, entityIn.yo, entityIn.getY()) * MODEL_SCALE);
-        float posZ = (float)(Mth.lerp(tickDelta, entityIn.zo, entityIn.getZ()) * MODEL_SCALE);
-        float bodyYaw = Mth.lerp(tickDelta, entityIn.yBodyRotO, entityIn.yBodyRot) * ((float) Math.PI / 180F);
-        getNf().SetModelPositionAndYaw(model, posX, posY, posZ, bodyYaw);
+        // 实体位置和朝向（物理系统用于人物移动时的惯性效果）
+        entityInput[FrameCommandBuffer.INPUT_POSITION] = (float)(Mth.lerp(tickDelta, entityIn.xo, entityIn.getX()) * MODEL_SCALE);
+        entityInput[FrameCommandBuffer.INPUT_POSITION + 1] = (float)(Mth.lerp(tickDelta, entityIn.yo, entityIn.getY()) * MODEL_SCALE);
+        entityInput[FrameCommandBuffer.INPUT_POSITION + 2] = (float)(Mth.lerp(tickDelta, entityIn.zo, entityIn.getZ()) * MODEL_SCALE);
+        entityInput[FrameCommandBuffer.INPUT_POSITION + 3] = Mth.lerp(tickDelta, entityIn.yBodyRotO, entityIn.yBodyRot) * ((float) Math.PI / 180F);
+        entityInputFlags = flags;
+    }
 
-        update();
-        doRenderModel(entityIn, entityYaw, entityPitch, entityTrans, mat, packedLight);
+    /**
+     * 把实体输入与姿态更新编码为一条逐帧命令（实体输入随之清除）
+     *
+     * @param withMaterialMorphs 是否请求回传材质 Morph 结果
+     * @return 命令序号
+     */
+    int encodeCommand(FrameCommandBuffer commands, float deltaTime, boolean withMaterialMorphs) {
+        int flags = entityInputFlags | FrameCommandBuffer.FLAG_HAND_MATRICES;
+        if (getPrepassUpdateMode() == FramePrepass.UPDATE_FULL) flags |= FrameCommandBuffer.FLAG_FULL_UPDATE;
+        entityInputFlags = 0;
+        return commands.append(model, deltaTime, flags, entityInput,
+                withMaterialMorphs ? getCommandMaterialMorphFloats() : 0);
     }
 
     /**
-     * deltaTime 计算 + 调用子类更新（模板方法）
+     * 读取逐帧命令的输出：左右手矩阵与（姿态变化时的）材质 Morph 结果
+     *
+     * @return 姿态与 Morph 权重是否与上一次蒙皮一致
      */
-    protected void update() {
-        long currentTime = System.currentTimeMillis();
+    boolean acceptCommandOutput(FrameCommandBuffer commands, int index) {
+        int flags = commands.outputFlags(index);
+        ByteBuffer output = commands.output();
+        int base = commands.outputOffset(index);
+        skinningOutputSlot = (flags & FrameCommandBuffer.OUT_SKIN_SLOT) != 0 ? 1 : 0;
+        if ((flags & FrameCommandBuffer.OUT_HAND_MATRICES) != 0) {
+            readMatrix(output, base + 16, rightHandMatrix);
+            readMatrix(output, base + 80, leftHandMatrix);
+            handMatrixFrame = FrameClock.getFrameIndex();
+        }
+        if ((flags & FrameCommandBuffer.OUT_MATERIAL_MORPHS) != 0) {
+            int floats = getCommandMaterialMorphFloats();
+            MemoryUtil.memCopy(MemoryUtil.memAddress(output, base + FrameCommandBuffer.OUTPUT_HEADER_BYTES),
+                    MemoryUtil.memAddress0(materialMorphResultsBuffer), (long) floats * 4);
+            materialMorphResultsBuffer.position(0).limit(floats);
+            materialMorphDirty = true;
+        }
+        return (flags & FrameCommandBuffer.OUT_POSE_UNCHANGED) != 0;
+    }
+
+    /** 读取列主序 4x4 矩阵 */
+    private static void readMatrix(ByteBuffer buf, int offset, Matrix4f dst) {
+        dst.set(buf.getFloat(offset), buf.getFloat(offset + 4), buf.getFloat(offset + 8), buf.getFloat(offset + 12),
+                buf.getFloat(offset + 16), buf.getFloat(offset + 20), buf.getFloat(offset + 24), buf.getFloat(offset + 28),
+                buf.getFloat(offset + 32), buf.getFloat(offset + 36), buf.getFloat(offset + 40), buf.getFloat(offset + 44),
+                buf.getFloat(offset + 48), buf.getFloat(offset + 52), buf.getFloat(offset + 56), buf.getFloat(offset + 60));
+    }
+
+    /**
+     * 最新 CPU 蒙皮输出所在的双缓冲分配序号（0/1，对应 NativeFunc.GetSkinningOutputView 的 slot）
+     */
+    protected int getSkinningOutputSlot() {
+        return skinningOutputSlot;
+    }
+
+    /**
+     * 逐帧命令回传的材质 Morph 结果 float 数（0 = 不需要，如 GPU 端求值材质 Morph 的模型）
+     */
+    protected int getCommandMaterialMorphFloats() {
+        return materialMorphResultsBuffer != null ? materialMorphResultCount * 56 : 0;
+    }
+
+    /**
+     * 绘制时更新姿态（本帧未经预处理）：实体输入与姿态更新合并为单条逐帧命令提交
+     * 群体动画等本地更新的模型直接调用 onUpdate
+     *
+     * @param deltaTime 时间步（秒），0 = 只应用实体输入
+     * @return 姿态与 Morph 权重是否与上一次蒙皮一致
+     */
+    private boolean updateImmediate(float deltaTime) {
+        if (getPrepassUpdateMode() == FramePrepass.UPDATE_LOCAL) {
+            entityInputFlags = 0;
+            if (deltaTime > 0.0f) onUpdate(deltaTime);
+            return isPoseUnchanged();
+        }
+        if (immediateCommands == null) immediateCommands = new FrameCommandBuffer();
+        immediateCommands.reset();
+        int index = encodeCommand(immediateCommands, deltaTime, false);
+        immediateCommands.execute(getNf());
+        return acceptCommandOutput(immediateCommands, index);
+    }
+
+    @Override
+    public boolean copyHandMatrix(boolean rightHand, Matrix4f dst) {
+        if (!FrameClock.isActive() || handMatrixFrame != FrameClock.getFrameIndex()) return false;
+        dst.set(rightHand ? rightHandMatrix : leftHandMatrix);
+        return true;
+    }
+
+    /**
+     * 世界渲染前预处理第一阶段：按上一帧记录的实体重新计算本帧实体输入，并取出本帧时间步（由 FramePrepass 编码为逐帧命令统一提交）
+     * 本帧随后的渲染视为已蒙皮并直接复用结果；记录在使用后清除，下一帧未在世界中绘制网格的模型（被剔除、仅替身）自动退出
+     *
+     * @return 本帧时间步（秒，0 = 无需更新姿态）；小于 0 表示不参与本帧预处理（模型不可用或本帧已更新）
+     */
+    float beginPrepass(float tickDelta) {
+        Entity entity = prepassEntity;
+        RenderContext context = prepassContext;
+        prepassEntity = null;
+        prepassContext = null;
+        if (model == 0 || !isReady() || entity == null || entity.isRemoved() || !FrameClock.isActive()) return -1.0f;
+
+        long frame = FrameClock.getFrameIndex();
+        if (frame == lastSkinnedFrame) return -1.0f;
+        lastSkinnedFrame = frame;
+        if (entity instanceof LivingEntity living) {
+            recordLivingEntityState(living, prepassYaw, tickDelta, context);
+        }
+        return consumeDeltaTime();
+    }
+
+    /**
+     * 姿态的更新方式：FramePrepass.UPDATE_ANIMATION / UPDATE_FULL 编码为逐帧命令由 Rust 端更新，
+     * FramePrepass.UPDATE_LOCAL 直接调用 onUpdate
+     */
+    protected int getPrepassUpdateMode() {
+        return FramePrepass.UPDATE_LOCAL;
+    }
+
+    /**
+     * 世界渲染前预处理第三阶段：本帧姿态已更新，提交蒙皮结果（材质 Morph 结果已随命令输出取回）
+     *
+     * @param poseUnchanged 姿态与 Morph 权重是否与上一次蒙皮一致（一致时可跳过）
+     */
+    protected void finishPrepass(boolean poseUnchanged) {
+    }
+
+    /**
+     * 姿态与 Morph 权重是否与上一次蒙皮一致（一致时复用蒙皮结果）
+     */
+    protected boolean isPoseUnchanged() {
+        return getNf().IsPoseUnchanged(model);
+    }
+
+    /**
+     * 是否正在以群体动画播放（姿态由 GPU 按烘焙帧求值，不需要实体状态输入）
+     */
+    protected boolean isCrowdPlayback() {
+        return false;
+    }
+
+    /** 动画已切换：作废远景替身的已捕获视角 */
+    protected void invalidateImpostor() {
+        if (impostor != null) impostor.invalidate();
+    }
+
+    /**
+     * 本帧记录了预处理输入时调用：登记到下一帧的世界渲染前预处理
+     */
+    protected void onPrepassRecorded() {
+        FramePrepass.schedule(this);
+    }
+
+    /**
+     * 仅推进动画时钟（不评估姿态、不蒙皮），用于被遮挡的帧
+     * 与姿态更新共用时间基准，重新可见后的首次更新不会重复推进
+     */
+    protected void advanceAnimationClock() {
+        float deltaTime = consumeDeltaTime();
+        if (deltaTime > 0.0f) onAdvanceClock(deltaTime);
+    }
+
+    /**
+     * 仅推进动画时钟的子类实现（默认推进 Rust 端动画层时钟）
+     */
+    protected void onAdvanceClock(float deltaTime) {
+        getNf().AdvanceAnimationClock(model, deltaTime);
+    }
+
+    /**
+     * 取出距上次更新经过的时间（秒），无需推进时返回 0
+     * 时间取自共享帧时钟：同一帧内重复调用返回 0；
+     * 被剔除后重新进入视野的模型（间隔超过 MAX_DELTA_TIME）按本帧全局间隔推进，避免动画跳跃
+     */
+    private float consumeDeltaTime() {
+        long currentTime = FrameClock.now();
         if (lastUpdateTime < 0) {
             lastUpdateTime = currentTime;
-            return;
+            return 0.0f;
         }
 
-        float deltaTime = (currentTime - lastUpdateTime) / 1000.0f;
+        float deltaTime = (currentTime - lastUpdateTime) / 1_000_000_000.0f;
+        if (deltaTime <= 0.0f) return 0.0f;
         lastUpdateTime = currentTime;
 
-        if (deltaTime <= 0.0f) return;
-        if (deltaTime > MAX_DELTA_TIME) deltaTime = MAX_DELTA_TIME;
+        if (deltaTime > MAX_DELTA_TIME) {
+            float frameDelta = FrameClock.isActive() ? FrameClock.getFrameDeltaSeconds() : 0.0f;
+            deltaTime = frameDelta > 0.0f ? frameDelta : MAX_DELTA_TIME;
+        }
+        return deltaTime;
+    }
+
+    /**
+     * 硬件遮挡测试：基于上一次查询结果判定，并为下一帧发起新查询
+     * 仅世界场景的第三人称渲染参与；Iris 光影（阴影 pass 需要完整姿态）与舞台播放中的模型始终按可见处理
+     */
+    private boolean testOccluded(Entity entityIn, PoseStack mat, RenderContext context) {
+        if (entityIn == null || !ConfigManager.isOcclusionCullingEnabled()
+                || !context.isWorldScene() || context.isFirstPerson() || context.isMirror()
+                || IrisCompat.isIrisShaderActive()
+                || MMDCameraController.getInstance().isStagePlayingModel(model)) {
+            if (occlusionQuery != null) occlusionQuery.reset();
+            return false;
+        }
+        // 同一帧内已查询过（后续 pass）：不再重复查询
+        if (FrameClock.isActive()) {
+            long frame = FrameClock.getFrameIndex();
+            if (frame == lastOcclusionFrame) return false;
+            lastOcclusionFrame = frame;
+        }
+
+        if (occlusionQuery == null) occlusionQuery = new OcclusionQuery();
+        return occlusionQuery.testOccluded(mat.last().pose(), getModelScale() / MODEL_SCALE);
+    }
+
+    /**
+     * 更新远景替身层级：距离达到切换距离时切换为替身，回到 [切换距离 - 回滞范围] 以内才切回网格
+     * 网格与替身硬切换、不叠加绘制；回滞区间避免在切换距离附近来回切换
+     * 仅世界场景的第三人称渲染使用替身；Iris 光影与舞台播放中的模型始终渲染网格
+     */
+    private boolean updateImpostorState(Entity entityIn, PoseStack mat, RenderContext context) {
+        // 镜子/第一人称等同帧内的其他 pass：只绘制网格，不改变世界中的层级
+        if (!context.isWorldScene() || context.isFirstPerson() || context.isMirror()) return false;
+        if (entityIn == null || !ConfigManager.isImpostorEnabled()
+                || (impostor != null && !impostor.isSupported())
+                || IrisCompat.isIrisShaderActive()
+                || MMDCameraController.getInstance().isStagePlayingModel(model)) {
+            impostorActive = false;
+            return false;
+        }
 
-        onUpdate(deltaTime);
+        float distance = mat.last().pose().getTranslation(tempViewPos).length();
+        float far = ConfigManager.getImpostorDistance();
+        float band = Math.min(ConfigManager.getImpostorFadeRange(), far);
+        if (distance >= far) {
+            impostorActive = true;
+        } else if (distance < far - band) {
+            impostorActive = false;
+        }
+        return impostorActive;
+    }
+
+    /**
+     * 绘制远景替身，当前视角过期且本帧仍有捕获名额时先重新捕获
+     *
+     * @return 是否绘制了替身（尚无可用视角时返回 false，调用方回退到网格渲染）
+     */
+    private boolean renderImpostor(Entity entityIn, float entityYaw, float entityPitch, Vector3f entityTrans,
+                                   float tickDelta, int packedLight, RenderContext context) {
+        if (impostor == null) impostor = new ImpostorAtlas();
+
+        // 相机在模型外层坐标系中的位置 → 模型指向相机的水平方向
+        impostorInverse.set(impostorPose).invert().getTranslation(impostorViewDir);
+        impostorViewDir.y = 0.0f;
+        if (impostorViewDir.lengthSquared() < 1.0e-6f) return false;
+        impostorViewDir.normalize();
+
+        float relativeYaw = entityYaw + (float) Math.toDegrees(Math.atan2(impostorViewDir.x, impostorViewDir.z));
+        int view = ImpostorAtlas.selectView(relativeYaw);
+        float configScale = getModelScale() / MODEL_SCALE;
+
+        if (impostor.isViewStale(view) && ImpostorAtlas.tryAcquireCaptureSlot()) {
+            if (entityIn instanceof LivingEntity living) {
+                recordLivingEntityState(living, entityYaw, tickDelta, context);
+            }
+            advanceImpostorPose();
+            skinningReused = false;
+            lastSkinnedFrame = FrameClock.getFrameIndex();
+            PoseStack captureStack = impostor.beginCapture(view, configScale);
+            if (captureStack != null) {
+                doRenderModel(entityIn, ImpostorAtlas.viewYaw(view), entityPitch, entityTrans, captureStack, packedLight);
+                impostor.endCapture(view);
+            }
+        }
+
+        if (!impostor.hasView(view)) return false;
+        impostor.draw(impostorPose, view, configScale, impostorViewDir.x, impostorViewDir.z);
+        return true;
+    }
+
+    /**
+     * 替身捕获前推进姿态：两次捕获之间模型不更新，按实际经过时间（上限 MAX_DELTA_TIME）一次性推进
+     */
+    private void advanceImpostorPose() {
+        long currentTime = FrameClock.now();
+        float deltaTime = 0.0f;
+        if (lastUpdateTime >= 0) {
+            deltaTime = Math.min((currentTime - lastUpdateTime) / 1_000_000_000.0f, MAX_DELTA_TIME);
+        }
+        lastUpdateTime = currentTime;
+        updateImmediate(Math.max(deltaTime, 0.0f));
+    }
+
+    /**
+     * 按模型在屏幕上的投影高度选择 LOD 级别
+     * 仅世界场景的第三人称渲染使用简化网格，物品栏/第一人称始终使用原始网格
+     */
+    private void updateLodLevel(Entity entityIn, PoseStack mat, RenderContext context) {
+        if (lodLevelCount <= 0) return;
+
+        int level = 0;
+        if (context.isWorldScene() && !context.isFirstPerson()) {
+            float distance = Math.max(mat.last().pose().getTranslation(tempViewPos).length(), 0.01f);
+            float height = entityIn != null ? entityIn.getBbHeight() : 1.8f;
+            // 投影矩阵 m11 = 1 / tan(fov / 2)，得到模型高度占屏幕高度的比例
+            float screenRatio = height * RenderSystem.getProjectionMatrix().m11() / (2.0f * distance);
+            int maxLevel = Math.min(lodLevelCount, LOD_SCREEN_THRESHOLDS.length);
+            while (level < maxLevel && screenRatio < LOD_SCREEN_THRESHOLDS[level]) {
+                level++;
+            }
+        }
+
+        if (level != currentLodLevel) {
+            getNf().SetLodLevel(model, level);
+            currentLodLevel = level;
+        }
+    }
+
+    /**
+     * 从缓冲区池分配区间，失败时抛出异常（由 createFromHandle 的异常清理路径处理）
+     */
+    protected static GpuBufferRange allocateRange(GpuBufferArena.Usage usage, long bytes) {
+        GpuBufferRange range = GpuBufferArena.allocate(usage, bytes);
+        if (range == null) {
+            throw new IllegalStateException("缓冲区池分配失败: " + bytes + " bytes");
+        }
+        return range;
+    }
+
+    /**
+     * 归还缓冲区池区间（忽略 null）
+     */
+    protected static void releaseRanges(GpuBufferRange... ranges) {
+        for (GpuBufferRange range : ranges) {
+            if (range != null) range.release();
+        }
+    }
+
+    /**
+     * 缓冲区池区间实际占用的显存（忽略 null）
+     */
+    protected static long allocatedBytes(GpuBufferRange... ranges) {
+        long total = 0;
+        for (GpuBufferRange range : ranges) {
+            if (range != null) total += range.getAllocatedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * 在索引缓冲区池中分配并上传：原始索引 + 紧随其后的各级 LOD 索引
+     * LOD 索引固定为 u32，原始索引非 u32 时不上传 LOD；绘制时起始偏移需加上区间偏移
+     *
+     * @return 索引区间（LOD 索引数量写入 lodIndexCountOut[0]），分配失败时返回 null
+     */
+    protected static GpuBufferRange uploadIndexBufferWithLod(NativeFunc nf, long model, int indexElementSize,
+                                                             long[] lodIndexCountOut) {
+        int indexSize = (int) nf.GetIndexCount(model) * indexElementSize;
+        long lodIndexCount = indexElementSize == 4 ? nf.GetLodIndexCount(model) : 0;
+        long lodSize = lodIndexCount * 4;
+
+        GpuBufferRange range = GpuBufferArena.allocate(GpuBufferArena.Usage.INDEX, indexSize + lodSize);
+        if (range == null) return null;
+
+        ByteBuffer indexBuffer = MemoryUtil.memAlloc(indexSize);
+        try {
+            nf.CopyDataToByteBuffer(indexBuffer, nf.GetIndices(model), indexSize);
+            indexBuffer.position(0);
+            range.upload(0, indexBuffer);
+        } finally {
+            MemoryUtil.memFree(indexBuffer); // 一次性上传后立即释放
+        }
+
+        if (lodSize > 0) {
+            ByteBuffer lodBuffer = MemoryUtil.memAlloc((int) lodSize);
+            try {
+                if (nf.CopyLodIndicesToBuffer(model, lodBuffer) == lodIndexCount) {
+                    lodBuffer.position(0);
+                    range.upload(indexSize, lodBuffer);
+                } else {
+                    lodIndexCount = 0;
+                }
+            } finally {
+                MemoryUtil.memFree(lodBuffer);
+            }
+        }
+        lodIndexCountOut[0] = lodIndexCount;
+        return range;
+    }
+
+    /**
+     * 本次渲染是否复用已有的蒙皮结果（本帧已蒙皮，或姿态与上一次蒙皮时一致）
+     * 为 true 时子类应跳过顶点上传、Compute 分派与材质 Morph 拉取，直接使用上次的缓冲区
+     */
+    protected boolean isSkinningReused() {
+        return skinningReused;
     }
 
     /**
@@ -189,6 +674,7 @@ public abstract class AbstractMMDModel implements IMMDModel {
         materialMorphResultsByteBuffer.position(0);
         materialMorphResultsBuffer.put(materialMorphResultsByteBuffer.asFloatBuffer());
         materialMorphResultsBuffer.flip();
+        materialMorphDirty = true;
     }
 
     /**
@@ -204,6 +690,76 @@ public abstract class AbstractMMDModel implements IMMDModel {
         return baseAlpha * mulAlpha + addAlpha;
     }
 
+    /**
+     * 计算材质经 Morph 变形后的边缘参数，编码为屏幕空间描边掩码写入 screenOutlineEdge
+     * 布局：边缘色在各组偏移 11..14，边缘大小在偏移 15
+     */
+    protected void computeScreenOutlineEdge(int materialIndex) {
+        if (materialEdgeCount < 0) {
+            int count = (int) getNf().GetMaterialCount(model);
+            materialEdgeDataBuf = MemoryUtil.memAlloc(Math.max(count, 1) * 20);
+            materialEdgeCount = getNf().BatchGetMaterialEdgeData(model, materialEdgeDataBuf);
+        }
+        if (materialIndex >= materialEdgeCount) {
+            ToonOutlinePass.encodeEdge(0.0f, 0.0f, 0.0f, 0.0f, screenOutlineEdge);
+            return;
+        }
+
+        int base = materialIndex * 20;
+        float r = materialEdgeDataBuf.getFloat(base);
+        float g = materialEdgeDataBuf.getFloat(base + 4);
+        float b = materialEdgeDataBuf.getFloat(base + 8);
+        float a = materialEdgeDataBuf.getFloat(base + 12);
+        float size = materialEdgeDataBuf.getFloat(base + 16);
+        if (materialMorphResultsBuffer != null && materialIndex < materialMorphResultCount) {
+            int mul = materialIndex * 56 + 11;
+            int add = materialIndex * 56 + 28 + 11;
+            r = r * materialMorphResultsBuffer.get(mul) + materialMorphResultsBuffer.get(add);
+            g = g * materialMorphResultsBuffer.get(mul + 1) + materialMorphResultsBuffer.get(add + 1);
+            b = b * materialMorphResultsBuffer.get(mul + 2) + materialMorphResultsBuffer.get(add + 2);
+            a = a * materialMorphResultsBuffer.get(mul + 3) + materialMorphResultsBuffer.get(add + 3);
+            size = size * materialMorphResultsBuffer.get(mul + 4) + materialMorphResultsBuffer.get(add + 4);
+        }
+        ToonOutlinePass.encodeEdge(r, g, b, a > 0.001f ? size : 0.0f, screenOutlineEdge);
+    }
+
+    /**
+     * 写入并提交 Toon 逐模型 Uniform 块（一次上传，描边与主体两遍共用），并刷新逐材质 Uniform 块
+     * 逐材质块首次使用时整体构建，之后仅在拉取了新的材质 Morph 结果后检查变化项
+     *
+     * @return 逐材质 Uniform 块，已绑定第 0 项；屏幕空间描边时由调用方按子网格绑定对应材质
+     */
+    protected ToonMaterialBlock commitToonUniforms(ToonShaderBase shader, Matrix4f modelView,
+                                                   float lightIntensity, boolean screenOutline) {
+        ToonConfig toon = ToonConfig.getInstance();
+        shader.setProjectionMatrix(RenderSystem.getProjectionMatrix());
+        shader.setModelViewMatrix(modelView);
+        shader.setLightIntensity(lightIntensity);
+        shader.setToonLevels(toon.getToonLevels());
+        shader.setRimLight(toon.getRimPower(), toon.getRimIntensity());
+        shader.setShadowColor(toon.getShadowColorR(), toon.getShadowColorG(), toon.getShadowColorB());
+        shader.setSpecular(toon.getSpecularPower(), toon.getSpecularIntensity());
+        shader.setOutlineWidth(toon.getOutlineWidth());
+        shader.setOutlineColor(toon.getOutlineColorR(), toon.getOutlineColorG(), toon.getOutlineColorB());
+        shader.setEdgeMaskEnabled(screenOutline);
+        shader.commitModelBlock();
+
+        boolean created = false;
+        if (toonMaterialBlock == null) {
+            toonMaterialBlock = new ToonMaterialBlock((int) getNf().GetMaterialCount(model));
+            created = true;
+        }
+        if (created || materialMorphDirty) {
+            for (int i = 0; i < toonMaterialBlock.getMaterialCount(); i++) {
+                computeScreenOutlineEdge(i);
+                toonMaterialBlock.update(i, screenOutlineEdge);
+            }
+            materialMorphDirty = false;
+        }
+        toonMaterialBlock.bind(0);
+        return toonMaterialBlock;
+    }
+
     /**
      * 获取模型缩放比例（统一访问配置）
      */
@@ -229,8 +785,38 @@ public abstract class AbstractMMDModel implements IMMDModel {
         }
     }
 
-    /** 释放材质 Morph 缓冲区 */
+    /** 释放远景替身图集 */
+    protected void disposeImpostor() {
+        if (impostor != null) {
+            impostor.dispose();
+            impostor = null;
+        }
+    }
+
+    /** 释放遮挡查询对象 */
+    protected void disposeOcclusionQuery() {
+        if (occlusionQuery != null) {
+            occlusionQuery.dispose();
+            occlusionQuery = null;
+        }
+    }
+
+    /** 远景替身图集显存占用 */
+    protected long getImpostorVramUsage() {
+        return impostor != null ? impostor.getVramUsage() : 0;
+    }
+
+    /** 释放材质 Morph、材质边缘参数缓冲区与逐材质 Toon Uniform 块 */
     protected void disposeMaterialMorphBuffers() {
+        if (toonMaterialBlock != null) {
+            toonMaterialBlock.cleanup();
+            toonMaterialBlock = null;
+        }
+        if (materialEdgeDataBuf != null) {
+            MemoryUtil.memFree(materialEdgeDataBuf);
+            materialEdgeDataBuf = null;
+            materialEdgeCount = -1;
+        }
         if (materialMorphResultsBuffer != null) {
             MemoryUtil.memFree(materialMorphResultsBuffer);
             materialMorphResultsBuffer = null;
@@ -0,0 +1,144 @@
+package com.shiroha.mmdskin.renderer.model;
+
+import com.shiroha.mmdskin.renderer.shader.BakedCrowdClip;
+import com.shiroha.mmdskin.renderer.shader.SkinningBatch;
+import com.shiroha.mmdskin.renderer.shader.SkinningInstance;
+
+/**
+ * 群体动画播放状态（GPU 蒙皮模型）
+ *
+ * 只维护播放时钟：每帧把时间换算为烘焙帧号与帧间插值比例交给 SkinningBatch.submitCrowd，
+ * 不调用 Rust 端动画求值。循环方式与 Rust 端动画层一致（帧号按 最大帧 取模）；
+ * 切换片段时上一片段定格在当前帧，按 smoothstep 权重淡出（与 Rust 端动画过渡的混合曲线一致）。
+ * Morph 取当前整数帧的烘焙结果，不做帧间插值。
+ */
+final class CrowdPlayback {
+    /** 同姿态判定的帧位置量化级数（每帧），相差不足一级的实例视为同一姿态 */
+    private static final int POSE_STEPS_PER_FRAME = 64;
+    private static final int FADE_STEPS = 256;
+
+    /**
+     * 群体姿态键（片段按模型目录共享，因此同时区分了模型模板）
+     */
+    record PoseKey(BakedCrowdClip clip, int position, BakedCrowdClip from, int fromFrame, int fadeStep) {}
+
+    private BakedCrowdClip clip;
+    private float time = 0.0f;
+
+    // 过渡：上一片段的定格帧
+    private BakedCrowdClip fromClip;
+    private int fromFrame;
+    private float fadeTime;
+    private float fadeDuration;
+
+    /** 自上次登记以来播放位置是否变化 */
+    private boolean dirty = true;
+
+    /**
+     * 播放新片段（接管 next 的引用）
+     *
+     * @param transitionTime 过渡时间（秒），无当前片段或为 0 时立即切换
+     */
+    void play(BakedCrowdClip next, float transitionTime) {
+        releaseFrom();
+        if (clip != null && transitionTime > 0.0f) {
+            fromClip = clip;
+            fromFrame = currentFrame();
+            fadeTime = 0.0f;
+            fadeDuration = transitionTime;
+        } else if (clip != null) {
+            clip.release();
+        }
+        clip = next;
+        time = 0.0f;
+        dirty = true;
+    }
+
+    /**
+     * 推进播放时钟
+     */
+    void advance(float deltaTime) {
+        if (clip == null || deltaTime <= 0.0f) return;
+        int loopFrames = loopFrames();
+        if (loopFrames > 0) {
+            time = (time + deltaTime) % (loopFrames / BakedCrowdClip.FPS);
+            dirty = true;
+        }
+        if (fromClip != null) {
+            fadeTime += deltaTime;
+            if (fadeTime >= fadeDuration) releaseFrom();
+            dirty = true;
+        }
+    }
+
+    /**
+     * 登记本帧群体实例
+     *
+     * @param activeMorphs 已写入 SkinningBatch.morphStaging 的活动 Morph 记录数
+     */
+    void submit(SkinningInstance instance, int activeMorphs) {
+        float frame = time * BakedCrowdClip.FPS;
+        int frameA = (int) frame;
+        int frameB = loopFrames() > 0 ? frameA + 1 : frameA;
+        float amount = frame - frameA;
+
+        float blend = 0.0f;
+        if (fromClip != null) {
+            float t = Math.min(fadeTime / fadeDuration, 1.0f);
+            blend = 1.0f - t * t * (3.0f - 2.0f * t);
+        }
+        SkinningBatch.submitCrowd(instance, clip, frameA, frameB, amount, fromClip, fromFrame, blend, activeMorphs);
+        dirty = false;
+    }
+
+    /**
+     * 当前姿态键（同姿态共享蒙皮用）
+     */
+    PoseKey poseKey() {
+        int position = (int) (time * BakedCrowdClip.FPS * POSE_STEPS_PER_FRAME);
+        if (fromClip == null) return new PoseKey(clip, position, null, 0, 0);
+        int fadeStep = (int) (Math.min(fadeTime / fadeDuration, 1.0f) * FADE_STEPS);
+        return new PoseKey(clip, position, fromClip, fromFrame, fadeStep);
+    }
+
+    /**
+     * 当前整数帧（Morph 按此帧取烘焙结果）
+     */
+    int currentFrame() {
+        return (int) (time * BakedCrowdClip.FPS);
+    }
+
+    BakedCrowdClip getClip() {
+        return clip;
+    }
+
+    /**
+     * 播放位置自上次登记后是否未变化（单帧片段且不在过渡中）
+     */
+    boolean isPoseUnchanged() {
+        return !dirty;
+    }
+
+    /**
+     * 停止播放并释放片段引用
+     */
+    void stop() {
+        releaseFrom();
+        if (clip != null) {
+            clip.release();
+            clip = null;
+        }
+    }
+
+    /** 循环长度（帧），等于最大帧号；单帧片段为 0 */
+    private int loopFrames() {
+        return clip.getFrameCount() - 1;
+    }
+
+    private void releaseFrom() {
+        if (fromClip != null) {
+            fromClip.release();
+            fromClip = null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.shiroha.mmdskin.renderer.model;
+
+import com.shiroha.mmdskin.NativeFunc;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * 逐帧模型命令缓冲区
+ *
+ * 每个模型本帧的实体输入（头部角度、眼球追踪、物理位置）与姿态更新请求编码为一条定长记录，
+ * 整批通过一次 ExecuteFrameCommands 提交；Rust 端并行执行后，把渲染需要的结果
+ * （姿态是否变化、左右手矩阵、材质 Morph 结果）写入输出缓冲区中各记录的输出区间。
+ * 每个模型每帧的 JNI 往返由逐项设置 + 更新 + 逐项拉取合并为一次。仅在渲染线程使用。
+ *
+ * 命令记录（64 字节）：模型句柄(8) + deltaTime(4) + 标志(4) + 实体输入(10 float)
+ * + 输出偏移(4) + 材质 Morph float 数(4)；
+ * 输出区间：标志(4) + 保留(12) + 右手矩阵(64) + 左手矩阵(64)（列主序），之后是材质 Morph 结果
+ */
+final class FrameCommandBuffer {
+    static final int COMMAND_BYTES = 64;
+    static final int OUTPUT_HEADER_BYTES = 144;
+
+    /** 实体输入：头部角度(3) + 眼球最大角度/角度(3) + 物理位置与朝向(4) */
+    static final int INPUT_FLOATS = 10;
+    static final int INPUT_HEAD = 0;
+    static final int INPUT_EYE = 3;
+    static final int INPUT_POSITION = 6;
+
+    // 命令标志
+    static final int FLAG_FULL_UPDATE = 1;
+    static final int FLAG_ENTITY_INPUT = 1 << 1;
+    static final int FLAG_EYE_SET = 1 << 2;
+    static final int FLAG_EYE_ENABLED = 1 << 3;
+    static final int FLAG_HAND_MATRICES = 1 << 4;
+
+    // 输出标志
+    static final int OUT_POSE_UNCHANGED = 1;
+    static final int OUT_MATERIAL_MORPHS = 1 << 1;
+    static final int OUT_HAND_MATRICES = 1 << 2;
+    /** 最新 CPU 蒙皮输出所在的分配序号（置位 = 1），见 NativeFunc.GetSkinningOutputView */
+    static final int OUT_SKIN_SLOT = 1 << 3;
+
+    private static final int INITIAL_COMMANDS = 16;
+
+    private ByteBuffer commands = MemoryUtil.memAlloc(INITIAL_COMMANDS * COMMAND_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer output = MemoryUtil.memAlloc(INITIAL_COMMANDS * OUTPUT_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private int[] outputOffsets = new int[INITIAL_COMMANDS];
+    private int count = 0;
+    private int outputBytes = 0;
+
+    /** 清空记录（缓冲区保留复用） */
+    void reset() {
+        count = 0;
+        outputBytes = 0;
+    }
+
+    /**
+     * 追加一条命令
+     *
+     * @param deltaTime      姿态更新时间步（秒），0 = 只应用输入不更新
+     * @param input          实体输入（FLAG_ENTITY_INPUT 时读取）
+     * @param materialFloats 请求回传的材质 Morph 结果 float 数（0 = 不回传）
+     * @return 命令序号（读取输出用）
+     */
+    int append(long model, float deltaTime, int flags, float[] input, int materialFloats) {
+        if (commands.capacity() < (count + 1) * COMMAND_BYTES) {
+            commands = MemoryUtil.memRealloc(commands, commands.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            outputOffsets = Arrays.copyOf(outputOffsets, outputOffsets.length * 2);
+        }
+        int base = count * COMMAND_BYTES;
+        commands.putLong(base, model);
+        commands.putFloat(base + 8, deltaTime);
+        commands.putInt(base + 12, flags);
+        for (int i = 0; i < INPUT_FLOATS; i++) {
+            commands.putFloat(base + 16 + i * 4, input[i]);
+        }
+        commands.putInt(base + 56, outputBytes);
+        commands.putInt(base + 60, materialFloats);
+
+        outputOffsets[count] = outputBytes;
+        outputBytes += OUTPUT_HEADER_BYTES + materialFloats * 4;
+        return count++;
+    }
+
+    /** 一次调用提交全部命令 */
+    void execute(NativeFunc nf) {
+        if (count == 0) return;
+        if (output.capacity() < outputBytes) {
+            MemoryUtil.memFree(output);
+            output = MemoryUtil.memAlloc(outputBytes * 2).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        // 模型已释放的命令不会写回输出，先清零标志
+        for (int i = 0; i < count; i++) {
+            output.putInt(outputOffsets[i], 0);
+        }
+        nf.ExecuteFrameCommands(commands, count, output);
+    }
+
+    /** 命令的输出标志（OUT_*） */
+    int outputFlags(int index) {
+        return output.getInt(outputOffsets[index]);
+    }
+
+    /** 命令输出区间在输出缓冲区中的起点 */
+    int outputOffset(int index) {
+        return outputOffsets[index];
+    }
+
+    ByteBuffer output() {
+        return output;
+    }
+}
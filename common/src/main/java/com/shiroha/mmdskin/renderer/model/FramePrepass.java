@@ -0,0 +1,89 @@
+package com.shiroha.mmdskin.renderer.model;
+
+import com.shiroha.mmdskin.NativeFunc;
+import com.shiroha.mmdskin.renderer.shader.SkinningBatch;
+import net.minecraft.client.Minecraft;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 世界渲染前的姿态预处理
+ *
+ * 上一帧在世界中绘制过网格的模型（GPU 蒙皮与 CPU 蒙皮）登记到这里，世界渲染开始时（LevelRenderer Mixin）统一处理：
+ * 1. 逐模型按上一帧记录的实体计算本帧输入（头部、眼球、物理位置），与本帧时间步一起编码进逐帧命令缓冲区
+ * 2. 一次 ExecuteFrameCommands 调用在 Rust 线程池上并行应用输入、更新动画/物理/CPU 蒙皮，并回传手部矩阵与材质 Morph 结果
+ * 3. 逐模型提交结果：GPU 模型登记到 SkinningBatch，CPU 模型上传蒙皮后顶点；最后一次 flush 完成全部 Compute 分派
+ * 之后实体 pass 中各模型的绘制直接复用本帧结果，不再在绘制调用内更新姿态或分派蒙皮。
+ * 本帧新出现的模型仍在绘制时按原流程更新。仅在渲染线程使用。
+ */
+public final class FramePrepass {
+    /** 直接调用 onUpdate（如群体动画只推进本地时钟） */
+    static final int UPDATE_LOCAL = -1;
+    /** Rust 端仅更新动画（GPU 蒙皮） */
+    static final int UPDATE_ANIMATION = 0;
+    /** Rust 端完整更新（含 CPU 蒙皮） */
+    static final int UPDATE_FULL = 1;
+
+    private static final Set<AbstractMMDModel> scheduled = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static final List<AbstractMMDModel> runList = new ArrayList<>();
+    private static final List<AbstractMMDModel> updated = new ArrayList<>();
+    /** updated 中各模型的命令序号（-1 = 本地更新） */
+    private static int[] commandIndices = new int[64];
+    private static FrameCommandBuffer commands;
+
+    private FramePrepass() {}
+
+    /**
+     * 登记模型参与下一帧的预处理（本帧在世界中绘制了网格时调用）
+     */
+    static void schedule(AbstractMMDModel model) {
+        scheduled.add(model);
+    }
+
+    /**
+     * 世界渲染开始：预处理上一帧登记的模型并统一分派蒙皮
+     */
+    public static void run() {
+        if (scheduled.isEmpty()) return;
+
+        // 登记集合在绘制期间重新填充，先取出上一帧的名单
+        runList.addAll(scheduled);
+        scheduled.clear();
+        float tickDelta = Minecraft.getInstance().getFrameTime();
+
+        if (commands == null) commands = new FrameCommandBuffer();
+        commands.reset();
+        if (commandIndices.length < runList.size()) {
+            commandIndices = new int[runList.size() * 2];
+        }
+
+        for (AbstractMMDModel model : runList) {
+            float deltaTime = model.beginPrepass(tickDelta);
+            if (deltaTime < 0.0f) continue;
+
+            int index = -1;
+            if (model.getPrepassUpdateMode() == UPDATE_LOCAL) {
+                if (deltaTime > 0.0f) model.onUpdate(deltaTime);
+            } else {
+                index = model.encodeCommand(commands, deltaTime, true);
+            }
+            commandIndices[updated.size()] = index;
+            updated.add(model);
+        }
+        commands.execute(NativeFunc.GetInst());
+
+        for (int i = 0; i < updated.size(); i++) {
+            AbstractMMDModel model = updated.get(i);
+            int index = commandIndices[i];
+            model.finishPrepass(index < 0 ? model.isPoseUnchanged() : model.acceptCommandOutput(commands, index));
+        }
+        SkinningBatch.flush();
+
+        updated.clear();
+        runList.clear();
+    }
+}
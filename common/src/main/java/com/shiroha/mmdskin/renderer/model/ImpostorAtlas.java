@@ -0,0 +1,261 @@
+package com.shiroha.mmdskin.renderer.model;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.BufferUploader;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.Tesselator;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import com.mojang.blaze3d.vertex.VertexSorting;
+import com.shiroha.mmdskin.renderer.core.FrameClock;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.GameRenderer;
+import net.minecraft.client.renderer.ShaderInstance;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Matrix4f;
+import org.lwjgl.opengl.GL46C;
+
+/**
+ * 远景替身图集（Impostor）
+ *
+ * 每个模型一张低分辨率图集，横向排列 VIEW_COUNT 个绕模型一周的视角。
+ * 远处模型只在视角过期时重新捕获当前视角（低频刷新），平时以朝向相机的四边形绘制，
+ * 跳过蒙皮与逐材质绘制。所有尺寸以模型外层坐标（未乘模型缩放前的方块单位）表示。
+ */
+public final class ImpostorAtlas {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** 绕模型一周的视角数量 */
+    public static final int VIEW_COUNT = 8;
+    private static final int CELL_WIDTH = 96;
+    private static final int CELL_HEIGHT = 128;
+    private static final int ATLAS_WIDTH = CELL_WIDTH * VIEW_COUNT;
+
+    /** 捕获包围盒（外层坐标，按模型配置缩放）：宽高比与单元格一致 */
+    private static final float BOX_BOTTOM = -0.25f;
+    private static final float BOX_TOP = 2.75f;
+    private static final float BOX_HALF_WIDTH = (BOX_TOP - BOX_BOTTOM) * CELL_WIDTH / CELL_HEIGHT * 0.5f;
+    private static final float BOX_DEPTH = 4.0f;
+
+    /** 单个视角的刷新间隔（纳秒） */
+    private static final long REFRESH_INTERVAL_NS = 250_000_000L;
+    /** 全局每帧最多捕获的视角数，避免大量模型同时进入远景时卡顿 */
+    private static final int MAX_CAPTURES_PER_FRAME = 2;
+    /** 采样时向单元格内收缩的纹素，避免线性过滤串到相邻视角 */
+    private static final float UV_INSET = 1.0f;
+
+    private static long captureBudgetFrame = -1;
+    private static int capturesThisFrame = 0;
+
+    private int framebuffer = 0;
+    private int colorTexture = 0;
+    private int depthRenderbuffer = 0;
+    private boolean failed = false;
+
+    private final long[] viewCaptureTime = new long[VIEW_COUNT];
+    private final boolean[] viewValid = new boolean[VIEW_COUNT];
+    private final boolean[] viewDirty = new boolean[VIEW_COUNT];
+
+    /**
+     * 图集是否可用（GL 资源创建失败后不再尝试）
+     */
+    public boolean isSupported() {
+        return !failed;
+    }
+
+    /**
+     * 按观察者相对模型的方位角（度）选择最近的视角
+     */
+    public static int selectView(float relativeYawDeg) {
+        float step = 360.0f / VIEW_COUNT;
+        int view = Math.round(relativeYawDeg / step) % VIEW_COUNT;
+        return view < 0 ? view + VIEW_COUNT : view;
+    }
+
+    /**
+     * 视角对应的捕获朝向（度）
+     */
+    public static float viewYaw(int view) {
+        return view * (360.0f / VIEW_COUNT);
+    }
+
+    public boolean hasView(int view) {
+        return viewValid[view];
+    }
+
+    /**
+     * 视角是否需要重新捕获（从未捕获、被标记过期或已超过刷新间隔）
+     */
+    public boolean isViewStale(int view) {
+        return !viewValid[view] || viewDirty[view]
+                || FrameClock.now() - viewCaptureTime[view] >= REFRESH_INTERVAL_NS;
+    }
+
+    /**
+     * 标记全部视角过期（动画切换等大幅姿态变化时调用）
+     */
+    public void invalidate() {
+        for (int i = 0; i < VIEW_COUNT; i++) {
+            viewDirty[i] = true;
+        }
+    }
+
+    /**
+     * 申请本帧的捕获名额
+     */
+    public static boolean tryAcquireCaptureSlot() {
+        long frame = FrameClock.getFrameIndex();
+        if (frame != captureBudgetFrame) {
+            captureBudgetFrame = frame;
+            capturesThisFrame = 0;
+        }
+        if (capturesThisFrame >= MAX_CAPTURES_PER_FRAME) return false;
+        capturesThisFrame++;
+        return true;
+    }
+
+    /**
+     * 开始捕获指定视角：绑定图集 FBO、清空单元格并切换为正交投影
+     *
+     * @param configScale 模型配置缩放（包围盒随之缩放）
+     * @return 返回用于渲染模型的变换栈；GL 资源不可用时返回 null
+     */
+    public PoseStack beginCapture(int view, float configScale) {
+        if (!ensureResources()) return null;
+
+        GlStateManager._glBindFramebuffer(GL46C.GL_FRAMEBUFFER, framebuffer);
+        int x = view * CELL_WIDTH;
+        RenderSystem.viewport(x, 0, CELL_WIDTH, CELL_HEIGHT);
+        RenderSystem.enableScissor(x, 0, CELL_WIDTH, CELL_HEIGHT);
+        RenderSystem.depthMask(true);
+        RenderSystem.clearColor(0.0f, 0.0f, 0.0f, 0.0f);
+        RenderSystem.clear(GL46C.GL_COLOR_BUFFER_BIT | GL46C.GL_DEPTH_BUFFER_BIT, Minecraft.ON_OSX);
+        RenderSystem.disableScissor();
+
+        float s = configScale;
+        Matrix4f ortho = new Matrix4f().setOrtho(
+                -BOX_HALF_WIDTH * s, BOX_HALF_WIDTH * s, BOX_BOTTOM * s, BOX_TOP * s,
+                -BOX_DEPTH * s, BOX_DEPTH * s);
+        RenderSystem.backupProjectionMatrix();
+        RenderSystem.setProjectionMatrix(ortho, VertexSorting.ORTHOGRAPHIC_Z);
+        return new PoseStack();
+    }
+
+    /**
+     * 结束捕获：恢复投影，切回主渲染目标与窗口视口，并记录视角捕获时间
+     */
+    public void endCapture(int view) {
+        RenderSystem.restoreProjectionMatrix();
+        restoreMainTarget();
+        viewValid[view] = true;
+        viewDirty[view] = false;
+        viewCaptureTime[view] = FrameClock.now();
+    }
+
+    /**
+     * 以朝向相机的四边形绘制指定视角（绕世界 Y 轴旋转的圆柱公告板）
+     *
+     * @param pose 模型外层变换矩阵（实体原点，世界轴向）
+     * @param dirX 模型指向相机的水平方向 X（已归一化）
+     * @param dirZ 模型指向相机的水平方向 Z（已归一化）
+     */
+    public void draw(Matrix4f pose, int view, float configScale, float dirX, float dirZ) {
+        if (colorTexture == 0 || !viewValid[view]) return;
+
+        float s = configScale;
+        float rx = dirZ * BOX_HALF_WIDTH * s;
+        float rz = -dirX * BOX_HALF_WIDTH * s;
+        float y0 = BOX_BOTTOM * s;
+        float y1 = BOX_TOP * s;
+        float u0 = (view * CELL_WIDTH + UV_INSET) / ATLAS_WIDTH;
+        float u1 = ((view + 1) * CELL_WIDTH - UV_INSET) / ATLAS_WIDTH;
+        float v0 = UV_INSET / CELL_HEIGHT;
+        float v1 = 1.0f - UV_INSET / CELL_HEIGHT;
+
+        ShaderInstance prevShader = RenderSystem.getShader();
+        RenderSystem.setShader(GameRenderer::getPositionTexColorShader);
+        RenderSystem.setShaderTexture(0, colorTexture);
+        RenderSystem.setShaderColor(1.0f, 1.0f, 1.0f, 1.0f);
+        RenderSystem.enableBlend();
+        RenderSystem.defaultBlendFunc();
+        RenderSystem.enableDepthTest();
+        RenderSystem.disableCull();
+
+        BufferBuilder buf = Tesselator.getInstance().getBuilder();
+        buf.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION_TEX_COLOR);
+        buf.vertex(pose, -rx, y0, -rz).uv(u0, v0).color(1.0f, 1.0f, 1.0f, 1.0f).endVertex();
+        buf.vertex(pose, rx, y0, rz).uv(u1, v0).color(1.0f, 1.0f, 1.0f, 1.0f).endVertex();
+        buf.vertex(pose, rx, y1, rz).uv(u1, v1).color(1.0f, 1.0f, 1.0f, 1.0f).endVertex();
+        buf.vertex(pose, -rx, y1, -rz).uv(u0, v1).color(1.0f, 1.0f, 1.0f, 1.0f).endVertex();
+        BufferUploader.drawWithShader(buf.end());
+
+        RenderSystem.enableCull();
+        if (prevShader != null) {
+            RenderSystem.setShader(() -> prevShader);
+        }
+    }
+
+    /**
+     * 图集显存占用（RGBA8 颜色 + 24 位深度，按 4 字节计）
+     */
+    public long getVramUsage() {
+        return framebuffer != 0 ? (long) ATLAS_WIDTH * CELL_HEIGHT * 8 : 0;
+    }
+
+    public void dispose() {
+        if (framebuffer != 0) { GL46C.glDeleteFramebuffers(framebuffer); framebuffer = 0; }
+        if (colorTexture != 0) { GL46C.glDeleteTextures(colorTexture); colorTexture = 0; }
+        if (depthRenderbuffer != 0) { GL46C.glDeleteRenderbuffers(depthRenderbuffer); depthRenderbuffer = 0; }
+        for (int i = 0; i < VIEW_COUNT; i++) viewValid[i] = false;
+    }
+
+    private boolean ensureResources() {
+        if (framebuffer != 0) return true;
+        if (failed) return false;
+
+        // 经 GlStateManager 绑定以保持其状态缓存一致，创建完成后解绑即可，无需查询原绑定
+        colorTexture = GL46C.glGenTextures();
+        GlStateManager._bindTexture(colorTexture);
+        GL46C.glTexImage2D(GL46C.GL_TEXTURE_2D, 0, GL46C.GL_RGBA8, ATLAS_WIDTH, CELL_HEIGHT, 0,
+                GL46C.GL_RGBA, GL46C.GL_UNSIGNED_BYTE, 0L);
+        GL46C.glTexParameteri(GL46C.GL_TEXTURE_2D, GL46C.GL_TEXTURE_MIN_FILTER, GL46C.GL_LINEAR);
+        GL46C.glTexParameteri(GL46C.GL_TEXTURE_2D, GL46C.GL_TEXTURE_MAG_FILTER, GL46C.GL_LINEAR);
+        GL46C.glTexParameteri(GL46C.GL_TEXTURE_2D, GL46C.GL_TEXTURE_WRAP_S, GL46C.GL_CLAMP_TO_EDGE);
+        GL46C.glTexParameteri(GL46C.GL_TEXTURE_2D, GL46C.GL_TEXTURE_WRAP_T, GL46C.GL_CLAMP_TO_EDGE);
+        GlStateManager._bindTexture(0);
+
+        depthRenderbuffer = GL46C.glGenRenderbuffers();
+        GL46C.glBindRenderbuffer(GL46C.GL_RENDERBUFFER, depthRenderbuffer);
+        GL46C.glRenderbufferStorage(GL46C.GL_RENDERBUFFER, GL46C.GL_DEPTH_COMPONENT24, ATLAS_WIDTH, CELL_HEIGHT);
+        GL46C.glBindRenderbuffer(GL46C.GL_RENDERBUFFER, 0);
+
+        framebuffer = GL46C.glGenFramebuffers();
+        GlStateManager._glBindFramebuffer(GL46C.GL_FRAMEBUFFER, framebuffer);
+        GL46C.glFramebufferTexture2D(GL46C.GL_FRAMEBUFFER, GL46C.GL_COLOR_ATTACHMENT0,
+                GL46C.GL_TEXTURE_2D, colorTexture, 0);
+        GL46C.glFramebufferRenderbuffer(GL46C.GL_FRAMEBUFFER, GL46C.GL_DEPTH_ATTACHMENT,
+                GL46C.GL_RENDERBUFFER, depthRenderbuffer);
+        int status = GL46C.glCheckFramebufferStatus(GL46C.GL_FRAMEBUFFER);
+
+        // 成功时保持绑定（beginCapture 随后即绑定该 FBO）
+        if (status != GL46C.GL_FRAMEBUFFER_COMPLETE) {
+            restoreMainTarget();
+            logger.warn("替身图集 FBO 创建失败 (status=0x{})，该模型不再使用替身", Integer.toHexString(status));
+            dispose();
+            failed = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 切回主渲染目标并按窗口帧缓冲尺寸恢复视口
+     * 替身只在世界实体 pass 中捕获，此时绑定的必然是主渲染目标，因此不查询（glGet 会同步等待驱动）原绑定
+     */
+    private static void restoreMainTarget() {
+        Minecraft.getInstance().getMainRenderTarget().bindWrite(true);
+    }
+}
@@ -4,10 +4,18 @@ import com.shiroha.mmdskin.NativeFunc;
 import com.shiroha.mmdskin.config.ConfigManager;
 import com.shiroha.mmdskin.renderer.core.IrisCompat;
 import com.shiroha.mmdskin.renderer.resource.MMDTextureManager;
-import com.shiroha.mmdskin.renderer.shader.ShaderConstants;
-import com.shiroha.mmdskin.renderer.shader.SkinningComputeShader;
+import com.shiroha.mmdskin.renderer.shader.BakedCrowdClip;
+import com.shiroha.mmdskin.renderer.shader.GlStateTracker;
+import com.shiroha.mmdskin.renderer.shader.GpuBufferArena;
+import com.shiroha.mmdskin.renderer.shader.GpuBufferRange;
+import com.shiroha.mmdskin.renderer.shader.GpuMaterialMorphs;
+import com.shiroha.mmdskin.renderer.shader.SkinningArena;
+import com.shiroha.mmdskin.renderer.shader.SkinningBatch;
+import com.shiroha.mmdskin.renderer.shader.SkinningInstance;
 import com.shiroha.mmdskin.renderer.shader.ToonShaderCpu;
 import com.shiroha.mmdskin.renderer.shader.ToonConfig;
+import com.shiroha.mmdskin.renderer.shader.ToonMaterialBlock;
+import com.shiroha.mmdskin.renderer.shader.ToonOutlinePass;
 import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.BufferUploader;
@@ -24,7 +32,6 @@ import org.lwjgl.system.MemoryUtil;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,76 +42,50 @@ import java.util.List;
  * 这样 Iris 可以正确拦截渲染着色器，解决光影下模型透明的问题。
  * 
  * 流程：
- * 1. Compute Shader 读取原始顶点 + 骨骼矩阵 → 输出蒙皮后的顶点/法线
- * 2. 使用 Minecraft 标准管线（RenderSystem.getShader()）进行渲染
+ * 1. 骨骼矩阵与 Morph 权重登记到 SkinningBatch，所有模型由一次 Compute 分派完成蒙皮
+ * 2. 使用 Minecraft 标准管线（RenderSystem.getShader()）进行渲染，蒙皮输出按实例偏移绑定
  * 3. Iris 拦截 ShaderInstance 替换为 G-buffer 着色器 → 光影正常工作
+ *
+ * 含材质 Morph 的模型由 GpuMaterialMorphs 在 GPU 上求值，子网格以间接绘制命令绘制。
  */
 public class MMDModelGpuSkinning extends AbstractMMDModel {
-    private static SkinningComputeShader computeShader;
     private static ToonShaderCpu toonShaderCpu;
     private static final ToonConfig toonConfig = ToonConfig.getInstance();
     
     // 模型数据
     private int vertexCount;
+    private int boneCount;
     
     // OpenGL 资源 - VAO
     private int vertexArrayObject;
-    private int indexBufferObject;
+    // 缓冲区池中的索引区间（缓冲区 ID 与偏移可能因扩容/整理而变化，绑定时重新获取）
+    private GpuBufferRange indexRange;
     
-    // 原始数据 VBO（静态，作为 Compute Shader 的 SSBO 输入）
-    private int positionBufferObject;
-    private int normalBufferObject;
-    private int uv0BufferObject;
-    private int boneIndicesBufferObject;
-    private int boneWeightsBufferObject;
+    // 共享蒙皮存储中的区间（原始顶点输入、蒙皮输出与 Morph 偏移）
+    private SkinningInstance skinningInstance;
+    /** 绘制所用的蒙皮输出（同姿态共享时为本帧蒙皮了相同姿态的其他实例） */
+    private SkinningInstance drawInstance;
     
-    // Minecraft 标准顶点属性 VBO
-    private int colorBufferObject;
-    private int uv1BufferObject;
-    private int uv2BufferObject;
+    // Minecraft 标准顶点属性（缓冲区池区间）
+    private GpuBufferRange colorRange;
+    private GpuBufferRange uv1Range;
+    private GpuBufferRange uv2Range;
     
-    // Compute Shader 输出缓冲区（每实例独立，同时作为 SSBO 和 VBO）
-    private int skinnedPositionsBuffer;
-    private int skinnedNormalsBuffer;
-    
-    // 骨骼矩阵 SSBO（每实例独立，避免多模型数据冲突）
-    private int boneMatrixSSBO = 0;
-    
-    // 缓冲区（allocateDirect 分配，由 GC 回收）
-    @SuppressWarnings("unused")
-    private ByteBuffer posBuffer;
-    @SuppressWarnings("unused")
-    private ByteBuffer norBuffer;
-    @SuppressWarnings("unused")
-    private ByteBuffer uv0Buffer;
-    @SuppressWarnings("unused")
-    private ByteBuffer colorBuffer;
-    @SuppressWarnings("unused")
-    private ByteBuffer uv1Buffer;
+    // 每帧更新的 UV2（lightmap）缓冲区（allocateDirect 分配，由 GC 回收）
+    // 静态顶点数据经上传暂存区一次性上传后即释放，Java 侧不保留副本
     private ByteBuffer uv2Buffer;
-    private FloatBuffer boneMatricesBuffer;
     private FloatBuffer modelViewMatBuff;
     private FloatBuffer projMatBuff;
     
-    // 预分配的骨骼矩阵复制缓冲区（避免每帧 allocateDirect）
-    private ByteBuffer boneMatricesByteBuffer;
-    
-    // 顶点 Morph 数据
+    // Morph 数量（偏移在创建时上传到共享 Morph 偏移池，权重每帧写入批次暂存区）
     private int vertexMorphCount = 0;
-    private boolean morphDataUploaded = false;
-    private FloatBuffer morphWeightsBuffer;
-    private ByteBuffer morphWeightsByteBuffer;
-    private int morphOffsetsSSBO = 0;
-    private int morphWeightsSSBO = 0;
-    
-    // UV Morph 数据
     private int uvMorphCount = 0;
-    private boolean uvMorphDataUploaded = false;
-    private FloatBuffer uvMorphWeightsBuffer;
-    private ByteBuffer uvMorphWeightsByteBuffer;
-    private int uvMorphOffsetsSSBO = 0;
-    private int uvMorphWeightsSSBO = 0;
-    private int skinnedUvBuffer = 0;
+    
+    // GPU 材质 Morph（为 null 时材质 Morph 由 CPU 求值）
+    private GpuMaterialMorphs materialMorphs;
+    
+    // 群体动画（null = 由 Rust 端逐帧求值）
+    private CrowdPlayback crowd;
     
     private int indexElementSize;
     private int indexType;
@@ -144,14 +125,9 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
     public static MMDModelGpuSkinning Create(String modelFilename, String modelDir, boolean isPMD, long layerCount) {
         NativeFunc nf = getNf();
         
-        // 初始化 Compute Shader（懒加载，全局共享）
-        if (computeShader == null) {
-            computeShader = new SkinningComputeShader();
-            if (!computeShader.init()) {
-                logger.error("蒙皮 Compute Shader 初始化失败，回退到 CPU 蒙皮");
-                computeShader = null;
-                return null;
-            }
+        // 初始化批量蒙皮（懒加载，全局共享）
+        if (!SkinningBatch.init()) {
+            return null;
         }
         
         // 加载模型
@@ -182,36 +158,27 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
     public static MMDModelGpuSkinning createFromHandle(long model, String modelDir) {
         NativeFunc nf = getNf();
         
-        // 初始化 Compute Shader（懒加载，全局共享）
-        if (computeShader == null) {
-            computeShader = new SkinningComputeShader();
-            if (!computeShader.init()) {
-                logger.error("蒙皮 Compute Shader 初始化失败，回退到 CPU 蒙皮");
-                computeShader = null; // 重置，防止后续模型跳过 init 检查
-                // 注意：不删除 model 句柄，由调用者（RenderModeManager）负责管理，
-                // 避免多工厂回退时 use-after-free
-                return null;
-            }
+        // 初始化批量蒙皮（懒加载，全局共享）
+        if (!SkinningBatch.init()) {
+            // 注意：不删除 model 句柄，由调用者（RenderModeManager）负责管理，
+            // 避免多工厂回退时 use-after-free
+            return null;
         }
         
         // 资源追踪变量（用于异常时清理）
-        int vao = 0, indexVbo = 0, posVbo = 0, norVbo = 0, uv0Vbo = 0;
-        int boneIdxVbo = 0, boneWgtVbo = 0, colorVbo = 0, uv1Vbo = 0, uv2Vbo = 0;
-        int[] outputBuffers = null;
-        int boneMatrixSSBO = 0;
-        int[] morphBuffers = null;
-        FloatBuffer boneMatricesBuffer = null;
-        ByteBuffer boneMatricesByteBuffer = null;
+        int vao = 0;
+        GpuBufferRange indexRange = null, colorRange = null, uv1Range = null, uv2Range = null;
+        SkinningArena arena = SkinningBatch.getArena();
+        SkinningInstance instance = null;
         FloatBuffer modelViewMatBuff = null;
         FloatBuffer projMatBuff = null;
-        FloatBuffer morphWeightsBuffer = null;
-        int[] uvMorphBuffers = null;
-        FloatBuffer uvMorphWeightsBuf = null;
-        int skinnedUvBuf = 0;
         FloatBuffer matMorphResultsBuf = null;
         ByteBuffer matMorphResultsByteBuf = null;
         ByteBuffer subMeshDataBufLocal = null;
+        GpuMaterialMorphs materialMorphs = null;
         MMDMaterial lightMapMaterial = null;
+        // 静态数据上传暂存区（各流依次复用，上传完成后立即释放）
+        ByteBuffer staging = null;
         
         try {
             // 初始化 GPU 蒙皮数据
@@ -222,36 +189,21 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
             int vertexCount = (int) nf.GetVertexCount(model);
             int boneCount = nf.GetBoneCount(model);
             
-            if (boneCount > ShaderConstants.MAX_BONES) {
-                logger.warn("模型骨骼数量 ({}) 超过最大支持 ({})，部分骨骼可能无法正确渲染", 
-                    boneCount, ShaderConstants.MAX_BONES);
-            }
             logger.info("GPU 蒙皮模型加载（Compute Shader）: {} 顶点, {} 骨骼", vertexCount, boneCount);
             
-            // 创建 VAO 和 VBO
+            // 创建 VAO（顶点与索引数据位于缓冲区池）
             vao = GL46C.glGenVertexArrays();
-            indexVbo = GL46C.glGenBuffers();
-            posVbo = GL46C.glGenBuffers();
-            norVbo = GL46C.glGenBuffers();
-            uv0Vbo = GL46C.glGenBuffers();
-            boneIdxVbo = GL46C.glGenBuffers();
-            boneWgtVbo = GL46C.glGenBuffers();
-            colorVbo = GL46C.glGenBuffers();
-            uv1Vbo = GL46C.glGenBuffers();
-            uv2Vbo = GL46C.glGenBuffers();
             
             GL46C.glBindVertexArray(vao);
             
-            // 索引缓冲区
+            // 索引缓冲区（原始索引之后拼接各级 LOD 简化索引，蒙皮仍作用于完整顶点集）
             int indexElementSize = (int) nf.GetIndexElementSize(model);
-            int indexCount = (int) nf.GetIndexCount(model);
-            int indexSize = indexCount * indexElementSize;
-            long indexData = nf.GetIndices(model);
-            ByteBuffer indexBuffer = ByteBuffer.allocateDirect(indexSize);
-            nf.CopyDataToByteBuffer(indexBuffer, indexData, indexSize);
-            indexBuffer.position(0);
-            GL46C.glBindBuffer(GL46C.GL_ELEMENT_ARRAY_BUFFER, indexVbo);
-            GL46C.glBufferData(GL46C.GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL46C.GL_STATIC_DRAW);
+            long[] lodIndexCountOut = new long[1];
+            indexRange = uploadIndexBufferWithLod(nf, model, indexElementSize, lodIndexCountOut);
+            if (indexRange == null) {
+                throw new IllegalStateException("索引缓冲区分配失败");
+            }
+            long lodIndexCount = lodIndexCountOut[0];
             
             int indexType = switch (indexElementSize) {
                 case 1 -> GL46C.GL_UNSIGNED_BYTE;
@@ -260,90 +212,86 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
                 default -> 0;
             };
             
+            // 在共享蒙皮存储中分配顶点区间（静态输入与蒙皮输出共用同一顶点起点）
+            instance = arena.allocate(vertexCount);
+            if (instance == null) {
+                throw new IllegalStateException("共享蒙皮存储分配失败: " + vertexCount + " 顶点");
+            }
+            
+            // 静态数据上传暂存区：按最大单流（color，16 字节/顶点）分配一次，各流依次复用
+            staging = MemoryUtil.memAlloc(vertexCount * 16);
+            staging.order(ByteOrder.LITTLE_ENDIAN);
+            
             // 原始顶点位置（静态，用于 Compute Shader 输入）
-            ByteBuffer posBuffer = ByteBuffer.allocateDirect(vertexCount * 12);
-            posBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            int copiedPos = nf.CopyOriginalPositionsToBuffer(model, posBuffer, vertexCount);
+            staging.clear().limit(vertexCount * 12);
+            int copiedPos = nf.CopyOriginalPositionsToBuffer(model, staging, vertexCount);
             if (copiedPos == 0) {
                 logger.warn("原始顶点位置数据复制失败");
             }
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, posVbo);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, posBuffer, GL46C.GL_STATIC_DRAW);
+            arena.uploadStream(instance, SkinningArena.STREAM_POSITION, staging);
             
-            // 原始法线（静态）
-            ByteBuffer norBuffer = ByteBuffer.allocateDirect(vertexCount * 12);
-            norBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            int copiedNor = nf.CopyOriginalNormalsToBuffer(model, norBuffer, vertexCount);
+            // 原始法线（静态，snorm16 × 4）
+            staging.clear().limit(vertexCount * 8);
+            int copiedNor = nf.CopyCompactNormalsToBuffer(model, staging, vertexCount);
             if (copiedNor == 0) {
                 logger.warn("原始法线数据复制失败");
             }
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, norVbo);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, norBuffer, GL46C.GL_STATIC_DRAW);
+            arena.uploadStream(instance, SkinningArena.STREAM_NORMAL, staging);
             
             // UV（静态）
-            ByteBuffer uv0Buffer = ByteBuffer.allocateDirect(vertexCount * 8);
-            uv0Buffer.order(ByteOrder.LITTLE_ENDIAN);
+            staging.clear().limit(vertexCount * 8);
             long uvData = nf.GetUVs(model);
-            nf.CopyDataToByteBuffer(uv0Buffer, uvData, vertexCount * 8);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv0Vbo);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, uv0Buffer, GL46C.GL_STATIC_DRAW);
+            nf.CopyDataToByteBuffer(staging, uvData, vertexCount * 8);
+            arena.uploadStream(instance, SkinningArena.STREAM_UV, staging);
             
-            // 骨骼索引（静态，ivec4）
-            ByteBuffer boneIndicesByteBuffer = ByteBuffer.allocateDirect(vertexCount * 16);
-            boneIndicesByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            int copiedIdx = nf.CopyBoneIndicesToBuffer(model, boneIndicesByteBuffer, vertexCount);
+            // 骨骼索引（静态，uint16 × 4）
+            staging.clear().limit(vertexCount * 8);
+            int copiedIdx = nf.CopyCompactBoneIndicesToBuffer(model, staging, vertexCount);
             if (copiedIdx == 0) {
                 logger.warn("骨骼索引数据复制失败");
             }
-            IntBuffer boneIndicesBuffer = boneIndicesByteBuffer.asIntBuffer();
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, boneIdxVbo);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, boneIndicesBuffer, GL46C.GL_STATIC_DRAW);
+            arena.uploadStream(instance, SkinningArena.STREAM_BONE_INDICES, staging);
             
-            // 骨骼权重（静态，vec4）
-            ByteBuffer boneWeightsByteBuffer = ByteBuffer.allocateDirect(vertexCount * 16);
-            boneWeightsByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            int copiedWgt = nf.CopyBoneWeightsToBuffer(model, boneWeightsByteBuffer, vertexCount);
+            // 骨骼权重（静态，unorm16 × 4）
+            staging.clear().limit(vertexCount * 8);
+            int copiedWgt = nf.CopyCompactBoneWeightsToBuffer(model, staging, vertexCount);
             if (copiedWgt == 0) {
                 logger.warn("骨骼权重数据复制失败");
             }
-            FloatBuffer boneWeightsFloatBuffer = boneWeightsByteBuffer.asFloatBuffer();
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, boneWgtVbo);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, boneWeightsFloatBuffer, GL46C.GL_STATIC_DRAW);
+            arena.uploadStream(instance, SkinningArena.STREAM_BONE_WEIGHTS, staging);
             
-            // 顶点颜色缓冲区（Minecraft 标准属性：白色 + 全不透明）
-            ByteBuffer colorBuffer = ByteBuffer.allocateDirect(vertexCount * 16);
-            colorBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            // UV1 缓冲区（overlay）— 静态数据，创建时即上传到 GPU
+            staging.clear();
             for (int i = 0; i < vertexCount; i++) {
-                colorBuffer.putFloat(1.0f);
-                colorBuffer.putFloat(1.0f);
-                colorBuffer.putFloat(1.0f);
-                colorBuffer.putFloat(1.0f);
+                staging.putInt(15);
+                staging.putInt(15);
             }
-            colorBuffer.flip();
+            staging.flip();
+            uv1Range = allocateRange(GpuBufferArena.Usage.STATIC_VERTEX, vertexCount * 8L);
+            uv1Range.upload(staging);
             
-            // UV1 缓冲区（overlay）— 静态数据，创建时即上传到 GPU
-            ByteBuffer uv1Buffer = ByteBuffer.allocateDirect(vertexCount * 8);
-            uv1Buffer.order(ByteOrder.LITTLE_ENDIAN);
+            // 安卓兼容：上传白色 Color VBO（替代 glVertexAttrib4f 常量属性）
+            // 安卓 GL 翻译层（gl4es/ANGLE）对 glVertexAttrib4f 常量属性支持不完整，
+            // 导致 Color.a=0 → entity_cutout 着色器 discard → 模型全透明
+            staging.clear();
             for (int i = 0; i < vertexCount; i++) {
-                uv1Buffer.putInt(15);
-                uv1Buffer.putInt(15);
+                staging.putFloat(1.0f);
+                staging.putFloat(1.0f);
+                staging.putFloat(1.0f);
+                staging.putFloat(1.0f);
             }
-            uv1Buffer.flip();
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv1Vbo);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, uv1Buffer, GL46C.GL_STATIC_DRAW);
+            staging.flip();
+            colorRange = allocateRange(GpuBufferArena.Usage.STATIC_VERTEX, vertexCount * 16L);
+            colorRange.upload(staging);
+            
+            MemoryUtil.memFree(staging);
+            staging = null;
             
             // UV2 缓冲区（lightmap）
             ByteBuffer uv2Buffer = ByteBuffer.allocateDirect(vertexCount * 8);
             uv2Buffer.order(ByteOrder.LITTLE_ENDIAN);
-            
-            // 安卓兼容：上传白色 Color VBO（替代 glVertexAttrib4f 常量属性）
-            // 安卓 GL 翻译层（gl4es/ANGLE）对 glVertexAttrib4f 常量属性支持不完整，
-            // 导致 Color.a=0 → entity_cutout 着色器 discard → 模型全透明
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, colorVbo);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, colorBuffer, GL46C.GL_STATIC_DRAW);
-            // 预分配 UV2 VBO（每帧更新光照数据）
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2Vbo);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, vertexCount * 8, GL46C.GL_DYNAMIC_DRAW);
+            // 预分配 UV2 区间（每帧更新光照数据）
+            uv2Range = allocateRange(GpuBufferArena.Usage.DYNAMIC_VERTEX, vertexCount * 8L);
             
             // 材质（记录纹理引用键）
             List<String> texKeys = new ArrayList<>();
@@ -392,17 +340,6 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
                 lightMapMaterial.hasAlpha = true;
             }
             
-            // 骨骼矩阵缓冲区（统一使用 MemoryUtil，在 dispose() 中显式释放）
-            boneMatricesBuffer = MemoryUtil.memAllocFloat(boneCount * 16);
-            boneMatricesByteBuffer = MemoryUtil.memAlloc(boneCount * 64);
-            boneMatricesByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            
-            // 创建 Compute Shader 输出缓冲区（每实例独立，双重用途：SSBO + VBO）
-            outputBuffers = SkinningComputeShader.createOutputBuffers(vertexCount);
-            
-            // 创建骨骼矩阵 SSBO（每实例独立）
-            boneMatrixSSBO = SkinningComputeShader.createBoneMatrixBuffer();
-            
             // 预分配矩阵缓冲区
             modelViewMatBuff = MemoryUtil.memAllocFloat(16);
             projMatBuff = MemoryUtil.memAllocFloat(16);
@@ -411,26 +348,31 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
             nf.InitGpuMorphData(model);
             int morphCount = (int) nf.GetVertexMorphCount(model);
             if (morphCount > 0) {
-                morphWeightsBuffer = MemoryUtil.memAllocFloat(morphCount);
-                morphBuffers = SkinningComputeShader.createMorphBuffers(morphCount);
-                logger.info("GPU Morph 初始化: {} 个顶点 Morph", morphCount);
+                if (uploadMorphOffsets(nf, model, arena, instance, false)) {
+                    logger.info("GPU Morph 初始化: {} 个顶点 Morph", morphCount);
+                } else {
+                    morphCount = 0;
+                }
             }
             
             // 初始化 UV Morph 数据
             nf.InitGpuUvMorphData(model);
             int uvMorphCnt = nf.GetUvMorphCount(model);
             if (uvMorphCnt > 0) {
-                uvMorphWeightsBuf = MemoryUtil.memAllocFloat(uvMorphCnt);
-                uvMorphBuffers = SkinningComputeShader.createUvMorphBuffers(uvMorphCnt);
-                skinnedUvBuf = SkinningComputeShader.createSkinnedUvBuffer(vertexCount);
-                logger.info("GPU UV Morph 初始化: {} 个 UV Morph", uvMorphCnt);
-            } else {
-                // 即使没有 UV Morph，也创建蒙皮 UV 输出缓冲区用于 Compute Shader 写入
-                skinnedUvBuf = SkinningComputeShader.createSkinnedUvBuffer(vertexCount);
+                if (uploadMorphOffsets(nf, model, arena, instance, true)) {
+                    logger.info("GPU UV Morph 初始化: {} 个 UV Morph", uvMorphCnt);
+                } else {
+                    uvMorphCnt = 0;
+                }
             }
             
-            // 初始化材质 Morph 结果缓冲区
-            int matMorphCount = nf.GetMaterialMorphResultCount(model);
+            // 按骨骼槽位数与 Morph 类型预编译对应的蒙皮变体
+            SkinningBatch.prepareVariant(instance);
+            
+            // 材质 Morph：优先 GPU 求值，Compute 程序不可用时保留 CPU 求值结果缓冲区
+            int subMeshCount = (int) nf.GetSubMeshCount(model);
+            materialMorphs = createMaterialMorphs(nf, model, mats.length, subMeshCount);
+            int matMorphCount = materialMorphs == null ? nf.GetMaterialMorphResultCount(model) : 0;
             if (matMorphCount > 0) {
                 int floatCount = matMorphCount * 56;
                 matMorphResultsBuf = MemoryUtil.memAllocFloat(floatCount);
@@ -443,57 +385,32 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
             result.model = model;
             result.modelDir = modelDir;
             result.vertexCount = vertexCount;
+            result.boneCount = boneCount;
             result.vertexArrayObject = vao;
-            result.indexBufferObject = indexVbo;
-            result.positionBufferObject = posVbo;
-            result.normalBufferObject = norVbo;
-            result.uv0BufferObject = uv0Vbo;
-            result.boneIndicesBufferObject = boneIdxVbo;
-            result.boneWeightsBufferObject = boneWgtVbo;
-            result.colorBufferObject = colorVbo;
-            result.uv1BufferObject = uv1Vbo;
-            result.uv2BufferObject = uv2Vbo;
-            result.skinnedPositionsBuffer = outputBuffers[0];
-            result.skinnedNormalsBuffer = outputBuffers[1];
-            result.boneMatrixSSBO = boneMatrixSSBO;
-            result.posBuffer = posBuffer;
-            result.norBuffer = norBuffer;
-            result.uv0Buffer = uv0Buffer;
-            result.colorBuffer = colorBuffer;
-            result.uv1Buffer = uv1Buffer;
+            result.indexRange = indexRange;
+            result.skinningInstance = instance;
+            result.drawInstance = instance;
+            result.colorRange = colorRange;
+            result.uv1Range = uv1Range;
+            result.uv2Range = uv2Range;
             result.uv2Buffer = uv2Buffer;
-            result.boneMatricesBuffer = boneMatricesBuffer;
-            result.boneMatricesByteBuffer = boneMatricesByteBuffer;
             result.indexElementSize = indexElementSize;
             result.indexType = indexType;
+            result.lodIndexCount = lodIndexCount;
+            result.lodLevelCount = lodIndexCount > 0 ? nf.GetLodLevelCount(model) : 0;
             result.mats = mats;
             result.lightMapMaterial = lightMapMaterial;
             result.textureKeys = texKeys;
             result.modelViewMatBuff = modelViewMatBuff;
             result.projMatBuff = projMatBuff;
             result.vertexMorphCount = morphCount;
-            if (morphCount > 0) {
-                result.morphWeightsBuffer = morphWeightsBuffer;
-                result.morphWeightsByteBuffer = ByteBuffer.allocateDirect(morphCount * 4);
-                result.morphWeightsByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-                result.morphOffsetsSSBO = morphBuffers[0];
-                result.morphWeightsSSBO = morphBuffers[1];
-            }
-            // UV Morph
             result.uvMorphCount = uvMorphCnt;
-            result.skinnedUvBuffer = skinnedUvBuf;
-            if (uvMorphCnt > 0) {
-                result.uvMorphWeightsBuffer = uvMorphWeightsBuf;
-                result.uvMorphWeightsByteBuffer = ByteBuffer.allocateDirect(uvMorphCnt * 4);
-                result.uvMorphWeightsByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-                result.uvMorphOffsetsSSBO = uvMorphBuffers[0];
-                result.uvMorphWeightsSSBO = uvMorphBuffers[1];
-            }
             // 材质 Morph
             result.materialMorphResultCount = matMorphCount;
             result.materialMorphResultsBuffer = matMorphResultsBuf;
             result.materialMorphResultsByteBuffer = matMorphResultsByteBuf;
-            result.subMeshCount = (int) nf.GetSubMeshCount(model);
+            result.materialMorphs = materialMorphs;
+            result.subMeshCount = subMeshCount;
             subMeshDataBufLocal = MemoryUtil.memAlloc(result.subMeshCount * 20);
             subMeshDataBufLocal.order(ByteOrder.LITTLE_ENDIAN);
             result.subMeshDataBuf = subMeshDataBufLocal;
@@ -502,6 +419,13 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
             // 启用自动眨眼
             nf.SetAutoBlinkEnabled(model, true);
             
+            // 静态数据与 Morph 数据均已上传：按配置释放 Rust 侧 CPU 蒙皮与上传用的网格副本
+            // （默认关闭，保持 getUV 等 CPU 侧数据接口可用；放在最后，创建失败时句柄仍可交给 CPU 蒙皮工厂回退使用）
+            if (ConfigManager.isGpuResidentModeEnabled()) {
+                long freed = nf.EnterGpuResidentMode(model);
+                logger.info("GPU 常驻模式: 释放 CPU 侧网格副本 {} KB", freed / 1024);
+            }
+            
             GL46C.glBindVertexArray(0);
             logger.info("GPU 蒙皮模型创建成功（Compute Shader）: {} 顶点, {} 骨骼", vertexCount, boneCount);
             return result;
@@ -514,43 +438,20 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
             
             // 清理 GL 资源
             if (vao > 0) GL46C.glDeleteVertexArrays(vao);
-            if (indexVbo > 0) GL46C.glDeleteBuffers(indexVbo);
-            if (posVbo > 0) GL46C.glDeleteBuffers(posVbo);
-            if (norVbo > 0) GL46C.glDeleteBuffers(norVbo);
-            if (uv0Vbo > 0) GL46C.glDeleteBuffers(uv0Vbo);
-            if (boneIdxVbo > 0) GL46C.glDeleteBuffers(boneIdxVbo);
-            if (boneWgtVbo > 0) GL46C.glDeleteBuffers(boneWgtVbo);
-            if (colorVbo > 0) GL46C.glDeleteBuffers(colorVbo);
-            if (uv1Vbo > 0) GL46C.glDeleteBuffers(uv1Vbo);
-            if (uv2Vbo > 0) GL46C.glDeleteBuffers(uv2Vbo);
-            if (outputBuffers != null) {
-                GL46C.glDeleteBuffers(outputBuffers[0]);
-                GL46C.glDeleteBuffers(outputBuffers[1]);
-            }
-            if (boneMatrixSSBO > 0) GL46C.glDeleteBuffers(boneMatrixSSBO);
-            if (morphBuffers != null) {
-                GL46C.glDeleteBuffers(morphBuffers[0]);
-                GL46C.glDeleteBuffers(morphBuffers[1]);
-            }
-            if (uvMorphBuffers != null) {
-                GL46C.glDeleteBuffers(uvMorphBuffers[0]);
-                GL46C.glDeleteBuffers(uvMorphBuffers[1]);
-            }
-            if (skinnedUvBuf > 0) GL46C.glDeleteBuffers(skinnedUvBuf);
+            releaseRanges(indexRange, colorRange, uv1Range, uv2Range);
+            arena.release(instance);
             if (lightMapMaterial != null && lightMapMaterial.ownsTexture && lightMapMaterial.tex > 0) {
                 GL46C.glDeleteTextures(lightMapMaterial.tex);
             }
             
             // 清理 MemoryUtil 分配的缓冲区
-            if (boneMatricesBuffer != null) MemoryUtil.memFree(boneMatricesBuffer);
-            if (boneMatricesByteBuffer != null) MemoryUtil.memFree(boneMatricesByteBuffer);
             if (modelViewMatBuff != null) MemoryUtil.memFree(modelViewMatBuff);
             if (projMatBuff != null) MemoryUtil.memFree(projMatBuff);
-            if (morphWeightsBuffer != null) MemoryUtil.memFree(morphWeightsBuffer);
-            if (uvMorphWeightsBuf != null) MemoryUtil.memFree(uvMorphWeightsBuf);
             if (matMorphResultsBuf != null) MemoryUtil.memFree(matMorphResultsBuf);
             if (matMorphResultsByteBuf != null) MemoryUtil.memFree(matMorphResultsByteBuf);
             if (subMeshDataBufLocal != null) MemoryUtil.memFree(subMeshDataBufLocal);
+            if (staging != null) MemoryUtil.memFree(staging);
+            if (materialMorphs != null) materialMorphs.cleanup();
             
             return null;
         }
@@ -563,7 +464,74 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
     
     @Override
     protected void onUpdate(float deltaTime) {
-        getNf().UpdateAnimationOnly(model, deltaTime);
+        if (crowd != null) {
+            crowd.advance(deltaTime);
+        } else {
+            getNf().UpdateAnimationOnly(model, deltaTime);
+        }
+    }
+    
+    @Override
+    protected void onAdvanceClock(float deltaTime) {
+        if (crowd != null) {
+            crowd.advance(deltaTime);
+        } else {
+            super.onAdvanceClock(deltaTime);
+        }
+    }
+    
+    @Override
+    protected boolean isPoseUnchanged() {
+        return crowd != null ? crowd.isPoseUnchanged() : super.isPoseUnchanged();
+    }
+    
+    @Override
+    protected boolean isCrowdPlayback() {
+        return crowd != null;
+    }
+    
+    /**
+     * 群体动画：首个实例烘焙片段（同模型目录的实例共享），之后每帧只推进播放时钟并登记帧号，
+     * 骨骼矩阵由 SkinningBatch 的群体姿态分派从烘焙矩阵插值得到
+     *
+     * CPU 求值材质 Morph 的模型（GPU 材质 Morph 不可用）依赖 Rust 端逐帧结果，不进入群体动画。
+     */
+    @Override
+    public boolean playCrowdAnim(long anim, String clipKey, float transitionTime) {
+        if (!initialized || !SkinningBatch.isCrowdAvailable()) return false;
+        if (materialMorphs == null && materialMorphResultCount > 0) return false;
+        
+        BakedCrowdClip clip = BakedCrowdClip.acquire(nf, model, anim, modelDir, clipKey);
+        if (clip == null) return false;
+        if (clip.getBoneCount() != boneCount) {
+            clip.release();
+            return false;
+        }
+        if (crowd == null) crowd = new CrowdPlayback();
+        crowd.play(clip, transitionTime);
+        // 基础层同步为同一动画：退出群体动画后 Rust 端从该动画继续求值
+        nf.ChangeModelAnim(model, anim, 0);
+        invalidateImpostor();
+        return true;
+    }
+    
+    @Override
+    public void changeAnim(long anim, long layer) {
+        stopCrowd();
+        super.changeAnim(anim, layer);
+    }
+    
+    @Override
+    public void transitionAnim(long anim, long layer, float transitionTime) {
+        stopCrowd();
+        super.transitionAnim(anim, layer, transitionTime);
+    }
+    
+    private void stopCrowd() {
+        if (crowd != null) {
+            crowd.stop();
+            crowd = null;
+        }
     }
     
     @Override
@@ -593,27 +561,12 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
         float baseScale = getModelScale();
         deliverStack.scale(baseScale, baseScale, baseScale);
         
-        uploadBoneMatrices();
-        if (vertexMorphCount > 0) {
-            uploadMorphData();
-        }
-        if (uvMorphCount > 0) {
-            uploadUvMorphData();
+        // 本帧已蒙皮（世界渲染前的批量预处理或先前的 pass）时，输出即为当前姿态，跳过登记与分派；
+        // 否则登记后立即 flush（单实例分派）
+        if (!isSkinningReused()) {
+            submitSkinning(true);
+            SkinningBatch.flush();
         }
-        if (materialMorphResultCount > 0) {
-            fetchMaterialMorphResults();
-        }
-        
-        // Compute Shader 蒙皮（含 UV Morph）
-        computeShader.dispatch(new SkinningComputeShader.DispatchParams(
-            positionBufferObject, normalBufferObject,
-            boneIndicesBufferObject, boneWeightsBufferObject, uv0BufferObject,
-            skinnedPositionsBuffer, skinnedNormalsBuffer, skinnedUvBuffer,
-            boneMatrixSSBO,
-            morphOffsetsSSBO, morphWeightsSSBO, vertexMorphCount,
-            uvMorphOffsetsSSBO, uvMorphWeightsSSBO, uvMorphCount,
-            vertexCount
-        ));
         
         // G3 优化：批量获取所有子网格元数据（1 次 JNI 替代 ~180 次/帧）
         subMeshDataBuf.clear();
@@ -642,7 +595,7 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
         deliverStack.last().pose().get(modelViewMatBuff);
         RenderSystem.getProjectionMatrix().get(projMatBuff);
         
-        GL46C.glBindBuffer(GL46C.GL_ELEMENT_ARRAY_BUFFER, indexBufferObject);
+        GL46C.glBindBuffer(GL46C.GL_ELEMENT_ARRAY_BUFFER, indexRange.getBuffer());
         
         currentDeliverStack = deliverStack;
         if (useToon && toonShaderCpu != null && toonShaderCpu.isInitialized()) {
@@ -653,6 +606,9 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
         
         // === 清理 ===
         cleanupVertexAttributes();
+        if (materialMorphs != null) {
+            GpuMaterialMorphs.unbindCommands();
+        }
         
         GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, 0);
         GL46C.glBindBuffer(GL46C.GL_ELEMENT_ARRAY_BUFFER, 0);
@@ -697,6 +653,7 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
             logger.error("[GPU蒙皮] RenderSystem.getShader() 返回 null，跳过渲染");
             return;
         }
+        updateMaterialMorphs(null);
         shaderProgram = shader.getId();
         
         // 安卓兼容：光照强度通过 ColorModulator uniform 传递（替代 glVertexAttrib4f 常量 Color 属性）
@@ -709,7 +666,7 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
         setUniforms(shader, currentDeliverStack);
         shader.apply();
         
-        GL46C.glUseProgram(shaderProgram);
+        GlStateTracker.useProgram(shaderProgram);
         updateLocation(shaderProgram);
         
         // === UV2：填充 VBO 并绑定属性（替代 glVertexAttribI4i 常量属性，安卓兼容）===
@@ -722,73 +679,59 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
             uv2Buffer.putInt(skyBrightness);
         }
         uv2Buffer.flip();
-        GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2BufferObject);
-        GL46C.glBufferSubData(GL46C.GL_ARRAY_BUFFER, 0, uv2Buffer);
+        uv2Range.upload(uv2Buffer);
         if (uv2Location != -1) {
             GL46C.glEnableVertexAttribArray(uv2Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2BufferObject);
-            GL46C.glVertexAttribIPointer(uv2Location, 2, GL46C.GL_INT, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2Range.getBuffer());
+            GL46C.glVertexAttribIPointer(uv2Location, 2, GL46C.GL_INT, 0, uv2Range.getOffset());
         }
         if (I_uv2Location != -1) {
             GL46C.glEnableVertexAttribArray(I_uv2Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2BufferObject);
-            GL46C.glVertexAttribIPointer(I_uv2Location, 2, GL46C.GL_INT, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2Range.getBuffer());
+            GL46C.glVertexAttribIPointer(I_uv2Location, 2, GL46C.GL_INT, 0, uv2Range.getOffset());
         }
         // === Color：使用白色 VBO + ColorModulator uniform 传递光照（替代 glVertexAttrib4f，安卓兼容）===
         // Color VBO 在创建时填充白色 (1,1,1,1)，光照强度已通过 setShaderColor → ColorModulator 传递
         if (colorLocation != -1) {
             GL46C.glEnableVertexAttribArray(colorLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, colorBufferObject);
-            GL46C.glVertexAttribPointer(colorLocation, 4, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, colorRange.getBuffer());
+            GL46C.glVertexAttribPointer(colorLocation, 4, GL46C.GL_FLOAT, false, 0, colorRange.getOffset());
         }
         if (I_colorLocation != -1) {
             GL46C.glEnableVertexAttribArray(I_colorLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, colorBufferObject);
-            GL46C.glVertexAttribPointer(I_colorLocation, 4, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, colorRange.getBuffer());
+            GL46C.glVertexAttribPointer(I_colorLocation, 4, GL46C.GL_FLOAT, false, 0, colorRange.getOffset());
         }
         
         // 绑定顶点属性（标准名称）
         if (positionLocation != -1) {
-            GL46C.glEnableVertexAttribArray(positionLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, skinnedPositionsBuffer);
-            GL46C.glVertexAttribPointer(positionLocation, 3, GL46C.GL_FLOAT, false, 0, 0);
+            bindSkinnedStream(positionLocation, SkinningArena.STREAM_SKINNED_POSITION, 3);
         }
         if (normalLocation != -1) {
-            GL46C.glEnableVertexAttribArray(normalLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, skinnedNormalsBuffer);
-            GL46C.glVertexAttribPointer(normalLocation, 3, GL46C.GL_FLOAT, false, 0, 0);
+            bindSkinnedStream(normalLocation, SkinningArena.STREAM_SKINNED_NORMAL, 3);
         }
         // UV0: 使用 Compute Shader 输出的蒙皮后 UV（含 UV Morph）
-        int activeUvBuffer = (skinnedUvBuffer > 0) ? skinnedUvBuffer : uv0BufferObject;
         if (uv0Location != -1) {
-            GL46C.glEnableVertexAttribArray(uv0Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, activeUvBuffer);
-            GL46C.glVertexAttribPointer(uv0Location, 2, GL46C.GL_FLOAT, false, 0, 0);
+            bindSkinnedStream(uv0Location, SkinningArena.STREAM_SKINNED_UV, 2);
         }
         if (uv1Location != -1) {
             GL46C.glEnableVertexAttribArray(uv1Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv1BufferObject);
-            GL46C.glVertexAttribIPointer(uv1Location, 2, GL46C.GL_INT, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv1Range.getBuffer());
+            GL46C.glVertexAttribIPointer(uv1Location, 2, GL46C.GL_INT, 0, uv1Range.getOffset());
         }
         
         // 绑定 Iris 重命名属性
         if (I_positionLocation != -1) {
-            GL46C.glEnableVertexAttribArray(I_positionLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, skinnedPositionsBuffer);
-            GL46C.glVertexAttribPointer(I_positionLocation, 3, GL46C.GL_FLOAT, false, 0, 0);
+            bindSkinnedStream(I_positionLocation, SkinningArena.STREAM_SKINNED_POSITION, 3);
         }
         if (I_normalLocation != -1) {
-            GL46C.glEnableVertexAttribArray(I_normalLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, skinnedNormalsBuffer);
-            GL46C.glVertexAttribPointer(I_normalLocation, 3, GL46C.GL_FLOAT, false, 0, 0);
+            bindSkinnedStream(I_normalLocation, SkinningArena.STREAM_SKINNED_NORMAL, 3);
         }
         if (I_uv0Location != -1) {
-            GL46C.glEnableVertexAttribArray(I_uv0Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, activeUvBuffer);
-            GL46C.glVertexAttribPointer(I_uv0Location, 2, GL46C.GL_FLOAT, false, 0, 0);
+            bindSkinnedStream(I_uv0Location, SkinningArena.STREAM_SKINNED_UV, 2);
         }
         
-        drawAllSubMeshes(MCinstance);
+        drawAllSubMeshes(MCinstance, null);
     }
     
     /**
@@ -811,33 +754,28 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
             }
         }
         
-        // ===== 第一遍：描边 =====
-        if (toonConfig.isOutlineEnabled()) {
+        // 屏幕空间描边：主体 pass 同时写入边缘掩码，由 ToonOutlinePass 在世界渲染结束后统一描边
+        boolean screenOutline = !irisActive && ToonOutlinePass.isActive() && ToonOutlinePass.bindMask();
+        
+        // 逐模型 Uniform 块一次上传（矩阵 + Toon 参数，两遍共用）
+        ToonMaterialBlock materialBlock = commitToonUniforms(toonShaderCpu, currentDeliverStack.last().pose(),
+                lightIntensity, screenOutline);
+        updateMaterialMorphs(materialBlock);
+        
+        // ===== 第一遍：描边（屏幕空间模式下跳过） =====
+        if (toonConfig.isOutlineEnabled() && !screenOutline) {
             toonShaderCpu.useOutline();
             
             int posLoc = toonShaderCpu.getOutlinePositionLocation();
             int norLoc = toonShaderCpu.getOutlineNormalLocation();
             
             if (posLoc != -1) {
-                GL46C.glEnableVertexAttribArray(posLoc);
-                GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, skinnedPositionsBuffer);
-                GL46C.glVertexAttribPointer(posLoc, 3, GL46C.GL_FLOAT, false, 0, 0);
+                bindSkinnedStream(posLoc, SkinningArena.STREAM_SKINNED_POSITION, 3);
             }
             if (norLoc != -1) {
-                GL46C.glEnableVertexAttribArray(norLoc);
-                GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, skinnedNormalsBuffer);
-                GL46C.glVertexAttribPointer(norLoc, 3, GL46C.GL_FLOAT, false, 0, 0);
+                bindSkinnedStream(norLoc, SkinningArena.STREAM_SKINNED_NORMAL, 3);
             }
             
-            toonShaderCpu.setOutlineProjectionMatrix(projMatBuff);
-            toonShaderCpu.setOutlineModelViewMatrix(modelViewMatBuff);
-            toonShaderCpu.setOutlineWidth(toonConfig.getOutlineWidth());
-            toonShaderCpu.setOutlineColor(
-                toonConfig.getOutlineColorR(),
-                toonConfig.getOutlineColorG(),
-                toonConfig.getOutlineColorB()
-            );
-            
             GL46C.glCullFace(GL46C.GL_FRONT);
             RenderSystem.enableCull();
             
@@ -851,10 +789,9 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
                 boolean visible= subMeshDataBuf.get(base + 16) != 0;
                 
                 if (!visible) continue;
-                if (getEffectiveMaterialAlpha(materialID, edgeAlpha) < 0.001f) continue;
+                if (materialMorphs == null && getEffectiveMaterialAlpha(materialID, edgeAlpha) < 0.001f) continue;
                 
-                long startPos = (long) beginIndex * indexElementSize;
-                GL46C.glDrawElements(GL46C.GL_TRIANGLES, count, indexType, startPos);
+                drawSubMesh(i, beginIndex, count);
             }
             
             // 恢复背面剔除
@@ -873,48 +810,32 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
         int uvLoc = toonShaderCpu.getUv0Location();
         
         if (toonPosLoc != -1) {
-            GL46C.glEnableVertexAttribArray(toonPosLoc);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, skinnedPositionsBuffer);
-            GL46C.glVertexAttribPointer(toonPosLoc, 3, GL46C.GL_FLOAT, false, 0, 0);
+            bindSkinnedStream(toonPosLoc, SkinningArena.STREAM_SKINNED_POSITION, 3);
         }
         if (toonNorLoc != -1) {
-            GL46C.glEnableVertexAttribArray(toonNorLoc);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, skinnedNormalsBuffer);
-            GL46C.glVertexAttribPointer(toonNorLoc, 3, GL46C.GL_FLOAT, false, 0, 0);
+            bindSkinnedStream(toonNorLoc, SkinningArena.STREAM_SKINNED_NORMAL, 3);
         }
         if (uvLoc != -1) {
-            GL46C.glEnableVertexAttribArray(uvLoc);
-            int toonUvBuffer = (skinnedUvBuffer > 0) ? skinnedUvBuffer : uv0BufferObject;
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, toonUvBuffer);
-            GL46C.glVertexAttribPointer(uvLoc, 2, GL46C.GL_FLOAT, false, 0, 0);
+            bindSkinnedStream(uvLoc, SkinningArena.STREAM_SKINNED_UV, 2);
         }
         
-        toonShaderCpu.setProjectionMatrix(projMatBuff);
-        toonShaderCpu.setModelViewMatrix(modelViewMatBuff);
-        toonShaderCpu.setSampler0(0);
-        toonShaderCpu.setLightIntensity(lightIntensity);
-        toonShaderCpu.setToonLevels(toonConfig.getToonLevels());
-        toonShaderCpu.setRimLight(toonConfig.getRimPower(), toonConfig.getRimIntensity());
-        toonShaderCpu.setShadowColor(
-            toonConfig.getShadowColorR(),
-            toonConfig.getShadowColorG(),
-            toonConfig.getShadowColorB()
-        );
-        toonShaderCpu.setSpecular(toonConfig.getSpecularPower(), toonConfig.getSpecularIntensity());
-        
-        drawAllSubMeshes(MCinstance);
+        drawAllSubMeshes(MCinstance, screenOutline ? materialBlock : null);
+        if (screenOutline) {
+            ToonOutlinePass.unbindMask();
+        }
         
         if (toonPosLoc != -1) GL46C.glDisableVertexAttribArray(toonPosLoc);
         if (toonNorLoc != -1) GL46C.glDisableVertexAttribArray(toonNorLoc);
         if (uvLoc != -1) GL46C.glDisableVertexAttribArray(uvLoc);
         
-        GL46C.glUseProgram(0);
+        GlStateTracker.useProgram(0);
     }
     
     /**
      * 绘制所有子网格
+     * @param edgeBlock 非 null 时逐材质绑定屏幕空间描边掩码（仅 Toon 主体 pass）
      */
-    private void drawAllSubMeshes(Minecraft MCinstance) {
+    private void drawAllSubMeshes(Minecraft MCinstance, ToonMaterialBlock edgeBlock) {
         RenderSystem.activeTexture(GL46C.GL_TEXTURE0);
         
         // G3 优化：从预填充的 subMeshDataBuf 读取元数据（0 次 JNI 调用）
@@ -928,7 +849,7 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
             boolean bothFace= subMeshDataBuf.get(base + 17) != 0;
             
             if (!visible) continue;
-            if (getEffectiveMaterialAlpha(materialID, alpha) < 0.001f) continue;
+            if (materialMorphs == null && getEffectiveMaterialAlpha(materialID, alpha) < 0.001f) continue;
             
             if (bothFace) {
                 RenderSystem.disableCull();
@@ -944,108 +865,192 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
             }
             RenderSystem.setShaderTexture(0, texId);
             GL46C.glBindTexture(GL46C.GL_TEXTURE_2D, texId);
+            if (edgeBlock != null) {
+                edgeBlock.bind(materialID);
+            }
             
-            long startPos = (long) beginIndex * indexElementSize;
-            GL46C.glDrawElements(GL46C.GL_TRIANGLES, vertCount, indexType, startPos);
+            drawSubMesh(i, beginIndex, vertCount);
         }
     }
     
     /**
-     * 上传骨骼矩阵到 Compute Shader 的 SSBO
+     * 绘制一个子网格：GPU 材质 Morph 模型使用 Compute 写好的间接绘制命令（含 Morph 后的可见性）
      */
-    private void uploadBoneMatrices() {
-        boneMatricesByteBuffer.clear();
+    private void drawSubMesh(int subMesh, int beginIndex, int count) {
+        if (materialMorphs != null) {
+            materialMorphs.drawSubMesh(subMesh, indexType);
+        } else {
+            long startPos = indexRange.getOffset() + (long) beginIndex * indexElementSize;
+            GL46C.glDrawElements(GL46C.GL_TRIANGLES, count, indexType, startPos);
+        }
+    }
+    
+    /**
+     * GPU 材质 Morph 按需求值并绑定间接绘制命令（子网格元数据已在本帧拉取）
+     *
+     * @param edgeBlock Toon 逐材质 Uniform 块（写入 Morph 后的边缘参数），普通渲染时为 null
+     */
+    private void updateMaterialMorphs(ToonMaterialBlock edgeBlock) {
+        if (materialMorphs == null) return;
+        materialMorphs.update(subMeshDataBuf, indexRange.getOffset() / indexElementSize, edgeBlock);
+        materialMorphs.bindCommands();
+    }
+    
+    /**
+     * 将本帧骨骼矩阵与活动 Morph 列表写入批次暂存区并登记实例（由 SkinningBatch.flush 统一分派）
+     *
+     * @param fetchMaterialMorphs 是否拉取 CPU 端材质 Morph 结果（预处理时已随命令输出取回）
+     */
+    private void submitSkinning(boolean fetchMaterialMorphs) {
+        drawInstance = skinningInstance;
+        if (crowd != null) {
+            submitCrowdSkinning();
+            return;
+        }
+        if (materialMorphs != null) {
+            materialMorphs.setActiveCount(nf.CopyGpuActiveMaterialMorphsToBuffer(model, materialMorphs.activeStaging()));
+        } else if (fetchMaterialMorphs && materialMorphResultCount > 0) {
+            fetchMaterialMorphResults();
+        }
         
-        int copiedBones = nf.CopySkinningMatricesToBuffer(model, boneMatricesByteBuffer);
+        int copiedBones = nf.CopySkinningMatrices3x4ToBuffer(model, SkinningBatch.boneStaging(boneCount));
         if (copiedBones == 0) return;
         
-        boneMatricesBuffer.clear();
-        boneMatricesByteBuffer.position(0);
-        // G2 优化：批量拷贝替代逐 float 循环（消除 copiedBones*16 次迭代）
-        FloatBuffer floatView = boneMatricesByteBuffer.asFloatBuffer();
-        floatView.limit(copiedBones * 16);
-        boneMatricesBuffer.put(floatView);
-        boneMatricesBuffer.flip();
-        
-        computeShader.uploadBoneMatrices(boneMatrixSSBO, boneMatricesBuffer, copiedBones);
+        // 只登记非零权重的 Morph（直接写入暂存区，无中间拷贝）
+        int activeMorphs = 0;
+        int morphSlots = vertexMorphCount + uvMorphCount;
+        if (morphSlots > 0) {
+            activeMorphs = nf.CopyGpuActiveMorphsToBuffer(model, SkinningBatch.morphStaging(morphSlots));
+        }
+        SkinningBatch.submit(skinningInstance, copiedBones, activeMorphs);
     }
     
     /**
-     * 上传 Morph 数据到 Compute Shader 的 SSBO
+     * 群体动画：活动 Morph 列表取自烘焙结果的当前帧，骨骼矩阵由群体姿态分派写入
+     * 本帧已有同模型实例蒙皮了相同姿态时不再登记，直接绘制其蒙皮输出（材质 Morph 仍按本实例求值）
+     * 同姿态共享只在此路径生效；普通模型（submitSkinning）没有姿态键，每个实例各自蒙皮
      */
-    private void uploadMorphData() {
-        if (vertexMorphCount <= 0) return;
-        
-        // 首次上传偏移数据（静态）
-        if (!morphDataUploaded) {
-            long offsetsSize = nf.GetGpuMorphOffsetsSize(model);
-            if (offsetsSize > 0) {
-                // 边界检查：避免 long 截断为负数导致 memAlloc 异常
-                if (offsetsSize > Integer.MAX_VALUE) {
-                    logger.error("Morph 数据过大 ({} bytes)，超过 2GB 限制，跳过 GPU Morph", offsetsSize);
-                    vertexMorphCount = 0; // 禁用 Morph 以避免后续错误
-                } else {
-                    // 使用 MemoryUtil.memAlloc 分配原生内存，避免 Java 直接内存池 OOM
-                    ByteBuffer offsetsBuffer = MemoryUtil.memAlloc((int) offsetsSize);
-                    offsetsBuffer.order(ByteOrder.LITTLE_ENDIAN);
-                    try {
-                        nf.CopyGpuMorphOffsetsToBuffer(model, offsetsBuffer);
-                        computeShader.uploadMorphOffsets(morphOffsetsSSBO, offsetsBuffer);
-                        morphDataUploaded = true;
-                    } finally {
-                        MemoryUtil.memFree(offsetsBuffer);
-                    }
-                }
-            }
+    private void submitCrowdSkinning() {
+        BakedCrowdClip clip = crowd.getClip();
+        int frame = crowd.currentFrame();
+        if (materialMorphs != null) {
+            materialMorphs.setActiveCount(clip.copyMaterialMorphs(frame, materialMorphs.activeStaging()));
         }
-        
-        // 每帧更新权重（复用预分配缓冲区）
-        if (morphWeightsBuffer != null && morphWeightsByteBuffer != null) {
-            morphWeightsByteBuffer.clear();
-            nf.CopyGpuMorphWeightsToBuffer(model, morphWeightsByteBuffer);
-            morphWeightsBuffer.clear();
-            morphWeightsByteBuffer.position(0);
-            morphWeightsBuffer.put(morphWeightsByteBuffer.asFloatBuffer());
-            morphWeightsBuffer.flip();
-            computeShader.updateMorphWeights(morphWeightsSSBO, morphWeightsBuffer);
+        SkinningInstance leader = SkinningBatch.findSharedPose(crowd.poseKey(), skinningInstance);
+        if (leader != null) {
+            drawInstance = leader;
+            return;
+        }
+        int activeMorphs = 0;
+        int morphSlots = vertexMorphCount + uvMorphCount;
+        if (morphSlots > 0) {
+            activeMorphs = clip.copyMorphs(frame, SkinningBatch.morphStaging(morphSlots));
         }
+        crowd.submit(skinningInstance, activeMorphs);
     }
     
     /**
-     * 上传 UV Morph 数据到 Compute Shader 的 SSBO
+     * 预处理：群体动画只推进本地播放时钟，其余由 Rust 端批量更新动画（不含 CPU 蒙皮）
      */
-    private void uploadUvMorphData() {
-        if (uvMorphCount <= 0) return;
-        
-        // 首次上传偏移数据（静态）
-        if (!uvMorphDataUploaded) {
-            long offsetsSize = nf.GetGpuUvMorphOffsetsSize(model);
-            if (offsetsSize > 0 && offsetsSize <= Integer.MAX_VALUE) {
-                ByteBuffer offsetsBuffer = MemoryUtil.memAlloc((int) offsetsSize);
-                offsetsBuffer.order(ByteOrder.LITTLE_ENDIAN);
-                try {
-                    nf.CopyGpuUvMorphOffsetsToBuffer(model, offsetsBuffer);
-                    computeShader.uploadUvMorphOffsets(uvMorphOffsetsSSBO, offsetsBuffer);
-                    uvMorphDataUploaded = true;
-                } finally {
-                    MemoryUtil.memFree(offsetsBuffer);
-                }
+    @Override
+    protected int getPrepassUpdateMode() {
+        return crowd != null ? FramePrepass.UPDATE_LOCAL : FramePrepass.UPDATE_ANIMATION;
+    }
+    
+    /**
+     * GPU 端求值材质 Morph 时不需要回传 CPU 端结果
+     */
+    @Override
+    protected int getCommandMaterialMorphFloats() {
+        return materialMorphs != null ? 0 : super.getCommandMaterialMorphFloats();
+    }
+    
+    /**
+     * 预处理：姿态变化时登记到批次（随后由 FramePrepass 统一 flush 分派）
+     */
+    @Override
+    protected void finishPrepass(boolean poseUnchanged) {
+        if (initialized && !poseUnchanged) {
+            submitSkinning(false);
+        }
+    }
+    
+    /**
+     * 将共享存储中的蒙皮输出（本实例，或同姿态共享时的蒙皮者）绑定为顶点属性（缓冲区 ID 扩容后会变化，每次绑定时重新获取）
+     */
+    private void bindSkinnedStream(int location, int stream, int size) {
+        SkinningInstance source = drawInstance != null && !drawInstance.isReleased() ? drawInstance : skinningInstance;
+        GL46C.glEnableVertexAttribArray(location);
+        GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, SkinningBatch.getArena().getStreamBuffer(stream));
+        if (stream == SkinningArena.STREAM_SKINNED_NORMAL) {
+            // 法线为 snorm16 × 4（第 4 分量为填充），按归一化 short 读取
+            GL46C.glVertexAttribPointer(location, size, GL46C.GL_SHORT, true,
+                    SkinningArena.streamStride(stream), source.streamOffset(stream));
+        } else {
+            GL46C.glVertexAttribPointer(location, size, GL46C.GL_FLOAT, false, 0, source.streamOffset(stream));
+        }
+    }
+    
+    /**
+     * 上传稀疏 Morph 条目到共享 Morph 条目池（静态，创建时上传一次）
+     *
+     * @param uv true = UV Morph，false = 顶点 Morph
+     * @return 是否成功，失败时调用方禁用对应 Morph
+     */
+    private static boolean uploadMorphOffsets(NativeFunc nf, long model, SkinningArena arena,
+                                              SkinningInstance instance, boolean uv) {
+        long offsetsSize = uv ? nf.GetGpuUvMorphOffsetsSize(model) : nf.GetGpuMorphOffsetsSize(model);
+        if (offsetsSize <= 0) return false;
+        // 边界检查：避免 long 截断为负数导致 memAlloc 异常
+        if (offsetsSize > Integer.MAX_VALUE) {
+            logger.error("Morph 数据过大 ({} bytes)，超过 2GB 限制，跳过 GPU Morph", offsetsSize);
+            return false;
+        }
+        // 使用 MemoryUtil.memAlloc 分配原生内存，避免 Java 直接内存池 OOM
+        ByteBuffer offsetsBuffer = MemoryUtil.memAlloc((int) offsetsSize);
+        offsetsBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (uv) {
+                nf.CopyGpuUvMorphOffsetsToBuffer(model, offsetsBuffer);
+            } else {
+                nf.CopyGpuMorphOffsetsToBuffer(model, offsetsBuffer);
             }
+            return arena.uploadMorphOffsets(instance, uv, offsetsBuffer);
+        } finally {
+            MemoryUtil.memFree(offsetsBuffer);
         }
+    }
+    
+    /**
+     * 上传材质 Morph 条目与材质基础边缘参数，创建 GPU 材质 Morph 求值状态
+     *
+     * @return 模型没有材质 Morph 或 Compute 程序不可用时返回 null（保持 CPU 求值）
+     */
+    private static GpuMaterialMorphs createMaterialMorphs(NativeFunc nf, long model, int materialCount, int subMeshCount) {
+        if (materialCount <= 0 || subMeshCount <= 0) return null;
+        int morphCount = nf.InitGpuMaterialMorphData(model);
+        if (morphCount <= 0) return null;
+        long entriesSize = nf.GetGpuMaterialMorphEntriesSize(model);
+        if (entriesSize <= 0 || entriesSize > Integer.MAX_VALUE) return null;
         
-        // 每帧更新权重
-        if (uvMorphWeightsBuffer != null && uvMorphWeightsByteBuffer != null) {
-            uvMorphWeightsByteBuffer.clear();
-            nf.CopyGpuUvMorphWeightsToBuffer(model, uvMorphWeightsByteBuffer);
-            uvMorphWeightsBuffer.clear();
-            uvMorphWeightsByteBuffer.position(0);
-            uvMorphWeightsBuffer.put(uvMorphWeightsByteBuffer.asFloatBuffer());
-            uvMorphWeightsBuffer.flip();
-            computeShader.updateUvMorphWeights(uvMorphWeightsSSBO, uvMorphWeightsBuffer);
+        ByteBuffer edgeData = MemoryUtil.memAlloc(materialCount * 20);
+        ByteBuffer entries = MemoryUtil.memAlloc((int) entriesSize);
+        try {
+            edgeData.order(ByteOrder.LITTLE_ENDIAN);
+            entries.order(ByteOrder.LITTLE_ENDIAN);
+            nf.BatchGetMaterialEdgeData(model, edgeData);
+            nf.CopyGpuMaterialMorphEntriesToBuffer(model, entries);
+            GpuMaterialMorphs morphs = GpuMaterialMorphs.create(materialCount, subMeshCount, morphCount, edgeData, entries);
+            if (morphs != null) {
+                logger.info("GPU 材质 Morph 初始化: {} 个材质 Morph", morphCount);
+            }
+            return morphs;
+        } finally {
+            MemoryUtil.memFree(edgeData);
+            MemoryUtil.memFree(entries);
         }
     }
     
-    
     /**
      * 更新着色器属性位置（基于当前绑定的着色器程序）
      * 支持 Minecraft 标准属性和 Iris 重命名属性
@@ -1077,37 +1082,18 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
     @Override
     public long getVramUsage() {
         if (!initialized) return 0;
-        NativeFunc nf = getNf();
-        long total = 0;
-        int indexCount = (int) nf.GetIndexCount(model);
-        // IBO
-        total += (long) indexCount * indexElementSize;
-        // pos + normal + uv0 VBO（静态输入）
-        total += (long) vertexCount * 12 * 2;
-        total += (long) vertexCount * 8;
-        // boneIdx + boneWgt VBO
-        total += (long) vertexCount * 16 * 2;
-        // color + uv1 + uv2 VBO
-        total += (long) vertexCount * 16;
-        total += (long) vertexCount * 8 * 2;
-        // Compute Shader 输出 SSBO（skinned pos + skinned nor）
-        total += (long) vertexCount * 12 * 2;
-        // Bone matrix SSBO（固定分配 MAX_BONES 大小）
-        total += (long) ShaderConstants.MAX_BONES * 64;
-        // Morph SSBOs（使用 JNI 精确查询实际分配大小）
-        if (vertexMorphCount > 0) {
-            total += nf.GetGpuMorphOffsetsSize(model); // offsets
-            total += (long) vertexMorphCount * 4;       // weights
-        }
-        // UV Morph SSBOs
-        if (uvMorphCount > 0) {
-            total += nf.GetGpuUvMorphOffsetsSize(model); // offsets
-            total += (long) uvMorphCount * 4;             // weights
-        }
-        // Skinned UV buffer（无论是否有 UV Morph 都会分配）
-        if (skinnedUvBuffer > 0) {
-            total += (long) vertexCount * 8;
+        // 缓冲区池中实际占用的区间（索引 + color/uv1/uv2）
+        long total = allocatedBytes(indexRange, colorRange, uv1Range, uv2Range);
+        // 共享蒙皮存储中的区间（静态输入 + 蒙皮输出 + Morph 累加 + Morph 条目）
+        total += skinningInstance.getVramUsage();
+        // 批次骨骼矩阵与活动 Morph 列表（按本模型所占份额，Morph 按上限估算）
+        total += (long) boneCount * 48 + (long) (vertexMorphCount + uvMorphCount) * 32;
+        // GPU 材质 Morph（条目、子网格表与间接绘制命令）
+        if (materialMorphs != null) {
+            total += materialMorphs.getVramUsage();
         }
+        // 远景替身图集
+        total += getImpostorVramUsage();
         return total;
     }
     
@@ -1115,35 +1101,19 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
     public long getRamUsage() {
         if (!initialized) return 0;
         long rustRam = getNf().GetModelMemoryUsage(model);
-        // Java 侧堆外内存：6 个逐顶点 ByteBuffer
-        long javaRam = (long) vertexCount * 64; // pos(12)+nor(12)+uv0(8)+color(16)+uv1(8)+uv2(8)
+        // Java 侧堆外内存：仅每帧更新的 UV2（静态数据经暂存区上传后即释放）
+        long javaRam = (long) vertexCount * 8;
         // MemoryUtil 预分配缓冲区
         javaRam += 128; // modelViewMat(64)+projMat(64)
-        // 骨骼矩阵缓冲区（FloatBuffer + ByteBuffer）
-        if (boneMatricesBuffer != null) {
-            javaRam += (long) boneMatricesBuffer.capacity() * 4;
-        }
-        if (boneMatricesByteBuffer != null) {
-            javaRam += boneMatricesByteBuffer.capacity();
-        }
-        // Morph 权重缓冲区
-        if (morphWeightsBuffer != null) {
-            javaRam += (long) morphWeightsBuffer.capacity() * 4;
-        }
-        if (morphWeightsByteBuffer != null) {
-            javaRam += morphWeightsByteBuffer.capacity();
-        }
-        // UV Morph 权重缓冲区
-        if (uvMorphWeightsBuffer != null) {
-            javaRam += (long) uvMorphWeightsBuffer.capacity() * 4;
-        }
-        if (uvMorphWeightsByteBuffer != null) {
-            javaRam += uvMorphWeightsByteBuffer.capacity();
-        }
+        // 批次暂存区中的骨骼矩阵与活动 Morph 列表（按本模型所占份额，Morph 按上限估算）
+        javaRam += (long) boneCount * 48 + (long) (vertexMorphCount + uvMorphCount) * (16 + 32);
         // 材质 Morph 缓冲区
         if (materialMorphResultCount > 0) {
             javaRam += (long) materialMorphResultCount * 56 * 4 * 2;
         }
+        if (materialMorphs != null) {
+            javaRam += materialMorphs.getRamUsage();
+        }
         // 子网格元数据缓冲区
         if (subMeshDataBuf != null) {
             javaRam += subMeshDataBuf.capacity();
@@ -1155,32 +1125,21 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
     public void dispose() {
         if (!initialized) return;
         initialized = false;
+        stopCrowd();
         releaseTextures();
         disposeModelHandle();
+        disposeImpostor();
+        disposeOcclusionQuery();
         
         // 释放 OpenGL 资源
         GL46C.glDeleteVertexArrays(vertexArrayObject);
-        GL46C.glDeleteBuffers(indexBufferObject);
-        GL46C.glDeleteBuffers(positionBufferObject);
-        GL46C.glDeleteBuffers(normalBufferObject);
-        GL46C.glDeleteBuffers(uv0BufferObject);
-        GL46C.glDeleteBuffers(boneIndicesBufferObject);
-        GL46C.glDeleteBuffers(boneWeightsBufferObject);
-        GL46C.glDeleteBuffers(colorBufferObject);
-        GL46C.glDeleteBuffers(uv1BufferObject);
-        GL46C.glDeleteBuffers(uv2BufferObject);
-        GL46C.glDeleteBuffers(skinnedPositionsBuffer);
-        GL46C.glDeleteBuffers(skinnedNormalsBuffer);
+        releaseRanges(indexRange, colorRange, uv1Range, uv2Range);
+        indexRange = colorRange = uv1Range = uv2Range = null;
         
-        // 释放每实例 SSBO
-        if (boneMatrixSSBO > 0) GL46C.glDeleteBuffers(boneMatrixSSBO);
-        if (morphOffsetsSSBO > 0) GL46C.glDeleteBuffers(morphOffsetsSSBO);
-        if (morphWeightsSSBO > 0) GL46C.glDeleteBuffers(morphWeightsSSBO);
-        if (uvMorphOffsetsSSBO > 0) GL46C.glDeleteBuffers(uvMorphOffsetsSSBO);
-        if (uvMorphWeightsSSBO > 0) GL46C.glDeleteBuffers(uvMorphWeightsSSBO);
-        if (skinnedUvBuffer > 0) GL46C.glDeleteBuffers(skinnedUvBuffer);
-        boneMatrixSSBO = 0; morphOffsetsSSBO = 0; morphWeightsSSBO = 0;
-        uvMorphOffsetsSSBO = 0; uvMorphWeightsSSBO = 0; skinnedUvBuffer = 0;
+        // 归还共享蒙皮存储中的区间
+        SkinningBatch.getArena().release(skinningInstance);
+        skinningInstance = null;
+        drawInstance = null;
         
         // 释放自建的 lightMap 纹理
         if (lightMapMaterial != null && lightMapMaterial.ownsTexture && lightMapMaterial.tex > 0) {
@@ -1190,12 +1149,10 @@ public class MMDModelGpuSkinning extends AbstractMMDModel {
         
         // 释放 MemoryUtil 分配的缓冲区
         disposeMaterialMorphBuffers();
-        if (boneMatricesBuffer != null) { MemoryUtil.memFree(boneMatricesBuffer); boneMatricesBuffer = null; }
-        if (boneMatricesByteBuffer != null) { MemoryUtil.memFree(boneMatricesByteBuffer); boneMatricesByteBuffer = null; }
-        if (morphWeightsBuffer != null) { MemoryUtil.memFree(morphWeightsBuffer); morphWeightsBuffer = null; }
-        morphWeightsByteBuffer = null;
-        if (uvMorphWeightsBuffer != null) { MemoryUtil.memFree(uvMorphWeightsBuffer); uvMorphWeightsBuffer = null; }
-        uvMorphWeightsByteBuffer = null;
+        if (materialMorphs != null) {
+            materialMorphs.cleanup();
+            materialMorphs = null;
+        }
         if (modelViewMatBuff != null) { MemoryUtil.memFree(modelViewMatBuff); modelViewMatBuff = null; }
         if (projMatBuff != null) { MemoryUtil.memFree(projMatBuff); projMatBuff = null; }
         if (subMeshDataBuf != null) { MemoryUtil.memFree(subMeshDataBuf); subMeshDataBuf = null; }
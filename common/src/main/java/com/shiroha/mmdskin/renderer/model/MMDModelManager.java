@@ -11,6 +11,7 @@ import com.shiroha.mmdskin.renderer.core.ModelCache;
 import com.shiroha.mmdskin.renderer.core.RenderModeManager;
 import com.shiroha.mmdskin.renderer.model.factory.ModelFactoryRegistry;
 import com.shiroha.mmdskin.renderer.resource.MMDTextureManager;
+import com.shiroha.mmdskin.renderer.shader.BakedCrowdClip;
 import com.shiroha.mmdskin.maid.MaidMMDModelManager;
 
 import java.io.FileInputStream;
@@ -320,6 +321,7 @@ public class MMDModelManager {
         failedLoads.entrySet().removeIf(entry -> entry.getKey().startsWith(prefix));
         MMDTextureManager.clearPreloaded();
         modelCache.removeMatching(key -> key.startsWith(prefix), MMDModelManager::disposeModel);
+        BakedCrowdClip.clearCache();
     }
     
     /**
@@ -348,6 +350,7 @@ public class MMDModelManager {
         modelCache.clear(MMDModelManager::disposeModel);
         MaidMMDModelManager.invalidateLoadedModels();
         MMDTextureManager.clearPreloaded();
+        BakedCrowdClip.clearCache();
         logger.info("强制重载所有模型完成");
     }
     
@@ -445,6 +448,7 @@ public class MMDModelManager {
         modelCache.clear(MMDModelManager::disposeModel);
         MaidMMDModelManager.invalidateLoadedModels();
         MMDTextureManager.clearPreloaded();
+        BakedCrowdClip.clearCache();
         logger.info("模型已重载");
     }
     
@@ -4,9 +4,14 @@ import com.shiroha.mmdskin.MmdSkinClient;
 import com.shiroha.mmdskin.config.ConfigManager;
 import com.shiroha.mmdskin.renderer.core.IrisCompat;
 import com.shiroha.mmdskin.renderer.resource.MMDTextureManager;
+import com.shiroha.mmdskin.renderer.shader.GlStateTracker;
+import com.shiroha.mmdskin.renderer.shader.GpuBufferArena;
+import com.shiroha.mmdskin.renderer.shader.GpuBufferRange;
 import com.shiroha.mmdskin.renderer.shader.ShaderProvider;
 import com.shiroha.mmdskin.renderer.shader.ToonShaderCpu;
 import com.shiroha.mmdskin.renderer.shader.ToonConfig;
+import com.shiroha.mmdskin.renderer.shader.ToonMaterialBlock;
+import com.shiroha.mmdskin.renderer.shader.ToonOutlinePass;
 import com.shiroha.mmdskin.NativeFunc;
 import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.systems.RenderSystem;
@@ -62,14 +67,17 @@ public class MMDModelOpenGL extends AbstractMMDModel {
 
     int vertexCount;
     ByteBuffer posBuffer, colorBuffer, norBuffer, uv0Buffer, uv1Buffer, uv2Buffer;
+    // Rust 端 CPU 蒙皮输出的双缓冲直接视图：[分配序号 * 3 + 0/1/2] = 位置/法线/UV（不可用时为 null，经 pos/nor/uv0Buffer 拷贝上传）
+    ByteBuffer[] skinningViews;
     int vertexArrayObject;
-    int indexBufferObject;
-    int vertexBufferObject;
-    int colorBufferObject;
-    int normalBufferObject;
-    int texcoordBufferObject;
-    int uv1BufferObject;
-    int uv2BufferObject;
+    // 缓冲区池中的区间（缓冲区 ID 与偏移可能因扩容/整理而变化，绑定时重新获取）
+    GpuBufferRange indexRange;
+    GpuBufferRange positionRange;
+    GpuBufferRange colorRange;
+    GpuBufferRange normalRange;
+    GpuBufferRange uv0Range;
+    GpuBufferRange uv1Range;
+    GpuBufferRange uv2Range;
     int indexElementSize;
     int indexType;
     MMDMaterial[] mats;
@@ -137,9 +145,10 @@ public class MMDModelOpenGL extends AbstractMMDModel {
         BufferUploader.reset();
         
         // 资源追踪变量（用于异常时清理）
-        int vertexArrayObject = 0, indexBufferObject = 0;
-        int positionBufferObject = 0, colorBufferObject = 0, normalBufferObject = 0;
-        int uv0BufferObject = 0, uv1BufferObject = 0, uv2BufferObject = 0;
+        int vertexArrayObject = 0;
+        GpuBufferRange indexRange = null;
+        GpuBufferRange positionRange = null, colorRange = null, normalRange = null;
+        GpuBufferRange uv0Range = null, uv1Range = null, uv2Range = null;
         MMDMaterial lightMapMaterial = null;
         FloatBuffer modelViewMatBuff = null, projMatBuff = null;
         FloatBuffer light0Buff = null, light1Buff = null;
@@ -148,19 +157,15 @@ public class MMDModelOpenGL extends AbstractMMDModel {
         
         try {
             vertexArrayObject = GL46C.glGenVertexArrays();
-            indexBufferObject = GL46C.glGenBuffers();
-            positionBufferObject = GL46C.glGenBuffers();
-            colorBufferObject = GL46C.glGenBuffers();
-            normalBufferObject = GL46C.glGenBuffers();
-            uv0BufferObject = GL46C.glGenBuffers();
-            uv1BufferObject = GL46C.glGenBuffers();
-            uv2BufferObject = GL46C.glGenBuffers();
 
             int vertexCount = (int) nf.GetVertexCount(model);
-            ByteBuffer posBuffer = MemoryUtil.memAlloc(vertexCount * 12); //float * 3
+            // 蒙皮输出直接视图可用时直接从 Rust 端分配上传，不再分配中转缓冲区
+            ByteBuffer[] skinningViews = acquireSkinningViews(nf, model, vertexCount);
+            boolean copyUpload = skinningViews == null;
+            ByteBuffer posBuffer = copyUpload ? MemoryUtil.memAlloc(vertexCount * 12) : null; //float * 3
             ByteBuffer colorBuffer = MemoryUtil.memAlloc(vertexCount * 16); //float * 4
-            ByteBuffer norBuffer = MemoryUtil.memAlloc(vertexCount * 12); //float * 3
-            ByteBuffer uv0Buffer = MemoryUtil.memAlloc(vertexCount * 8); //float * 2
+            ByteBuffer norBuffer = copyUpload ? MemoryUtil.memAlloc(vertexCount * 12) : null; //float * 3
+            ByteBuffer uv0Buffer = copyUpload ? MemoryUtil.memAlloc(vertexCount * 8) : null; //float * 2
             ByteBuffer uv1Buffer = MemoryUtil.memAlloc(vertexCount * 8); //int * 2
             ByteBuffer uv2Buffer = MemoryUtil.memAlloc(vertexCount * 8); //int * 2
             colorBuffer.order(ByteOrder.LITTLE_ENDIAN);
@@ -168,17 +173,14 @@ public class MMDModelOpenGL extends AbstractMMDModel {
             uv2Buffer.order(ByteOrder.LITTLE_ENDIAN);
 
             GL46C.glBindVertexArray(vertexArrayObject);
-            //Init indexBufferObject
+            //Init index range（原始索引之后拼接各级 LOD 简化索引）
             int indexElementSize = (int) nf.GetIndexElementSize(model);
-            int indexCount = (int) nf.GetIndexCount(model);
-            int indexSize = indexCount * indexElementSize;
-            long indexData = nf.GetIndices(model);
-            ByteBuffer indexBuffer = MemoryUtil.memAlloc(indexSize);
-            nf.CopyDataToByteBuffer(indexBuffer, indexData, indexSize);
-            indexBuffer.position(0);
-            GL46C.glBindBuffer(GL46C.GL_ELEMENT_ARRAY_BUFFER, indexBufferObject);
-            GL46C.glBufferData(GL46C.GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL46C.GL_STATIC_DRAW);
-            MemoryUtil.memFree(indexBuffer); // 一次性上传后立即释放
+            long[] lodIndexCountOut = new long[1];
+            indexRange = uploadIndexBufferWithLod(nf, model, indexElementSize, lodIndexCountOut);
+            if (indexRange == null) {
+                throw new IllegalStateException("索引缓冲区分配失败");
+            }
+            long lodIndexCount = lodIndexCountOut[0];
 
             int indexType = switch (indexElementSize) {
                 case 1 -> GL46C.GL_UNSIGNED_BYTE;
@@ -249,28 +251,29 @@ public class MMDModelOpenGL extends AbstractMMDModel {
             }
             uv1Buffer.flip();
 
-            // 性能优化：预分配动态 VBO 大小（后续使用 glBufferSubData 仅更新数据，避免每帧重分配 GPU 内存）
+            // 性能优化：在动态顶点池中预分配区间（后续每帧 glBufferSubData 仅更新数据，不重新分配显存）
             int posAndNorSize = vertexCount * 12;
             int uv0Size = vertexCount * 8;
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, positionBufferObject);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, posAndNorSize, GL46C.GL_DYNAMIC_DRAW);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalBufferObject);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, posAndNorSize, GL46C.GL_DYNAMIC_DRAW);
+            positionRange = allocateRange(GpuBufferArena.Usage.DYNAMIC_VERTEX, posAndNorSize);
+            normalRange = allocateRange(GpuBufferArena.Usage.DYNAMIC_VERTEX, posAndNorSize);
             // UV0：加载初始数据并上传；无 UV Morph 时作为静态数据，有 UV Morph 时每帧更新
-            long uv0Data = nf.GetUVs(model);
-            nf.CopyDataToByteBuffer(uv0Buffer, uv0Data, uv0Size);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv0BufferObject);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, uv0Buffer, GL46C.GL_DYNAMIC_DRAW);
+            uv0Range = allocateRange(GpuBufferArena.Usage.DYNAMIC_VERTEX, uv0Size);
+            if (copyUpload) {
+                long uv0Data = nf.GetUVs(model);
+                nf.CopyDataToByteBuffer(uv0Buffer, uv0Data, uv0Size);
+                uv0Range.upload(uv0Buffer);
+            } else {
+                // 启用双缓冲时两组输出内容相同，取任意一组
+                uv0Range.upload(skinningViews[2].clear());
+            }
             
             // 性能优化：uv1 是静态数据（永远是 {15, 15}），只在创建时上传一次
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv1BufferObject);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, uv1Buffer, GL46C.GL_STATIC_DRAW);
+            uv1Range = allocateRange(GpuBufferArena.Usage.STATIC_VERTEX, vertexCount * 8);
+            uv1Range.upload(uv1Buffer);
             // 安卓兼容：上传白色 Color VBO + 预分配 UV2 VBO
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, colorBufferObject);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, colorBuffer, GL46C.GL_STATIC_DRAW);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2BufferObject);
-            GL46C.glBufferData(GL46C.GL_ARRAY_BUFFER, vertexCount * 8, GL46C.GL_DYNAMIC_DRAW);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, 0);
+            colorRange = allocateRange(GpuBufferArena.Usage.STATIC_VERTEX, vertexCount * 16);
+            colorRange.upload(colorBuffer);
+            uv2Range = allocateRange(GpuBufferArena.Usage.DYNAMIC_VERTEX, vertexCount * 8);
 
             MMDModelOpenGL result = new MMDModelOpenGL();
             result.model = model;
@@ -280,18 +283,21 @@ public class MMDModelOpenGL extends AbstractMMDModel {
             result.colorBuffer = colorBuffer;
             result.norBuffer = norBuffer;
             result.uv0Buffer = uv0Buffer;
+            result.skinningViews = skinningViews;
             result.uv1Buffer = uv1Buffer;
             result.uv2Buffer = uv2Buffer;
-            result.indexBufferObject = indexBufferObject;
-            result.vertexBufferObject = positionBufferObject;
-            result.colorBufferObject = colorBufferObject;
-            result.texcoordBufferObject = uv0BufferObject;
-            result.uv1BufferObject = uv1BufferObject;
-            result.uv2BufferObject = uv2BufferObject;
-            result.normalBufferObject = normalBufferObject;
+            result.indexRange = indexRange;
+            result.positionRange = positionRange;
+            result.colorRange = colorRange;
+            result.uv0Range = uv0Range;
+            result.uv1Range = uv1Range;
+            result.uv2Range = uv2Range;
+            result.normalRange = normalRange;
             result.vertexArrayObject = vertexArrayObject;
             result.indexElementSize = indexElementSize;
             result.indexType = indexType;
+            result.lodIndexCount = lodIndexCount;
+            result.lodLevelCount = lodIndexCount > 0 ? nf.GetLodLevelCount(model) : 0;
             result.mats = mats;
             result.lightMapMaterial = lightMapMaterial;
             result.hasUvMorph = nf.GetUvMorphCount(model) > 0;
@@ -336,13 +342,7 @@ public class MMDModelOpenGL extends AbstractMMDModel {
             logger.error("CPU 蒙皮模型创建失败，清理资源: {}", e.getMessage());
             
             if (vertexArrayObject > 0) GL46C.glDeleteVertexArrays(vertexArrayObject);
-            if (indexBufferObject > 0) GL46C.glDeleteBuffers(indexBufferObject);
-            if (positionBufferObject > 0) GL46C.glDeleteBuffers(positionBufferObject);
-            if (colorBufferObject > 0) GL46C.glDeleteBuffers(colorBufferObject);
-            if (normalBufferObject > 0) GL46C.glDeleteBuffers(normalBufferObject);
-            if (uv0BufferObject > 0) GL46C.glDeleteBuffers(uv0BufferObject);
-            if (uv1BufferObject > 0) GL46C.glDeleteBuffers(uv1BufferObject);
-            if (uv2BufferObject > 0) GL46C.glDeleteBuffers(uv2BufferObject);
+            releaseRanges(indexRange, positionRange, colorRange, normalRange, uv0Range, uv1Range, uv2Range);
             if (lightMapMaterial != null && lightMapMaterial.ownsTexture && lightMapMaterial.tex > 0) {
                 GL46C.glDeleteTextures(lightMapMaterial.tex);
             }
@@ -362,6 +362,11 @@ public class MMDModelOpenGL extends AbstractMMDModel {
     public void dispose() {
         releaseTextures();
         disposeModelHandle();
+        disposeImpostor();
+        disposeOcclusionQuery();
+        
+        // 直接视图指向 Rust 端分配（随模型句柄释放），只丢弃引用
+        skinningViews = null;
         
         // 释放 MemoryUtil 分配的逐帧 ByteBuffer
         if (posBuffer != null) { MemoryUtil.memFree(posBuffer); posBuffer = null; }
@@ -385,29 +390,18 @@ public class MMDModelOpenGL extends AbstractMMDModel {
             lightMapMaterial.tex = 0;
         }
         
-        // 删除 OpenGL 资源
+        // 删除 OpenGL 资源并归还缓冲区池区间
         GL46C.glDeleteVertexArrays(vertexArrayObject);
-        GL46C.glDeleteBuffers(indexBufferObject);
-        GL46C.glDeleteBuffers(vertexBufferObject);
-        GL46C.glDeleteBuffers(colorBufferObject);
-        GL46C.glDeleteBuffers(normalBufferObject);
-        GL46C.glDeleteBuffers(texcoordBufferObject);
-        GL46C.glDeleteBuffers(uv1BufferObject);
-        GL46C.glDeleteBuffers(uv2BufferObject);
+        releaseRanges(indexRange, positionRange, colorRange, normalRange, uv0Range, uv1Range, uv2Range);
+        indexRange = positionRange = colorRange = normalRange = uv0Range = uv1Range = uv2Range = null;
     }
 
     @Override
     public long getVramUsage() {
-        long total = 0;
-        // IBO
-        int indexCount = (int) getNf().GetIndexCount(model);
-        total += (long) indexCount * indexElementSize;
-        // pos + normal VBO (dynamic)
-        total += (long) vertexCount * 12 * 2;
-        // color VBO (static)
-        total += (long) vertexCount * 16;
-        // uv0 + uv1 + uv2 VBO
-        total += (long) vertexCount * 8 * 3;
+        // 缓冲区池中实际占用的区间（索引 + 动态 pos/normal/uv0/uv2 + 静态 color/uv1）
+        long total = allocatedBytes(indexRange, positionRange, colorRange, normalRange, uv0Range, uv1Range, uv2Range);
+        // 远景替身图集
+        total += getImpostorVramUsage();
         return total;
     }
     
@@ -415,8 +409,8 @@ public class MMDModelOpenGL extends AbstractMMDModel {
     public long getRamUsage() {
         if (model == 0) return 0;
         long rustRam = getNf().GetModelMemoryUsage(model);
-        // Java 侧堆外内存：6 个逐顶点 ByteBuffer
-        long javaRam = (long) vertexCount * 64; // pos(12)+color(16)+nor(12)+uv0(8)+uv1(8)+uv2(8)
+        // Java 侧堆外内存：逐顶点 ByteBuffer（使用直接视图时无 pos/nor/uv0 中转缓冲区）
+        long javaRam = (long) vertexCount * (skinningViews != null ? 32 : 64); // pos(12)+color(16)+nor(12)+uv0(8)+uv1(8)+uv2(8)
         // MemoryUtil 预分配缓冲区
         javaRam += 152; // modelViewMat(64)+projMat(64)+light0(12)+light1(12)
         // 材质 Morph 缓冲区
@@ -430,6 +424,24 @@ public class MMDModelOpenGL extends AbstractMMDModel {
     protected void onUpdate(float deltaTime) {
         getNf().UpdateModel(model, deltaTime);
     }
+    
+    /**
+     * 姿态更新：由 Rust 端完成动画、物理与 CPU 蒙皮
+     */
+    @Override
+    protected int getPrepassUpdateMode() {
+        return FramePrepass.UPDATE_FULL;
+    }
+    
+    /**
+     * 预处理：姿态变化时提前上传蒙皮后顶点（材质 Morph 结果已随命令输出取回），绘制时直接复用
+     */
+    @Override
+    protected void finishPrepass(boolean poseUnchanged) {
+        if (!poseUnchanged) {
+            uploadSkinnedVertices();
+        }
+    }
 
     @Override
     protected void doRenderModel(Entity entityIn, float entityYaw, float entityPitch, Vector3f entityTrans, PoseStack deliverStack, int packedLight) {
@@ -452,8 +464,10 @@ public class MMDModelOpenGL extends AbstractMMDModel {
         float baseScale = getModelScale();
         deliverStack.scale(baseScale, baseScale, baseScale);
         
-        // 获取材质 Morph 结果
-        fetchMaterialMorphResults();
+        // 获取材质 Morph 结果（本帧已拉取时复用）
+        if (!isSkinningReused()) {
+            fetchMaterialMorphResults();
+        }
         
         // 批量获取所有子网格元数据（1 次 JNI 替代逐子网格调用）
         subMeshDataBuf.clear();
@@ -499,7 +513,7 @@ public class MMDModelOpenGL extends AbstractMMDModel {
         }
         if(MmdSkinClient.usingMMDShader == 1){
             shaderProgram = MMDShaderProgram;
-            GlStateManager._glUseProgram(shaderProgram);
+            GlStateTracker.useProgram(shaderProgram);
         }
         
         updateLocation(shaderProgram);
@@ -512,24 +526,9 @@ public class MMDModelOpenGL extends AbstractMMDModel {
         RenderSystem.blendFunc(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE_MINUS_SRC_ALPHA);
 
         // === 上传顶点数据到 VBO（使用 glBufferSubData 仅更新数据，避免每帧重分配 GPU 内存）===
-        int posAndNorSize = vertexCount * 12; // float * 3
-        long posData = nf.GetPoss(model);
-        nf.CopyDataToByteBuffer(posBuffer, posData, posAndNorSize);
-        GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, vertexBufferObject);
-        GL46C.glBufferSubData(GL46C.GL_ARRAY_BUFFER, 0, posBuffer);
-
-        long normalData = nf.GetNormals(model);
-        nf.CopyDataToByteBuffer(norBuffer, normalData, posAndNorSize);
-        GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalBufferObject);
-        GL46C.glBufferSubData(GL46C.GL_ARRAY_BUFFER, 0, norBuffer);
-
-        // 性能优化：无 UV Morph 时跳过 UV0 重传（已在创建时上传）
-        if (hasUvMorph) {
-            int uv0Size = vertexCount * 8; // float * 2
-            long uv0Data = nf.GetUVs(model);
-            nf.CopyDataToByteBuffer(uv0Buffer, uv0Data, uv0Size);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, texcoordBufferObject);
-            GL46C.glBufferSubData(GL46C.GL_ARRAY_BUFFER, 0, uv0Buffer);
+        // 本帧已上传过时 VBO 内容即为当前姿态，直接复用
+        if (!isSkinningReused()) {
+            uploadSkinnedVertices();
         }
 
         // 性能优化：uv1 已在创建时上传，无需每帧重传
@@ -544,59 +543,58 @@ public class MMDModelOpenGL extends AbstractMMDModel {
             uv2Buffer.putInt(skyBrightness);
         }
         uv2Buffer.flip();
-        GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2BufferObject);
-        GL46C.glBufferSubData(GL46C.GL_ARRAY_BUFFER, 0, uv2Buffer);
+        uv2Range.upload(uv2Buffer);
         if (uv2Location != -1) {
             GL46C.glEnableVertexAttribArray(uv2Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2BufferObject);
-            GL46C.glVertexAttribIPointer(uv2Location, 2, GL46C.GL_INT, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2Range.getBuffer());
+            GL46C.glVertexAttribIPointer(uv2Location, 2, GL46C.GL_INT, 0, uv2Range.getOffset());
         }
         if (K_uv2Location != -1) {
             GL46C.glEnableVertexAttribArray(K_uv2Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2BufferObject);
-            GL46C.glVertexAttribIPointer(K_uv2Location, 2, GL46C.GL_INT, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2Range.getBuffer());
+            GL46C.glVertexAttribIPointer(K_uv2Location, 2, GL46C.GL_INT, 0, uv2Range.getOffset());
         }
         if (I_uv2Location != -1) {
             GL46C.glEnableVertexAttribArray(I_uv2Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2BufferObject);
-            GL46C.glVertexAttribIPointer(I_uv2Location, 2, GL46C.GL_INT, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv2Range.getBuffer());
+            GL46C.glVertexAttribIPointer(I_uv2Location, 2, GL46C.GL_INT, 0, uv2Range.getOffset());
         }
         // === Color：使用白色 VBO + ColorModulator uniform 传递光照（替代 glVertexAttrib4f，安卓兼容）===
         // Color VBO 在创建时填充白色 (1,1,1,1)，光照强度已通过 setShaderColor → ColorModulator 传递
         if (colorLocation != -1) {
             GL46C.glEnableVertexAttribArray(colorLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, colorBufferObject);
-            GL46C.glVertexAttribPointer(colorLocation, 4, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, colorRange.getBuffer());
+            GL46C.glVertexAttribPointer(colorLocation, 4, GL46C.GL_FLOAT, false, 0, colorRange.getOffset());
         }
         if (I_colorLocation != -1) {
             GL46C.glEnableVertexAttribArray(I_colorLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, colorBufferObject);
-            GL46C.glVertexAttribPointer(I_colorLocation, 4, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, colorRange.getBuffer());
+            GL46C.glVertexAttribPointer(I_colorLocation, 4, GL46C.GL_FLOAT, false, 0, colorRange.getOffset());
         }
 
         // === 绑定顶点属性（数据已在 VBO 中，只需设置指针）===
         if (positionLocation != -1) {
             GL46C.glEnableVertexAttribArray(positionLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, vertexBufferObject);
-            GL46C.glVertexAttribPointer(positionLocation, 3, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, positionRange.getBuffer());
+            GL46C.glVertexAttribPointer(positionLocation, 3, GL46C.GL_FLOAT, false, 0, positionRange.getOffset());
         }
         if (normalLocation != -1) {
             GL46C.glEnableVertexAttribArray(normalLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalBufferObject);
-            GL46C.glVertexAttribPointer(normalLocation, 3, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalRange.getBuffer());
+            GL46C.glVertexAttribPointer(normalLocation, 3, GL46C.GL_FLOAT, false, 0, normalRange.getOffset());
         }
         if (uv0Location != -1) {
             GL46C.glEnableVertexAttribArray(uv0Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, texcoordBufferObject);
-            GL46C.glVertexAttribPointer(uv0Location, 2, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv0Range.getBuffer());
+            GL46C.glVertexAttribPointer(uv0Location, 2, GL46C.GL_FLOAT, false, 0, uv0Range.getOffset());
         }
         if (uv1Location != -1) {
             GL46C.glEnableVertexAttribArray(uv1Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv1BufferObject);
-            GL46C.glVertexAttribIPointer(uv1Location, 2, GL46C.GL_INT, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv1Range.getBuffer());
+            GL46C.glVertexAttribIPointer(uv1Location, 2, GL46C.GL_INT, 0, uv1Range.getOffset());
         }
 
-        GL46C.glBindBuffer(GL46C.GL_ELEMENT_ARRAY_BUFFER, indexBufferObject);
+        GL46C.glBindBuffer(GL46C.GL_ELEMENT_ARRAY_BUFFER, indexRange.getBuffer());
 
         // 使用预分配的矩阵缓冲区（避免每帧分配）
         modelViewMatBuff.clear();
@@ -643,18 +641,18 @@ public class MMDModelOpenGL extends AbstractMMDModel {
         // K_* 属性（自定义着色器属性）— 复用已上传的 VBO，无需重复 glBufferData
         if (K_positionLocation != -1) {
             GL46C.glEnableVertexAttribArray(K_positionLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, vertexBufferObject);
-            GL46C.glVertexAttribPointer(K_positionLocation, 3, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, positionRange.getBuffer());
+            GL46C.glVertexAttribPointer(K_positionLocation, 3, GL46C.GL_FLOAT, false, 0, positionRange.getOffset());
         }
         if (K_normalLocation != -1) {
             GL46C.glEnableVertexAttribArray(K_normalLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalBufferObject);
-            GL46C.glVertexAttribPointer(K_normalLocation, 3, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalRange.getBuffer());
+            GL46C.glVertexAttribPointer(K_normalLocation, 3, GL46C.GL_FLOAT, false, 0, normalRange.getOffset());
         }
         if (K_uv0Location != -1) {
             GL46C.glEnableVertexAttribArray(K_uv0Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, texcoordBufferObject);
-            GL46C.glVertexAttribPointer(K_uv0Location, 2, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv0Range.getBuffer());
+            GL46C.glVertexAttribPointer(K_uv0Location, 2, GL46C.GL_FLOAT, false, 0, uv0Range.getOffset());
         }
         if(K_projMatLocation != -1){
             projMatBuff.position(0);
@@ -681,18 +679,18 @@ public class MMDModelOpenGL extends AbstractMMDModel {
         // Iris 属性 — 复用已上传的 VBO，无需重复 glBufferData
         if (I_positionLocation != -1) {
             GL46C.glEnableVertexAttribArray(I_positionLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, vertexBufferObject);
-            GL46C.glVertexAttribPointer(I_positionLocation, 3, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, positionRange.getBuffer());
+            GL46C.glVertexAttribPointer(I_positionLocation, 3, GL46C.GL_FLOAT, false, 0, positionRange.getOffset());
         }
         if (I_normalLocation != -1) {
             GL46C.glEnableVertexAttribArray(I_normalLocation);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalBufferObject);
-            GL46C.glVertexAttribPointer(I_normalLocation, 3, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalRange.getBuffer());
+            GL46C.glVertexAttribPointer(I_normalLocation, 3, GL46C.GL_FLOAT, false, 0, normalRange.getOffset());
         }
         if (I_uv0Location != -1) {
             GL46C.glEnableVertexAttribArray(I_uv0Location);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, texcoordBufferObject);
-            GL46C.glVertexAttribPointer(I_uv0Location, 2, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv0Range.getBuffer());
+            GL46C.glVertexAttribPointer(I_uv0Location, 2, GL46C.GL_FLOAT, false, 0, uv0Range.getOffset());
         }
 
         //Draw（从预填充的 subMeshDataBuf 读取元数据，0 次逐子网格 JNI 调用）
@@ -721,7 +719,7 @@ public class MMDModelOpenGL extends AbstractMMDModel {
                 texId = mats[materialID].tex;
             RenderSystem.setShaderTexture(0, texId);
             GL46C.glBindTexture(GL46C.GL_TEXTURE_2D, texId);
-            long startPos = (long) beginIndex * indexElementSize;
+            long startPos = indexRange.getOffset() + (long) beginIndex * indexElementSize;
 
             GL46C.glDrawElements(GL46C.GL_TRIANGLES, vertCount, indexType, startPos);
         }
@@ -794,36 +792,22 @@ public class MMDModelOpenGL extends AbstractMMDModel {
             }
         }
         
-        // 获取蒙皮后的顶点数据（由 Rust 引擎计算）并一次性上传到 VBO（两遍共用）
-        int posAndNorSize = vertexCount * 12;
-        long posData = nf.GetPoss(model);
-        nf.CopyDataToByteBuffer(posBuffer, posData, posAndNorSize);
-        long normalData = nf.GetNormals(model);
-        nf.CopyDataToByteBuffer(norBuffer, normalData, posAndNorSize);
-        
-        // 上传顶点数据到 VBO（glBufferSubData，描边和主体两遍共用，避免重复上传）
-        GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, vertexBufferObject);
-        GL46C.glBufferSubData(GL46C.GL_ARRAY_BUFFER, 0, posBuffer);
-        GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalBufferObject);
-        GL46C.glBufferSubData(GL46C.GL_ARRAY_BUFFER, 0, norBuffer);
-        if (hasUvMorph) {
-            int uv0Size = vertexCount * 8;
-            long uv0Data = nf.GetUVs(model);
-            nf.CopyDataToByteBuffer(uv0Buffer, uv0Data, uv0Size);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, texcoordBufferObject);
-            GL46C.glBufferSubData(GL46C.GL_ARRAY_BUFFER, 0, uv0Buffer);
+        // 获取蒙皮后的顶点数据（由 Rust 引擎计算）并一次性上传到 VBO（两遍共用，本帧已上传时复用）
+        if (!isSkinningReused()) {
+            uploadSkinnedVertices();
         }
         
-        // 设置矩阵
-        modelViewMatBuff.clear();
-        projMatBuff.clear();
-        deliverStack.last().pose().get(modelViewMatBuff);
-        RenderSystem.getProjectionMatrix().get(projMatBuff);
+        GL46C.glBindBuffer(GL46C.GL_ELEMENT_ARRAY_BUFFER, indexRange.getBuffer());
         
-        GL46C.glBindBuffer(GL46C.GL_ELEMENT_ARRAY_BUFFER, indexBufferObject);
+        // 屏幕空间描边：主体 pass 同时写入边缘掩码，由 ToonOutlinePass 在世界渲染结束后统一描边
+        boolean screenOutline = !irisActive && ToonOutlinePass.isActive() && ToonOutlinePass.bindMask();
         
-        // ===== 第一遍：描边 =====
-        if (toonConfig.isOutlineEnabled()) {
+        // 逐模型 Uniform 块一次上传（矩阵 + Toon 参数，两遍共用）
+        ToonMaterialBlock materialBlock = commitToonUniforms(toonShaderCpu, deliverStack.last().pose(),
+                lightIntensity, screenOutline);
+        
+        // ===== 第一遍：描边（屏幕空间模式下跳过） =====
+        if (toonConfig.isOutlineEnabled() && !screenOutline) {
             toonShaderCpu.useOutline();
             
             int posLoc = toonShaderCpu.getOutlinePositionLocation();
@@ -832,24 +816,15 @@ public class MMDModelOpenGL extends AbstractMMDModel {
             // 设置顶点属性（VBO 数据已上传，只需绑定属性指针）
             if (posLoc != -1) {
                 GL46C.glEnableVertexAttribArray(posLoc);
-                GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, vertexBufferObject);
-                GL46C.glVertexAttribPointer(posLoc, 3, GL46C.GL_FLOAT, false, 0, 0);
+                GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, positionRange.getBuffer());
+                GL46C.glVertexAttribPointer(posLoc, 3, GL46C.GL_FLOAT, false, 0, positionRange.getOffset());
             }
             if (norLoc != -1) {
                 GL46C.glEnableVertexAttribArray(norLoc);
-                GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalBufferObject);
-                GL46C.glVertexAttribPointer(norLoc, 3, GL46C.GL_FLOAT, false, 0, 0);
+                GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalRange.getBuffer());
+                GL46C.glVertexAttribPointer(norLoc, 3, GL46C.GL_FLOAT, false, 0, normalRange.getOffset());
             }
             
-            toonShaderCpu.setOutlineProjectionMatrix(projMatBuff);
-            toonShaderCpu.setOutlineModelViewMatrix(modelViewMatBuff);
-            toonShaderCpu.setOutlineWidth(toonConfig.getOutlineWidth());
-            toonShaderCpu.setOutlineColor(
-                toonConfig.getOutlineColorR(),
-                toonConfig.getOutlineColorG(),
-                toonConfig.getOutlineColorB()
-            );
-            
             // 正面剔除，只绘制背面（扩张后的背面形成描边）
             GL46C.glCullFace(GL46C.GL_FRONT);
             RenderSystem.enableCull();
@@ -866,7 +841,7 @@ public class MMDModelOpenGL extends AbstractMMDModel {
                 if (!visible) continue;
                 if (getEffectiveMaterialAlpha(materialID, edgeAlpha) < 0.001f) continue;
                 
-                long startPos = (long) beginIndex * indexElementSize;
+                long startPos = indexRange.getOffset() + (long) beginIndex * indexElementSize;
                 GL46C.glDrawElements(GL46C.GL_TRIANGLES, count, indexType, startPos);
             }
             
@@ -888,32 +863,19 @@ public class MMDModelOpenGL extends AbstractMMDModel {
         // 设置顶点属性（VBO 数据已上传，只需绑定属性指针）
         if (posLoc != -1) {
             GL46C.glEnableVertexAttribArray(posLoc);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, vertexBufferObject);
-            GL46C.glVertexAttribPointer(posLoc, 3, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, positionRange.getBuffer());
+            GL46C.glVertexAttribPointer(posLoc, 3, GL46C.GL_FLOAT, false, 0, positionRange.getOffset());
         }
         if (norLoc != -1) {
             GL46C.glEnableVertexAttribArray(norLoc);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalBufferObject);
-            GL46C.glVertexAttribPointer(norLoc, 3, GL46C.GL_FLOAT, false, 0, 0);
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, normalRange.getBuffer());
+            GL46C.glVertexAttribPointer(norLoc, 3, GL46C.GL_FLOAT, false, 0, normalRange.getOffset());
         }
         if (uvLoc != -1) {
             GL46C.glEnableVertexAttribArray(uvLoc);
-            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, texcoordBufferObject);
-            GL46C.glVertexAttribPointer(uvLoc, 2, GL46C.GL_FLOAT, false, 0, 0);
-        }
-        
-        toonShaderCpu.setProjectionMatrix(projMatBuff);
-        toonShaderCpu.setModelViewMatrix(modelViewMatBuff);
-        toonShaderCpu.setSampler0(0);
-        toonShaderCpu.setLightIntensity(lightIntensity);
-        toonShaderCpu.setToonLevels(toonConfig.getToonLevels());
-        toonShaderCpu.setRimLight(toonConfig.getRimPower(), toonConfig.getRimIntensity());
-        toonShaderCpu.setShadowColor(
-            toonConfig.getShadowColorR(),
-            toonConfig.getShadowColorG(),
-            toonConfig.getShadowColorB()
-        );
-        toonShaderCpu.setSpecular(toonConfig.getSpecularPower(), toonConfig.getSpecularIntensity());
+            GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, uv0Range.getBuffer());
+            GL46C.glVertexAttribPointer(uvLoc, 2, GL46C.GL_FLOAT, false, 0, uv0Range.getOffset());
+        }
         
         // 绘制所有子网格（从 subMeshDataBuf 读取元数据）
         RenderSystem.activeTexture(GL46C.GL_TEXTURE0);
@@ -943,10 +905,16 @@ public class MMDModelOpenGL extends AbstractMMDModel {
             }
             RenderSystem.setShaderTexture(0, texId);
             GL46C.glBindTexture(GL46C.GL_TEXTURE_2D, texId);
+            if (screenOutline) {
+                materialBlock.bind(materialID);
+            }
             
-            long startPos = (long) beginIndex * indexElementSize;
+            long startPos = indexRange.getOffset() + (long) beginIndex * indexElementSize;
             GL46C.glDrawElements(GL46C.GL_TRIANGLES, vertCount, indexType, startPos);
         }
+        if (screenOutline) {
+            ToonOutlinePass.unbindMask();
+        }
         
         // 清理顶点属性
         if (posLoc != -1) GL46C.glDisableVertexAttribArray(posLoc);
@@ -959,12 +927,60 @@ public class MMDModelOpenGL extends AbstractMMDModel {
         GL46C.glBindVertexArray(0);
         
         // 恢复默认着色器
-        GL46C.glUseProgram(0);
+        GlStateTracker.useProgram(0);
         RenderSystem.activeTexture(GL46C.GL_TEXTURE0);
         BufferUploader.reset();
     }
 
 
+    /**
+     * 取得 Rust 端 CPU 蒙皮输出的双缓冲直接视图（[分配序号 * 3 + 0/1/2] = 位置/法线/UV）
+     * 任一视图不可用或大小不符时返回 null，回退到拷贝上传
+     */
+    private static ByteBuffer[] acquireSkinningViews(NativeFunc nf, long model, int vertexCount) {
+        if (vertexCount <= 0) return null;
+        int[] sizes = {vertexCount * 12, vertexCount * 12, vertexCount * 8};
+        ByteBuffer[] views = new ByteBuffer[6];
+        for (int i = 0; i < views.length; i++) {
+            ByteBuffer view = nf.GetSkinningOutputView(model, i / 3, i % 3);
+            if (view == null || view.capacity() < sizes[i % 3]) return null;
+            views[i] = view.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return views;
+    }
+
+    /**
+     * 将 Rust 引擎蒙皮后的顶点位置/法线（及 UV Morph 后的 UV）上传到 VBO
+     * 有直接视图时从最新一组输出直接上传（无中间拷贝），否则经中转缓冲区拷贝
+     */
+    private void uploadSkinnedVertices() {
+        if (skinningViews != null) {
+            int base = getSkinningOutputSlot() * 3;
+            positionRange.upload(skinningViews[base].clear());
+            normalRange.upload(skinningViews[base + 1].clear());
+            if (hasUvMorph) {
+                uv0Range.upload(skinningViews[base + 2].clear());
+            }
+            return;
+        }
+        int posAndNorSize = vertexCount * 12; // float * 3
+        long posData = nf.GetPoss(model);
+        nf.CopyDataToByteBuffer(posBuffer, posData, posAndNorSize);
+        positionRange.upload(posBuffer);
+
+        long normalData = nf.GetNormals(model);
+        nf.CopyDataToByteBuffer(norBuffer, normalData, posAndNorSize);
+        normalRange.upload(norBuffer);
+
+        // 性能优化：无 UV Morph 时跳过 UV0 重传（已在创建时上传）
+        if (hasUvMorph) {
+            int uv0Size = vertexCount * 8; // float * 2
+            long uv0Data = nf.GetUVs(model);
+            nf.CopyDataToByteBuffer(uv0Buffer, uv0Data, uv0Size);
+            uv0Range.upload(uv0Buffer);
+        }
+    }
+
     void updateLocation(int shaderProgram){
         if (shaderProgram == cachedShaderProgram) return;
         cachedShaderProgram = shaderProgram;
@@ -0,0 +1,142 @@
+package com.shiroha.mmdskin.renderer.model;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.BufferUploader;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.Tesselator;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import net.minecraft.client.renderer.GameRenderer;
+import net.minecraft.client.renderer.ShaderInstance;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.lwjgl.opengl.GL46C;
+
+/**
+ * 模型硬件遮挡查询
+ *
+ * 每个模型一个查询对象：在绘制模型之前以包围盒（关闭颜色与深度写入）测试当前深度缓冲，
+ * 结果在之后的帧非阻塞读取（一帧延迟）。包围盒完全被地形或先绘制的实体遮挡时，
+ * 调用方跳过姿态评估、蒙皮与绘制，仅推进动画时钟；被遮挡期间仍每帧重新查询以检测重新可见。
+ * 所有尺寸以模型外层坐标（未乘模型缩放前的方块单位）表示。
+ */
+public final class OcclusionQuery {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** 查询包围盒（外层坐标，按模型配置缩放）：留出动作伸展的余量 */
+    private static final float BOX_BOTTOM = -0.25f;
+    private static final float BOX_TOP = 2.5f;
+    private static final float BOX_HALF_WIDTH = 1.25f;
+    /** 相机距包围盒小于该值时视为可见（近裁剪面会裁掉包围盒表面，查询结果不可信） */
+    private static final float CAMERA_MARGIN = 0.5f;
+
+    private int query = 0;
+    private boolean pending = false;
+    private boolean occluded = false;
+    private boolean failed = false;
+
+    private final Matrix4f inverse = new Matrix4f();
+    private final Vector3f cameraPos = new Vector3f();
+
+    /**
+     * 读取上一次查询的结果并在可用时发起新查询
+     *
+     * @param pose        模型外层坐标到视图空间的变换
+     * @param configScale 模型配置缩放（相对默认 MODEL_SCALE）
+     * @return 模型是否被完全遮挡（基于上一次已返回的查询结果）
+     */
+    public boolean testOccluded(Matrix4f pose, float configScale) {
+        if (failed) return false;
+
+        if (pending) {
+            if (GL46C.glGetQueryObjecti(query, GL46C.GL_QUERY_RESULT_AVAILABLE) == GL46C.GL_FALSE) {
+                // 结果尚未返回：沿用上一次判定，不重复发起
+                return occluded;
+            }
+            occluded = GL46C.glGetQueryObjecti(query, GL46C.GL_QUERY_RESULT) == GL46C.GL_FALSE;
+            pending = false;
+        }
+
+        float s = configScale;
+        float hw = BOX_HALF_WIDTH * s;
+        float y0 = BOX_BOTTOM * s;
+        float y1 = BOX_TOP * s;
+
+        inverse.set(pose).invert().getTranslation(cameraPos);
+        float m = CAMERA_MARGIN * s;
+        if (Math.abs(cameraPos.x) < hw + m && Math.abs(cameraPos.z) < hw + m
+                && cameraPos.y > y0 - m && cameraPos.y < y1 + m) {
+            occluded = false;
+            return false;
+        }
+
+        if (query == 0) {
+            query = GL46C.glGenQueries();
+            if (query == 0) {
+                logger.warn("[遮挡剔除] 无法创建查询对象，已禁用");
+                failed = true;
+                return false;
+            }
+        }
+
+        drawBox(pose, hw, y0, y1);
+        pending = true;
+        return occluded;
+    }
+
+    /** 不参与遮挡剔除的帧（物品栏、第一人称等）调用：清除判定，下次按可见处理 */
+    public void reset() {
+        occluded = false;
+    }
+
+    public void dispose() {
+        if (query != 0) {
+            GL46C.glDeleteQueries(query);
+            query = 0;
+        }
+        pending = false;
+        occluded = false;
+    }
+
+    private void drawBox(Matrix4f pose, float hw, float y0, float y1) {
+        ShaderInstance prevShader = RenderSystem.getShader();
+        RenderSystem.setShader(GameRenderer::getPositionShader);
+        RenderSystem.colorMask(false, false, false, false);
+        RenderSystem.depthMask(false);
+        RenderSystem.enableDepthTest();
+        RenderSystem.disableCull();
+
+        BufferBuilder buf = Tesselator.getInstance().getBuilder();
+        buf.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION);
+        // 底面、顶面
+        quad(buf, pose, -hw, y0, -hw, hw, y0, -hw, hw, y0, hw, -hw, y0, hw);
+        quad(buf, pose, -hw, y1, -hw, -hw, y1, hw, hw, y1, hw, hw, y1, -hw);
+        // 四个侧面
+        quad(buf, pose, -hw, y0, -hw, -hw, y1, -hw, hw, y1, -hw, hw, y0, -hw);
+        quad(buf, pose, -hw, y0, hw, hw, y0, hw, hw, y1, hw, -hw, y1, hw);
+        quad(buf, pose, -hw, y0, -hw, -hw, y0, hw, -hw, y1, hw, -hw, y1, -hw);
+        quad(buf, pose, hw, y0, -hw, hw, y1, -hw, hw, y1, hw, hw, y0, hw);
+
+        GL46C.glBeginQuery(GL46C.GL_ANY_SAMPLES_PASSED_CONSERVATIVE, query);
+        BufferUploader.drawWithShader(buf.end());
+        GL46C.glEndQuery(GL46C.GL_ANY_SAMPLES_PASSED_CONSERVATIVE);
+
+        RenderSystem.enableCull();
+        RenderSystem.depthMask(true);
+        RenderSystem.colorMask(true, true, true, true);
+        if (prevShader != null) {
+            RenderSystem.setShader(() -> prevShader);
+        }
+    }
+
+    private static void quad(BufferBuilder buf, Matrix4f pose,
+                             float x0, float y0, float z0, float x1, float y1, float z1,
+                             float x2, float y2, float z2, float x3, float y3, float z3) {
+        buf.vertex(pose, x0, y0, z0).endVertex();
+        buf.vertex(pose, x1, y1, z1).endVertex();
+        buf.vertex(pose, x2, y2, z2).endVertex();
+        buf.vertex(pose, x3, y3, z3).endVertex();
+    }
+}
@@ -1,8 +1,10 @@
 package com.shiroha.mmdskin.renderer.render;
 
 import com.shiroha.mmdskin.MmdSkinClient;
+import com.shiroha.mmdskin.config.ConfigManager;
 import com.shiroha.mmdskin.renderer.animation.MMDAnimManager;
 import com.shiroha.mmdskin.renderer.core.EntityAnimState;
+import com.shiroha.mmdskin.renderer.core.IMMDModel;
 import com.shiroha.mmdskin.renderer.core.RenderParams;
 import com.shiroha.mmdskin.renderer.model.MMDModelManager;
 import net.minecraft.util.Mth;
@@ -85,10 +87,22 @@ public final class EntityAnimationResolver {
         if (model.entityData.stateLayers[layer] != targetState) {
             model.entityData.stateLayers[layer] = targetState;
             String property = EntityAnimState.getPropertyName(targetState);
-            model.model.changeAnim(MMDAnimManager.GetAnimModel(model.model, property), layer);
+            playStateAnim(model.model, property, layer);
         }
     }
     
+    /**
+     * 切换状态动画：开启群体动画时基础层优先以 GPU 烘焙方式播放，不可用时回退到逐帧求值
+     */
+    public static void playStateAnim(IMMDModel model, String property, int layer) {
+        long anim = MMDAnimManager.GetAnimModel(model, property);
+        if (layer == 0 && anim != 0 && ConfigManager.isGpuCrowdAnimationEnabled()
+                && model.playCrowdAnim(anim, property, 0.0f)) {
+            return;
+        }
+        model.changeAnim(anim, layer);
+    }
+    
     /**
      * 安全解析模型属性中的浮点值
      */
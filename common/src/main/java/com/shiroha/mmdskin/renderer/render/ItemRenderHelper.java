@@ -39,19 +39,22 @@ public class ItemRenderHelper {
                                         PoseStack matrixStack, MultiBufferSource vertexConsumers, 
                                         int packedLight, InteractionHand hand) {
         boolean isMainHand = (hand == InteractionHand.MAIN_HAND);
-        NativeFunc nf = NativeFunc.GetInst();
-        long modelHandle = model.model.getModelHandle();
-        long handMat = isMainHand ? model.entityData.rightHandMat : model.entityData.leftHandMat;
-        
-        // 获取手部变换矩阵
-        if (isMainHand) {
-            nf.GetRightHandMat(modelHandle, handMat);
-        } else {
-            nf.GetLeftHandMat(modelHandle, handMat);
+        // 获取手部变换矩阵（本帧姿态更新时已随命令输出取回则直接使用）
+        Matrix4f handPose = new Matrix4f();
+        if (!model.model.copyHandMatrix(isMainHand, handPose)) {
+            NativeFunc nf = NativeFunc.GetInst();
+            long modelHandle = model.model.getModelHandle();
+            long handMat = isMainHand ? model.entityData.rightHandMat : model.entityData.leftHandMat;
+            if (isMainHand) {
+                nf.GetRightHandMat(modelHandle, handMat);
+            } else {
+                nf.GetLeftHandMat(modelHandle, handMat);
+            }
+            handPose = convertToMatrix4f(nf, handMat, model.entityData.matBuffer);
         }
         
         matrixStack.pushPose();
-        matrixStack.last().pose().mul(convertToMatrix4f(nf, handMat, model.entityData.matBuffer));
+        matrixStack.last().pose().mul(handPose);
         
         // 基础旋转：剑朝前 + 翻转
         matrixStack.mulPose(new Quaternionf().rotateX(90.0f * DEG_TO_RAD));
@@ -0,0 +1,203 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import com.shiroha.mmdskin.NativeFunc;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 群体动画烘焙片段
+ *
+ * 一个动画在某个模型上按 30 FPS 整数帧烘焙出的蒙皮矩阵（3×4 仿射，每骨骼 48 字节）与逐帧活动 Morph 列表。
+ * 蒙皮矩阵上传到 GpuBufferArena 的烘焙动画缓冲区池，由群体姿态程序按帧号采样插值；
+ * Morph 列表留在 CPU 侧，播放时按帧直接拷入批次暂存区（记录格式与逐帧求值时相同）。
+ *
+ * 同一模型目录下的实例共享同一份烘焙结果（按 模型目录 + 片段名 缓存并引用计数），
+ * 第一个实例用自己的模型句柄烘焙；因模型本身属性（物理动态骨骼、片段超出上限）不可烘焙的组合记录下来，
+ * 之后直接回退到逐帧求值，显存池分配失败等暂时性失败则下次重试。模型重载时两者一并清空（clearCache）。
+ * 仅在渲染线程使用。
+ */
+public final class BakedCrowdClip {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** 烘焙帧率（与 Rust 端动画帧率一致） */
+    public static final float FPS = 30.0f;
+    private static final int BONE_BYTES = 48;
+    private static final int RECORD_BYTES = 16;
+    private static final int HEADER_BYTES = 16;
+
+    private static final Map<String, BakedCrowdClip> cache = new HashMap<>();
+    private static final Set<String> unbakeable = new HashSet<>();
+
+    private final String key;
+    private final int frameCount;
+    private final int boneCount;
+    private final GpuBufferRange matrices;
+    /** Morph 帧索引与记录（烘焙数据块中蒙皮矩阵之后的部分） */
+    private final ByteBuffer tables;
+    private final int morphRecordBase;
+    private final int materialIndexBase;
+    private final int materialRecordBase;
+    private int refCount = 0;
+
+    private BakedCrowdClip(String key, int frameCount, int boneCount, GpuBufferRange matrices,
+                           ByteBuffer tables, int morphTotal) {
+        this.key = key;
+        this.frameCount = frameCount;
+        this.boneCount = boneCount;
+        this.matrices = matrices;
+        this.tables = tables;
+        this.morphRecordBase = (frameCount + 1) * 4;
+        this.materialIndexBase = morphRecordBase + morphTotal * RECORD_BYTES;
+        this.materialRecordBase = materialIndexBase + (frameCount + 1) * 4;
+    }
+
+    /**
+     * 取得（必要时烘焙）片段并增加引用
+     *
+     * @param modelDir 模型目录（缓存键）
+     * @param clipKey  片段名（缓存键）
+     * @return 片段；不可烘焙时返回 null，调用方回退到逐帧求值
+     */
+    public static BakedCrowdClip acquire(NativeFunc nf, long model, long anim, String modelDir, String clipKey) {
+        if (model == 0 || anim == 0) return null;
+        String key = modelDir + "#" + clipKey;
+        BakedCrowdClip clip = cache.get(key);
+        if (clip == null) {
+            if (unbakeable.contains(key)) return null;
+            long size = nf.BakeCrowdAnimation(model, anim);
+            if (size == 0 || size > Integer.MAX_VALUE) {
+                unbakeable.add(key);
+                return null;
+            }
+            clip = size > HEADER_BYTES ? upload(nf, model, key, (int) size) : null;
+            if (clip == null) return null;
+            cache.put(key, clip);
+        }
+        clip.refCount++;
+        return clip;
+    }
+
+    /**
+     * 取走 Rust 端的烘焙数据块，蒙皮矩阵上传到显存池，Morph 表留在 CPU 侧
+     *
+     * @return 片段；取数据或显存分配失败时返回 null（暂时性失败，不记录为不可烘焙）
+     */
+    private static BakedCrowdClip upload(NativeFunc nf, long model, String key, int size) {
+        ByteBuffer blob = MemoryUtil.memAlloc(size).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            int frameCount = nf.CopyCrowdBakeToBuffer(model, blob);
+            if (frameCount <= 0) return null;
+            int boneCount = blob.getInt(4);
+            int morphTotal = blob.getInt(8);
+            int matrixBytes = frameCount * boneCount * BONE_BYTES;
+
+            GpuBufferRange matrices = GpuBufferArena.allocate(GpuBufferArena.Usage.BAKED_ANIMATION, matrixBytes);
+            if (matrices == null) return null;
+            blob.limit(HEADER_BYTES + matrixBytes).position(HEADER_BYTES);
+            matrices.upload(blob);
+
+            int tableBytes = size - HEADER_BYTES - matrixBytes;
+            ByteBuffer tables = MemoryUtil.memAlloc(tableBytes).order(ByteOrder.LITTLE_ENDIAN);
+            MemoryUtil.memCopy(MemoryUtil.memAddress(blob, 0) + HEADER_BYTES + matrixBytes,
+                    MemoryUtil.memAddress(tables), tableBytes);
+
+            logger.info("[群体动画] 烘焙 {}: {} 帧, {} 骨骼, 显存 {} KB", key, frameCount, boneCount, matrixBytes / 1024);
+            return new BakedCrowdClip(key, frameCount, boneCount, matrices, tables, morphTotal);
+        } finally {
+            MemoryUtil.memFree(blob);
+        }
+    }
+
+    /**
+     * 减少引用，最后一个实例释放时归还显存与 Morph 表
+     */
+    public void release() {
+        if (--refCount > 0) return;
+        // 缓存清空后可能已有同名的新片段
+        cache.remove(key, this);
+        matrices.release();
+        MemoryUtil.memFree(tables);
+    }
+
+    /**
+     * 模型重载：清空片段缓存与不可烘焙记录（已被实例引用的片段保持有效，最后一次 release 时释放）
+     */
+    public static void clearCache() {
+        cache.clear();
+        unbakeable.clear();
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getBoneCount() {
+        return boneCount;
+    }
+
+    /** 烘焙矩阵所在缓冲区 ID（扩容或整理后会变化，每次分派时重新获取） */
+    int getBuffer() {
+        return matrices.getBuffer();
+    }
+
+    /** 烘焙矩阵在缓冲区中的 vec4 起点（扩容或整理后会变化，每次分派时重新获取） */
+    int matrixBase() {
+        return (int) (matrices.getOffset() / 16);
+    }
+
+    /**
+     * 指定帧的蒙皮矩阵相对片段起点的 vec4 偏移（帧号按片段长度取模），分派时加上 matrixBase
+     */
+    public int frameOffset(int frame) {
+        int f = Math.floorMod(frame, frameCount);
+        return f * boneCount * 3;
+    }
+
+    /** 增加引用（SkinningBatch 在姿态参数待分派期间持有，防止区间被释放） */
+    void retain() {
+        refCount++;
+    }
+
+    /**
+     * 把指定帧的活动顶点/UV Morph 记录拷入暂存区
+     *
+     * @return 拷贝的记录数（受暂存区容量限制）
+     */
+    public int copyMorphs(int frame, ByteBuffer dst) {
+        return copyRecords(0, morphRecordBase, frame, dst);
+    }
+
+    /**
+     * 把指定帧的活动材质 Morph 记录拷入暂存区
+     *
+     * @return 拷贝的记录数（受暂存区容量限制）
+     */
+    public int copyMaterialMorphs(int frame, ByteBuffer dst) {
+        return copyRecords(materialIndexBase, materialRecordBase, frame, dst);
+    }
+
+    private int copyRecords(int indexBase, int recordBase, int frame, ByteBuffer dst) {
+        int f = Math.floorMod(frame, frameCount);
+        int first = tables.getInt(indexBase + f * 4);
+        int count = Math.min(tables.getInt(indexBase + (f + 1) * 4) - first, dst.capacity() / RECORD_BYTES);
+        if (count <= 0) return 0;
+        MemoryUtil.memCopy(MemoryUtil.memAddress(tables, 0) + recordBase + (long) first * RECORD_BYTES,
+                MemoryUtil.memAddress(dst, 0), (long) count * RECORD_BYTES);
+        return count;
+    }
+
+    /**
+     * 片段占用的显存（烘焙矩阵）
+     */
+    public long getVramUsage() {
+        return matrices.getAllocatedBytes();
+    }
+}
@@ -0,0 +1,201 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import org.lwjgl.opengl.GL46C;
+
+/**
+ * MMD 渲染器的 GL 状态影子
+ *
+ * 记录当前着色器程序、绘制帧缓冲以及 MMD 使用的 SSBO 绑定点，避免每次 Compute 分派或 Toon 绘制都用 glGet 回读驱动状态
+ * （glGet 会强制驱动与命令流同步，在多线程驱动上代价接近一次管线停顿）。
+ *
+ * - 程序：由 GlStateManagerMixin 在 GlStateManager._glUseProgram 入口同步，
+ *   本模组自身也统一经由 GlStateManager 切换程序，因此影子与 Minecraft 的 ShaderInstance 缓存一致
+ * - 绘制帧缓冲：同样由 GlStateManagerMixin 在 GlStateManager._glBindFramebuffer 入口同步
+ *   （RenderTarget.bindWrite 与本模组的 FBO 切换均经由该方法）
+ * - SSBO：外部（光影 mod）的绑定每帧在首次使用前快照一次，且只快照 MMD 使用的绑定点；
+ *   区段内只绑定发生变化的点，区段结束时只恢复本区段改动过的点
+ *
+ * 用法：
+ *   GlStateTracker.beginSection();
+ *   GlStateTracker.useProgram(program);
+ *   GlStateTracker.bindStorageBuffer(binding, buffer);   // 或 bindStorageBufferRange
+ *   // ... glDispatchCompute ...
+ *   GlStateTracker.endSection();          // 恢复程序与改动过的 SSBO 绑定点
+ *
+ * 仅在渲染线程使用，非线程安全。
+ */
+public final class GlStateTracker {
+    private static final int UNKNOWN = -1;
+
+    /** 受跟踪的 SSBO 绑定点数（覆盖 SkinningComputeShader 使用的 0-13） */
+    public static final int TRACKED_SSBO_BINDINGS = 16;
+
+    // 当前程序影子（UNKNOWN 表示尚未观察到，首次查询时回退到 glGet）
+    private static int currentProgram = UNKNOWN;
+    // 当前绘制帧缓冲影子（同上）
+    private static int currentDrawFramebuffer = UNKNOWN;
+
+    // 外部 SSBO 绑定快照（每帧首次使用前采集）
+    private static final int[] savedBuffers = new int[TRACKED_SSBO_BINDINGS];
+    private static final long[] savedOffsets = new long[TRACKED_SSBO_BINDINGS];
+    private static final long[] savedSizes = new long[TRACKED_SSBO_BINDINGS];
+    private static boolean snapshotValid = false;
+
+    // 区段内本模组绑定的缓冲区与改动掩码
+    private static final int[] boundBuffers = new int[TRACKED_SSBO_BINDINGS];
+    private static final long[] boundOffsets = new long[TRACKED_SSBO_BINDINGS];
+    private static final long[] boundSizes = new long[TRACKED_SSBO_BINDINGS];
+    private static int dirtyMask = 0;
+    private static int sectionProgram = UNKNOWN;
+    private static boolean inSection = false;
+
+    private GlStateTracker() {}
+
+    /**
+     * GlStateManager._glUseProgram 入口回调（由各平台 Mixin 调用）
+     */
+    public static void onUseProgram(int program) {
+        currentProgram = program;
+    }
+
+    /**
+     * GlStateManager._glBindFramebuffer 入口回调（由各平台 Mixin 调用）
+     */
+    public static void onBindFramebuffer(int target, int framebuffer) {
+        if (target == GL46C.GL_FRAMEBUFFER || target == GL46C.GL_DRAW_FRAMEBUFFER) {
+            currentDrawFramebuffer = framebuffer;
+        }
+    }
+
+    /**
+     * 当前绘制帧缓冲（影子值，仅在从未观察到帧缓冲切换时查询一次驱动）
+     */
+    public static int currentDrawFramebuffer() {
+        if (currentDrawFramebuffer == UNKNOWN) {
+            currentDrawFramebuffer = GL46C.glGetInteger(GL46C.GL_DRAW_FRAMEBUFFER_BINDING);
+        }
+        return currentDrawFramebuffer;
+    }
+
+    /**
+     * 当前程序（影子值，仅在从未观察到程序切换时查询一次驱动）
+     */
+    public static int currentProgram() {
+        if (currentProgram == UNKNOWN) {
+            currentProgram = GL46C.glGetInteger(GL46C.GL_CURRENT_PROGRAM);
+        }
+        return currentProgram;
+    }
+
+    /**
+     * 切换程序：经由 GlStateManager，使影子和 Minecraft 的状态缓存同步更新
+     */
+    public static void useProgram(int program) {
+        GlStateManager._glUseProgram(program);
+        currentProgram = program;
+    }
+
+    /**
+     * 帧边界（世界渲染开始）：外部 SSBO 绑定可能已变化，下次使用前重新快照
+     */
+    public static void beginFrame() {
+        snapshotValid = false;
+    }
+
+    /**
+     * 开始一个会改动程序与 SSBO 绑定的区段
+     */
+    public static void beginSection() {
+        if (inSection) return;
+        inSection = true;
+        sectionProgram = currentProgram();
+        if (!snapshotValid) captureStorageBindings();
+    }
+
+    /**
+     * 在区段内绑定 SSBO（与本区段已绑定的相同则跳过）
+     */
+    public static void bindStorageBuffer(int binding, int buffer) {
+        if (markBound(binding, buffer, 0, 0)) {
+            GL46C.glBindBufferBase(GL46C.GL_SHADER_STORAGE_BUFFER, binding, buffer);
+        }
+    }
+
+    /**
+     * 在区段内按范围绑定 SSBO（offset 需满足 GL_SHADER_STORAGE_BUFFER_OFFSET_ALIGNMENT）
+     */
+    public static void bindStorageBufferRange(int binding, int buffer, long offset, long size) {
+        if (markBound(binding, buffer, offset, size)) {
+            GL46C.glBindBufferRange(GL46C.GL_SHADER_STORAGE_BUFFER, binding, buffer, offset, size);
+        }
+    }
+
+    /**
+     * 结束区段：只恢复本区段改动过的 SSBO 绑定点，并恢复区段开始时的程序
+     */
+    public static void endSection() {
+        if (!inSection) return;
+        int mask = dirtyMask;
+        while (mask != 0) {
+            int binding = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            restoreStorageBinding(binding);
+        }
+        dirtyMask = 0;
+        inSection = false;
+        if (currentProgram != sectionProgram) {
+            useProgram(sectionProgram);
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 记录区段内的绑定
+     *
+     * @return 是否需要实际绑定（与本区段已绑定的相同则不需要）
+     */
+    private static boolean markBound(int binding, int buffer, long offset, long size) {
+        if (!inSection || binding >= TRACKED_SSBO_BINDINGS) return true;
+        int bit = 1 << binding;
+        if ((dirtyMask & bit) != 0 && boundBuffers[binding] == buffer
+                && boundOffsets[binding] == offset && boundSizes[binding] == size) {
+            return false;
+        }
+        boundBuffers[binding] = buffer;
+        boundOffsets[binding] = offset;
+        boundSizes[binding] = size;
+        dirtyMask |= bit;
+        return true;
+    }
+
+    private static void captureStorageBindings() {
+        for (int binding = 0; binding < TRACKED_SSBO_BINDINGS; binding++) {
+            int buffer = GL46C.glGetIntegeri(GL46C.GL_SHADER_STORAGE_BUFFER_BINDING, binding);
+            // 跳过已被删除的 buffer handle（光影 mod 可能在管线重建时删除旧 buffer，
+            // AMD 驱动对绑定无效 handle 可能触发 EXCEPTION_ACCESS_VIOLATION）
+            if (buffer != 0 && !GL46C.glIsBuffer(buffer)) buffer = 0;
+            savedBuffers[binding] = buffer;
+            if (buffer != 0) {
+                savedOffsets[binding] = GL46C.glGetInteger64i(GL46C.GL_SHADER_STORAGE_BUFFER_START, binding);
+                savedSizes[binding] = GL46C.glGetInteger64i(GL46C.GL_SHADER_STORAGE_BUFFER_SIZE, binding);
+            } else {
+                savedOffsets[binding] = 0;
+                savedSizes[binding] = 0;
+            }
+        }
+        snapshotValid = true;
+    }
+
+    private static void restoreStorageBinding(int binding) {
+        int buffer = savedBuffers[binding];
+        long offset = savedOffsets[binding];
+        long size = savedSizes[binding];
+        if (buffer == 0 || (offset == 0 && size == 0)) {
+            GL46C.glBindBufferBase(GL46C.GL_SHADER_STORAGE_BUFFER, binding, buffer);
+        } else {
+            GL46C.glBindBufferRange(GL46C.GL_SHADER_STORAGE_BUFFER, binding, buffer, offset, size);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.opengl.GL46C;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 通用 GPU 缓冲区池
+ *
+ * 按用途分类（静态顶点、索引、动态顶点、烘焙动画），每类只使用一个大缓冲区，模型从中分配按需大小、16 字节对齐的区间，
+ * 渲染时按区间偏移绑定，避免每个模型各自创建十余个缓冲区造成的驱动分配抖动与显存碎片。
+ * GPU 蒙皮的静态输入、蒙皮输出与逐帧骨骼数据由 SkinningArena / SkinningBatch 管理。
+ *
+ * 容量不足时按 2 倍扩容（GPU 端复制）；释放区间后若碎片过多则整理：存活区间按原顺序紧凑复制到新缓冲区，
+ * 使用率过低时同时收缩容量。扩容与整理都会替换缓冲区对象并移动区间偏移，
+ * 使用方每次绑定前都应通过 GpuBufferRange 重新获取缓冲区 ID 与偏移。
+ * 仅在渲染线程使用。
+ */
+public final class GpuBufferArena {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** 区间对齐（字节），同时是分配单位 */
+    static final int ALIGNMENT = 16;
+
+    /**
+     * 缓冲区用途
+     */
+    public enum Usage {
+        STATIC_VERTEX("静态顶点", GL46C.GL_STATIC_DRAW, 4 * 1024 * 1024),
+        INDEX("索引", GL46C.GL_STATIC_DRAW, 4 * 1024 * 1024),
+        DYNAMIC_VERTEX("动态顶点", GL46C.GL_DYNAMIC_DRAW, 4 * 1024 * 1024),
+        /** 群体动画烘焙矩阵（BakedCrowdClip，作为 SSBO 整体绑定） */
+        BAKED_ANIMATION("烘焙动画", GL46C.GL_STATIC_DRAW, 4 * 1024 * 1024);
+
+        final String label;
+        final int glUsage;
+        final int initialBytes;
+
+        Usage(String label, int glUsage, int initialBytes) {
+            this.label = label;
+            this.glUsage = glUsage;
+            this.initialBytes = initialBytes;
+        }
+    }
+
+    private static final Map<Usage, GpuBufferArena> arenas = new EnumMap<>(Usage.class);
+
+    private final Usage usage;
+    private final RangeAllocator blocks = new RangeAllocator(0);
+    /** 存活区间：起始块 → 区间（整理时按偏移顺序复制） */
+    private final TreeMap<Integer, GpuBufferRange> live = new TreeMap<>();
+    private int buffer = 0;
+
+    private GpuBufferArena(Usage usage) {
+        this.usage = usage;
+    }
+
+    /**
+     * 从指定用途的缓冲区池分配区间（内容未初始化）
+     *
+     * @return 区间，大小非法或分配失败时返回 null
+     */
+    public static GpuBufferRange allocate(Usage usage, long bytes) {
+        return arenas.computeIfAbsent(usage, GpuBufferArena::new).allocate(bytes);
+    }
+
+    /**
+     * 所有缓冲区池已分配的字节数
+     */
+    public static long getTotalUsed() {
+        long total = 0;
+        for (GpuBufferArena arena : arenas.values()) {
+            total += (long) arena.blocks.getUsed() * ALIGNMENT;
+        }
+        return total;
+    }
+
+    /**
+     * 所有缓冲区池的显存容量（字节）
+     */
+    public static long getTotalCapacity() {
+        long total = 0;
+        for (GpuBufferArena arena : arenas.values()) {
+            total += (long) arena.blocks.getCapacity() * ALIGNMENT;
+        }
+        return total;
+    }
+
+    int getBuffer() {
+        return buffer;
+    }
+
+    private GpuBufferRange allocate(long bytes) {
+        if (bytes <= 0) return null;
+        long blockCount = (bytes + ALIGNMENT - 1) / ALIGNMENT;
+        if (blockCount > Integer.MAX_VALUE / 2) {
+            logger.error("[缓冲区池] {} 区间过大: {} bytes", usage.label, bytes);
+            return null;
+        }
+        int size = (int) blockCount;
+        int start = blocks.allocate(size);
+        if (start < 0) {
+            resize(Math.max(blocks.grownCapacityFor(size), usage.initialBytes / ALIGNMENT), false);
+            start = blocks.allocate(size);
+        }
+        if (start < 0) {
+            logger.error("[缓冲区池] {} 分配失败: {} bytes", usage.label, bytes);
+            return null;
+        }
+        GpuBufferRange range = new GpuBufferRange(this, start, size, bytes);
+        live.put(start, range);
+        return range;
+    }
+
+    void free(GpuBufferRange range) {
+        if (live.remove(range.block) == null) return;
+        blocks.free(range.block, range.blocks);
+        maybeCompact();
+    }
+
+    /**
+     * 空闲空间中最大连续区间不足一半（碎片化），或使用率低于 1/4 时整理
+     */
+    private void maybeCompact() {
+        int capacity = blocks.getCapacity();
+        int used = blocks.getUsed();
+        int free = capacity - used;
+        if (free <= 0) return;
+        boolean fragmented = blocks.largestFree() < free / 2;
+        boolean sparse = capacity > usage.initialBytes / ALIGNMENT && used < capacity / 4;
+        if (!fragmented && !sparse) return;
+
+        int minCapacity = Math.max(used * 2, usage.initialBytes / ALIGNMENT);
+        int newCapacity = capacity;
+        while (newCapacity / 2 >= minCapacity) newCapacity /= 2;
+        resize(newCapacity, true);
+    }
+
+    /**
+     * 替换为新容量的缓冲区（GPU 端复制）
+     *
+     * @param compact true = 存活区间紧凑排列（会移动区间偏移），false = 原位复制
+     */
+    private void resize(int newCapacity, boolean compact) {
+        int oldCapacity = blocks.getCapacity();
+        int newBuffer = GL46C.glGenBuffers();
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, newBuffer);
+        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, (long) newCapacity * ALIGNMENT, usage.glUsage);
+
+        if (buffer != 0) {
+            GL46C.glBindBuffer(GL46C.GL_COPY_READ_BUFFER, buffer);
+            if (compact) {
+                List<GpuBufferRange> ranges = new ArrayList<>(live.values());
+                live.clear();
+                int cursor = 0;
+                for (GpuBufferRange range : ranges) {
+                    GL46C.glCopyBufferSubData(GL46C.GL_COPY_READ_BUFFER, GL46C.GL_COPY_WRITE_BUFFER,
+                            (long) range.block * ALIGNMENT, (long) cursor * ALIGNMENT, (long) range.blocks * ALIGNMENT);
+                    range.block = cursor;
+                    live.put(cursor, range);
+                    cursor += range.blocks;
+                }
+                blocks.resetCompacted(cursor, newCapacity);
+            } else if (oldCapacity > 0) {
+                GL46C.glCopyBufferSubData(GL46C.GL_COPY_READ_BUFFER, GL46C.GL_COPY_WRITE_BUFFER,
+                        0, 0, (long) oldCapacity * ALIGNMENT);
+            }
+            GL46C.glBindBuffer(GL46C.GL_COPY_READ_BUFFER, 0);
+            GL46C.glDeleteBuffers(buffer);
+        }
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+        buffer = newBuffer;
+
+        if (!compact) {
+            blocks.grow(newCapacity);
+            logger.info("[缓冲区池] {} 扩容: {} → {} KB", usage.label,
+                    (long) oldCapacity * ALIGNMENT / 1024, (long) newCapacity * ALIGNMENT / 1024);
+        } else {
+            logger.info("[缓冲区池] {} 整理: 已用 {} KB，容量 {} → {} KB", usage.label,
+                    (long) blocks.getUsed() * ALIGNMENT / 1024,
+                    (long) oldCapacity * ALIGNMENT / 1024, (long) newCapacity * ALIGNMENT / 1024);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import org.lwjgl.opengl.GL46C;
+
+import java.nio.ByteBuffer;
+
+/**
+ * GpuBufferArena 中的一段区间
+ *
+ * 缓冲区 ID 与偏移会因扩容或整理而变化，不要缓存，每次绑定时重新获取。
+ * 模型释放时调用 release 交还区间。
+ */
+public final class GpuBufferRange {
+    private final GpuBufferArena arena;
+    /** 起始块（GpuBufferArena.ALIGNMENT 字节为一块），整理时由 arena 更新 */
+    int block;
+    final int blocks;
+    private final long size;
+    private boolean released = false;
+
+    GpuBufferRange(GpuBufferArena arena, int block, int blocks, long size) {
+        this.arena = arena;
+        this.block = block;
+        this.blocks = blocks;
+        this.size = size;
+    }
+
+    /** 所在缓冲区 ID */
+    public int getBuffer() {
+        return arena.getBuffer();
+    }
+
+    /** 区间在缓冲区中的字节偏移（绑定为 VBO/IBO 时加到属性或索引偏移上） */
+    public long getOffset() {
+        return (long) block * GpuBufferArena.ALIGNMENT;
+    }
+
+    /** 请求的字节数 */
+    public long getSize() {
+        return size;
+    }
+
+    /** 实际占用的显存（按对齐后的块计） */
+    public long getAllocatedBytes() {
+        return (long) blocks * GpuBufferArena.ALIGNMENT;
+    }
+
+    /**
+     * 从区间起点上传数据（data 从 position 起，超出区间的部分被截断）
+     */
+    public void upload(ByteBuffer data) {
+        upload(0, data);
+    }
+
+    /**
+     * 上传数据到区间内 offset 处
+     */
+    public void upload(long offset, ByteBuffer data) {
+        if (released || offset < 0 || offset >= size) return;
+        long maxBytes = size - offset;
+        if (data.remaining() > maxBytes) {
+            data.limit(data.position() + (int) maxBytes);
+        }
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, getBuffer());
+        GL46C.glBufferSubData(GL46C.GL_COPY_WRITE_BUFFER, getOffset() + offset, data);
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+    }
+
+    public void release() {
+        if (released) return;
+        released = true;
+        arena.free(this);
+    }
+}
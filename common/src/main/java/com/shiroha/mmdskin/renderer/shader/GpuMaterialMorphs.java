@@ -0,0 +1,276 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import com.shiroha.mmdskin.util.AssetsUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.opengl.GL46C;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * GPU 材质 Morph 求值（GPU 蒙皮模型）
+ *
+ * 材质 Morph 条目与材质基础边缘参数在模型加载时上传，每帧只写入活动材质 Morph 的有效权重列表
+ * （通常为空或仅数条），由一次小型 Compute 分派完成逐材质的乘算/加算：
+ * - 子网格的可见性（Morph 后 alpha 为 0 的材质不绘制）写入间接绘制命令的 instanceCount，
+ *   绘制时用 glDrawElementsIndirect，CPU 不再读取 Morph 结果
+ * - 边缘参数按 ToonOutlinePass.encodeEdge 的编码直接写入模型的 ToonMaterialBlock
+ *
+ * 仅在活动列表或子网格数据（LOD、可见性、索引区间偏移）变化时重新分派。
+ * 仅在渲染线程使用。
+ */
+public final class GpuMaterialMorphs {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int LOCAL_SIZE_X = 64;
+    /** 子网格元数据步长（与 NativeFunc.BatchGetSubMeshData 一致） */
+    private static final int SUBMESH_DATA_STRIDE = 20;
+    /** DrawElementsIndirectCommand 字节数 */
+    public static final int COMMAND_BYTES = 20;
+    private static final int SUBMESH_BYTES = 16;
+    private static final int ACTIVE_MORPH_BYTES = 16;
+
+    private static final int BINDING_MATERIAL_EDGES = 0;
+    private static final int BINDING_MORPH_ENTRIES = 1;
+    private static final int BINDING_ACTIVE_MORPHS = 2;
+    private static final int BINDING_SUBMESHES = 3;
+    private static final int BINDING_DRAW_COMMANDS = 4;
+    private static final int BINDING_EDGE_OUTPUT = 5;
+
+    private static final String SHADER_SOURCE =
+            AssetsUtil.getAssetsAsString("shader/compute_material_morph.comp.glsl");
+
+    // 全局共享的 Compute 程序（懒编译）
+    private static int program = 0;
+    private static boolean programFailed = false;
+    private static int activeCountLocation = -1;
+    private static int subMeshCountLocation = -1;
+    private static int materialCountLocation = -1;
+    private static int edgeStrideLocation = -1;
+
+    private final int materialCount;
+    private final int subMeshCount;
+    private final int morphCount;
+
+    // 静态输入：材质基础边缘参数 + 材质 Morph 条目
+    private int edgeBuffer;
+    private int entryBuffer;
+    private final long staticBytes;
+    // 每帧输入：活动材质 Morph 列表、子网格表；输出：间接绘制命令
+    private int activeBuffer;
+    private int subMeshBuffer;
+    private int commandBuffer;
+
+    private ByteBuffer activeStaging;
+    private ByteBuffer subMeshStaging;
+    /** 上次上传的子网格表（用于变化检测） */
+    private ByteBuffer uploadedSubMeshes;
+    private int activeCount = 0;
+    private int dispatchedActiveCount = 0;
+    private boolean dirty = true;
+    private int edgeTarget = 0;
+
+    private GpuMaterialMorphs(int materialCount, int subMeshCount, int morphCount, long staticBytes) {
+        this.materialCount = materialCount;
+        this.subMeshCount = subMeshCount;
+        this.morphCount = morphCount;
+        this.staticBytes = staticBytes;
+    }
+
+    /**
+     * 创建模型的材质 Morph 求值状态
+     *
+     * @param materialCount 材质数量
+     * @param subMeshCount  子网格数量
+     * @param morphCount    含条目的材质 Morph 数量（活动列表上限）
+     * @param edgeData      材质基础边缘参数（每材质 5 个 float，NativeFunc.BatchGetMaterialEdgeData 布局）
+     * @param entries       材质 Morph 条目（NativeFunc.CopyGpuMaterialMorphEntriesToBuffer 布局）
+     * @return 状态；Compute 程序不可用时返回 null，调用方应保持 CPU 求值
+     */
+    public static GpuMaterialMorphs create(int materialCount, int subMeshCount, int morphCount,
+                                           ByteBuffer edgeData, ByteBuffer entries) {
+        if (!ensureProgram() || materialCount <= 0 || subMeshCount <= 0 || morphCount <= 0) return null;
+
+        GpuMaterialMorphs morphs = new GpuMaterialMorphs(materialCount, subMeshCount, morphCount,
+                (long) edgeData.remaining() + entries.remaining());
+        morphs.edgeBuffer = createBuffer(edgeData, GL46C.GL_STATIC_DRAW);
+        morphs.entryBuffer = createBuffer(entries, GL46C.GL_STATIC_DRAW);
+        morphs.activeBuffer = createBuffer((long) morphCount * ACTIVE_MORPH_BYTES, GL46C.GL_STREAM_DRAW);
+        morphs.subMeshBuffer = createBuffer((long) subMeshCount * SUBMESH_BYTES, GL46C.GL_DYNAMIC_DRAW);
+        morphs.commandBuffer = createBuffer((long) subMeshCount * COMMAND_BYTES, GL46C.GL_DYNAMIC_COPY);
+        morphs.activeStaging = MemoryUtil.memAlloc(morphCount * ACTIVE_MORPH_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        morphs.subMeshStaging = MemoryUtil.memAlloc(subMeshCount * SUBMESH_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        morphs.uploadedSubMeshes = MemoryUtil.memCalloc(subMeshCount * SUBMESH_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        return morphs;
+    }
+
+    /**
+     * 活动材质 Morph 列表暂存区（由 NativeFunc.CopyGpuActiveMaterialMorphsToBuffer 写入）
+     */
+    public ByteBuffer activeStaging() {
+        activeStaging.clear();
+        return activeStaging;
+    }
+
+    /**
+     * 登记本帧写入暂存区的活动记录数（本帧与上次分派都没有活动 Morph 时不需要重新分派）
+     */
+    public void setActiveCount(int count) {
+        activeCount = Math.max(0, Math.min(count, morphCount));
+        if (activeCount > 0 || dispatchedActiveCount > 0) dirty = true;
+    }
+
+    /**
+     * 按需求值：子网格表变化、活动列表变化或边缘输出目标变化时分派一次
+     *
+     * @param subMeshData     本帧子网格元数据（NativeFunc.BatchGetSubMeshData 布局）
+     * @param firstIndexBase  索引区间在索引缓冲区中的起始索引（区间偏移 / 索引字节数）
+     * @param edgeBlock       需要写入边缘参数的逐材质 Uniform 块，可为 null
+     */
+    public void update(ByteBuffer subMeshData, long firstIndexBase, ToonMaterialBlock edgeBlock) {
+        if (program == 0 || commandBuffer == 0) return;
+
+        for (int i = 0; i < subMeshCount; i++) {
+            int src = i * SUBMESH_DATA_STRIDE;
+            int dst = i * SUBMESH_BYTES;
+            boolean visible = subMeshData.get(src + 16) != 0;
+            subMeshStaging.putInt(dst, subMeshData.getInt(src));
+            subMeshStaging.putInt(dst + 4, (int) (firstIndexBase + subMeshData.getInt(src + 4)));
+            subMeshStaging.putInt(dst + 8, visible ? subMeshData.getInt(src + 8) : 0);
+            subMeshStaging.putInt(dst + 12, Float.floatToRawIntBits(subMeshData.getFloat(src + 12)));
+        }
+        subMeshStaging.limit(subMeshCount * SUBMESH_BYTES).position(0);
+        uploadedSubMeshes.limit(subMeshCount * SUBMESH_BYTES).position(0);
+        if (!subMeshStaging.equals(uploadedSubMeshes)) {
+            GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, subMeshBuffer);
+            GL46C.glBufferSubData(GL46C.GL_COPY_WRITE_BUFFER, 0, subMeshStaging);
+            GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+            MemoryUtil.memCopy(subMeshStaging, uploadedSubMeshes);
+            dirty = true;
+        }
+
+        int target = edgeBlock != null ? edgeBlock.getBuffer() : 0;
+        if (target != edgeTarget) {
+            edgeTarget = target;
+            dirty = true;
+        }
+        if (!dirty) return;
+        dirty = false;
+
+        if (activeCount > 0) {
+            activeStaging.limit(activeCount * ACTIVE_MORPH_BYTES).position(0);
+            GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, activeBuffer);
+            GL46C.glBufferSubData(GL46C.GL_COPY_WRITE_BUFFER, 0, activeStaging);
+            GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+        }
+        dispatchedActiveCount = activeCount;
+
+        GlStateTracker.beginSection();
+        GlStateTracker.useProgram(program);
+        GL46C.glUniform1ui(activeCountLocation, activeCount);
+        GL46C.glUniform1ui(subMeshCountLocation, subMeshCount);
+        GL46C.glUniform1ui(materialCountLocation, materialCount);
+        GlStateTracker.bindStorageBuffer(BINDING_MATERIAL_EDGES, edgeBuffer);
+        GlStateTracker.bindStorageBuffer(BINDING_MORPH_ENTRIES, entryBuffer);
+        GlStateTracker.bindStorageBuffer(BINDING_ACTIVE_MORPHS, activeBuffer);
+        GlStateTracker.bindStorageBuffer(BINDING_SUBMESHES, subMeshBuffer);
+        GlStateTracker.bindStorageBuffer(BINDING_DRAW_COMMANDS, commandBuffer);
+        if (edgeTarget != 0) {
+            GL46C.glUniform1ui(edgeStrideLocation, edgeBlock.getStride() / ToonMaterialBlock.ENTRY_SIZE);
+            GlStateTracker.bindStorageBuffer(BINDING_EDGE_OUTPUT, edgeTarget);
+        } else {
+            GL46C.glUniform1ui(edgeStrideLocation, 0);
+        }
+
+        int threads = Math.max(subMeshCount, materialCount);
+        GL46C.glDispatchCompute((threads + LOCAL_SIZE_X - 1) / LOCAL_SIZE_X, 1, 1);
+        GL46C.glMemoryBarrier(GL46C.GL_COMMAND_BARRIER_BIT | GL46C.GL_UNIFORM_BARRIER_BIT);
+        GlStateTracker.endSection();
+    }
+
+    /**
+     * 强制下次 update 重新求值（例如边缘输出目标被重建）
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * 以间接绘制命令绘制一个子网格（调用前需已绑定 VAO 与索引缓冲区，并调用 bindCommands）
+     */
+    public void drawSubMesh(int subMesh, int indexType) {
+        GL46C.glDrawElementsIndirect(GL46C.GL_TRIANGLES, indexType, (long) subMesh * COMMAND_BYTES);
+    }
+
+    /**
+     * 绑定间接绘制命令缓冲区
+     */
+    public void bindCommands() {
+        GL46C.glBindBuffer(GL46C.GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+    }
+
+    public static void unbindCommands() {
+        GL46C.glBindBuffer(GL46C.GL_DRAW_INDIRECT_BUFFER, 0);
+    }
+
+    /**
+     * 显存占用（字节）
+     */
+    public long getVramUsage() {
+        return staticBytes + (long) morphCount * ACTIVE_MORPH_BYTES
+                + (long) subMeshCount * (SUBMESH_BYTES + COMMAND_BYTES);
+    }
+
+    /**
+     * Java 侧堆外内存占用（字节）
+     */
+    public long getRamUsage() {
+        return (long) morphCount * ACTIVE_MORPH_BYTES + (long) subMeshCount * SUBMESH_BYTES * 2;
+    }
+
+    public void cleanup() {
+        for (int buffer : new int[]{edgeBuffer, entryBuffer, activeBuffer, subMeshBuffer, commandBuffer}) {
+            if (buffer != 0) GL46C.glDeleteBuffers(buffer);
+        }
+        edgeBuffer = entryBuffer = activeBuffer = subMeshBuffer = commandBuffer = 0;
+        if (activeStaging != null) { MemoryUtil.memFree(activeStaging); activeStaging = null; }
+        if (subMeshStaging != null) { MemoryUtil.memFree(subMeshStaging); subMeshStaging = null; }
+        if (uploadedSubMeshes != null) { MemoryUtil.memFree(uploadedSubMeshes); uploadedSubMeshes = null; }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private static boolean ensureProgram() {
+        if (program != 0) return true;
+        if (programFailed) return false;
+        program = ShaderCompiler.compileComputeProgram(SHADER_SOURCE, "材质 Morph Compute Shader");
+        if (program == 0) {
+            logger.warn("材质 Morph Compute Shader 编译失败，材质 Morph 保持 CPU 求值");
+            programFailed = true;
+            return false;
+        }
+        activeCountLocation = GL46C.glGetUniformLocation(program, "ActiveCount");
+        subMeshCountLocation = GL46C.glGetUniformLocation(program, "SubMeshCount");
+        materialCountLocation = GL46C.glGetUniformLocation(program, "MaterialCount");
+        edgeStrideLocation = GL46C.glGetUniformLocation(program, "EdgeStride");
+        return true;
+    }
+
+    private static int createBuffer(ByteBuffer data, int usage) {
+        int buffer = GL46C.glGenBuffers();
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, buffer);
+        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, data, usage);
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+        return buffer;
+    }
+
+    private static int createBuffer(long size, int usage) {
+        int buffer = GL46C.glGenBuffers();
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, buffer);
+        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, size, usage);
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+        return buffer;
+    }
+}
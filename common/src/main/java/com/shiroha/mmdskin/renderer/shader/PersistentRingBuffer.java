@@ -0,0 +1,231 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL46C;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * 持久映射环形缓冲区（带栅栏）
+ *
+ * 每帧变化的数据（骨骼矩阵、活动 Morph、实例描述符）直接写入持久映射的显存，
+ * 不再经过 glBufferData / glBufferSubData 的驱动端拷贝。写入按 reserve → 写入 → commit 追加，
+ * 读取这些数据的命令提交后调用 fence；环绕覆盖旧区段前只等待覆盖范围对应的栅栏，
+ * 正常情况下栅栏早已完成，不会产生 CPU/GPU 同步等待。
+ *
+ * 不支持 glBufferStorage（OpenGL 4.4 / ARB_buffer_storage）时退化为 CPU 暂存 + 分派前 glBufferSubData。
+ * 仅在渲染线程使用，非线程安全。
+ */
+public final class PersistentRingBuffer {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** 等待栅栏的单次超时（纳秒） */
+    private static final long FENCE_TIMEOUT_NS = 1_000_000L;
+
+    /** 一次 fence 覆盖的区段：写入计数到达 end 之前的数据由 sync 保护 */
+    private record Fence(long sync, long end) {}
+
+    private final String name;
+    private final boolean persistent;
+    private int capacity;
+    private int buffer = 0;
+    /** 写入地址（持久映射指针或 CPU 暂存区） */
+    private long address = 0;
+
+    // 单调计数：已追加字节（含环绕跳过的尾部）与 GPU 已读完的字节
+    private long written = 0;
+    private long retired = 0;
+    private int head = 0;
+    /** 尚未上传到显存的起点（仅非持久模式） */
+    private int pendingUploadStart = 0;
+
+    // reserve 的结果，commit 时生效
+    private int reservedOffset = -1;
+    private int reservedPadding = 0;
+
+    private final ArrayDeque<Fence> fences = new ArrayDeque<>();
+
+    /**
+     * @param name     名称（用于日志）
+     * @param capacity 初始容量（字节）
+     */
+    public PersistentRingBuffer(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+        GLCapabilities caps = GL.getCapabilities();
+        this.persistent = caps.OpenGL44 || caps.GL_ARB_buffer_storage;
+        allocate();
+    }
+
+    /**
+     * 预留 size 字节（起点按 alignment 对齐，alignment 不要求是 2 的幂），写指针在 commit 前不移动
+     * 覆盖范围仍被 GPU 使用时等待对应栅栏
+     *
+     * @return 预留区段的偏移；容量不足（未提交栅栏的数据占满环）时返回 -1，调用方应提交后重试或 grow
+     */
+    public int reserve(int size, int alignment) {
+        if (size <= 0 || size > capacity) return -1;
+        int offset = alignUp(head, alignment);
+        int padding = offset - head;
+        if (offset + size > capacity) {
+            // 尾部放不下，跳到开头
+            padding = capacity - head;
+            offset = 0;
+        }
+        long need = padding + size;
+        while (capacity - (written - retired) < need) {
+            if (!retireOldest()) return -1;
+        }
+        reservedOffset = offset;
+        reservedPadding = padding;
+        return offset;
+    }
+
+    /**
+     * 预留区段的写入视图（从偏移 offset 起 size 字节）
+     */
+    public ByteBuffer view(int offset, int size) {
+        return MemoryUtil.memByteBuffer(address + offset, size);
+    }
+
+    public long address(int offset) {
+        return address + offset;
+    }
+
+    /**
+     * 提交最近一次 reserve 的前 size 字节（size 可小于预留大小）
+     */
+    public void commit(int size) {
+        if (reservedOffset < 0) return;
+        if (reservedOffset < head && !persistent) {
+            // 环绕：先上传尾部未上传的数据
+            upload(pendingUploadStart, head);
+            pendingUploadStart = 0;
+        }
+        written += reservedPadding + size;
+        head = reservedOffset + size;
+        reservedOffset = -1;
+        reservedPadding = 0;
+    }
+
+    /**
+     * 使已提交的数据对后续 GL 命令可见（持久映射为一致映射，无需操作；退化模式在此上传）
+     */
+    public void flushWrites() {
+        if (persistent || head == pendingUploadStart) return;
+        upload(pendingUploadStart, head);
+        pendingUploadStart = head;
+    }
+
+    /**
+     * 在读取已提交数据的 GL 命令之后插入栅栏
+     */
+    public void fence() {
+        if (!fences.isEmpty() && fences.peekLast().end == written) return;
+        long sync = GL46C.glFenceSync(GL46C.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        fences.addLast(new Fence(sync, written));
+    }
+
+    /**
+     * 扩容（丢弃现有内容，调用方须保证没有待提交的数据）
+     */
+    public void grow(int required) {
+        int newCapacity = capacity;
+        while (newCapacity < required) newCapacity *= 2;
+        if (newCapacity == capacity) return;
+        release();
+        capacity = newCapacity;
+        allocate();
+        logger.info("[{}] 环形缓冲区扩容: {} KB", name, capacity / 1024);
+    }
+
+    public int getBuffer() {
+        return buffer;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getVramUsage() {
+        return buffer != 0 ? capacity : 0;
+    }
+
+    public void cleanup() {
+        release();
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void allocate() {
+        buffer = GL46C.glGenBuffers();
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, buffer);
+        if (persistent) {
+            int flags = GL46C.GL_MAP_WRITE_BIT | GL46C.GL_MAP_PERSISTENT_BIT | GL46C.GL_MAP_COHERENT_BIT;
+            GL46C.glBufferStorage(GL46C.GL_COPY_WRITE_BUFFER, capacity, flags);
+            ByteBuffer mapped = GL46C.glMapBufferRange(GL46C.GL_COPY_WRITE_BUFFER, 0, capacity, flags);
+            address = MemoryUtil.memAddress(mapped);
+        } else {
+            GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, capacity, GL46C.GL_STREAM_DRAW);
+            address = MemoryUtil.nmemAlloc(capacity);
+        }
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+        written = retired = 0;
+        head = pendingUploadStart = 0;
+        reservedOffset = -1;
+        reservedPadding = 0;
+    }
+
+    private void release() {
+        for (Fence fence : fences) {
+            GL46C.glDeleteSync(fence.sync);
+        }
+        fences.clear();
+        if (buffer != 0) {
+            if (persistent) {
+                GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, buffer);
+                GL46C.glUnmapBuffer(GL46C.GL_COPY_WRITE_BUFFER);
+                GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+            } else if (address != 0) {
+                MemoryUtil.nmemFree(address);
+            }
+            GL46C.glDeleteBuffers(buffer);
+            buffer = 0;
+        }
+        address = 0;
+    }
+
+    /**
+     * 等待最早的栅栏并回收其覆盖的区段
+     *
+     * @return 没有可等待的栅栏时返回 false
+     */
+    private boolean retireOldest() {
+        Fence fence = fences.pollFirst();
+        if (fence == null) return false;
+        int status;
+        do {
+            status = GL46C.glClientWaitSync(fence.sync, GL46C.GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_TIMEOUT_NS);
+        } while (status == GL46C.GL_TIMEOUT_EXPIRED);
+        GL46C.glDeleteSync(fence.sync);
+        retired = fence.end;
+        return true;
+    }
+
+    private void upload(int from, int to) {
+        if (to <= from) return;
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, buffer);
+        GL46C.nglBufferSubData(GL46C.GL_COPY_WRITE_BUFFER, from, to - from, address + from);
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+    }
+
+    private static int alignUp(int value, int alignment) {
+        if (alignment <= 1) return value;
+        return (value + alignment - 1) / alignment * alignment;
+    }
+}
@@ -0,0 +1,120 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 区间分配器（首次适配）
+ *
+ * 在 [0, capacity) 的抽象单位空间内分配连续区间，释放时与相邻空闲区间合并。
+ * 只管理区间编号，不持有任何 GL 资源；单位（顶点、float、字节）由使用方决定。
+ * 仅在渲染线程使用，非线程安全。
+ */
+public final class RangeAllocator {
+    /** 空闲区间：起点 → 长度 */
+    private final TreeMap<Integer, Integer> freeRanges = new TreeMap<>();
+    private int capacity;
+    private int used;
+
+    public RangeAllocator(int capacity) {
+        this.capacity = Math.max(capacity, 0);
+        if (this.capacity > 0) freeRanges.put(0, this.capacity);
+    }
+
+    /**
+     * 分配长度为 size 的区间
+     *
+     * @return 区间起点，空间不足时返回 -1（调用方可 grow 后重试）
+     */
+    public int allocate(int size) {
+        if (size <= 0) return -1;
+        Iterator<Map.Entry<Integer, Integer>> it = freeRanges.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Integer> range = it.next();
+            int start = range.getKey();
+            int length = range.getValue();
+            if (length < size) continue;
+            it.remove();
+            if (length > size) freeRanges.put(start + size, length - size);
+            used += size;
+            return start;
+        }
+        return -1;
+    }
+
+    /**
+     * 释放区间并与相邻空闲区间合并
+     */
+    public void free(int start, int size) {
+        if (start < 0 || size <= 0) return;
+        used -= size;
+
+        int end = start + size;
+        Integer next = freeRanges.get(end);
+        if (next != null) {
+            freeRanges.remove(end);
+            end += next;
+        }
+        Map.Entry<Integer, Integer> prev = freeRanges.floorEntry(start);
+        if (prev != null && prev.getKey() + prev.getValue() == start) {
+            start = prev.getKey();
+        }
+        freeRanges.put(start, end - start);
+    }
+
+    /**
+     * 扩容到 newCapacity，新增部分并入末尾空闲区间
+     */
+    public void grow(int newCapacity) {
+        if (newCapacity <= capacity) return;
+        int oldCapacity = capacity;
+        capacity = newCapacity;
+        used += newCapacity - oldCapacity;
+        free(oldCapacity, newCapacity - oldCapacity);
+    }
+
+    /**
+     * 能容纳 size 的最小扩容容量（按 2 倍增长）
+     */
+    public int grownCapacityFor(int size) {
+        long required = (long) capacity + size - tailFree();
+        long target = Math.max(capacity, 1);
+        while (target < required) target *= 2;
+        return (int) Math.min(target, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 整理后重置：[0, used) 为已分配，其余为一个空闲区间，容量改为 newCapacity（不小于 used）
+     */
+    public void resetCompacted(int used, int newCapacity) {
+        this.capacity = Math.max(newCapacity, used);
+        this.used = used;
+        freeRanges.clear();
+        if (capacity > used) freeRanges.put(used, capacity - used);
+    }
+
+    /** 最大空闲区间长度 */
+    public int largestFree() {
+        int largest = 0;
+        for (int length : freeRanges.values()) {
+            if (length > largest) largest = length;
+        }
+        return largest;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getUsed() {
+        return used;
+    }
+
+    /** 末尾空闲区间长度（扩容后可与新增部分合并） */
+    private int tailFree() {
+        Map.Entry<Integer, Integer> last = freeRanges.lastEntry();
+        if (last == null || last.getKey() + last.getValue() != capacity) return 0;
+        return last.getValue();
+    }
+}
@@ -13,6 +13,8 @@ import org.lwjgl.opengl.GL46C;
  *   // ... 执行 Compute Shader / 绑定自定义 SSBO ...
  *   bindings.restore();                  // 恢复之前的状态
  * 
+ * 每次构造都会回读全部绑定点；高频路径（如每帧的蒙皮分派）应改用 GlStateTracker 的区段接口。
+ * 
  * 感谢 AR 提供此方案。
  */
 public class SSBOBindings {
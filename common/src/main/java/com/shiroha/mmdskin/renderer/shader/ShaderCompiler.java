@@ -56,6 +56,26 @@ public final class ShaderCompiler {
         return program;
     }
 
+    /**
+     * 在 #version 行之后注入宏定义，生成特化变体源码
+     *
+     * @param source  着色器源码（首个非空行应为 #version）
+     * @param defines 宏定义，形如 "NAME" 或 "NAME VALUE"
+     * @return 注入后的源码；无 #version 行时宏定义置于开头
+     */
+    public static String withDefines(String source, String... defines) {
+        if (defines.length == 0) return source;
+        StringBuilder block = new StringBuilder();
+        for (String define : defines) {
+            block.append("#define ").append(define).append('\n');
+        }
+        int version = source.indexOf("#version");
+        if (version < 0) return block + source;
+        int lineEnd = source.indexOf('\n', version);
+        if (lineEnd < 0) return source + '\n' + block;
+        return source.substring(0, lineEnd + 1) + block + source.substring(lineEnd + 1);
+    }
+
     // ==================== 内部方法 ====================
 
     private static int compileShader(int type, String source, String name) {
@@ -9,4 +9,10 @@ public final class ShaderConstants {
 
     /** 最大骨骼数量 */
     public static final int MAX_BONES = 2048;
+
+    /** Toon 逐模型 Uniform 块绑定点（std140，避开光影 mod 常用的低位绑定点） */
+    public static final int TOON_MODEL_UBO_BINDING = 10;
+
+    /** Toon 逐材质 Uniform 块绑定点（std140） */
+    public static final int TOON_MATERIAL_UBO_BINDING = 11;
 }
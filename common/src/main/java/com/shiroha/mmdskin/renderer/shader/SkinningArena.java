@@ -0,0 +1,262 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.opengl.GL46C;
+
+import java.nio.ByteBuffer;
+
+/**
+ * GPU 蒙皮共享存储
+ *
+ * 所有 GPU 蒙皮模型的静态输入（原始位置/法线/UV、骨骼索引/权重）与蒙皮输出放在少数几个共享缓冲区中，
+ * 每个实例占用一段顶点区间，各顶点流以同一个顶点起点寻址；顶点 Morph 与 UV Morph 的稀疏条目放在共享的 Morph 条目池中。
+ * 这样一次 Compute 分派即可通过实例描述符处理所有模型，绘制时蒙皮输出按偏移绑定为 VBO。
+ *
+ * 容量不足时按 2 倍扩容并复制已有内容，已分配区间的起点不变，但缓冲区对象会被替换，
+ * 使用方每次绑定前都应重新获取缓冲区 ID。
+ */
+public final class SkinningArena {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** 顶点流：原始位置（vec3） */
+    public static final int STREAM_POSITION = 0;
+    /** 顶点流：原始法线（snorm16 × 4，第 4 分量为 0） */
+    public static final int STREAM_NORMAL = 1;
+    /** 顶点流：原始 UV（vec2） */
+    public static final int STREAM_UV = 2;
+    /** 顶点流：骨骼索引（uint16 × 4，0xFFFF 为无效） */
+    public static final int STREAM_BONE_INDICES = 3;
+    /** 顶点流：骨骼权重（unorm16 × 4） */
+    public static final int STREAM_BONE_WEIGHTS = 4;
+    /** 顶点流：蒙皮后位置（vec3，同时作为 VBO） */
+    public static final int STREAM_SKINNED_POSITION = 5;
+    /** 顶点流：蒙皮后法线（snorm16 × 4，同时作为 VBO，按归一化 GL_SHORT 读取） */
+    public static final int STREAM_SKINNED_NORMAL = 6;
+    /** 顶点流：UV Morph 后的 UV（vec2，同时作为 VBO） */
+    public static final int STREAM_SKINNED_UV = 7;
+    /** 顶点流：顶点 Morph 定点累加（ivec3，蒙皮后清零） */
+    public static final int STREAM_MORPH_POSITION_ACCUM = 8;
+    /** 顶点流：UV Morph 定点累加（ivec2，蒙皮后清零） */
+    public static final int STREAM_MORPH_UV_ACCUM = 9;
+
+    /** Morph 条目大小（uvec4：顶点索引 + 三个偏移分量） */
+    public static final int MORPH_ENTRY_BYTES = 16;
+
+    private static final int STREAM_COUNT = 10;
+    private static final int[] STREAM_STRIDES = {12, 8, 8, 8, 8, 12, 8, 8, 12, 8};
+    private static final int STATIC_STREAM_END = STREAM_SKINNED_POSITION;
+    private static final int ACCUM_STREAM_BEGIN = STREAM_MORPH_POSITION_ACCUM;
+
+    private static final int INITIAL_VERTEX_CAPACITY = 64 * 1024;
+    private static final int INITIAL_MORPH_CAPACITY = 1024 * 1024;
+
+    private final int[] streamBuffers = new int[STREAM_COUNT];
+    private final RangeAllocator vertexRanges = new RangeAllocator(0);
+
+    private int morphBuffer = 0;
+    private final RangeAllocator morphRanges = new RangeAllocator(0);
+
+    /**
+     * 顶点流每顶点字节数
+     */
+    public static int streamStride(int stream) {
+        return STREAM_STRIDES[stream];
+    }
+
+    /**
+     * 顶点流中指定顶点的字节偏移
+     */
+    public static long streamOffset(int stream, int vertexBase) {
+        return (long) vertexBase * STREAM_STRIDES[stream];
+    }
+
+    /**
+     * 一段顶点区间在所有顶点流中占用的总字节数
+     */
+    public static long vertexBytes(int vertexCount) {
+        long stride = 0;
+        for (int s : STREAM_STRIDES) stride += s;
+        return stride * vertexCount;
+    }
+
+    /**
+     * 为一个模型分配顶点区间
+     *
+     * @return 实例区间，顶点数非法时返回 null
+     */
+    public SkinningInstance allocate(int vertexCount) {
+        if (vertexCount <= 0) return null;
+        int base = vertexRanges.allocate(vertexCount);
+        if (base < 0) {
+            growVertexStreams(Math.max(vertexRanges.grownCapacityFor(vertexCount), INITIAL_VERTEX_CAPACITY));
+            base = vertexRanges.allocate(vertexCount);
+        }
+        if (base < 0) return null;
+        return new SkinningInstance(base, vertexCount);
+    }
+
+    /**
+     * 上传实例的一个静态顶点流（data 从 position 起，长度应为 vertexCount * 步长）
+     */
+    public void uploadStream(SkinningInstance instance, int stream, ByteBuffer data) {
+        if (instance == null || instance.released || streamBuffers[stream] == 0) return;
+        long maxBytes = (long) instance.vertexCount * STREAM_STRIDES[stream];
+        if (data.remaining() > maxBytes) {
+            data.limit(data.position() + (int) maxBytes);
+        }
+        if (stream == STREAM_BONE_WEIGHTS) {
+            instance.maxInfluences = countInfluences(data);
+        }
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, streamBuffers[stream]);
+        GL46C.glBufferSubData(GL46C.GL_COPY_WRITE_BUFFER, instance.streamOffset(stream), data);
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+    }
+
+    /**
+     * 上传实例的稀疏 Morph 条目（静态，分配后只上传一次）
+     *
+     * @param uv   true = UV Morph 条目，false = 顶点 Morph 条目
+     * @param data 条目数据（每条 16 字节，从 position 起）
+     * @return 是否成功
+     */
+    public boolean uploadMorphOffsets(SkinningInstance instance, boolean uv, ByteBuffer data) {
+        if (instance == null || instance.released) return false;
+        // 按整条目分配，保证区间起点对齐到条目（float 单位为 4 的倍数）
+        int floats = data.remaining() / MORPH_ENTRY_BYTES * (MORPH_ENTRY_BYTES / 4);
+        if (floats <= 0) return false;
+        data.limit(data.position() + floats * 4);
+
+        int base = morphRanges.allocate(floats);
+        if (base < 0) {
+            growMorphPool(Math.max(morphRanges.grownCapacityFor(floats), INITIAL_MORPH_CAPACITY));
+            base = morphRanges.allocate(floats);
+        }
+        if (base < 0) {
+            logger.error("[GPU蒙皮] Morph 条目池分配失败: {} floats", floats);
+            return false;
+        }
+
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, morphBuffer);
+        GL46C.glBufferSubData(GL46C.GL_COPY_WRITE_BUFFER, (long) base * 4, data);
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+
+        if (uv) {
+            instance.uvMorphOffsetBase = base;
+            instance.uvMorphOffsetFloats = floats;
+        } else {
+            instance.morphOffsetBase = base;
+            instance.morphOffsetFloats = floats;
+        }
+        return true;
+    }
+
+    /**
+     * 归还实例占用的所有区间
+     */
+    public void release(SkinningInstance instance) {
+        if (instance == null || instance.released) return;
+        instance.released = true;
+        vertexRanges.free(instance.vertexBase, instance.vertexCount);
+        if (instance.morphOffsetBase >= 0) {
+            morphRanges.free(instance.morphOffsetBase, instance.morphOffsetFloats);
+        }
+        if (instance.uvMorphOffsetBase >= 0) {
+            morphRanges.free(instance.uvMorphOffsetBase, instance.uvMorphOffsetFloats);
+        }
+    }
+
+    /**
+     * 顶点流缓冲区 ID（扩容后会变化，不要缓存）
+     */
+    public int getStreamBuffer(int stream) {
+        return streamBuffers[stream];
+    }
+
+    /**
+     * Morph 条目池缓冲区 ID（尚无 Morph 数据时为 0）
+     */
+    public int getMorphBuffer() {
+        return morphBuffer;
+    }
+
+    /**
+     * 共享存储显存占用（按容量计，字节）
+     */
+    public long getVramUsage() {
+        return vertexBytes(vertexRanges.getCapacity()) + (long) morphRanges.getCapacity() * 4;
+    }
+
+    public void cleanup() {
+        for (int i = 0; i < STREAM_COUNT; i++) {
+            if (streamBuffers[i] != 0) {
+                GL46C.glDeleteBuffers(streamBuffers[i]);
+                streamBuffers[i] = 0;
+            }
+        }
+        if (morphBuffer != 0) {
+            GL46C.glDeleteBuffers(morphBuffer);
+            morphBuffer = 0;
+        }
+    }
+
+    /**
+     * 统计骨骼权重流（unorm16 × 4）中有非零权重的最高槽位数，用于选择蒙皮变体
+     * 只看最高非零槽位而非非零个数，前面的空槽位仍会被计算，结果与全槽位计算一致
+     */
+    private static int countInfluences(ByteBuffer weights) {
+        int stride = STREAM_STRIDES[STREAM_BONE_WEIGHTS];
+        int influences = 1;
+        for (int i = weights.position(); i + stride <= weights.limit() && influences < 4; i += stride) {
+            for (int slot = 3; slot >= influences; slot--) {
+                if (weights.getShort(i + slot * 2) != 0) {
+                    influences = slot + 1;
+                    break;
+                }
+            }
+        }
+        return influences;
+    }
+
+    private void growVertexStreams(int newCapacity) {
+        int oldCapacity = vertexRanges.getCapacity();
+        for (int i = 0; i < STREAM_COUNT; i++) {
+            int usage = i < STATIC_STREAM_END ? GL46C.GL_STATIC_DRAW : GL46C.GL_DYNAMIC_COPY;
+            streamBuffers[i] = resize(streamBuffers[i], (long) oldCapacity * STREAM_STRIDES[i],
+                    (long) newCapacity * STREAM_STRIDES[i], usage, i >= ACCUM_STREAM_BEGIN);
+        }
+        vertexRanges.grow(newCapacity);
+        logger.info("[GPU蒙皮] 共享顶点存储扩容: {} → {} 顶点", oldCapacity, newCapacity);
+    }
+
+    private void growMorphPool(int newCapacity) {
+        int oldCapacity = morphRanges.getCapacity();
+        morphBuffer = resize(morphBuffer, (long) oldCapacity * 4, (long) newCapacity * 4, GL46C.GL_STATIC_DRAW, false);
+        morphRanges.grow(newCapacity);
+        logger.info("[GPU蒙皮] Morph 条目池扩容: {} → {} floats", oldCapacity, newCapacity);
+    }
+
+    /**
+     * 创建新容量的缓冲区并复制旧内容（GPU 端复制，不经过 CPU）
+     *
+     * @param zeroFill 是否先清零（累加缓冲区要求未写入部分为 0）
+     */
+    private static int resize(int oldBuffer, long oldBytes, long newBytes, int usage, boolean zeroFill) {
+        int newBuffer = GL46C.glGenBuffers();
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, newBuffer);
+        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, newBytes, usage);
+        if (zeroFill) {
+            GL46C.glClearBufferData(GL46C.GL_COPY_WRITE_BUFFER, GL46C.GL_R32I, GL46C.GL_RED_INTEGER, GL46C.GL_INT, (ByteBuffer) null);
+        }
+        if (oldBuffer != 0) {
+            if (oldBytes > 0) {
+                GL46C.glBindBuffer(GL46C.GL_COPY_READ_BUFFER, oldBuffer);
+                GL46C.glCopyBufferSubData(GL46C.GL_COPY_READ_BUFFER, GL46C.GL_COPY_WRITE_BUFFER, 0, 0, oldBytes);
+                GL46C.glBindBuffer(GL46C.GL_COPY_READ_BUFFER, 0);
+            }
+            GL46C.glDeleteBuffers(oldBuffer);
+        }
+        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+        return newBuffer;
+    }
+}
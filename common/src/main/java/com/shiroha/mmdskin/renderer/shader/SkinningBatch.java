@@ -0,0 +1,475 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import com.shiroha.mmdskin.renderer.core.FrameClock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.opengl.GL46C;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * GPU 蒙皮批处理
+ *
+ * 各模型把本帧的骨骼矩阵直接写入持久映射的环形缓冲区（Rust 端写入映射内存，无驱动端拷贝），
+ * 活动 Morph 列表与实例描述符在 flush 时整批拷入另一个环形缓冲区并按范围绑定；
+ * 先以一次散射分派累加所有活动 Morph 的稀疏条目，再完成蒙皮分派，之后插入栅栏保护本批数据。
+ * 姿态未变化的模型不登记（见 AbstractMMDModel.isPoseUnchanged），不产生任何写入。
+ * Morph 开销只与非零权重 Morph 实际影响的顶点数相关。
+ *
+ * 世界渲染开始时 FramePrepass 对上一帧在世界中绘制过的模型统一更新姿态并登记，随后一次 flush 完成分派，
+ * 之后各模型的绘制直接复用本帧蒙皮结果；
+ * 本帧新出现（或预处理后姿态仍需更新）的模型在绘制前登记并立即 flush，退化为单实例分派。
+ *
+ * 实例按蒙皮变体（SkinningInstance.variantKey）分组：flush 时描述符按变体连续重排，
+ * 每个出现的变体各一次蒙皮分派，骨骼矩阵与活动 Morph 仍为整批一次上传。
+ *
+ * 实例描述符布局（8 × int32，需与 compute_skinning.comp.glsl 的 SkinInstance 一致）：
+ * vertexBase, vertexCount, boneBase（骨骼环形缓冲区中的绝对骨骼序号）, boneCount, morphFlags, 保留 × 3
+ *
+ * 活动 Morph 记录布局（8 × 32 位，需与 compute_morph_scatter.comp.glsl 的 ActiveMorph 一致）：
+ * firstThread, entryBase, entryCount, vertexBase, weight(float), target, 保留 × 2
+ *
+ * 群体动画实例（submitCrowd）不写入骨骼矩阵，只登记姿态参数；flush 时先由群体姿态程序
+ * 从烘焙矩阵插值写入其预留的骨骼区段，之后与普通实例一起蒙皮。
+ * 登记时只记录片段内的相对帧偏移并持有片段引用：登记到 flush 之间烘焙矩阵池可能扩容或整理
+ * （其他片段释放、新片段烘焙），缓冲区 ID 与片段起点在 flush 时才解析。
+ * 姿态参数布局（8 × 32 位，需与 compute_crowd_pose.comp.glsl 的 CrowdPose 一致）：
+ * boneBase, boneCount, frameA, frameB, amount(float), frozen, blend(float), 保留
+ *
+ * 同姿态共享：同一模型模板、同一群体姿态（片段、帧位置与过渡状态一致）的实例每帧只蒙皮一次，
+ * 首个登记者蒙皮，其余实例直接绘制它的蒙皮输出（见 findSharedPose）。
+ * 仅适用于群体动画实例：只有烘焙片段能给出可比较的姿态键；普通模型的姿态由 Rust 端逐实体求值
+ * （物理、头部/眼球追踪、各自的动画时间），不做姿态比较，仍各自蒙皮。
+ * 共享的只是蒙皮分派，绘制仍逐实例进行（普通着色器与 Toon 路径均无实例化绘制）。
+ */
+public final class SkinningBatch {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** 每骨骼 3×4 仿射矩阵（矩阵前三行） */
+    private static final int BONE_BYTES = 48;
+    private static final int DESCRIPTOR_BYTES = 32;
+    private static final int ACTIVE_MORPH_BYTES = 32;
+    private static final int CROWD_POSE_BYTES = 32;
+    /** Rust 端 CopyGpuActiveMorphsToBuffer 输出的记录大小 */
+    private static final int RAW_MORPH_BYTES = 16;
+    private static final int MORPH_TARGET_UV = 1;
+    private static final int MORPH_FLAG_POSITION = 1;
+    private static final int MORPH_FLAG_UV = 2;
+    /** 骨骼矩阵环形缓冲区初始容量（约 2 万根骨骼，容纳数帧的批次） */
+    private static final int BONE_RING_BYTES = 1024 * 1024;
+    /** 活动 Morph 与实例描述符环形缓冲区初始容量 */
+    private static final int META_RING_BYTES = 256 * 1024;
+    private static final int INITIAL_ACTIVE_MORPHS = 256;
+    private static final int INITIAL_INSTANCES = 16;
+
+    private static SkinningComputeShader computeShader;
+    private static boolean failed = false;
+    private static final SkinningArena arena = new SkinningArena();
+
+    // 暂存区（MemoryUtil 分配，容量不足时 realloc）
+    private static ByteBuffer rawMorphStaging;
+    private static ByteBuffer activeMorphStaging;
+    private static ByteBuffer descriptorStaging;
+    private static ByteBuffer sortedDescriptorStaging;
+    private static ByteBuffer crowdPoseStaging;
+    private static int[] instanceVariants = new int[INITIAL_INSTANCES];
+    /** 最近一次 boneStaging 预留区段的起始骨骼序号 */
+    private static int reservedBoneBase = 0;
+    private static int activeMorphCount = 0;
+    private static int totalMorphEntries = 0;
+    private static int instanceCount = 0;
+    private static int crowdPoseCount = 0;
+    private static int crowdMaxBones = 0;
+    // 待分派姿态引用的片段（当前片段 / 过渡源），flush 时解析矩阵起点后释放
+    private static BakedCrowdClip[] crowdClips = new BakedCrowdClip[INITIAL_INSTANCES];
+    private static BakedCrowdClip[] crowdFromClips = new BakedCrowdClip[INITIAL_INSTANCES];
+
+    // 各变体分组（flush 时计算起点）
+    private static final int[] groupFirst = new int[SkinningComputeShader.VARIANT_COUNT];
+    private static final int[] groupCount = new int[SkinningComputeShader.VARIANT_COUNT];
+    private static final int[] groupMaxVertices = new int[SkinningComputeShader.VARIANT_COUNT];
+
+    // 批次 GPU 缓冲区（持久映射环形缓冲区，按栅栏回收）
+    private static PersistentRingBuffer boneRing;
+    private static PersistentRingBuffer metaRing;
+    private static int storageAlignment = 1;
+
+    // 同姿态共享：本帧已蒙皮的群体姿态 → 蒙皮该姿态的实例（帧序号变化时清空）
+    private static final Map<Object, SkinningInstance> sharedPoses = new HashMap<>();
+    private static long sharedPosesFrame = -1;
+
+    private SkinningBatch() {}
+
+    /**
+     * 初始化 Compute Shader 与暂存区（懒加载，全局共享）
+     *
+     * @return 是否可用，失败时调用方应回退到 CPU 蒙皮
+     */
+    public static boolean init() {
+        if (computeShader != null) return true;
+        if (failed) return false;
+
+        SkinningComputeShader shader = new SkinningComputeShader();
+        if (!shader.init()) {
+            logger.error("蒙皮 Compute Shader 初始化失败，回退到 CPU 蒙皮");
+            failed = true;
+            return false;
+        }
+        computeShader = shader;
+        rawMorphStaging = MemoryUtil.memAlloc(INITIAL_ACTIVE_MORPHS * RAW_MORPH_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        activeMorphStaging = MemoryUtil.memAlloc(INITIAL_ACTIVE_MORPHS * ACTIVE_MORPH_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        descriptorStaging = MemoryUtil.memAlloc(INITIAL_INSTANCES * DESCRIPTOR_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        sortedDescriptorStaging = MemoryUtil.memAlloc(INITIAL_INSTANCES * DESCRIPTOR_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        crowdPoseStaging = MemoryUtil.memAlloc(INITIAL_INSTANCES * CROWD_POSE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        boneRing = new PersistentRingBuffer("GPU蒙皮骨骼", BONE_RING_BYTES - BONE_RING_BYTES % BONE_BYTES);
+        metaRing = new PersistentRingBuffer("GPU蒙皮批次", META_RING_BYTES);
+        storageAlignment = Math.max(1, GL46C.glGetInteger(GL46C.GL_SHADER_STORAGE_BUFFER_OFFSET_ALIGNMENT));
+        return true;
+    }
+
+    public static SkinningArena getArena() {
+        return arena;
+    }
+
+    /**
+     * 群体动画是否可用（群体姿态程序已编译）
+     */
+    public static boolean isCrowdAvailable() {
+        return computeShader != null && computeShader.isCrowdAvailable();
+    }
+
+    /**
+     * 预编译实例适用的蒙皮变体（模型加载、Morph 条目上传之后调用）
+     */
+    public static void prepareVariant(SkinningInstance instance) {
+        if (computeShader != null && instance != null && !instance.released) {
+            computeShader.ensureVariant(instance.variantKey());
+        }
+    }
+
+    /**
+     * 为下一个实例预留骨骼矩阵区段（每骨骼 48 字节 3×4 仿射矩阵）
+     * 返回的视图直接指向持久映射的显存，从位置 0 开始写入，在 submit 前有效
+     */
+    public static ByteBuffer boneStaging(int boneCount) {
+        int bytes = boneCount * BONE_BYTES;
+        int offset = reserveBones(bytes);
+        return boneRing.view(offset, bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 在骨骼矩阵环形缓冲区中预留区段并记录起始骨骼序号
+     *
+     * @return 区段在环形缓冲区中的字节偏移
+     */
+    private static int reserveBones(int bytes) {
+        int offset = boneRing.reserve(bytes, BONE_BYTES);
+        if (offset < 0) {
+            // 环中全是本批次尚未分派的数据：先分派释放，仍不足时扩容（此时没有待分派数据）
+            flush();
+            offset = boneRing.reserve(bytes, BONE_BYTES);
+            if (offset < 0) {
+                boneRing.grow(bytes * 2);
+                offset = boneRing.reserve(bytes, BONE_BYTES);
+            }
+        }
+        reservedBoneBase = offset / BONE_BYTES;
+        return offset;
+    }
+
+    /**
+     * 为下一个实例预留活动 Morph 暂存区（最多 maxMorphs 条 16 字节记录，供 CopyGpuActiveMorphsToBuffer 写入）
+     * 每个实例独占，submit 时转换为批次记录
+     */
+    public static ByteBuffer morphStaging(int maxMorphs) {
+        int bytes = maxMorphs * RAW_MORPH_BYTES;
+        rawMorphStaging = ensureCapacity(rawMorphStaging, bytes);
+        return rawMorphStaging.slice(0, bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 登记一个实例：骨骼矩阵已写入 boneStaging 返回的视图，
+     * activeMorphs 条活动 Morph 记录已写入 morphStaging 返回的切片
+     */
+    public static void submit(SkinningInstance instance, int boneCount, int activeMorphs) {
+        if (computeShader == null || instance == null || instance.released) return;
+
+        boneRing.commit(boneCount * BONE_BYTES);
+        appendInstance(instance, boneCount, activeMorphs);
+    }
+
+    /**
+     * 登记一个群体动画实例：骨骼矩阵由群体姿态程序在 flush 时从烘焙矩阵插值写入，
+     * activeMorphs 条活动 Morph 记录已写入 morphStaging 返回的切片
+     *
+     * @param clip     当前片段
+     * @param frameA   当前帧
+     * @param frameB   下一帧
+     * @param amount   帧间插值比例
+     * @param from     过渡源片段（无过渡时为 null）
+     * @param frozen   过渡源定格帧
+     * @param blend    过渡源权重（0 = 无过渡）
+     */
+    public static void submitCrowd(SkinningInstance instance, BakedCrowdClip clip, int frameA, int frameB,
+                                   float amount, BakedCrowdClip from, int frozen, float blend, int activeMorphs) {
+        if (computeShader == null || instance == null || instance.released || !computeShader.isCrowdAvailable()) return;
+        int boneCount = clip.getBoneCount();
+
+        // 预留可能触发 flush（环已满），之后再登记本实例的姿态参数
+        int bytes = boneCount * BONE_BYTES;
+        reserveBones(bytes);
+        boneRing.commit(bytes);
+
+        crowdPoseStaging = ensureCapacity(crowdPoseStaging, (long) (crowdPoseCount + 1) * CROWD_POSE_BYTES);
+        int base = crowdPoseCount * CROWD_POSE_BYTES;
+        crowdPoseStaging.putInt(base, reservedBoneBase);
+        crowdPoseStaging.putInt(base + 4, boneCount);
+        crowdPoseStaging.putInt(base + 8, clip.frameOffset(frameA));
+        crowdPoseStaging.putInt(base + 12, clip.frameOffset(frameB));
+        crowdPoseStaging.putFloat(base + 16, amount);
+        crowdPoseStaging.putInt(base + 20, from != null ? from.frameOffset(frozen) : 0);
+        crowdPoseStaging.putFloat(base + 24, from != null ? blend : 0.0f);
+        crowdPoseStaging.putInt(base + 28, 0);
+
+        if (crowdPoseCount >= crowdClips.length) {
+            crowdClips = Arrays.copyOf(crowdClips, crowdClips.length * 2);
+            crowdFromClips = Arrays.copyOf(crowdFromClips, crowdFromClips.length * 2);
+        }
+        clip.retain();
+        if (from != null) from.retain();
+        crowdClips[crowdPoseCount] = clip;
+        crowdFromClips[crowdPoseCount] = from;
+        crowdPoseCount++;
+        crowdMaxBones = Math.max(crowdMaxBones, boneCount);
+
+        appendInstance(instance, boneCount, activeMorphs);
+    }
+
+    /**
+     * 同姿态共享蒙皮：本帧已有同模板实例登记了相同姿态时返回该实例，调用方直接绘制其蒙皮输出、不再登记；
+     * 否则把 instance 登记为该姿态的蒙皮者并返回 null（调用方照常 submit）
+     *
+     * 目前只有群体动画实例（CrowdPlayback.PoseKey）调用，普通模型不参与共享
+     *
+     * @param poseKey 姿态键（需包含模型模板，如按模型目录共享的烘焙片段）
+     */
+    public static SkinningInstance findSharedPose(Object poseKey, SkinningInstance instance) {
+        if (computeShader == null || instance == null || !FrameClock.isActive()) return null;
+        long frame = FrameClock.getFrameIndex();
+        if (frame != sharedPosesFrame) {
+            sharedPoses.clear();
+            sharedPosesFrame = frame;
+        }
+        SkinningInstance leader = sharedPoses.get(poseKey);
+        if (leader != null && leader != instance && !leader.released && leader.vertexCount == instance.vertexCount) {
+            return leader;
+        }
+        sharedPoses.put(poseKey, instance);
+        return null;
+    }
+
+    /**
+     * 写入实例描述符并登记到所属变体分组（骨骼区段为最近一次预留的区段）
+     */
+    private static void appendInstance(SkinningInstance instance, int boneCount, int activeMorphs) {
+        int morphFlags = appendActiveMorphs(instance, activeMorphs);
+
+        descriptorStaging = ensureCapacity(descriptorStaging, (long) (instanceCount + 1) * DESCRIPTOR_BYTES);
+        int base = instanceCount * DESCRIPTOR_BYTES;
+        descriptorStaging.putInt(base, instance.vertexBase);
+        descriptorStaging.putInt(base + 4, instance.vertexCount);
+        descriptorStaging.putInt(base + 8, reservedBoneBase);
+        descriptorStaging.putInt(base + 12, boneCount);
+        descriptorStaging.putInt(base + 16, morphFlags);
+        descriptorStaging.putInt(base + 20, 0);
+        descriptorStaging.putInt(base + 24, 0);
+        descriptorStaging.putInt(base + 28, 0);
+
+        if (instanceCount >= instanceVariants.length) {
+            instanceVariants = Arrays.copyOf(instanceVariants, instanceVariants.length * 2);
+        }
+        int variant = instance.variantKey();
+        instanceVariants[instanceCount] = variant;
+        groupCount[variant]++;
+        groupMaxVertices[variant] = Math.max(groupMaxVertices[variant], instance.vertexCount);
+
+        instanceCount++;
+    }
+
+    /**
+     * 把实例的活动 Morph 记录（相对条目起点）转换为批次记录（绝对条目起点 + 线程前缀和）
+     *
+     * @return 实例的 morphFlags
+     */
+    private static int appendActiveMorphs(SkinningInstance instance, int count) {
+        int flags = 0;
+        if (count <= 0) return flags;
+        count = Math.min(count, rawMorphStaging.capacity() / RAW_MORPH_BYTES);
+        activeMorphStaging = ensureCapacity(activeMorphStaging, (long) (activeMorphCount + count) * ACTIVE_MORPH_BYTES);
+
+        for (int i = 0; i < count; i++) {
+            int src = i * RAW_MORPH_BYTES;
+            int relStart = rawMorphStaging.getInt(src);
+            int entryCount = rawMorphStaging.getInt(src + 4);
+            int weightBits = rawMorphStaging.getInt(src + 8);
+            int target = rawMorphStaging.getInt(src + 12);
+
+            // 池中起点为 float 单位，每条目 4 个 float
+            int poolBase = target == MORPH_TARGET_UV ? instance.uvMorphOffsetBase : instance.morphOffsetBase;
+            if (poolBase < 0 || entryCount <= 0) continue;
+
+            int dst = activeMorphCount * ACTIVE_MORPH_BYTES;
+            activeMorphStaging.putInt(dst, totalMorphEntries);
+            activeMorphStaging.putInt(dst + 4, poolBase / 4 + relStart);
+            activeMorphStaging.putInt(dst + 8, entryCount);
+            activeMorphStaging.putInt(dst + 12, instance.vertexBase);
+            activeMorphStaging.putInt(dst + 16, weightBits);
+            activeMorphStaging.putInt(dst + 20, target);
+            activeMorphStaging.putInt(dst + 24, 0);
+            activeMorphStaging.putInt(dst + 28, 0);
+
+            activeMorphCount++;
+            totalMorphEntries += entryCount;
+            flags |= target == MORPH_TARGET_UV ? MORPH_FLAG_UV : MORPH_FLAG_POSITION;
+        }
+        return flags;
+    }
+
+    /**
+     * 上传本批次数据并执行一次分派（无待处理实例时为空操作）
+     */
+    public static void flush() {
+        if (computeShader == null || instanceCount == 0) return;
+
+        int morphBytes = activeMorphCount * ACTIVE_MORPH_BYTES;
+        int descriptorBytes = instanceCount * DESCRIPTOR_BYTES;
+        int crowdBytes = crowdPoseCount * CROWD_POSE_BYTES;
+        // 元数据只在 flush 时写入，环中没有待分派数据：写入前按本批总量一次性扩容，避免写入中途丢弃
+        int metaBytes = morphBytes + descriptorBytes + crowdBytes + 3 * storageAlignment;
+        if (metaBytes * 2 > metaRing.getCapacity()) {
+            metaRing.grow(metaBytes * 4);
+        }
+        int morphOffset = morphBytes > 0 ? writeMeta(activeMorphStaging, morphBytes) : 0;
+        int descriptorOffset = writeMeta(sortByVariant(), descriptorBytes);
+        if (crowdBytes > 0) resolveCrowdFrames();
+        int crowdOffset = crowdBytes > 0 ? writeMeta(crowdPoseStaging, crowdBytes) : 0;
+        boneRing.flushWrites();
+        metaRing.flushWrites();
+
+        // 群体实例的骨骼矩阵须在蒙皮分派之前由烘焙矩阵插值写入
+        if (crowdPoseCount > 0) {
+            // 所有片段位于同一烘焙矩阵池缓冲区
+            computeShader.dispatchCrowdPoses(crowdClips[0].getBuffer(), boneRing.getBuffer(), metaRing.getBuffer(),
+                    crowdOffset, crowdBytes, crowdPoseCount, crowdMaxBones);
+            releaseCrowdClips();
+        }
+
+        computeShader.dispatchBatch(arena, boneRing.getBuffer(), metaRing.getBuffer(),
+                morphOffset, morphBytes, activeMorphCount, totalMorphEntries,
+                descriptorOffset, descriptorBytes, groupFirst, groupCount, groupMaxVertices);
+        boneRing.fence();
+        metaRing.fence();
+
+        activeMorphCount = 0;
+        totalMorphEntries = 0;
+        instanceCount = 0;
+        crowdPoseCount = 0;
+        crowdMaxBones = 0;
+        Arrays.fill(groupCount, 0);
+        Arrays.fill(groupMaxVertices, 0);
+    }
+
+    /**
+     * 把暂存姿态参数中的片段内帧偏移换算为烘焙矩阵池中的绝对 vec4 起点（按片段当前位置）
+     */
+    private static void resolveCrowdFrames() {
+        for (int i = 0; i < crowdPoseCount; i++) {
+            int base = i * CROWD_POSE_BYTES;
+            int clipBase = crowdClips[i].matrixBase();
+            crowdPoseStaging.putInt(base + 8, crowdPoseStaging.getInt(base + 8) + clipBase);
+            crowdPoseStaging.putInt(base + 12, crowdPoseStaging.getInt(base + 12) + clipBase);
+            BakedCrowdClip from = crowdFromClips[i];
+            if (from != null) {
+                crowdPoseStaging.putInt(base + 20, crowdPoseStaging.getInt(base + 20) + from.matrixBase());
+            }
+        }
+    }
+
+    /** 分派已录入命令流，释放待分派期间持有的片段引用 */
+    private static void releaseCrowdClips() {
+        for (int i = 0; i < crowdPoseCount; i++) {
+            crowdClips[i].release();
+            crowdClips[i] = null;
+            if (crowdFromClips[i] != null) {
+                crowdFromClips[i].release();
+                crowdFromClips[i] = null;
+            }
+        }
+    }
+
+    /**
+     * 计算各变体分组起点，并把描述符按变体连续重排（只有一个变体时直接使用原暂存区）
+     */
+    private static ByteBuffer sortByVariant() {
+        int first = 0;
+        int groups = 0;
+        for (int v = 0; v < SkinningComputeShader.VARIANT_COUNT; v++) {
+            groupFirst[v] = first;
+            first += groupCount[v];
+            if (groupCount[v] > 0) groups++;
+        }
+        if (groups <= 1) return descriptorStaging;
+
+        sortedDescriptorStaging = ensureCapacity(sortedDescriptorStaging, (long) instanceCount * DESCRIPTOR_BYTES);
+        int[] cursor = groupFirst.clone();
+        long src = MemoryUtil.memAddress(descriptorStaging);
+        long dst = MemoryUtil.memAddress(sortedDescriptorStaging);
+        for (int i = 0; i < instanceCount; i++) {
+            int slot = cursor[instanceVariants[i]]++;
+            MemoryUtil.memCopy(src + (long) i * DESCRIPTOR_BYTES, dst + (long) slot * DESCRIPTOR_BYTES, DESCRIPTOR_BYTES);
+        }
+        return sortedDescriptorStaging;
+    }
+
+    /**
+     * 世界渲染开始（LevelRenderer.renderLevel 入口，FramePrepass 之前）：标记 GL 状态影子的帧边界
+     */
+    public static void beginLevel() {
+        GlStateTracker.beginFrame();
+    }
+
+    /**
+     * 批处理自身占用的显存（共享顶点存储 + 批次缓冲区）
+     */
+    public static long getVramUsage() {
+        long rings = boneRing != null ? boneRing.getVramUsage() + metaRing.getVramUsage() : 0;
+        return arena.getVramUsage() + rings;
+    }
+
+    /**
+     * 把 CPU 暂存区的前 bytes 字节拷入批次环形缓冲区（起点按 SSBO 偏移对齐）
+     *
+     * @return 在环形缓冲区中的偏移
+     */
+    private static int writeMeta(ByteBuffer staging, int bytes) {
+        int offset = metaRing.reserve(bytes, storageAlignment);
+        MemoryUtil.memCopy(MemoryUtil.memAddress(staging), metaRing.address(offset), bytes);
+        metaRing.commit(bytes);
+        return offset;
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, long required) {
+        if (required <= buffer.capacity()) return buffer;
+        long capacity = buffer.capacity();
+        while (capacity < required) capacity *= 2;
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("GPU 蒙皮暂存区超出上限: " + required + " bytes");
+        }
+        return MemoryUtil.memRealloc(buffer, (int) capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -1,326 +1,442 @@
 package com.shiroha.mmdskin.renderer.shader;
 
+import com.shiroha.mmdskin.config.ConfigManager;
 import com.shiroha.mmdskin.util.AssetsUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.lwjgl.opengl.GL43C;
 import org.lwjgl.opengl.GL46C;
 
-import java.nio.ByteBuffer;
-import java.nio.FloatBuffer;
-
-import static com.shiroha.mmdskin.renderer.shader.ShaderConstants.MAX_BONES;
+import java.util.Arrays;
 
 /**
  * GPU 蒙皮 Compute Shader
- * 
+ *
  * 在 GPU 上预计算蒙皮后的顶点位置和法线，输出到缓冲区。
  * 渲染阶段使用 Minecraft 标准 ShaderInstance 管线，确保 Iris 可以正确拦截。
- * 
+ *
  * 原理：
- * - 原始顶点数据（位置、法线、骨骼索引/权重）作为 SSBO 输入
- * - 骨骼矩阵和 Morph 数据作为 SSBO 输入
- * - Compute Shader 计算蒙皮后的位置和法线，写入输出 SSBO
- * - 输出缓冲区随后作为 VBO 绑定到标准渲染管线
- * 
+ * - 所有模型的原始顶点数据位于 SkinningArena 共享缓冲区，按实例顶点区间寻址
+ * - 一次分派处理同一变体的一批实例：Y 维工作组为实例序号，X 维覆盖该实例的顶点
+ * - 实例描述符给出顶点区间、骨骼矩阵在批次缓冲区中的位置以及是否有活动 Morph
+ * - Morph 先由散射程序按活动 Morph 的稀疏条目以定点原子加累加到累加缓冲区，蒙皮时读取并清零
+ * - 输出缓冲区随后按实例偏移作为 VBO 绑定到标准渲染管线
+ *
+ * 特化变体：
+ * - 蒙皮程序按模型加载时确定的特性编译：是否含顶点 Morph、是否含 UV Morph、每顶点骨骼槽位数（1/2/4），
+ *   共 12 种，按需懒编译；不含的特性在着色器中整段剔除
+ * - 工作组大小来自配置，配置为 0 时在初始化时以合成负载微基准测定
+ *
  * SSBO 绑定布局：
- * - binding 0: 原始顶点位置（只读）
- * - binding 1: 原始顶点法线（只读）
- * - binding 2: 骨骼索引（只读）
- * - binding 3: 骨骼权重（只读）
- * - binding 4: 骨骼矩阵（只读，每帧更新）
- * - binding 5: Morph 偏移数据（只读，静态）
- * - binding 6: Morph 权重（只读，每帧更新）
- * - binding 7: 蒙皮后顶点位置（写入）
- * - binding 8: 蒙皮后顶点法线（写入）
+ * - binding 0-3: 原始位置 / 法线(snorm16) / 骨骼索引(uint16) / 骨骼权重(unorm16)（共享，只读）
+ * - binding 4: 骨骼矩阵环形缓冲区（3×4 仿射，只读，持久映射）
+ * - binding 5: Morph 稀疏条目池（共享，只读，静态，仅散射程序）
+ * - binding 6: 本批次活动 Morph 列表（只读，仅散射程序，按范围绑定）
+ * - binding 7-8: 蒙皮后顶点位置 / 法线(snorm16)（共享，写入）
+ * - binding 9: 原始 UV（共享，只读）
+ * - binding 10-11: 顶点 / UV Morph 定点累加（共享，读写）
+ * - binding 12: 蒙皮后 UV（共享，写入）
+ * - binding 13: 实例描述符（只读，按范围绑定）
+ * - binding 14: 群体动画烘焙矩阵（只读，仅群体姿态程序）
+ * - binding 15: 群体姿态参数（只读，仅群体姿态程序，按范围绑定）
+ *
+ * 群体动画：群体姿态程序在蒙皮分派之前按烘焙帧插值出骨骼矩阵，写入骨骼矩阵环形缓冲区（binding 4）；
+ * 该程序编译失败时只禁用群体动画，不影响普通蒙皮。
+ *
+ * 程序与 SSBO 绑定经由 GlStateTracker 切换，分派前后不回读驱动状态。
  */
 public class SkinningComputeShader {
     private static final Logger logger = LogManager.getLogger();
-    
-    private static final int LOCAL_SIZE_X = 256;
-    
+
+    private static final int DEFAULT_LOCAL_SIZE_X = 256;
+    private static final int[] LOCAL_SIZE_CANDIDATES = {64, 128, 256, 512};
+
+    // 变体键：bit0 顶点 Morph，bit1 UV Morph，bit2-3 骨骼槽位档位（0 = 1，1 = 2，2 = 4）
+    private static final int VARIANT_MORPH_POSITION = 1;
+    private static final int VARIANT_MORPH_UV = 2;
+    private static final int[] INFLUENCE_TIERS = {1, 2, 4};
+    public static final int VARIANT_COUNT = 4 * INFLUENCE_TIERS.length;
+    /** 全特性变体（初始化时编译，其他变体编译失败时的回退） */
+    public static final int FULL_VARIANT = variantKey(true, true, 4);
+
+    // 微基准合成负载
+    private static final int BENCHMARK_VERTICES = 64 * 1024;
+    private static final int BENCHMARK_INSTANCES = 4;
+    private static final int BENCHMARK_BONES = 4;
+    private static final int BENCHMARK_ROUNDS = 8;
+
     // Compute Shader 程序
-    private int program = 0;
+    private final int[] variantPrograms = new int[VARIANT_COUNT];
+    private final int[] instanceBaseLocations = new int[VARIANT_COUNT];
+    private final boolean[] variantFailed = new boolean[VARIANT_COUNT];
+    private int morphProgram = 0;
+    private int crowdProgram = 0;
+    private int localSizeX = DEFAULT_LOCAL_SIZE_X;
     private boolean initialized = false;
-    
-    // Uniform locations
-    private int vertexCountLocation = -1;
-    private int morphCountLocation = -1;
-    private int maxBonesLocation = -1;
-    private int uvMorphCountLocation = -1;
-    
+
+    // 散射程序 uniform 位置
+    private int activeMorphCountLocation = -1;
+    private int totalEntriesLocation = -1;
+
     // SSBO 绑定点常量
     private static final int BINDING_ORIG_POSITIONS = 0;
     private static final int BINDING_ORIG_NORMALS = 1;
     private static final int BINDING_BONE_INDICES = 2;
     private static final int BINDING_BONE_WEIGHTS = 3;
     private static final int BINDING_BONE_MATRICES = 4;
-    private static final int BINDING_MORPH_OFFSETS = 5;
-    private static final int BINDING_MORPH_WEIGHTS = 6;
+    private static final int BINDING_MORPH_ENTRIES = 5;
+    private static final int BINDING_ACTIVE_MORPHS = 6;
     private static final int BINDING_SKINNED_POSITIONS = 7;
     private static final int BINDING_SKINNED_NORMALS = 8;
     private static final int BINDING_ORIG_UVS = 9;
-    private static final int BINDING_UV_MORPH_OFFSETS = 10;
-    private static final int BINDING_UV_MORPH_WEIGHTS = 11;
+    private static final int BINDING_MORPH_POSITION_ACCUM = 10;
+    private static final int BINDING_MORPH_UV_ACCUM = 11;
     private static final int BINDING_SKINNED_UVS = 12;
+    private static final int BINDING_INSTANCES = 13;
+    private static final int BINDING_BAKED_ROWS = 14;
+    private static final int BINDING_CROWD_POSES = 15;
 
     private static final String COMPUTE_SHADER_SOURCE =
             AssetsUtil.getAssetsAsString("shader/compute_skinning.comp.glsl");
+    private static final String MORPH_SHADER_SOURCE =
+            AssetsUtil.getAssetsAsString("shader/compute_morph_scatter.comp.glsl");
+    private static final String CROWD_SHADER_SOURCE =
+            AssetsUtil.getAssetsAsString("shader/compute_crowd_pose.comp.glsl");
 
     /**
-     * 蒙皮 dispatch 参数对象，替代 16 个散装 int 参数
+     * 计算变体键
+     *
+     * @param positionMorph 是否含顶点 Morph
+     * @param uvMorph       是否含 UV Morph
+     * @param influences    每顶点最多参与的骨骼槽位数（向上取整到 1 / 2 / 4）
      */
-    public record DispatchParams(
-            // 输入缓冲区
-            int origPosBuffer, int origNorBuffer,
-            int boneIdxBuffer, int boneWgtBuffer, int origUvBuffer,
-            // 输出缓冲区
-            int outSkinnedPosBuffer, int outSkinnedNorBuffer, int outSkinnedUvBuffer,
-            // 骨骼
-            int boneMatrixSSBO,
-            // 顶点 Morph
-            int morphOffsetsSSBO, int morphWeightsSSBO, int morphCount,
-            // UV Morph
-            int uvMorphOffsetsSSBO, int uvMorphWeightsSSBO, int uvMorphCount,
-            // 参数
-            int vertexCount
-    ) {
-        /** 无 UV Morph 的便捷构造 */
-        public static DispatchParams withoutUvMorph(
-                int origPosBuffer, int origNorBuffer,
-                int boneIdxBuffer, int boneWgtBuffer,
-                int outSkinnedPosBuffer, int outSkinnedNorBuffer,
-                int boneMatrixSSBO,
-                int morphOffsetsSSBO, int morphWeightsSSBO,
-                int vertexCount, int morphCount) {
-            return new DispatchParams(
-                    origPosBuffer, origNorBuffer,
-                    boneIdxBuffer, boneWgtBuffer, 0,
-                    outSkinnedPosBuffer, outSkinnedNorBuffer, 0,
-                    boneMatrixSSBO,
-                    morphOffsetsSSBO, morphWeightsSSBO, morphCount,
-                    0, 0, -1,
-                    vertexCount);
-        }
+    public static int variantKey(boolean positionMorph, boolean uvMorph, int influences) {
+        int tier = influences <= 1 ? 0 : influences <= 2 ? 1 : 2;
+        return (positionMorph ? VARIANT_MORPH_POSITION : 0) | (uvMorph ? VARIANT_MORPH_UV : 0) | (tier << 2);
     }
-    
+
     /**
      * 初始化 Compute Shader
      */
     public boolean init() {
         if (initialized) return true;
-        
+
         try {
-            program = ShaderCompiler.compileComputeProgram(COMPUTE_SHADER_SOURCE, "蒙皮 Compute Shader");
-            if (program == 0) return false;
-            
-            // 获取 Uniform locations
-            vertexCountLocation = GL43C.glGetUniformLocation(program, "VertexCount");
-            morphCountLocation = GL43C.glGetUniformLocation(program, "MorphCount");
-            maxBonesLocation = GL43C.glGetUniformLocation(program, "MaxBones");
-            uvMorphCountLocation = GL43C.glGetUniformLocation(program, "UvMorphCount");
-            
+            int configured = ConfigManager.getSkinningWorkgroupSize();
+            if (Arrays.stream(LOCAL_SIZE_CANDIDATES).anyMatch(size -> size == configured)) {
+                localSizeX = configured;
+                logger.info("蒙皮 Compute Shader 工作组大小: {}（配置）", localSizeX);
+            } else {
+                localSizeX = benchmarkLocalSize();
+                logger.info("蒙皮 Compute Shader 工作组大小: {}（微基准）", localSizeX);
+            }
+
+            if (!ensureVariant(FULL_VARIANT)) return false;
+
+            morphProgram = ShaderCompiler.compileComputeProgram(
+                    ShaderCompiler.withDefines(MORPH_SHADER_SOURCE, "LOCAL_SIZE_X " + localSizeX),
+                    "Morph 散射 Compute Shader");
+            if (morphProgram == 0) {
+                cleanup();
+                return false;
+            }
+            activeMorphCountLocation = GL43C.glGetUniformLocation(morphProgram, "ActiveMorphCount");
+            totalEntriesLocation = GL43C.glGetUniformLocation(morphProgram, "TotalEntries");
+
+            crowdProgram = ShaderCompiler.compileComputeProgram(
+                    ShaderCompiler.withDefines(CROWD_SHADER_SOURCE, "LOCAL_SIZE_X " + localSizeX),
+                    "群体姿态 Compute Shader");
+            if (crowdProgram == 0) {
+                logger.warn("群体姿态 Compute Shader 编译失败，群体动画不可用");
+            }
+
             initialized = true;
             logger.info("蒙皮 Compute Shader 初始化成功");
             return true;
-            
+
         } catch (Exception e) {
             logger.error("蒙皮 Compute Shader 初始化异常", e);
             return false;
         }
     }
-    
+
     /**
-     * 创建一对输出缓冲区（蒙皮后的顶点位置和法线）
-     * 返回 int[2]：{skinnedPositionsBuffer, skinnedNormalsBuffer}
-     * 调用方负责管理这些缓冲区的生命周期
+     * 确保指定变体已编译（模型加载时调用，避免首次分派时编译卡顿）
+     *
+     * @return 变体是否可用；不可用时分派回退到全特性变体
      */
-    public static int[] createOutputBuffers(int vertexCount) {
-        long bufferSize = (long) vertexCount * 3 * 4; // vec3 * sizeof(float)
-        
-        int posBuffer = GL46C.glGenBuffers();
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, posBuffer);
-        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, bufferSize, GL46C.GL_DYNAMIC_COPY);
-        
-        int norBuffer = GL46C.glGenBuffers();
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, norBuffer);
-        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, bufferSize, GL46C.GL_DYNAMIC_COPY);
-        
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
-        return new int[]{posBuffer, norBuffer};
+    public boolean ensureVariant(int key) {
+        if (variantPrograms[key] != 0) return true;
+        if (variantFailed[key]) return false;
+
+        int program = ShaderCompiler.compileComputeProgram(variantSource(key, localSizeX),
+                "蒙皮 Compute Shader 变体 " + describeVariant(key));
+        if (program == 0) {
+            variantFailed[key] = true;
+            return false;
+        }
+        variantPrograms[key] = program;
+        instanceBaseLocations[key] = GL43C.glGetUniformLocation(program, "InstanceBase");
+        return true;
     }
-    
+
     /**
-     * 执行蒙皮计算
+     * 执行一批实例的蒙皮计算（有活动 Morph 时先执行一次散射分派，再按变体分组各执行一次蒙皮分派）
+     *
+     * 描述符需按变体连续排列，第 v 组为 [groupFirst[v], groupFirst[v] + groupCount[v])。
+     *
+     * @param arena             共享顶点存储
+     * @param boneBuffer        骨骼矩阵环形缓冲区（整体绑定，描述符中的 boneBase 为绝对骨骼序号）
+     * @param metaBuffer        活动 Morph 列表与实例描述符所在的环形缓冲区
+     * @param activeMorphOffset 活动 Morph 列表在 metaBuffer 中的偏移
+     * @param activeMorphBytes  活动 Morph 列表字节数
+     * @param activeMorphCount  活动 Morph 数
+     * @param totalMorphEntries 所有活动 Morph 的条目总数（散射线程数）
+     * @param instanceOffset    实例描述符在 metaBuffer 中的偏移
+     * @param instanceBytes     实例描述符字节数
+     * @param groupFirst        各变体首个描述符序号
+     * @param groupCount        各变体实例数
+     * @param groupMaxVertices  各变体最大实例顶点数（决定 X 维工作组数）
      */
-    public void dispatch(DispatchParams p) {
-        if (!initialized || program == 0) return;
-        
-        int savedProgram = GL46C.glGetInteger(GL46C.GL_CURRENT_PROGRAM);
-        var savedSSBO = new SSBOBindings();
-        
-        GL43C.glUseProgram(program);
-        
-        if (vertexCountLocation >= 0) GL43C.glUniform1i(vertexCountLocation, p.vertexCount());
-        if (morphCountLocation >= 0) GL43C.glUniform1i(morphCountLocation, p.morphCount());
-        if (maxBonesLocation >= 0) GL43C.glUniform1i(maxBonesLocation, MAX_BONES);
-        if (uvMorphCountLocation >= 0) GL43C.glUniform1i(uvMorphCountLocation, p.uvMorphCount());
-        
-        GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_ORIG_POSITIONS, p.origPosBuffer());
-        GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_ORIG_NORMALS, p.origNorBuffer());
-        GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_BONE_INDICES, p.boneIdxBuffer());
-        GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_BONE_WEIGHTS, p.boneWgtBuffer());
-        GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_BONE_MATRICES, p.boneMatrixSSBO());
-        if (p.morphCount() > 0 && p.morphOffsetsSSBO() != 0) {
-            GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_MORPH_OFFSETS, p.morphOffsetsSSBO());
-        }
-        if (p.morphCount() > 0 && p.morphWeightsSSBO() != 0) {
-            GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_MORPH_WEIGHTS, p.morphWeightsSSBO());
-        }
-        GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_SKINNED_POSITIONS, p.outSkinnedPosBuffer());
-        GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_SKINNED_NORMALS, p.outSkinnedNorBuffer());
-        
-        // UV 相关 SSBO
-        GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_ORIG_UVS, p.origUvBuffer());
-        if (p.uvMorphCount() > 0 && p.uvMorphOffsetsSSBO() != 0) {
-            GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_UV_MORPH_OFFSETS, p.uvMorphOffsetsSSBO());
+    public void dispatchBatch(SkinningArena arena, int boneBuffer, int metaBuffer,
+                              int activeMorphOffset, int activeMorphBytes, int activeMorphCount, int totalMorphEntries,
+                              int instanceOffset, int instanceBytes,
+                              int[] groupFirst, int[] groupCount, int[] groupMaxVertices) {
+        if (!initialized) return;
+
+        // 程序与外部 SSBO 绑定由状态影子保存，分派路径上不再回读驱动状态
+        GlStateTracker.beginSection();
+
+        GlStateTracker.bindStorageBuffer(BINDING_MORPH_POSITION_ACCUM,
+                arena.getStreamBuffer(SkinningArena.STREAM_MORPH_POSITION_ACCUM));
+        GlStateTracker.bindStorageBuffer(BINDING_MORPH_UV_ACCUM,
+                arena.getStreamBuffer(SkinningArena.STREAM_MORPH_UV_ACCUM));
+
+        if (activeMorphCount > 0 && totalMorphEntries > 0 && arena.getMorphBuffer() != 0) {
+            GlStateTracker.useProgram(morphProgram);
+            GL43C.glUniform1ui(activeMorphCountLocation, activeMorphCount);
+            GL43C.glUniform1ui(totalEntriesLocation, totalMorphEntries);
+            GlStateTracker.bindStorageBuffer(BINDING_MORPH_ENTRIES, arena.getMorphBuffer());
+            GlStateTracker.bindStorageBufferRange(BINDING_ACTIVE_MORPHS, metaBuffer, activeMorphOffset, activeMorphBytes);
+            GL43C.glDispatchCompute((totalMorphEntries + localSizeX - 1) / localSizeX, 1, 1);
+            GL43C.glMemoryBarrier(GL43C.GL_SHADER_STORAGE_BARRIER_BIT);
         }
-        if (p.uvMorphCount() > 0 && p.uvMorphWeightsSSBO() != 0) {
-            GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_UV_MORPH_WEIGHTS, p.uvMorphWeightsSSBO());
+
+        GlStateTracker.bindStorageBuffer(BINDING_ORIG_POSITIONS,
+                arena.getStreamBuffer(SkinningArena.STREAM_POSITION));
+        GlStateTracker.bindStorageBuffer(BINDING_ORIG_NORMALS,
+                arena.getStreamBuffer(SkinningArena.STREAM_NORMAL));
+        GlStateTracker.bindStorageBuffer(BINDING_BONE_INDICES,
+                arena.getStreamBuffer(SkinningArena.STREAM_BONE_INDICES));
+        GlStateTracker.bindStorageBuffer(BINDING_BONE_WEIGHTS,
+                arena.getStreamBuffer(SkinningArena.STREAM_BONE_WEIGHTS));
+        GlStateTracker.bindStorageBuffer(BINDING_BONE_MATRICES, boneBuffer);
+        GlStateTracker.bindStorageBuffer(BINDING_SKINNED_POSITIONS,
+                arena.getStreamBuffer(SkinningArena.STREAM_SKINNED_POSITION));
+        GlStateTracker.bindStorageBuffer(BINDING_SKINNED_NORMALS,
+                arena.getStreamBuffer(SkinningArena.STREAM_SKINNED_NORMAL));
+        GlStateTracker.bindStorageBuffer(BINDING_ORIG_UVS,
+                arena.getStreamBuffer(SkinningArena.STREAM_UV));
+        GlStateTracker.bindStorageBuffer(BINDING_SKINNED_UVS,
+                arena.getStreamBuffer(SkinningArena.STREAM_SKINNED_UV));
+        GlStateTracker.bindStorageBufferRange(BINDING_INSTANCES, metaBuffer, instanceOffset, instanceBytes);
+
+        for (int variant = 0; variant < VARIANT_COUNT; variant++) {
+            int count = groupCount[variant];
+            if (count <= 0 || groupMaxVertices[variant] <= 0) continue;
+            int key = ensureVariant(variant) ? variant : FULL_VARIANT;
+            GlStateTracker.useProgram(variantPrograms[key]);
+            GL43C.glUniform1ui(instanceBaseLocations[key], groupFirst[variant]);
+            GL43C.glDispatchCompute((groupMaxVertices[variant] + localSizeX - 1) / localSizeX, count, 1);
         }
-        GL43C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, BINDING_SKINNED_UVS, p.outSkinnedUvBuffer());
-        
-        int groupCount = (p.vertexCount() + LOCAL_SIZE_X - 1) / LOCAL_SIZE_X;
-        GL43C.glDispatchCompute(groupCount, 1, 1);
-        
+
         GL43C.glMemoryBarrier(GL43C.GL_VERTEX_ATTRIB_ARRAY_BARRIER_BIT | GL43C.GL_SHADER_STORAGE_BARRIER_BIT);
-        
-        savedSSBO.restore();
-        GL43C.glUseProgram(savedProgram);
-    }
-    
-    /**
-     * 上传骨骼矩阵到指定 SSBO（每实例独立）
-     */
-    public void uploadBoneMatrices(int boneMatrixSSBO, FloatBuffer matrices, int boneCount) {
-        if (!initialized || boneMatrixSSBO == 0) return;
-        
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, boneMatrixSSBO);
-        int actualBones = Math.min(boneCount, ShaderConstants.MAX_BONES);
-        int savedLimit = matrices.limit();
-        matrices.limit(actualBones * 16);
-        matrices.position(0);
-        GL46C.glBufferSubData(GL46C.GL_COPY_WRITE_BUFFER, 0, matrices);
-        matrices.limit(savedLimit);
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
-    }
-    
-    /**
-     * 上传 Morph 偏移数据到指定 SSBO（静态，只需上传一次）
-     */
-    public void uploadMorphOffsets(int morphOffsetsSSBO, ByteBuffer data) {
-        if (!initialized || morphOffsetsSSBO == 0) return;
-        
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, morphOffsetsSSBO);
-        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, data, GL46C.GL_STATIC_DRAW);
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+
+        GlStateTracker.endSection();
     }
-    
+
     /**
-     * 更新 Morph 权重到指定 SSBO（每帧调用）
+     * 按烘焙帧插值群体实例的骨骼矩阵，写入骨骼矩阵环形缓冲区（须在同批次的 dispatchBatch 之前调用）
+     *
+     * @param bakedBuffer 烘焙矩阵所在缓冲区（整体绑定，姿态参数中的帧起点为 vec4 序号）
+     * @param boneBuffer  骨骼矩阵环形缓冲区
+     * @param metaBuffer  姿态参数所在的环形缓冲区
+     * @param poseOffset  姿态参数在 metaBuffer 中的偏移
+     * @param poseBytes   姿态参数字节数
+     * @param poseCount   群体实例数（Y 维工作组数）
+     * @param maxBones    最大实例骨骼数（决定 X 维工作组数）
      */
-    public void updateMorphWeights(int morphWeightsSSBO, FloatBuffer weights) {
-        if (!initialized || morphWeightsSSBO == 0) return;
-        
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, morphWeightsSSBO);
-        weights.position(0);
-        GL46C.glBufferSubData(GL46C.GL_COPY_WRITE_BUFFER, 0, weights);
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+    public void dispatchCrowdPoses(int bakedBuffer, int boneBuffer, int metaBuffer,
+                                   int poseOffset, int poseBytes, int poseCount, int maxBones) {
+        if (!initialized || crowdProgram == 0 || poseCount <= 0 || maxBones <= 0) return;
+
+        GlStateTracker.beginSection();
+        GlStateTracker.useProgram(crowdProgram);
+        GlStateTracker.bindStorageBuffer(BINDING_BONE_MATRICES, boneBuffer);
+        GlStateTracker.bindStorageBuffer(BINDING_BAKED_ROWS, bakedBuffer);
+        GlStateTracker.bindStorageBufferRange(BINDING_CROWD_POSES, metaBuffer, poseOffset, poseBytes);
+        GL43C.glDispatchCompute((maxBones + localSizeX - 1) / localSizeX, poseCount, 1);
+        GL43C.glMemoryBarrier(GL43C.GL_SHADER_STORAGE_BARRIER_BIT);
+        GlStateTracker.endSection();
     }
-    
+
     /**
-     * 创建一对 Morph SSBO（每模型实例独立）
-     * 返回 int[2]：{morphOffsetsSSBO, morphWeightsSSBO}
-     * 调用方负责管理生命周期
+     * 群体姿态程序是否可用
      */
-    public static int[] createMorphBuffers(int morphCount) {
-        int offsetsSSBO = GL46C.glGenBuffers();
-        int weightsSSBO = GL46C.glGenBuffers();
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, weightsSSBO);
-        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, (long) morphCount * 4, GL46C.GL_DYNAMIC_DRAW);
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
-        return new int[]{offsetsSSBO, weightsSSBO};
+    public boolean isCrowdAvailable() {
+        return crowdProgram != 0;
     }
-    
-    /**
-     * 创建 UV Morph SSBO（每模型实例独立）
-     * 返回 int[2]：{uvMorphOffsetsSSBO, uvMorphWeightsSSBO}
-     */
-    public static int[] createUvMorphBuffers(int uvMorphCount) {
-        int offsetsSSBO = GL46C.glGenBuffers();
-        int weightsSSBO = GL46C.glGenBuffers();
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, weightsSSBO);
-        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, (long) uvMorphCount * 4, GL46C.GL_DYNAMIC_DRAW);
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
-        return new int[]{offsetsSSBO, weightsSSBO};
+
+    public boolean isInitialized() {
+        return initialized;
     }
-    
-    /**
-     * 创建蒙皮后 UV 输出缓冲区
-     */
-    public static int createSkinnedUvBuffer(int vertexCount) {
-        int buffer = GL46C.glGenBuffers();
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, buffer);
-        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, (long) vertexCount * 2 * 4, GL46C.GL_DYNAMIC_COPY);
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
-        return buffer;
+
+    public int getLocalSizeX() {
+        return localSizeX;
     }
-    
+
     /**
-     * 上传 UV Morph 偏移数据到指定 SSBO
+     * 释放资源
      */
-    public void uploadUvMorphOffsets(int uvMorphOffsetsSSBO, java.nio.ByteBuffer data) {
-        if (!initialized || uvMorphOffsetsSSBO == 0) return;
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, uvMorphOffsetsSSBO);
-        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, data, GL46C.GL_STATIC_DRAW);
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+    public void cleanup() {
+        for (int i = 0; i < VARIANT_COUNT; i++) {
+            if (variantPrograms[i] > 0) {
+                GL43C.glDeleteProgram(variantPrograms[i]);
+                variantPrograms[i] = 0;
+            }
+        }
+        if (morphProgram > 0) {
+            GL43C.glDeleteProgram(morphProgram);
+            morphProgram = 0;
+        }
+        if (crowdProgram > 0) {
+            GL43C.glDeleteProgram(crowdProgram);
+            crowdProgram = 0;
+        }
+        initialized = false;
     }
-    
-    /**
-     * 更新 UV Morph 权重到指定 SSBO
-     */
-    public void updateUvMorphWeights(int uvMorphWeightsSSBO, FloatBuffer weights) {
-        if (!initialized || uvMorphWeightsSSBO == 0) return;
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, uvMorphWeightsSSBO);
-        weights.position(0);
-        GL46C.glBufferSubData(GL46C.GL_COPY_WRITE_BUFFER, 0, weights);
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+
+    // ==================== 内部方法 ====================
+
+    private static String variantSource(int key, int localSize) {
+        return ShaderCompiler.withDefines(COMPUTE_SHADER_SOURCE, variantDefines(key, localSize));
     }
-    
-    public boolean isInitialized() {
-        return initialized;
+
+    private static String[] variantDefines(int key, int localSize) {
+        String influences = "MAX_INFLUENCES " + INFLUENCE_TIERS[key >> 2];
+        String size = "LOCAL_SIZE_X " + localSize;
+        boolean position = (key & VARIANT_MORPH_POSITION) != 0;
+        boolean uv = (key & VARIANT_MORPH_UV) != 0;
+        if (position && uv) return new String[]{size, influences, "MORPH_POSITION", "MORPH_UV"};
+        if (position) return new String[]{size, influences, "MORPH_POSITION"};
+        if (uv) return new String[]{size, influences, "MORPH_UV"};
+        return new String[]{size, influences};
     }
-    
-    /**
-     * 创建骨骼矩阵 SSBO（每模型实例独立）
-     * 调用方负责管理生命周期
-     */
-    public static int createBoneMatrixBuffer() {
-        int ssbo = GL46C.glGenBuffers();
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, ssbo);
-        GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, (long) ShaderConstants.MAX_BONES * 64, GL46C.GL_DYNAMIC_DRAW);
-        GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
-        return ssbo;
+
+    private static String describeVariant(int key) {
+        return "[" + INFLUENCE_TIERS[key >> 2] + " 骨骼"
+                + ((key & VARIANT_MORPH_POSITION) != 0 ? ", 顶点 Morph" : "")
+                + ((key & VARIANT_MORPH_UV) != 0 ? ", UV Morph" : "") + "]";
     }
-    
+
     /**
-     * 释放资源
+     * 以合成负载测定最快的工作组大小
+     *
+     * 每个候选大小编译一次无 Morph 的 4 骨骼变体，对同一组合成输入重复分派并用
+     * GL_TIME_ELAPSED 计时，取耗时最短者。只在首次初始化时执行一次，读取计时结果会等待 GPU 完成。
      */
-    public void cleanup() {
-        if (program > 0) {
-            GL43C.glDeleteProgram(program);
-            program = 0;
+    private int benchmarkLocalSize() {
+        int[] buffers = new int[BINDING_INSTANCES + 1];
+        int query = 0;
+        int best = DEFAULT_LOCAL_SIZE_X;
+        long bestTime = Long.MAX_VALUE;
+
+        GlStateTracker.beginSection();
+        try {
+            long v = BENCHMARK_VERTICES;
+            long[] sizes = new long[buffers.length];
+            sizes[BINDING_ORIG_POSITIONS] = v * 12;
+            sizes[BINDING_ORIG_NORMALS] = v * 8;
+            sizes[BINDING_BONE_INDICES] = v * 8;
+            sizes[BINDING_BONE_WEIGHTS] = v * 8;
+            sizes[BINDING_BONE_MATRICES] = BENCHMARK_BONES * 48L;
+            sizes[BINDING_MORPH_ENTRIES] = 16;
+            sizes[BINDING_ACTIVE_MORPHS] = 32;
+            sizes[BINDING_SKINNED_POSITIONS] = v * 12;
+            sizes[BINDING_SKINNED_NORMALS] = v * 8;
+            sizes[BINDING_ORIG_UVS] = v * 8;
+            sizes[BINDING_MORPH_POSITION_ACCUM] = v * 12;
+            sizes[BINDING_MORPH_UV_ACCUM] = v * 8;
+            sizes[BINDING_SKINNED_UVS] = v * 8;
+            sizes[BINDING_INSTANCES] = BENCHMARK_INSTANCES * 32L;
+
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = GL46C.glGenBuffers();
+                GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, buffers[i]);
+                GL46C.glBufferData(GL46C.GL_COPY_WRITE_BUFFER, sizes[i], GL46C.GL_STATIC_DRAW);
+                GL46C.glClearBufferData(GL46C.GL_COPY_WRITE_BUFFER, GL46C.GL_R32UI,
+                        GL46C.GL_RED_INTEGER, GL46C.GL_UNSIGNED_INT, new int[]{0});
+            }
+            // 每顶点引用骨骼 0-3，各 0.25 权重；描述符全部指向同一顶点区间
+            GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, buffers[BINDING_BONE_INDICES]);
+            GL46C.glClearBufferData(GL46C.GL_COPY_WRITE_BUFFER, GL46C.GL_RG32UI,
+                    GL46C.GL_RG_INTEGER, GL46C.GL_UNSIGNED_INT, new int[]{0x00010000, 0x00030002});
+            GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, buffers[BINDING_BONE_WEIGHTS]);
+            GL46C.glClearBufferData(GL46C.GL_COPY_WRITE_BUFFER, GL46C.GL_R32UI,
+                    GL46C.GL_RED_INTEGER, GL46C.GL_UNSIGNED_INT, new int[]{0x40004000});
+            int[] descriptors = new int[BENCHMARK_INSTANCES * 8];
+            for (int i = 0; i < BENCHMARK_INSTANCES; i++) {
+                descriptors[i * 8 + 1] = BENCHMARK_VERTICES;
+                descriptors[i * 8 + 3] = BENCHMARK_BONES;
+            }
+            GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, buffers[BINDING_INSTANCES]);
+            GL46C.glBufferSubData(GL46C.GL_COPY_WRITE_BUFFER, 0, descriptors);
+            GL46C.glBindBuffer(GL46C.GL_COPY_WRITE_BUFFER, 0);
+
+            for (int i = 0; i < buffers.length; i++) {
+                GlStateTracker.bindStorageBuffer(i, buffers[i]);
+            }
+
+            query = GL46C.glGenQueries();
+            int key = variantKey(false, false, 4);
+            for (int size : LOCAL_SIZE_CANDIDATES) {
+                int program = ShaderCompiler.compileComputeProgram(variantSource(key, size),
+                        "蒙皮 Compute Shader 基准 " + size);
+                if (program == 0) continue;
+                int groups = (BENCHMARK_VERTICES + size - 1) / size;
+
+                GlStateTracker.useProgram(program);
+                GL43C.glUniform1ui(GL43C.glGetUniformLocation(program, "InstanceBase"), 0);
+                // 预热一次，排除首次分派的驱动开销
+                GL43C.glDispatchCompute(groups, BENCHMARK_INSTANCES, 1);
+                GL43C.glMemoryBarrier(GL43C.GL_SHADER_STORAGE_BARRIER_BIT);
+
+                GL46C.glBeginQuery(GL46C.GL_TIME_ELAPSED, query);
+                for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+                    GL43C.glDispatchCompute(groups, BENCHMARK_INSTANCES, 1);
+                    GL43C.glMemoryBarrier(GL43C.GL_SHADER_STORAGE_BARRIER_BIT);
+                }
+                GL46C.glEndQuery(GL46C.GL_TIME_ELAPSED);
+                long elapsed = GL46C.glGetQueryObjecti64(query, GL46C.GL_QUERY_RESULT);
+                GlStateTracker.useProgram(0);
+                GL43C.glDeleteProgram(program);
+
+                logger.debug("蒙皮工作组大小 {}: {} ns", size, elapsed);
+                if (elapsed > 0 && elapsed < bestTime) {
+                    bestTime = elapsed;
+                    best = size;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("蒙皮工作组大小测定失败，使用默认值 {}", DEFAULT_LOCAL_SIZE_X, e);
+            best = DEFAULT_LOCAL_SIZE_X;
+        } finally {
+            GlStateTracker.endSection();
+            if (query != 0) GL46C.glDeleteQueries(query);
+            for (int buffer : buffers) {
+                if (buffer != 0) GL46C.glDeleteBuffers(buffer);
+            }
         }
-        initialized = false;
+        return best;
     }
 }
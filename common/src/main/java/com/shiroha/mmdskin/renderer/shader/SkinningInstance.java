@@ -0,0 +1,61 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+/**
+ * GPU 蒙皮实例在共享存储中的区间
+ *
+ * 由 SkinningArena 分配：顶点区间在所有顶点流中共用同一个起点，
+ * 稀疏 Morph 条目区间位于 Morph 条目池（float 单位，起点按 16 字节条目对齐）。模型释放时交还 SkinningArena.release。
+ */
+public final class SkinningInstance {
+    final int vertexBase;
+    final int vertexCount;
+
+    int morphOffsetBase = -1;
+    int morphOffsetFloats = 0;
+    int uvMorphOffsetBase = -1;
+    int uvMorphOffsetFloats = 0;
+    /** 每顶点有非零权重的最高骨骼槽位数（上传骨骼权重流时统计） */
+    int maxInfluences = 4;
+
+    boolean released = false;
+
+    SkinningInstance(int vertexBase, int vertexCount) {
+        this.vertexBase = vertexBase;
+        this.vertexCount = vertexCount;
+    }
+
+    public int getVertexBase() {
+        return vertexBase;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /** 区间是否已交还（模型已释放） */
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * 指定顶点流中本实例数据的字节偏移（绑定为 VBO 时作为 glVertexAttribPointer 的偏移）
+     */
+    public long streamOffset(int stream) {
+        return SkinningArena.streamOffset(stream, vertexBase);
+    }
+
+    /**
+     * 本实例适用的蒙皮变体（由是否上传了 Morph 条目与骨骼槽位数决定）
+     */
+    public int variantKey() {
+        return SkinningComputeShader.variantKey(morphOffsetBase >= 0, uvMorphOffsetBase >= 0, maxInfluences);
+    }
+
+    /**
+     * 本实例占用的共享显存（字节）
+     */
+    public long getVramUsage() {
+        return SkinningArena.vertexBytes(vertexCount)
+                + (long) (morphOffsetFloats + uvMorphOffsetFloats) * 4;
+    }
+}
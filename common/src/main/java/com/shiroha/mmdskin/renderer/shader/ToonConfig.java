@@ -76,4 +76,12 @@ public class ToonConfig {
     public float getOutlineColorB() { 
         return ConfigManager.getToonOutlineB(); 
     }
+    
+    public boolean isOutlineScreenSpace() { 
+        return ConfigManager.isToonOutlineScreenSpace(); 
+    }
+    
+    public int getOutlineScreenWidth() { 
+        return ConfigManager.getToonOutlineScreenWidth(); 
+    }
 }
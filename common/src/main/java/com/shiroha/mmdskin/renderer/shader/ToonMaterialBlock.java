@@ -0,0 +1,104 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import org.lwjgl.opengl.GL46C;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 逐材质 Toon Uniform 块（std140 ToonMaterialBlock，每材质一项）
+ *
+ * 每个模型一个 UBO，各项按 UBO 偏移对齐排列，绘制子网格时按范围绑定对应材质。
+ * 首次使用时整体构建，之后只有值发生变化的项（材质 Morph 改变的材质）才会重新上传。
+ * GPU 蒙皮模型的材质 Morph 由 GpuMaterialMorphs 直接写入本缓冲区，CPU 侧只负责首次构建。
+ *
+ * 布局：vec4 EdgeData（rgb = 边缘色，a = 编码后的边缘大小，见 ToonOutlinePass.encodeEdge）
+ */
+public final class ToonMaterialBlock {
+    /** 单项字节数（std140） */
+    public static final int ENTRY_SIZE = 16;
+
+    private final int count;
+    private final int stride;
+    private final float[] uploaded;
+    private int buffer;
+    private ByteBuffer staging;
+
+    /**
+     * @param count 材质数量
+     */
+    public ToonMaterialBlock(int count) {
+        this.count = Math.max(count, 1);
+        this.stride = UniformRingBuffer.alignSize(ENTRY_SIZE);
+        this.uploaded = new float[this.count * 4];
+        Arrays.fill(uploaded, Float.NaN);
+        this.staging = MemoryUtil.memAlloc(ENTRY_SIZE);
+
+        buffer = GL46C.glGenBuffers();
+        GL46C.glBindBuffer(GL46C.GL_UNIFORM_BUFFER, buffer);
+        GL46C.glBufferData(GL46C.GL_UNIFORM_BUFFER, (long) this.count * stride, GL46C.GL_DYNAMIC_DRAW);
+    }
+
+    /**
+     * 更新一项材质数据，与上次上传的值相同时跳过
+     *
+     * @param edgeData 4 个 float（rgb + 编码边缘大小）
+     */
+    public void update(int materialIndex, float[] edgeData) {
+        if (materialIndex < 0 || materialIndex >= count || buffer == 0) return;
+        int base = materialIndex * 4;
+        if (uploaded[base] == edgeData[0] && uploaded[base + 1] == edgeData[1]
+                && uploaded[base + 2] == edgeData[2] && uploaded[base + 3] == edgeData[3]) {
+            return;
+        }
+        System.arraycopy(edgeData, 0, uploaded, base, 4);
+
+        staging.clear();
+        staging.putFloat(edgeData[0]).putFloat(edgeData[1]).putFloat(edgeData[2]).putFloat(edgeData[3]);
+        staging.flip();
+        GL46C.glBindBuffer(GL46C.GL_UNIFORM_BUFFER, buffer);
+        GL46C.glBufferSubData(GL46C.GL_UNIFORM_BUFFER, (long) materialIndex * stride, staging);
+    }
+
+    /**
+     * 将指定材质项绑定到 ToonMaterialBlock 绑定点
+     */
+    public void bind(int materialIndex) {
+        if (buffer == 0) return;
+        int index = (materialIndex >= 0 && materialIndex < count) ? materialIndex : 0;
+        GL46C.glBindBufferRange(GL46C.GL_UNIFORM_BUFFER, ShaderConstants.TOON_MATERIAL_UBO_BINDING,
+                buffer, (long) index * stride, ENTRY_SIZE);
+    }
+
+    public int getMaterialCount() {
+        return count;
+    }
+
+    public int getBuffer() {
+        return buffer;
+    }
+
+    /** 相邻两项的字节间隔（UBO 偏移对齐后） */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * 显存占用（字节）
+     */
+    public long getVramUsage() {
+        return buffer != 0 ? (long) count * stride : 0;
+    }
+
+    public void cleanup() {
+        if (buffer != 0) {
+            GL46C.glDeleteBuffers(buffer);
+            buffer = 0;
+        }
+        if (staging != null) {
+            MemoryUtil.memFree(staging);
+            staging = null;
+        }
+    }
+}
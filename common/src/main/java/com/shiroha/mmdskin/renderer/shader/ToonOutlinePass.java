@@ -0,0 +1,265 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import com.mojang.blaze3d.pipeline.RenderTarget;
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.shiroha.mmdskin.renderer.core.IrisCompat;
+import com.shiroha.mmdskin.util.AssetsUtil;
+import net.minecraft.client.Minecraft;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Matrix4f;
+import org.lwjgl.opengl.GL46C;
+
+/**
+ * 屏幕空间描边后处理
+ *
+ * 世界渲染期间，Toon 主体 pass 通过 MRT 额外写入一张边缘掩码（rgb = 材质边缘色，a = 编码后的边缘大小，
+ * 0 表示非 MMD 像素），与主渲染目标共享颜色和深度附件，不需要额外的几何 pass。
+ * 世界渲染结束后（LevelRenderer Mixin）做一次全屏边缘检测：只在 MMD 轮廓外侧或深度不连续处
+ * 按邻近 MMD 像素的材质边缘色/大小着色，开销与屏幕面积成正比，与模型数量无关。
+ *
+ * Iris 光影激活时 G-buffer 由 Iris 管理，回退为背面扩张描边。
+ */
+public final class ToonOutlinePass {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** 边缘大小编码上限（超出部分截断），需与 screen_outline.frag.glsl 一致 */
+    public static final float MAX_EDGE_SIZE = 4.0f;
+    /** 单方向最大采样步数（像素） */
+    private static final int MAX_STEPS = 8;
+
+    private static final float[] CLEAR_MASK = {0.0f, 0.0f, 0.0f, 0.0f};
+
+    // GL 资源（懒创建）
+    private static int program = 0;
+    private static int emptyVao = 0;
+    private static int maskFramebuffer = 0;
+    private static int compositeFramebuffer = 0;
+    private static int edgeTexture = 0;
+    private static boolean failed = false;
+
+    // 当前附件对应的主渲染目标（窗口尺寸变化后主目标会重建纹理）
+    private static int width = 0;
+    private static int height = 0;
+    private static int attachedColor = 0;
+    private static int attachedDepth = 0;
+
+    // 帧内状态
+    private static boolean inLevel = false;
+    private static boolean maskDirty = true;
+    private static boolean maskWritten = false;
+
+    // Uniform locations
+    private static int texelSizeLocation = -1;
+    private static int outlineWidthLocation = -1;
+    private static int depthParamsLocation = -1;
+    private static int maxStepsLocation = -1;
+
+    private ToonOutlinePass() {}
+
+    /**
+     * 世界渲染开始（LevelRenderer.renderLevel 入口）
+     */
+    public static void beginLevel() {
+        inLevel = true;
+        maskDirty = true;
+        maskWritten = false;
+    }
+
+    /**
+     * 本次 Toon 绘制是否应使用屏幕空间描边
+     * 仅在世界渲染期间、描边与屏幕空间模式均开启且 Iris 光影未激活时生效
+     */
+    public static boolean isActive() {
+        ToonConfig config = ToonConfig.getInstance();
+        return inLevel && !failed
+                && config.isOutlineEnabled() && config.isOutlineScreenSpace()
+                && !IrisCompat.isIrisShaderActive();
+    }
+
+    /**
+     * 绑定掩码帧缓冲（主颜色 + 边缘掩码 + 主深度），之后的 Toon 主体绘制同时写入边缘掩码
+     *
+     * @return 当前并非绘制到主渲染目标（或资源不可用）时返回 false，调用方应回退为几何描边
+     */
+    public static boolean bindMask() {
+        RenderTarget main = Minecraft.getInstance().getMainRenderTarget();
+        if (GlStateTracker.currentDrawFramebuffer() != main.frameBufferId) return false;
+        if (!ensureResources(main)) return false;
+
+        GlStateManager._glBindFramebuffer(GL46C.GL_FRAMEBUFFER, maskFramebuffer);
+        if (maskDirty) {
+            GL46C.glClearBufferfv(GL46C.GL_COLOR, 1, CLEAR_MASK);
+            maskDirty = false;
+        }
+        // 掩码是编码数据，不参与 alpha 混合
+        GL46C.glDisablei(GL46C.GL_BLEND, 1);
+        maskWritten = true;
+        return true;
+    }
+
+    /**
+     * 解绑掩码帧缓冲，恢复主渲染目标
+     */
+    public static void unbindMask() {
+        GL46C.glEnablei(GL46C.GL_BLEND, 1);
+        GlStateManager._glBindFramebuffer(GL46C.GL_FRAMEBUFFER,
+                Minecraft.getInstance().getMainRenderTarget().frameBufferId);
+    }
+
+    /**
+     * 将材质边缘参数编码为掩码输出（写入 Toon 主体着色器的 EdgeData）
+     * a 通道：0 = 非 MMD 像素，1/255 = 无描边的 MMD 像素，其余线性映射 (0, MAX_EDGE_SIZE]
+     *
+     * @param size 边缘大小（已乘 Morph；材质未开启边缘或边缘色完全透明时传 0）
+     */
+    public static void encodeEdge(float r, float g, float b, float size, float[] out) {
+        float normalized = Math.max(0.0f, Math.min(size / MAX_EDGE_SIZE, 1.0f));
+        out[0] = r;
+        out[1] = g;
+        out[2] = b;
+        out[3] = (1.0f + Math.round(normalized * 254.0f)) / 255.0f;
+    }
+
+    /**
+     * 世界渲染结束（LevelRenderer.renderLevel 返回前）：对本帧写入的掩码做边缘检测并合成到主渲染目标
+     */
+    public static void endLevel() {
+        inLevel = false;
+        if (!maskWritten || failed || program == 0) return;
+        maskWritten = false;
+
+        RenderTarget main = Minecraft.getInstance().getMainRenderTarget();
+        if (main.width != width || main.height != height) return;
+
+        Matrix4f proj = RenderSystem.getProjectionMatrix();
+        int pixelWidth = ToonConfig.getInstance().getOutlineScreenWidth();
+
+        GlStateManager._glBindFramebuffer(GL46C.GL_FRAMEBUFFER, compositeFramebuffer);
+        RenderSystem.disableDepthTest();
+        RenderSystem.depthMask(false);
+        RenderSystem.disableCull();
+        RenderSystem.enableBlend();
+        RenderSystem.defaultBlendFunc();
+
+        GlStateTracker.useProgram(program);
+        GL46C.glUniform2f(texelSizeLocation, 1.0f / width, 1.0f / height);
+        GL46C.glUniform1f(outlineWidthLocation, pixelWidth);
+        GL46C.glUniform2f(depthParamsLocation, proj.m22(), proj.m32());
+        GL46C.glUniform1i(maxStepsLocation,
+                Math.min(MAX_STEPS, (int) Math.ceil(pixelWidth * MAX_EDGE_SIZE)));
+
+        RenderSystem.activeTexture(GL46C.GL_TEXTURE1);
+        RenderSystem.bindTexture(main.getDepthTextureId());
+        RenderSystem.activeTexture(GL46C.GL_TEXTURE0);
+        RenderSystem.bindTexture(edgeTexture);
+
+        GL46C.glBindVertexArray(emptyVao);
+        GL46C.glDrawArrays(GL46C.GL_TRIANGLES, 0, 3);
+        GL46C.glBindVertexArray(0);
+        GlStateTracker.useProgram(0);
+
+        RenderSystem.bindTexture(0);
+        RenderSystem.disableBlend();
+        RenderSystem.enableCull();
+        RenderSystem.depthMask(true);
+        RenderSystem.enableDepthTest();
+        GlStateManager._glBindFramebuffer(GL46C.GL_FRAMEBUFFER, main.frameBufferId);
+    }
+
+    /**
+     * 屏幕空间描边占用的显存（边缘掩码纹理）
+     */
+    public static long getVramUsage() {
+        return edgeTexture != 0 ? (long) width * height * 4 : 0;
+    }
+
+    /**
+     * 释放所有 GL 资源
+     */
+    public static void cleanup() {
+        if (program != 0) { GL46C.glDeleteProgram(program); program = 0; }
+        if (emptyVao != 0) { GL46C.glDeleteVertexArrays(emptyVao); emptyVao = 0; }
+        if (maskFramebuffer != 0) { GL46C.glDeleteFramebuffers(maskFramebuffer); maskFramebuffer = 0; }
+        if (compositeFramebuffer != 0) { GL46C.glDeleteFramebuffers(compositeFramebuffer); compositeFramebuffer = 0; }
+        if (edgeTexture != 0) { GL46C.glDeleteTextures(edgeTexture); edgeTexture = 0; }
+        width = height = attachedColor = attachedDepth = 0;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private static boolean ensureResources(RenderTarget main) {
+        if (failed) return false;
+
+        if (program == 0) {
+            program = ShaderCompiler.compileRenderProgram(
+                    AssetsUtil.getAssetsAsString("shader/screen_outline.vert.glsl"),
+                    AssetsUtil.getAssetsAsString("shader/screen_outline.frag.glsl"),
+                    "屏幕空间描边");
+            if (program == 0) {
+                failed = true;
+                return false;
+            }
+            GlStateTracker.useProgram(program);
+            GL46C.glUniform1i(GL46C.glGetUniformLocation(program, "EdgeSampler"), 0);
+            GL46C.glUniform1i(GL46C.glGetUniformLocation(program, "DepthSampler"), 1);
+            GlStateTracker.useProgram(0);
+            texelSizeLocation = GL46C.glGetUniformLocation(program, "TexelSize");
+            outlineWidthLocation = GL46C.glGetUniformLocation(program, "OutlineWidth");
+            depthParamsLocation = GL46C.glGetUniformLocation(program, "DepthParams");
+            maxStepsLocation = GL46C.glGetUniformLocation(program, "MaxSteps");
+            emptyVao = GL46C.glGenVertexArrays();
+            maskFramebuffer = GL46C.glGenFramebuffers();
+            compositeFramebuffer = GL46C.glGenFramebuffers();
+        }
+
+        boolean resized = edgeTexture == 0 || main.width != width || main.height != height;
+        if (resized) {
+            if (edgeTexture == 0) edgeTexture = GL46C.glGenTextures();
+            width = main.width;
+            height = main.height;
+            int prevTexture = GL46C.glGetInteger(GL46C.GL_TEXTURE_BINDING_2D);
+            GL46C.glBindTexture(GL46C.GL_TEXTURE_2D, edgeTexture);
+            GL46C.glTexImage2D(GL46C.GL_TEXTURE_2D, 0, GL46C.GL_RGBA8, width, height, 0,
+                    GL46C.GL_RGBA, GL46C.GL_UNSIGNED_BYTE, 0L);
+            GL46C.glTexParameteri(GL46C.GL_TEXTURE_2D, GL46C.GL_TEXTURE_MIN_FILTER, GL46C.GL_NEAREST);
+            GL46C.glTexParameteri(GL46C.GL_TEXTURE_2D, GL46C.GL_TEXTURE_MAG_FILTER, GL46C.GL_NEAREST);
+            GL46C.glTexParameteri(GL46C.GL_TEXTURE_2D, GL46C.GL_TEXTURE_WRAP_S, GL46C.GL_CLAMP_TO_EDGE);
+            GL46C.glTexParameteri(GL46C.GL_TEXTURE_2D, GL46C.GL_TEXTURE_WRAP_T, GL46C.GL_CLAMP_TO_EDGE);
+            GL46C.glBindTexture(GL46C.GL_TEXTURE_2D, prevTexture);
+        }
+
+        int color = main.getColorTextureId();
+        int depth = main.getDepthTextureId();
+        if (!resized && color == attachedColor && depth == attachedDepth) return true;
+
+        // 仅由 bindMask 在主渲染目标已绑定时调用，完成后直接切回主目标
+        GlStateManager._glBindFramebuffer(GL46C.GL_FRAMEBUFFER, maskFramebuffer);
+        GL46C.glFramebufferTexture2D(GL46C.GL_FRAMEBUFFER, GL46C.GL_COLOR_ATTACHMENT0,
+                GL46C.GL_TEXTURE_2D, color, 0);
+        GL46C.glFramebufferTexture2D(GL46C.GL_FRAMEBUFFER, GL46C.GL_COLOR_ATTACHMENT1,
+                GL46C.GL_TEXTURE_2D, edgeTexture, 0);
+        GL46C.glFramebufferTexture2D(GL46C.GL_FRAMEBUFFER, GL46C.GL_DEPTH_ATTACHMENT,
+                GL46C.GL_TEXTURE_2D, depth, 0);
+        GL46C.glDrawBuffers(new int[]{GL46C.GL_COLOR_ATTACHMENT0, GL46C.GL_COLOR_ATTACHMENT1});
+        int maskStatus = GL46C.glCheckFramebufferStatus(GL46C.GL_FRAMEBUFFER);
+
+        GlStateManager._glBindFramebuffer(GL46C.GL_FRAMEBUFFER, compositeFramebuffer);
+        GL46C.glFramebufferTexture2D(GL46C.GL_FRAMEBUFFER, GL46C.GL_COLOR_ATTACHMENT0,
+                GL46C.GL_TEXTURE_2D, color, 0);
+        int compositeStatus = GL46C.glCheckFramebufferStatus(GL46C.GL_FRAMEBUFFER);
+        GlStateManager._glBindFramebuffer(GL46C.GL_FRAMEBUFFER, main.frameBufferId);
+
+        if (maskStatus != GL46C.GL_FRAMEBUFFER_COMPLETE || compositeStatus != GL46C.GL_FRAMEBUFFER_COMPLETE) {
+            logger.warn("屏幕空间描边 FBO 创建失败 (status=0x{}/0x{})，回退为几何描边",
+                    Integer.toHexString(maskStatus), Integer.toHexString(compositeStatus));
+            cleanup();
+            failed = true;
+            return false;
+        }
+        attachedColor = color;
+        attachedDepth = depth;
+        return true;
+    }
+}
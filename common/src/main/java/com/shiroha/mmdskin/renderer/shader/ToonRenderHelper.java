@@ -23,7 +23,7 @@ public class ToonRenderHelper {
     private static final ToonConfig toonConfig = ToonConfig.getInstance();
     
     /**
-     * 设置 Toon 渲染公共参数
+     * 设置 Toon 渲染公共参数（写入逐模型 Uniform 块暂存区，绘制前需调用 commitModelBlock）
      */
     public static void setupToonUniforms(ToonShaderBase shader, float lightIntensity) {
         shader.setSampler0(0);
@@ -69,7 +69,7 @@ public class ToonRenderHelper {
         GL46C.glBindBuffer(GL46C.GL_ARRAY_BUFFER, 0);
         GL46C.glBindBuffer(GL46C.GL_ELEMENT_ARRAY_BUFFER, 0);
         GL46C.glBindVertexArray(0);
-        GL46C.glUseProgram(0);
+        GlStateTracker.useProgram(0);
         RenderSystem.activeTexture(GL46C.GL_TEXTURE0);
         BufferUploader.reset();
     }
@@ -3,22 +3,33 @@ package com.shiroha.mmdskin.renderer.shader;
 import com.shiroha.mmdskin.util.AssetsUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joml.Matrix4f;
 import org.lwjgl.opengl.GL46C;
+import org.lwjgl.system.MemoryUtil;
 
-import java.nio.FloatBuffer;
+import java.nio.ByteBuffer;
 
 /**
  * Toon 着色器抽象基类
  * 
  * 提供 Toon 渲染的公共逻辑（片段着色器、uniform 管理），
  * 子类负责提供各自的顶点着色器（蒙皮方式不同）。
+ * 
+ * 逐模型参数打包为 std140 Uniform 块，经环形缓冲区一次上传后按范围绑定；
+ * 逐材质参数位于各模型的 ToonMaterialBlock 中。每个模型每帧只有一次缓冲区写入和少量绑定调用。
+ * 
+ * 主着色器按屏幕空间描边开关编译两个变体（EDGE_MASK 宏），片段着色器中不再按 Uniform 分支，
+ * useMain 根据 setEdgeMaskEnabled 的最近设置选择变体。
  */
 public abstract class ToonShaderBase {
     protected static final Logger logger = LogManager.getLogger();
     
     // 着色器程序
     protected int mainProgram = 0;
+    /** 屏幕空间描边变体（location 1 输出边缘掩码） */
+    protected int edgeMaskProgram = 0;
     protected int outlineProgram = 0;
+    private boolean edgeMaskEnabled = false;
     protected boolean initialized = false;
     
     // ==================== 共享的片段着色器逻辑 ====================
@@ -35,23 +46,28 @@ public abstract class ToonShaderBase {
     protected static final String OUTLINE_FRAGMENT_SHADER_BODY =
             AssetsUtil.getAssetsAsString("shader/toon_outline_body.frag.glsl");
     
-    // ==================== 主着色器 Uniform locations ====================
-    protected int projMatLocation = -1;
-    protected int modelViewMatLocation = -1;
+    // ==================== 逐模型 Uniform 块（std140 ToonModelBlock） ====================
+    //   mat4  ProjMat            offset   0
+    //   mat4  ModelViewMat       offset  64
+    //   vec4  ShadowColorLight   offset 128  rgb = ShadowColor, a = LightIntensity
+    //   vec4  RimSpecular        offset 144  RimPower, RimIntensity, SpecularPower, SpecularIntensity
+    //   vec4  OutlineParams      offset 160  rgb = OutlineColor, a = OutlineWidth
+    //   ivec4 ToonFlags          offset 176  x = ToonLevels, y = EdgeMaskEnabled
+    protected static final int MODEL_BLOCK_SIZE = 192;
+    private static final int OFFSET_PROJ_MAT = 0;
+    private static final int OFFSET_MODEL_VIEW_MAT = 64;
+    private static final int OFFSET_SHADOW_LIGHT = 128;
+    private static final int OFFSET_RIM_SPECULAR = 144;
+    private static final int OFFSET_OUTLINE = 160;
+    private static final int OFFSET_FLAGS = 176;
+    
+    /** 所有 Toon 着色器共用的逐模型 Uniform 环形缓冲区（256 KB，约 1000 个模型块） */
+    private static final UniformRingBuffer modelBlockRing = new UniformRingBuffer(256 * 1024);
+    
+    /** 当前模型块的 CPU 暂存区，setter 只写入暂存区，commitModelBlock 时一次上传 */
+    protected final ByteBuffer modelBlock = MemoryUtil.memCalloc(MODEL_BLOCK_SIZE);
+    
     protected int sampler0Location = -1;
-    protected int lightIntensityLocation = -1;
-    protected int toonLevelsLocation = -1;
-    protected int rimPowerLocation = -1;
-    protected int rimIntensityLocation = -1;
-    protected int shadowColorLocation = -1;
-    protected int specularPowerLocation = -1;
-    protected int specularIntensityLocation = -1;
-    
-    // ==================== 描边着色器 Uniform locations ====================
-    protected int outlineProjMatLocation = -1;
-    protected int outlineModelViewMatLocation = -1;
-    protected int outlineWidthLocation = -1;
-    protected int outlineColorLocation = -1;
     
     // ==================== Attribute locations ====================
     protected int positionLocation = -1;
@@ -100,6 +116,11 @@ public abstract class ToonShaderBase {
                 return false;
             }
             
+            // 编译屏幕空间描边变体（失败时回退到主着色器，只是不输出边缘掩码）
+            edgeMaskProgram = compileProgram(getMainVertexShader(),
+                                            ShaderCompiler.withDefines(MAIN_FRAGMENT_SHADER_BODY, "EDGE_MASK"),
+                                            getShaderName() + "描边掩码着色器");
+            
             // 获取公共 uniform 位置
             initCommonUniforms();
             
@@ -120,23 +141,36 @@ public abstract class ToonShaderBase {
     }
     
     private void initCommonUniforms() {
-        // 主着色器 uniform
-        projMatLocation = GL46C.glGetUniformLocation(mainProgram, "ProjMat");
-        modelViewMatLocation = GL46C.glGetUniformLocation(mainProgram, "ModelViewMat");
-        sampler0Location = GL46C.glGetUniformLocation(mainProgram, "Sampler0");
-        lightIntensityLocation = GL46C.glGetUniformLocation(mainProgram, "LightIntensity");
-        toonLevelsLocation = GL46C.glGetUniformLocation(mainProgram, "ToonLevels");
-        rimPowerLocation = GL46C.glGetUniformLocation(mainProgram, "RimPower");
-        rimIntensityLocation = GL46C.glGetUniformLocation(mainProgram, "RimIntensity");
-        shadowColorLocation = GL46C.glGetUniformLocation(mainProgram, "ShadowColor");
-        specularPowerLocation = GL46C.glGetUniformLocation(mainProgram, "SpecularPower");
-        specularIntensityLocation = GL46C.glGetUniformLocation(mainProgram, "SpecularIntensity");
+        bindUniformBlocks(mainProgram);
+        bindUniformBlocks(outlineProgram);
         
-        // 描边着色器 uniform
-        outlineProjMatLocation = GL46C.glGetUniformLocation(outlineProgram, "ProjMat");
-        outlineModelViewMatLocation = GL46C.glGetUniformLocation(outlineProgram, "ModelViewMat");
-        outlineWidthLocation = GL46C.glGetUniformLocation(outlineProgram, "OutlineWidth");
-        outlineColorLocation = GL46C.glGetUniformLocation(outlineProgram, "OutlineColor");
+        // 纹理单元固定为 0，链接后设置一次
+        sampler0Location = GL46C.glGetUniformLocation(mainProgram, "Sampler0");
+        if (sampler0Location >= 0) {
+            GlStateTracker.useProgram(mainProgram);
+            GL46C.glUniform1i(sampler0Location, 0);
+            GlStateTracker.useProgram(0);
+        }
+        if (edgeMaskProgram > 0) {
+            bindUniformBlocks(edgeMaskProgram);
+            int location = GL46C.glGetUniformLocation(edgeMaskProgram, "Sampler0");
+            if (location >= 0) {
+                GlStateTracker.useProgram(edgeMaskProgram);
+                GL46C.glUniform1i(location, 0);
+                GlStateTracker.useProgram(0);
+            }
+        }
+    }
+    
+    private static void bindUniformBlocks(int program) {
+        int modelIndex = GL46C.glGetUniformBlockIndex(program, "ToonModelBlock");
+        if (modelIndex != GL46C.GL_INVALID_INDEX) {
+            GL46C.glUniformBlockBinding(program, modelIndex, ShaderConstants.TOON_MODEL_UBO_BINDING);
+        }
+        int materialIndex = GL46C.glGetUniformBlockIndex(program, "ToonMaterialBlock");
+        if (materialIndex != GL46C.GL_INVALID_INDEX) {
+            GL46C.glUniformBlockBinding(program, materialIndex, ShaderConstants.TOON_MATERIAL_UBO_BINDING);
+        }
     }
     
     private void initCommonAttributes() {
@@ -159,99 +193,87 @@ public abstract class ToonShaderBase {
     // ==================== 公共 Uniform 设置方法 ====================
     
     public void useMain() {
-        if (mainProgram > 0) {
-            GL46C.glUseProgram(mainProgram);
+        if (edgeMaskEnabled && edgeMaskProgram > 0) {
+            GlStateTracker.useProgram(edgeMaskProgram);
+        } else if (mainProgram > 0) {
+            GlStateTracker.useProgram(mainProgram);
         }
     }
     
     public void useOutline() {
         if (outlineProgram > 0) {
-            GL46C.glUseProgram(outlineProgram);
+            GlStateTracker.useProgram(outlineProgram);
         }
     }
     
-    public void setProjectionMatrix(FloatBuffer matrix) {
-        if (projMatLocation >= 0) {
-            matrix.position(0);
-            GL46C.glUniformMatrix4fv(projMatLocation, false, matrix);
-        }
+    public void setProjectionMatrix(Matrix4f matrix) {
+        matrix.get(OFFSET_PROJ_MAT, modelBlock);
     }
     
-    public void setModelViewMatrix(FloatBuffer matrix) {
-        if (modelViewMatLocation >= 0) {
-            matrix.position(0);
-            GL46C.glUniformMatrix4fv(modelViewMatLocation, false, matrix);
-        }
+    public void setModelViewMatrix(Matrix4f matrix) {
+        matrix.get(OFFSET_MODEL_VIEW_MAT, modelBlock);
     }
     
     public void setSampler0(int textureUnit) {
-        if (sampler0Location >= 0) {
+        // location 属于主着色器，其他程序（如描边掩码变体）在链接后已固定为单元 0
+        if (sampler0Location >= 0 && GlStateTracker.currentProgram() == mainProgram) {
             GL46C.glUniform1i(sampler0Location, textureUnit);
         }
     }
     
     public void setLightIntensity(float intensity) {
-        if (lightIntensityLocation >= 0) {
-            GL46C.glUniform1f(lightIntensityLocation, intensity);
-        }
+        modelBlock.putFloat(OFFSET_SHADOW_LIGHT + 12, intensity);
     }
     
     public void setToonLevels(int levels) {
-        if (toonLevelsLocation >= 0) {
-            GL46C.glUniform1i(toonLevelsLocation, Math.max(2, Math.min(5, levels)));
-        }
+        modelBlock.putInt(OFFSET_FLAGS, Math.max(2, Math.min(5, levels)));
     }
     
     public void setRimLight(float power, float intensity) {
-        if (rimPowerLocation >= 0) {
-            GL46C.glUniform1f(rimPowerLocation, power);
-        }
-        if (rimIntensityLocation >= 0) {
-            GL46C.glUniform1f(rimIntensityLocation, intensity);
-        }
+        modelBlock.putFloat(OFFSET_RIM_SPECULAR, power);
+        modelBlock.putFloat(OFFSET_RIM_SPECULAR + 4, intensity);
     }
     
     public void setShadowColor(float r, float g, float b) {
-        if (shadowColorLocation >= 0) {
-            GL46C.glUniform3f(shadowColorLocation, r, g, b);
-        }
+        modelBlock.putFloat(OFFSET_SHADOW_LIGHT, r);
+        modelBlock.putFloat(OFFSET_SHADOW_LIGHT + 4, g);
+        modelBlock.putFloat(OFFSET_SHADOW_LIGHT + 8, b);
     }
     
     public void setSpecular(float power, float intensity) {
-        if (specularPowerLocation >= 0) {
-            GL46C.glUniform1f(specularPowerLocation, power);
-        }
-        if (specularIntensityLocation >= 0) {
-            GL46C.glUniform1f(specularIntensityLocation, intensity);
-        }
+        modelBlock.putFloat(OFFSET_RIM_SPECULAR + 8, power);
+        modelBlock.putFloat(OFFSET_RIM_SPECULAR + 12, intensity);
     }
     
-    // ==================== 描边 Uniform 设置方法 ====================
-    
-    public void setOutlineProjectionMatrix(FloatBuffer matrix) {
-        if (outlineProjMatLocation >= 0) {
-            matrix.position(0);
-            GL46C.glUniformMatrix4fv(outlineProjMatLocation, false, matrix);
-        }
+    /**
+     * 屏幕空间描边：location 1 是否输出边缘掩码（否则输出编码法线）
+     * 掩码内容来自逐材质 Uniform 块（ToonMaterialBlock）
+     */
+    public void setEdgeMaskEnabled(boolean enabled) {
+        edgeMaskEnabled = enabled;
+        modelBlock.putInt(OFFSET_FLAGS + 4, enabled ? 1 : 0);
     }
     
-    public void setOutlineModelViewMatrix(FloatBuffer matrix) {
-        if (outlineModelViewMatLocation >= 0) {
-            matrix.position(0);
-            GL46C.glUniformMatrix4fv(outlineModelViewMatLocation, false, matrix);
-        }
-    }
+    // ==================== 描边参数（写入同一模型块） ====================
     
     public void setOutlineWidth(float width) {
-        if (outlineWidthLocation >= 0) {
-            GL46C.glUniform1f(outlineWidthLocation, width);
-        }
+        modelBlock.putFloat(OFFSET_OUTLINE + 12, width);
     }
     
     public void setOutlineColor(float r, float g, float b) {
-        if (outlineColorLocation >= 0) {
-            GL46C.glUniform3f(outlineColorLocation, r, g, b);
-        }
+        modelBlock.putFloat(OFFSET_OUTLINE, r);
+        modelBlock.putFloat(OFFSET_OUTLINE + 4, g);
+        modelBlock.putFloat(OFFSET_OUTLINE + 8, b);
+    }
+    
+    /**
+     * 将暂存的模型块追加写入环形缓冲区并按范围绑定，描边与主体两遍共用
+     * 每个模型每次渲染只需调用一次（设置完所有参数之后、绘制之前）
+     */
+    public void commitModelBlock() {
+        modelBlock.clear();
+        modelBlockRing.uploadAndBind(ShaderConstants.TOON_MODEL_UBO_BINDING, modelBlock);
+        modelBlock.clear();
     }
     
     // ==================== Getters ====================
@@ -275,10 +297,15 @@ public abstract class ToonShaderBase {
             GL46C.glDeleteProgram(mainProgram);
             mainProgram = 0;
         }
+        if (edgeMaskProgram > 0) {
+            GL46C.glDeleteProgram(edgeMaskProgram);
+            edgeMaskProgram = 0;
+        }
         if (outlineProgram > 0) {
             GL46C.glDeleteProgram(outlineProgram);
             outlineProgram = 0;
         }
+        modelBlockRing.cleanup();
         initialized = false;
     }
 }
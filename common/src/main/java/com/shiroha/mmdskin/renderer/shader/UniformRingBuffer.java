@@ -0,0 +1,87 @@
+package com.shiroha.mmdskin.renderer.shader;
+
+import org.lwjgl.opengl.GL46C;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Uniform 环形缓冲区
+ *
+ * 逐模型的 std140 Uniform 块按渲染顺序追加写入同一个 UBO，通过 glBindBufferRange 绑定到各自的区段。
+ * 写满后孤立（orphan）整块存储并从头开始，驱动会为仍在使用旧数据的绘制保留原存储，
+ * 避免覆盖 GPU 尚未读取的区段导致 CPU/GPU 同步等待。
+ */
+public final class UniformRingBuffer {
+    private static int offsetAlignment = -1;
+
+    private final int capacity;
+    private int buffer = 0;
+    private int head = 0;
+
+    /**
+     * @param capacity 环形缓冲区字节数
+     */
+    public UniformRingBuffer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * UBO 绑定偏移对齐（GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT，首次调用时查询）
+     */
+    public static int getOffsetAlignment() {
+        if (offsetAlignment < 0) {
+            offsetAlignment = Math.max(1, GL46C.glGetInteger(GL46C.GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT));
+        }
+        return offsetAlignment;
+    }
+
+    /**
+     * 将大小向上对齐到 UBO 偏移对齐
+     */
+    public static int alignSize(int size) {
+        int alignment = getOffsetAlignment();
+        return (size + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * 追加写入一个 Uniform 块并绑定到指定绑定点
+     *
+     * @param binding 绑定点
+     * @param data    块数据（position 到 limit）
+     */
+    public void uploadAndBind(int binding, ByteBuffer data) {
+        int size = data.remaining();
+        if (buffer == 0) {
+            buffer = GL46C.glGenBuffers();
+            GL46C.glBindBuffer(GL46C.GL_UNIFORM_BUFFER, buffer);
+            GL46C.glBufferData(GL46C.GL_UNIFORM_BUFFER, capacity, GL46C.GL_STREAM_DRAW);
+            head = 0;
+        } else {
+            GL46C.glBindBuffer(GL46C.GL_UNIFORM_BUFFER, buffer);
+        }
+
+        int offset = alignSize(head);
+        if (offset + size > capacity) {
+            GL46C.glBufferData(GL46C.GL_UNIFORM_BUFFER, capacity, GL46C.GL_STREAM_DRAW);
+            offset = 0;
+        }
+        GL46C.glBufferSubData(GL46C.GL_UNIFORM_BUFFER, offset, data);
+        GL46C.glBindBufferRange(GL46C.GL_UNIFORM_BUFFER, binding, buffer, offset, size);
+        head = offset + size;
+    }
+
+    /**
+     * 显存占用（字节）
+     */
+    public long getVramUsage() {
+        return buffer != 0 ? capacity : 0;
+    }
+
+    public void cleanup() {
+        if (buffer != 0) {
+            GL46C.glDeleteBuffers(buffer);
+            buffer = 0;
+        }
+        head = 0;
+    }
+}
@@ -0,0 +1,51 @@
+#version 430 core
+// LOCAL_SIZE_X 由 SkinningComputeShader 在 #version 之后注入（与蒙皮程序一致）
+#ifndef LOCAL_SIZE_X
+#define LOCAL_SIZE_X 256
+#endif
+layout(local_size_x = LOCAL_SIZE_X) in;
+
+// 群体动画姿态采样：Y 维工作组为群体实例，X 维覆盖该实例的骨骼。
+// 从烘焙的逐帧蒙皮矩阵中取相邻两帧按 amount 插值，过渡期间再与上一动画的定格帧按 blend 混合
+// （逐分量线性插值，与 Rust 端动画过渡的矩阵混合方式一致），结果写入骨骼矩阵环形缓冲区，
+// 随后的蒙皮分派按普通实例读取。
+
+// 骨骼矩阵环形缓冲区：每骨骼 3 个 vec4（3×4 仿射矩阵的前三行）
+layout(std430, binding = 4) writeonly buffer BoneMatrices {
+    vec4 boneRows[];
+};
+
+// 烘焙矩阵（BakedCrowdClip 所在缓冲区池整体绑定，帧起点为 vec4 序号）
+layout(std430, binding = 14) readonly buffer BakedRows {
+    vec4 bakedRows[];
+};
+
+struct CrowdPose {
+    uint boneBase;      // 骨骼矩阵环形缓冲区中的绝对骨骼序号
+    uint boneCount;
+    uint frameA;        // 当前帧在 bakedRows 中的 vec4 起点
+    uint frameB;        // 下一帧起点
+    float amount;       // 帧间插值比例
+    uint frozen;        // 过渡源（上一动画定格帧）起点
+    float blend;        // 过渡源权重（0 = 无过渡）
+    uint reserved;
+};
+layout(std430, binding = 15) readonly buffer CrowdPoses {
+    CrowdPose poses[];
+};
+
+void main() {
+    CrowdPose pose = poses[gl_WorkGroupID.y];
+    uint bone = gl_GlobalInvocationID.x;
+    if (bone >= pose.boneCount) return;
+
+    uint local = bone * 3u;
+    uint dst = (pose.boneBase + bone) * 3u;
+    for (uint r = 0u; r < 3u; r++) {
+        vec4 row = mix(bakedRows[pose.frameA + local + r], bakedRows[pose.frameB + local + r], pose.amount);
+        if (pose.blend > 0.0) {
+            row = mix(row, bakedRows[pose.frozen + local + r], pose.blend);
+        }
+        boneRows[dst + r] = row;
+    }
+}
@@ -0,0 +1,110 @@
+#version 430 core
+layout(local_size_x = 64) in;
+
+// 材质 Morph 求值：线程 i 负责第 i 个子网格的间接绘制命令与第 i 个材质的边缘参数。
+// 材质 Morph 条目在模型加载时上传，每帧只提供活动材质 Morph 的有效权重列表；
+// 乘算按 lerp(1, offset, w) 连乘，加算按 offset × w 累加，最终值 = 基础值 × mul + add（与 CPU 求值一致）。
+
+const float ALPHA_EPSILON = 0.001;
+// 需与 ToonOutlinePass.MAX_EDGE_SIZE 一致
+const float MAX_EDGE_SIZE = 4.0;
+
+// 材质基础边缘参数：每材质 5 个 float（边缘色 rgba + 边缘大小，未开启边缘的材质大小为 0）
+layout(std430, binding = 0) readonly buffer MaterialEdges {
+    float materialEdges[];
+};
+
+// 材质 Morph 条目：每条 8 个 uint，逐字段读取（结构体形式在 std430 下会因 vec4 对齐插入填充）
+// [0] 材质索引（int，-1 = 全部材质） [1] 运算（0 = 乘算，1 = 加算） [2] diffuse.a
+// [3..6] 边缘色 rgba [7] 边缘大小
+layout(std430, binding = 1) readonly buffer MaterialMorphEntries {
+    uint morphEntries[];
+};
+
+// 活动材质 Morph：x = 起始条目，y = 条目数，z = 权重（float 位模式）
+layout(std430, binding = 2) readonly buffer ActiveMaterialMorphs {
+    uvec4 activeMorphs[];
+};
+
+// 子网格：x = 材质索引，y = 首索引（含索引区间偏移），z = 索引数（不可见时为 0），w = 基础 alpha（float 位模式）
+layout(std430, binding = 3) readonly buffer SubMeshes {
+    uvec4 subMeshes[];
+};
+
+// DrawElementsIndirectCommand × 子网格数
+layout(std430, binding = 4) writeonly buffer DrawCommands {
+    uint drawCommands[];
+};
+
+// 逐材质 Toon Uniform 块（按 EdgeStride 个 vec4 间隔排列）
+layout(std430, binding = 5) writeonly buffer EdgeOutput {
+    vec4 edgeOutput[];
+};
+
+uniform uint ActiveCount;
+uniform uint SubMeshCount;
+uniform uint MaterialCount;
+uniform uint EdgeStride;    // 0 = 不写边缘参数
+
+// 累积一个材质的 Morph 结果：mulAlpha/addAlpha 与边缘色、边缘大小
+void evaluate(uint material, out float mulAlpha, out float addAlpha,
+              out vec4 mulEdge, out vec4 addEdge, out float mulSize, out float addSize) {
+    mulAlpha = 1.0;
+    addAlpha = 0.0;
+    mulEdge = vec4(1.0);
+    addEdge = vec4(0.0);
+    mulSize = 1.0;
+    addSize = 0.0;
+    for (uint m = 0u; m < ActiveCount; m++) {
+        uvec4 am = activeMorphs[m];
+        float w = uintBitsToFloat(am.z);
+        for (uint e = am.x; e < am.x + am.y; e++) {
+            uint base = e * 8u;
+            int owner = int(morphEntries[base]);
+            if (owner >= 0 && uint(owner) != material) continue;
+            float alpha = uintBitsToFloat(morphEntries[base + 2u]);
+            vec4 edge = uintBitsToFloat(uvec4(morphEntries[base + 3u], morphEntries[base + 4u],
+                                              morphEntries[base + 5u], morphEntries[base + 6u]));
+            float size = uintBitsToFloat(morphEntries[base + 7u]);
+            if (morphEntries[base + 1u] == 0u) {
+                mulAlpha *= mix(1.0, alpha, w);
+                mulEdge *= mix(vec4(1.0), edge, w);
+                mulSize *= mix(1.0, size, w);
+            } else {
+                addAlpha += alpha * w;
+                addEdge += edge * w;
+                addSize += size * w;
+            }
+        }
+    }
+}
+
+void main() {
+    uint i = gl_GlobalInvocationID.x;
+    float mulAlpha, addAlpha, mulSize, addSize;
+    vec4 mulEdge, addEdge;
+
+    if (i < SubMeshCount) {
+        uvec4 sub = subMeshes[i];
+        evaluate(sub.x, mulAlpha, addAlpha, mulEdge, addEdge, mulSize, addSize);
+        float alpha = uintBitsToFloat(sub.w) * mulAlpha + addAlpha;
+        uint base = i * 5u;
+        drawCommands[base] = sub.z;
+        drawCommands[base + 1u] = alpha < ALPHA_EPSILON ? 0u : 1u;
+        drawCommands[base + 2u] = sub.y;
+        drawCommands[base + 3u] = 0u;
+        drawCommands[base + 4u] = 0u;
+    }
+
+    if (EdgeStride != 0u && i < MaterialCount) {
+        evaluate(i, mulAlpha, addAlpha, mulEdge, addEdge, mulSize, addSize);
+        uint base = i * 5u;
+        vec4 edge = vec4(materialEdges[base], materialEdges[base + 1u],
+                         materialEdges[base + 2u], materialEdges[base + 3u]) * mulEdge + addEdge;
+        float size = materialEdges[base + 4u] * mulSize + addSize;
+        if (edge.a <= ALPHA_EPSILON) size = 0.0;
+        // 与 ToonOutlinePass.encodeEdge 相同的编码
+        float normalized = clamp(size / MAX_EDGE_SIZE, 0.0, 1.0);
+        edgeOutput[i * EdgeStride] = vec4(edge.rgb, (1.0 + floor(normalized * 254.0 + 0.5)) / 255.0);
+    }
+}
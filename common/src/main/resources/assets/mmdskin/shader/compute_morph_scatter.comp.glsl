@@ -0,0 +1,76 @@
+#version 430 core
+// LOCAL_SIZE_X 由 SkinningComputeShader 在 #version 之后注入（与蒙皮程序一致）
+#ifndef LOCAL_SIZE_X
+#define LOCAL_SIZE_X 256
+#endif
+layout(local_size_x = LOCAL_SIZE_X) in;
+
+// 稀疏 Morph 散射：每个线程处理一个活动 Morph 的一个条目，
+// 把 偏移 × 权重 以定点形式原子累加到目标顶点，随后由 compute_skinning 读取并清零。
+// 工作量等于本批次所有非零权重 Morph 的受影响顶点数之和，与 Morph 总数无关。
+
+// 定点累加比例，需与 compute_skinning.comp.glsl 一致
+const float MORPH_FIXED_SCALE = 65536.0;
+const uint MORPH_TARGET_POSITION = 0u;
+
+// 稀疏条目池：x = 实例内顶点索引，yzw = 偏移（float 位模式，UV 条目 w 为 0）
+layout(std430, binding = 5) readonly buffer MorphEntries {
+    uvec4 morphEntries[];
+};
+
+struct ActiveMorph {
+    uint firstThread;   // 本 Morph 第一个条目对应的线程序号（前缀和）
+    uint entryBase;     // 条目池中的起始条目
+    uint entryCount;
+    uint vertexBase;    // 实例在共享顶点存储中的起点
+    float weight;
+    uint target;        // 0 = 位置，1 = UV
+    uint reserved0;
+    uint reserved1;
+};
+layout(std430, binding = 6) readonly buffer ActiveMorphs {
+    ActiveMorph activeMorphs[];
+};
+
+layout(std430, binding = 10) buffer MorphPositionAccum {
+    int morphPositionAccum[];
+};
+layout(std430, binding = 11) buffer MorphUvAccum {
+    int morphUvAccum[];
+};
+
+uniform uint ActiveMorphCount;
+uniform uint TotalEntries;
+
+void main() {
+    uint t = gl_GlobalInvocationID.x;
+    if (t >= TotalEntries || ActiveMorphCount == 0u) return;
+
+    // 二分查找 firstThread <= t 的最后一个活动 Morph
+    uint lo = 0u;
+    uint hi = ActiveMorphCount - 1u;
+    while (lo < hi) {
+        uint mid = (lo + hi + 1u) >> 1;
+        if (activeMorphs[mid].firstThread <= t) {
+            lo = mid;
+        } else {
+            hi = mid - 1u;
+        }
+    }
+    ActiveMorph am = activeMorphs[lo];
+
+    uvec4 entry = morphEntries[am.entryBase + (t - am.firstThread)];
+    uint vid = am.vertexBase + entry.x;
+    ivec3 delta = ivec3(round(uintBitsToFloat(entry.yzw) * (am.weight * MORPH_FIXED_SCALE)));
+
+    if (am.target == MORPH_TARGET_POSITION) {
+        uint base3 = vid * 3u;
+        if (delta.x != 0) atomicAdd(morphPositionAccum[base3], delta.x);
+        if (delta.y != 0) atomicAdd(morphPositionAccum[base3 + 1u], delta.y);
+        if (delta.z != 0) atomicAdd(morphPositionAccum[base3 + 2u], delta.z);
+    } else {
+        uint base2 = vid * 2u;
+        if (delta.x != 0) atomicAdd(morphUvAccum[base2], delta.x);
+        if (delta.y != 0) atomicAdd(morphUvAccum[base2 + 1u], delta.y);
+    }
+}
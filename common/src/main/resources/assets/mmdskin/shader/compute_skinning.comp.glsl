@@ -1,139 +1,177 @@
 #version 430 core
-layout(local_size_x = 256) in;
 
-// 输入数据（只读）
+// 变体宏（由 SkinningComputeShader 在 #version 之后注入）：
+// LOCAL_SIZE_X    工作组大小
+// MORPH_POSITION  包含顶点 Morph 路径
+// MORPH_UV        包含 UV Morph 路径
+// MAX_INFLUENCES  每顶点参与计算的骨骼槽位数（1 / 2 / 4）
+#ifndef LOCAL_SIZE_X
+#define LOCAL_SIZE_X 256
+#endif
+#ifndef MAX_INFLUENCES
+#define MAX_INFLUENCES 4
+#endif
+layout(local_size_x = LOCAL_SIZE_X) in;
+
+// 批量蒙皮：一次分派处理本批次同一变体的实例，InstanceBase + gl_WorkGroupID.y 为实例序号，
+// 各实例的顶点区间与骨骼矩阵位置来自实例描述符。
+// Morph 偏移由 compute_morph_scatter 预先累加到定点累加缓冲区，这里读取后清零。
+
+// 定点累加比例，需与 compute_morph_scatter.comp.glsl 一致
+const float MORPH_FIXED_SCALE = 65536.0;
+const int MORPH_FLAG_POSITION = 1;
+const int MORPH_FLAG_UV = 2;
+const uint INVALID_BONE = 0xFFFFu;
+
+// 共享输入（按实例顶点区间寻址，只读）
 layout(std430, binding = 0) readonly buffer OriginalPositions {
     float origPositions[];
 };
+// 法线：snorm16 × 4（第 4 分量为 0），每顶点 2 个 uint
 layout(std430, binding = 1) readonly buffer OriginalNormals {
-    float origNormals[];
+    uint origNormals[];
 };
+// 骨骼索引：uint16 × 4，每顶点 2 个 uint
 layout(std430, binding = 2) readonly buffer BoneIndicesBuffer {
-    int boneIndices[];
+    uint boneIndices[];
 };
+// 骨骼权重：unorm16 × 4，每顶点 2 个 uint
 layout(std430, binding = 3) readonly buffer BoneWeightsBuffer {
-    float boneWeights[];
+    uint boneWeights[];
 };
+// 本批次所有实例的骨骼矩阵：3×4 仿射（矩阵前三行），每骨骼 3 个 vec4，按实例 boneBase 寻址
 layout(std430, binding = 4) readonly buffer BoneMatrices {
-    mat4 boneMatrices[];
-};
-// 顶点 Morph 数据（只读）
-layout(std430, binding = 5) readonly buffer MorphOffsets {
-    float morphOffsets[];
-};
-layout(std430, binding = 6) readonly buffer MorphWeights {
-    float morphWeights[];
+    vec4 boneRows[];
 };
 // 输出数据（写入）
 layout(std430, binding = 7) writeonly buffer SkinnedPositions {
     float skinnedPositions[];
 };
+// 法线输出：snorm16 × 4，每顶点 2 个 uint（绑定为 VBO 时按归一化 GL_SHORT 读取）
 layout(std430, binding = 8) writeonly buffer SkinnedNormals {
-    float skinnedNormals[];
+    uint skinnedNormals[];
 };
-// UV Morph 数据（只读）
 layout(std430, binding = 9) readonly buffer OriginalUVs {
     float origUVs[];
 };
-layout(std430, binding = 10) readonly buffer UvMorphOffsets {
-    float uvMorphOffsets[];
+// Morph 累加结果（定点，读取后清零）
+layout(std430, binding = 10) buffer MorphPositionAccum {
+    int morphPositionAccum[];
 };
-layout(std430, binding = 11) readonly buffer UvMorphWeights {
-    float uvMorphWeights[];
+layout(std430, binding = 11) buffer MorphUvAccum {
+    int morphUvAccum[];
 };
 // 蒙皮后 UV（写入）
 layout(std430, binding = 12) writeonly buffer SkinnedUVs {
     float skinnedUVs[];
 };
-uniform int VertexCount;
-uniform int MorphCount;
-uniform int MaxBones;
-uniform int UvMorphCount;
+
+struct SkinInstance {
+    int vertexBase;
+    int vertexCount;
+    int boneBase;
+    int boneCount;
+    int morphFlags;
+    int reserved0;
+    int reserved1;
+    int reserved2;
+};
+layout(std430, binding = 13) readonly buffer Instances {
+    SkinInstance instances[];
+};
+
+// 本次分派的首个实例在描述符数组中的序号
+uniform uint InstanceBase;
 
 void main() {
-    uint vid = gl_GlobalInvocationID.x;
-    if (vid >= VertexCount) return;
+    SkinInstance inst = instances[InstanceBase + gl_WorkGroupID.y];
+    uint local = gl_GlobalInvocationID.x;
+    if (local >= uint(inst.vertexCount)) return;
 
-    uint base3 = vid * 3;
-    uint base4 = vid * 4;
-    uint base2 = vid * 2;
+    uint vid = uint(inst.vertexBase) + local;
+    uint base3 = vid * 3u;
+    uint base2 = vid * 2u;
 
     // 读取原始位置和法线
-    vec3 pos = vec3(origPositions[base3], origPositions[base3 + 1], origPositions[base3 + 2]);
-    vec3 nor = vec3(origNormals[base3], origNormals[base3 + 1], origNormals[base3 + 2]);
-
-    // 应用顶点 Morph 偏移
-    if (MorphCount > 0) {
-        for (int m = 0; m < MorphCount && m < 128; m++) {
-            float w = morphWeights[m];
-            if (w > 0.001) {
-                uint offsetIdx = uint(m) * uint(VertexCount) * 3u + vid * 3u;
-                pos.x += morphOffsets[offsetIdx] * w;
-                pos.y += morphOffsets[offsetIdx + 1u] * w;
-                pos.z += morphOffsets[offsetIdx + 2u] * w;
-            }
+    vec3 pos = vec3(origPositions[base3], origPositions[base3 + 1u], origPositions[base3 + 2u]);
+    vec3 nor = vec3(unpackSnorm2x16(origNormals[base2]), unpackSnorm2x16(origNormals[base2 + 1u]).x);
+
+#ifdef MORPH_POSITION
+    // 应用顶点 Morph 偏移（仅本帧有活动顶点 Morph 的实例）
+    if ((inst.morphFlags & MORPH_FLAG_POSITION) != 0) {
+        ivec3 acc = ivec3(morphPositionAccum[base3], morphPositionAccum[base3 + 1u], morphPositionAccum[base3 + 2u]);
+        if (acc != ivec3(0)) {
+            pos += vec3(acc) / MORPH_FIXED_SCALE;
+            morphPositionAccum[base3] = 0;
+            morphPositionAccum[base3 + 1u] = 0;
+            morphPositionAccum[base3 + 2u] = 0;
         }
     }
+#endif
+
+    // 读取骨骼数据（索引为模型内局部索引；槽位数不超过 2 时只读前一半）
+    uint packedIdx0 = boneIndices[base2];
+#if MAX_INFLUENCES > 2
+    uint packedIdx1 = boneIndices[base2 + 1u];
+    uvec4 bi = uvec4(packedIdx0 & 0xFFFFu, packedIdx0 >> 16, packedIdx1 & 0xFFFFu, packedIdx1 >> 16);
+    vec4 bw = vec4(unpackUnorm2x16(boneWeights[base2]), unpackUnorm2x16(boneWeights[base2 + 1u]));
+#else
+    uvec4 bi = uvec4(packedIdx0 & 0xFFFFu, packedIdx0 >> 16, INVALID_BONE, INVALID_BONE);
+    vec4 bw = vec4(unpackUnorm2x16(boneWeights[base2]), 0.0, 0.0);
+#endif
 
-    // 读取骨骼数据
-    ivec4 bi = ivec4(
-            boneIndices[base4], boneIndices[base4 + 1],
-            boneIndices[base4 + 2], boneIndices[base4 + 3]
-    );
-    vec4 bw = vec4(
-            boneWeights[base4], boneWeights[base4 + 1],
-            boneWeights[base4 + 2], boneWeights[base4 + 3]
-    );
-
-    // 计算蒙皮矩阵（归一化权重）
+    // 计算蒙皮矩阵（归一化权重），三行仿射矩阵按行累加
     float totalWeight = 0.0;
-    for (int i = 0; i < 4; i++) {
-        if (bi[i] >= 0 && bi[i] < MaxBones) {
+    for (int i = 0; i < MAX_INFLUENCES; i++) {
+        if (bi[i] != INVALID_BONE && bi[i] < uint(inst.boneCount)) {
             totalWeight += bw[i];
         }
     }
 
-    mat4 skinMatrix = mat4(0.0);
+    vec4 row0 = vec4(1.0, 0.0, 0.0, 0.0);
+    vec4 row1 = vec4(0.0, 1.0, 0.0, 0.0);
+    vec4 row2 = vec4(0.0, 0.0, 1.0, 0.0);
     if (totalWeight > 0.001) {
         float invWeight = 1.0 / totalWeight;
-        for (int i = 0; i < 4; i++) {
-            if (bi[i] >= 0 && bi[i] < MaxBones && bw[i] > 0.0) {
-                skinMatrix += boneMatrices[bi[i]] * (bw[i] * invWeight);
+        row0 = vec4(0.0);
+        row1 = vec4(0.0);
+        row2 = vec4(0.0);
+        for (int i = 0; i < MAX_INFLUENCES; i++) {
+            if (bi[i] != INVALID_BONE && bi[i] < uint(inst.boneCount) && bw[i] > 0.0) {
+                uint rowBase = (uint(inst.boneBase) + bi[i]) * 3u;
+                float w = bw[i] * invWeight;
+                row0 += boneRows[rowBase] * w;
+                row1 += boneRows[rowBase + 1u] * w;
+                row2 += boneRows[rowBase + 2u] * w;
             }
         }
-    } else {
-        skinMatrix = mat4(1.0);
     }
 
     // 应用蒙皮变换
-    vec4 skinnedPos = skinMatrix * vec4(pos, 1.0);
-    mat3 normalMat = mat3(skinMatrix);
-    vec3 skinnedNor = normalize(normalMat * nor);
+    vec4 p = vec4(pos, 1.0);
+    vec3 skinnedPos = vec3(dot(row0, p), dot(row1, p), dot(row2, p));
+    vec3 skinnedNor = normalize(vec3(dot(row0.xyz, nor), dot(row1.xyz, nor), dot(row2.xyz, nor)));
 
     // 写入位置/法线输出
     skinnedPositions[base3] = skinnedPos.x;
-    skinnedPositions[base3 + 1] = skinnedPos.y;
-    skinnedPositions[base3 + 2] = skinnedPos.z;
-
-    skinnedNormals[base3] = skinnedNor.x;
-    skinnedNormals[base3 + 1] = skinnedNor.y;
-    skinnedNormals[base3 + 2] = skinnedNor.z;
-
-    // 应用 UV Morph 偏移并写入输出（UvMorphCount < 0 表示无 UV 处理）
-    if (UvMorphCount >= 0) {
-        float u = origUVs[base2];
-        float v = origUVs[base2 + 1];
-        if (UvMorphCount > 0) {
-            for (int m = 0; m < UvMorphCount && m < 32; m++) {
-                float w = uvMorphWeights[m];
-                if (abs(w) > 0.001) {
-                    uint uvIdx = uint(m) * uint(VertexCount) * 2u + vid * 2u;
-                    u += uvMorphOffsets[uvIdx] * w;
-                    v += uvMorphOffsets[uvIdx + 1u] * w;
-                }
-            }
+    skinnedPositions[base3 + 1u] = skinnedPos.y;
+    skinnedPositions[base3 + 2u] = skinnedPos.z;
+
+    skinnedNormals[base2] = packSnorm2x16(skinnedNor.xy);
+    skinnedNormals[base2 + 1u] = packSnorm2x16(vec2(skinnedNor.z, 0.0));
+
+    // 应用 UV Morph 偏移并写入输出
+    vec2 uv = vec2(origUVs[base2], origUVs[base2 + 1u]);
+#ifdef MORPH_UV
+    if ((inst.morphFlags & MORPH_FLAG_UV) != 0) {
+        ivec2 acc = ivec2(morphUvAccum[base2], morphUvAccum[base2 + 1u]);
+        if (acc != ivec2(0)) {
+            uv += vec2(acc) / MORPH_FIXED_SCALE;
+            morphUvAccum[base2] = 0;
+            morphUvAccum[base2 + 1u] = 0;
         }
-        skinnedUVs[base2] = u;
-        skinnedUVs[base2 + 1] = v;
     }
-}
\ No newline at end of file
+#endif
+    skinnedUVs[base2] = uv.x;
+    skinnedUVs[base2 + 1u] = uv.y;
+}
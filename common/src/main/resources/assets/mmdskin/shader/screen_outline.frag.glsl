@@ -0,0 +1,60 @@
+#version 330 core
+
+in vec2 texCoord;
+
+uniform sampler2D EdgeSampler;   // 边缘掩码：rgb = 材质边缘色，a = 编码后的边缘大小（0 = 非 MMD 像素）
+uniform sampler2D DepthSampler;  // 主渲染目标深度
+uniform vec2 TexelSize;          // 1 / 分辨率
+uniform float OutlineWidth;      // 描边宽度（像素，再乘材质边缘大小）
+uniform vec2 DepthParams;        // 投影矩阵 (m22, m32)，用于还原线性深度
+uniform int MaxSteps;            // 单方向最大采样步数
+
+out vec4 fragColor;
+
+// 与 ToonOutlinePass.MAX_EDGE_SIZE 一致
+const float MAX_EDGE_SIZE = 4.0;
+
+const vec2 DIRECTIONS[8] = vec2[8](
+    vec2( 1.0,  0.0), vec2(-1.0,  0.0), vec2( 0.0,  1.0), vec2( 0.0, -1.0),
+    vec2( 0.7071,  0.7071), vec2(-0.7071,  0.7071),
+    vec2( 0.7071, -0.7071), vec2(-0.7071, -0.7071)
+);
+
+float linearDepth(float depth) {
+    return DepthParams.y / ((depth * 2.0 - 1.0) + DepthParams.x);
+}
+
+float decodeEdgeSize(float a) {
+    return max(a * 255.0 - 1.0, 0.0) / 254.0 * MAX_EDGE_SIZE;
+}
+
+void main() {
+    bool centerMmd = texture(EdgeSampler, texCoord).a > 0.0;
+    float centerDepth = linearDepth(texture(DepthSampler, texCoord).r);
+
+    // 由近到远搜索：最近的满足条件的 MMD 邻居决定描边颜色
+    for (int dist = 1; dist <= MaxSteps; ++dist) {
+        for (int i = 0; i < 8; ++i) {
+            vec2 uv = texCoord + DIRECTIONS[i] * float(dist) * TexelSize;
+            vec4 neighbor = texture(EdgeSampler, uv);
+            if (neighbor.a <= 0.0) continue;
+
+            float reach = OutlineWidth * decodeEdgeSize(neighbor.a);
+            if (float(dist) > reach + 0.5) continue;
+
+            float neighborDepth = linearDepth(texture(DepthSampler, uv).r);
+            float threshold = max(0.05, neighborDepth * 0.03);
+            if (centerMmd) {
+                // MMD 像素内部：只在明显更远处（前后遮挡轮廓）描边
+                if (centerDepth - neighborDepth < threshold) continue;
+            } else {
+                // 轮廓外侧：被更近的世界几何遮挡时不描边
+                if (neighborDepth - centerDepth > threshold) continue;
+            }
+
+            fragColor = vec4(neighbor.rgb, 1.0);
+            return;
+        }
+    }
+    discard;
+}
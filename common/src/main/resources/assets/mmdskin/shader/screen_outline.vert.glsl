@@ -0,0 +1,10 @@
+#version 330 core
+
+// 全屏三角形（无顶点缓冲，由 gl_VertexID 生成）
+out vec2 texCoord;
+
+void main() {
+    vec2 pos = vec2(float((gl_VertexID << 1) & 2), float(gl_VertexID & 2));
+    texCoord = pos;
+    gl_Position = vec4(pos * 2.0 - 1.0, 0.0, 1.0);
+}
@@ -5,17 +5,24 @@ in vec3 viewNormal;
 in vec3 viewPos;
 
 uniform sampler2D Sampler0;
-uniform float LightIntensity;
-uniform int ToonLevels;          // 色阶数量（2-5）
-uniform float RimPower;          // 边缘光锐度
-uniform float RimIntensity;      // 边缘光强度
-uniform vec3 ShadowColor;        // 阴影色调
-uniform float SpecularPower;     // 高光锐度
-uniform float SpecularIntensity; // 高光强度
+// 逐模型 Uniform 块（std140，布局见 ToonShaderBase）
+layout(std140) uniform ToonModelBlock {
+    mat4 ProjMat;
+    mat4 ModelViewMat;
+    vec4 ShadowColorLight;   // rgb = 阴影色调, a = 光照强度
+    vec4 RimSpecular;        // 边缘光锐度, 边缘光强度, 高光锐度, 高光强度
+    vec4 OutlineParams;      // rgb = 描边颜色, a = 描边宽度
+    ivec4 ToonFlags;         // x = 色阶数量（2-5）, y = 屏幕空间描边掩码开关（由 EDGE_MASK 变体选择）
+};
+
+// 逐材质 Uniform 块（std140，每个子网格按范围绑定对应材质项）
+layout(std140) uniform ToonMaterialBlock {
+    vec4 EdgeData;           // 边缘掩码（rgb = 边缘色，a = 编码后的边缘大小）
+};
 
 // MRT 多输出：兼容 Iris G-buffer FBO
 // location 0 → colortex0（漫反射色 + alpha）
-// location 1 → colortex1（编码法线）
+// location 1 → colortex1（编码法线；屏幕空间描边时为边缘掩码）
 // location 2 → colortex2（光照图 / 高光数据）
 // location 3 → colortex3（保留）
 layout(location = 0) out vec4 fragColor;
@@ -27,6 +34,14 @@ float toonify(float value, int levels) {
     return floor(value * float(levels) + 0.5) / float(levels);
 }
 void main() {
+    float LightIntensity = ShadowColorLight.a;
+    vec3 ShadowColor = ShadowColorLight.rgb;
+    int ToonLevels = ToonFlags.x;
+    float RimPower = RimSpecular.x;
+    float RimIntensity = RimSpecular.y;
+    float SpecularPower = RimSpecular.z;
+    float SpecularIntensity = RimSpecular.w;
+
     vec4 texColor = texture(Sampler0, texCoord0);
     vec3 normal = normalize(viewNormal);
 
@@ -69,7 +84,11 @@ void main() {
 
     // MRT 输出
     fragColor  = vec4(finalColor, texColor.a);          // 漫反射色
+#ifdef EDGE_MASK
+    fragData1  = EdgeData;                              // 边缘掩码（屏幕空间描边变体）
+#else
     fragData1  = vec4(normal * 0.5 + 0.5, 1.0);         // 编码法线 [-1,1]→[0,1]
+#endif
     fragData2  = vec4(0.0, 0.0, 0.0, 1.0);              // 光照图占位
     fragData3  = vec4(0.0, 0.0, 0.0, 1.0);              // 保留
 }
\ No newline at end of file
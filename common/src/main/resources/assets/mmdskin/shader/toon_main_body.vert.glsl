@@ -4,8 +4,15 @@ layout(location = 0) in vec3 Position;
 layout(location = 1) in vec3 Normal;
 layout(location = 2) in vec2 UV0;
 
-uniform mat4 ProjMat;
-uniform mat4 ModelViewMat;
+// 逐模型 Uniform 块（std140，布局见 ToonShaderBase）
+layout(std140) uniform ToonModelBlock {
+    mat4 ProjMat;
+    mat4 ModelViewMat;
+    vec4 ShadowColorLight;   // rgb = 阴影色调, a = 光照强度
+    vec4 RimSpecular;        // 边缘光锐度, 边缘光强度, 高光锐度, 高光强度
+    vec4 OutlineParams;      // rgb = 描边颜色, a = 描边宽度
+    ivec4 ToonFlags;         // x = 色阶数量（2-5）, y = 屏幕空间描边掩码开关
+};
 
 out vec2 texCoord0;
 out vec3 viewNormal;
@@ -3,7 +3,15 @@
 in vec3 viewNormal;
 in vec3 viewPos;
 
-uniform vec3 OutlineColor;
+// 逐模型 Uniform 块（std140，布局见 ToonShaderBase）
+layout(std140) uniform ToonModelBlock {
+    mat4 ProjMat;
+    mat4 ModelViewMat;
+    vec4 ShadowColorLight;   // rgb = 阴影色调, a = 光照强度
+    vec4 RimSpecular;        // 边缘光锐度, 边缘光强度, 高光锐度, 高光强度
+    vec4 OutlineParams;      // rgb = 描边颜色, a = 描边宽度
+    ivec4 ToonFlags;         // x = 色阶数量（2-5）, y = 屏幕空间描边掩码开关
+};
 // MRT 多输出：兼容 Iris G-buffer FBO
 layout(location = 0) out vec4 fragColor;
 layout(location = 1) out vec4 fragData1;
@@ -22,7 +30,7 @@ void main() {
     }
 
     // MRT 输出
-    fragColor  = vec4(OutlineColor, 1.0);               // 描边色
+    fragColor  = vec4(OutlineParams.rgb, 1.0);               // 描边色
     fragData1  = vec4(normal * 0.5 + 0.5, 1.0);         // 编码法线
     fragData2  = vec4(0.0, 0.0, 0.0, 1.0);              // 光照图占位
     fragData3  = vec4(0.0, 0.0, 0.0, 1.0);              // 保留
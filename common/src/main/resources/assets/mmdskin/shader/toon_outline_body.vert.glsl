@@ -3,9 +3,15 @@
 layout(location = 0) in vec3 Position;
 layout(location = 1) in vec3 Normal;
 
-uniform mat4 ProjMat;
-uniform mat4 ModelViewMat;
-uniform float OutlineWidth;
+// 逐模型 Uniform 块（std140，布局见 ToonShaderBase）
+layout(std140) uniform ToonModelBlock {
+    mat4 ProjMat;
+    mat4 ModelViewMat;
+    vec4 ShadowColorLight;   // rgb = 阴影色调, a = 光照强度
+    vec4 RimSpecular;        // 边缘光锐度, 边缘光强度, 高光锐度, 高光强度
+    vec4 OutlineParams;      // rgb = 描边颜色, a = 描边宽度
+    ivec4 ToonFlags;         // x = 色阶数量（2-5）, y = 屏幕空间描边掩码开关
+};
 
 out vec3 viewNormal;
 out vec3 viewPos;
@@ -17,7 +23,7 @@ void main() {
 
     // 沿法线方向扩张顶点（背面扩张法）
     vec4 vPos = ModelViewMat * vec4(Position, 1.0);
-    vPos.xyz += transformedNormal * OutlineWidth;
+    vPos.xyz += transformedNormal * OutlineParams.a;
 
     gl_Position = ProjMat * vPos;
     viewNormal = transformedNormal;
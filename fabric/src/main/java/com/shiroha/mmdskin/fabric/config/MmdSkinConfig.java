@@ -67,6 +67,11 @@ public final class MmdSkinConfig implements ConfigManager.IConfigProvider {
         return data.gpuMorphEnabled;
     }
     
+    @Override
+    public boolean isGpuResidentModeEnabled() {
+        return data.gpuResidentModeEnabled;
+    }
+    
     @Override
     public boolean isToonRenderingEnabled() {
         return data.toonRenderingEnabled;
@@ -142,6 +147,11 @@ public final class MmdSkinConfig implements ConfigManager.IConfigProvider {
         return data.maxBones;
     }
     
+    @Override
+    public int getSkinningWorkgroupSize() {
+        return data.skinningWorkgroupSize;
+    }
+    
     // ==================== 物理引擎配置（Bullet3） ====================
     
     @Override
@@ -208,4 +218,39 @@ public final class MmdSkinConfig implements ConfigManager.IConfigProvider {
     public int getTextureCacheBudgetMB() {
         return data.textureCacheBudgetMB;
     }
+    
+    @Override
+    public boolean isImpostorEnabled() {
+        return data.impostorEnabled;
+    }
+    
+    @Override
+    public int getImpostorDistance() {
+        return data.impostorDistance;
+    }
+    
+    @Override
+    public int getImpostorFadeRange() {
+        return data.impostorFadeRange;
+    }
+    
+    @Override
+    public boolean isToonOutlineScreenSpace() {
+        return data.toonOutlineScreenSpace;
+    }
+    
+    @Override
+    public int getToonOutlineScreenWidth() {
+        return data.toonOutlineScreenWidth;
+    }
+    
+    @Override
+    public boolean isOcclusionCullingEnabled() {
+        return data.occlusionCullingEnabled;
+    }
+    
+    @Override
+    public boolean isGpuCrowdAnimationEnabled() {
+        return data.gpuCrowdAnimationEnabled;
+    }
 }
@@ -0,0 +1,29 @@
+package com.shiroha.mmdskin.mixin.fabric;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.shiroha.mmdskin.renderer.shader.GlStateTracker;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * GlStateManager Mixin — 同步 GL 状态影子
+ * 
+ * 所有经由 GlStateManager 的程序切换（原版 ShaderInstance、Iris 等）与帧缓冲绑定（RenderTarget 等）
+ * 都会更新 GlStateTracker，使 Compute 分派前后无需 glGetInteger(GL_CURRENT_PROGRAM) 回读当前程序，
+ * Toon 绘制前无需 glGetInteger(GL_DRAW_FRAMEBUFFER_BINDING) 回读当前帧缓冲。
+ */
+@Mixin(GlStateManager.class)
+public abstract class GlStateManagerMixin {
+    
+    @Inject(method = "_glUseProgram", at = @At("HEAD"))
+    private static void onUseProgram(int program, CallbackInfo ci) {
+        GlStateTracker.onUseProgram(program);
+    }
+
+    @Inject(method = "_glBindFramebuffer", at = @At("HEAD"))
+    private static void onBindFramebuffer(int target, int framebuffer, CallbackInfo ci) {
+        GlStateTracker.onBindFramebuffer(target, framebuffer);
+    }
+}
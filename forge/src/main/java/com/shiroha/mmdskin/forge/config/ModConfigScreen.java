@@ -13,6 +13,9 @@ import net.minecraft.network.chat.Component;
  */
 public class ModConfigScreen {
     
+    /** 蒙皮工作组大小选项（0 = 自动测定） */
+    private static final int[] WORKGROUP_SIZES = {0, 64, 128, 256, 512};
+    
     /**
      * 创建模组设置界面
      */
@@ -109,6 +112,15 @@ public class ModConfigScreen {
             .setSaveConsumer(value -> data.gpuMorphEnabled = value)
             .build());
         
+        performanceCategory.addEntry(entryBuilder
+            .startBooleanToggle(
+                Component.translatable("gui.mmdskin.mod_settings.gpu_resident"),
+                data.gpuResidentModeEnabled)
+            .setDefaultValue(false)
+            .setTooltip(Component.translatable("gui.mmdskin.mod_settings.gpu_resident.tooltip"))
+            .setSaveConsumer(value -> data.gpuResidentModeEnabled = value)
+            .build());
+        
         performanceCategory.addEntry(entryBuilder
             .startIntSlider(
                 Component.translatable("gui.mmdskin.mod_settings.max_bones"),
@@ -118,6 +130,18 @@ public class ModConfigScreen {
             .setSaveConsumer(value -> data.maxBones = value)
             .build());
         
+        performanceCategory.addEntry(entryBuilder
+            .startIntSlider(
+                Component.translatable("gui.mmdskin.mod_settings.skinning_workgroup"),
+                workgroupSizeIndex(data.skinningWorkgroupSize), 0, WORKGROUP_SIZES.length - 1)
+            .setDefaultValue(0)
+            .setTooltip(Component.translatable("gui.mmdskin.mod_settings.skinning_workgroup.tooltip"))
+            .setTextGetter(value -> value == 0
+                ? Component.translatable("gui.mmdskin.mod_settings.skinning_workgroup.auto")
+                : Component.literal(String.valueOf(WORKGROUP_SIZES[value])))
+            .setSaveConsumer(value -> data.skinningWorkgroupSize = WORKGROUP_SIZES[value])
+            .build());
+        
         performanceCategory.addEntry(entryBuilder
             .startIntSlider(
                 Component.translatable("gui.mmdskin.mod_settings.texture_cache_budget"),
@@ -128,6 +152,53 @@ public class ModConfigScreen {
             .setSaveConsumer(value -> data.textureCacheBudgetMB = value)
             .build());
         
+        performanceCategory.addEntry(entryBuilder
+            .startBooleanToggle(
+                Component.translatable("gui.mmdskin.mod_settings.impostor"),
+                data.impostorEnabled)
+            .setDefaultValue(true)
+            .setTooltip(Component.translatable("gui.mmdskin.mod_settings.impostor.tooltip"))
+            .setSaveConsumer(value -> data.impostorEnabled = value)
+            .build());
+        
+        performanceCategory.addEntry(entryBuilder
+            .startIntSlider(
+                Component.translatable("gui.mmdskin.mod_settings.impostor_distance"),
+                data.impostorDistance, 16, 256)
+            .setDefaultValue(64)
+            .setTooltip(Component.translatable("gui.mmdskin.mod_settings.impostor_distance.tooltip"))
+            .setTextGetter(value -> Component.literal(value + " m"))
+            .setSaveConsumer(value -> data.impostorDistance = value)
+            .build());
+        
+        performanceCategory.addEntry(entryBuilder
+            .startIntSlider(
+                Component.translatable("gui.mmdskin.mod_settings.impostor_fade"),
+                data.impostorFadeRange, 0, 32)
+            .setDefaultValue(8)
+            .setTooltip(Component.translatable("gui.mmdskin.mod_settings.impostor_fade.tooltip"))
+            .setTextGetter(value -> Component.literal(value + " m"))
+            .setSaveConsumer(value -> data.impostorFadeRange = value)
+            .build());
+        
+        performanceCategory.addEntry(entryBuilder
+            .startBooleanToggle(
+                Component.translatable("gui.mmdskin.mod_settings.occlusion_culling"),
+                data.occlusionCullingEnabled)
+            .setDefaultValue(true)
+            .setTooltip(Component.translatable("gui.mmdskin.mod_settings.occlusion_culling.tooltip"))
+            .setSaveConsumer(value -> data.occlusionCullingEnabled = value)
+            .build());
+        
+        performanceCategory.addEntry(entryBuilder
+            .startBooleanToggle(
+                Component.translatable("gui.mmdskin.mod_settings.gpu_crowd_animation"),
+                data.gpuCrowdAnimationEnabled)
+            .setDefaultValue(false)
+            .setTooltip(Component.translatable("gui.mmdskin.mod_settings.gpu_crowd_animation.tooltip"))
+            .setSaveConsumer(value -> data.gpuCrowdAnimationEnabled = value)
+            .build());
+        
         // Toon 渲染设置分类（3渲2）
         ConfigCategory toonCategory = builder.getOrCreateCategory(
             Component.translatable("gui.mmdskin.mod_settings.category.toon"));
@@ -258,6 +329,25 @@ public class ModConfigScreen {
             .setSaveConsumer(value -> data.toonOutlineB = value / 100.0f)
             .build());
         
+        toonCategory.addEntry(entryBuilder
+            .startBooleanToggle(
+                Component.translatable("gui.mmdskin.mod_settings.toon_outline_screen_space"),
+                data.toonOutlineScreenSpace)
+            .setDefaultValue(false)
+            .setTooltip(Component.translatable("gui.mmdskin.mod_settings.toon_outline_screen_space.tooltip"))
+            .setSaveConsumer(value -> data.toonOutlineScreenSpace = value)
+            .build());
+        
+        toonCategory.addEntry(entryBuilder
+            .startIntSlider(
+                Component.translatable("gui.mmdskin.mod_settings.toon_outline_screen_width"),
+                data.toonOutlineScreenWidth, 1, 6)
+            .setDefaultValue(2)
+            .setTooltip(Component.translatable("gui.mmdskin.mod_settings.toon_outline_screen_width.tooltip"))
+            .setTextGetter(value -> Component.literal(value + " px"))
+            .setSaveConsumer(value -> data.toonOutlineScreenWidth = value)
+            .build());
+        
         // ==================== 物理引擎设置分类（Bullet3） ====================
         ConfigCategory physicsCategory = builder.getOrCreateCategory(
             Component.translatable("gui.mmdskin.mod_settings.category.physics"));
@@ -391,4 +481,11 @@ public class ModConfigScreen {
         
         return builder.build();
     }
+    
+    private static int workgroupSizeIndex(int size) {
+        for (int i = 0; i < WORKGROUP_SIZES.length; i++) {
+            if (WORKGROUP_SIZES[i] == size) return i;
+        }
+        return 0;
+    }
 }
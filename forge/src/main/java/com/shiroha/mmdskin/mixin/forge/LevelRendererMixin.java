@@ -3,6 +3,9 @@ package com.shiroha.mmdskin.mixin.forge;
 import com.shiroha.mmdskin.forge.YsmCompat;
 import com.shiroha.mmdskin.renderer.core.FirstPersonManager;
 import com.shiroha.mmdskin.renderer.core.IrisCompat;
+import com.shiroha.mmdskin.renderer.model.FramePrepass;
+import com.shiroha.mmdskin.renderer.shader.SkinningBatch;
+import com.shiroha.mmdskin.renderer.shader.ToonOutlinePass;
 import com.shiroha.mmdskin.ui.network.PlayerModelSyncManager;
 import net.minecraft.client.Camera;
 import net.minecraft.client.player.AbstractClientPlayer;
@@ -10,20 +13,37 @@ import net.minecraft.client.renderer.LevelRenderer;
 import net.minecraft.world.entity.Entity;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 /**
- * LevelRenderer Mixin — 第一人称 MMD 模型渲染
+ * LevelRenderer Mixin — 第一人称 MMD 模型渲染 + 屏幕空间描边
  * 
  * 在第一人称模式下，Minecraft 默认跳过渲染本地玩家实体。
  * 此 Mixin 通过在 renderLevel 方法内将 Camera.isDetached() 重定向为 true，
  * 使实体渲染循环不再跳过本地玩家，从而触发 PlayerRendererMixin 的 MMD 模型渲染。
  * 
  * 支持 YSM 兼容：根据 YSM 激活状态和配置决定是否渲染。
+ * 
+ * renderLevel 前后标记世界渲染区间，结束时合成本帧的屏幕空间描边。
+ * 入口处对上一帧绘制过的模型统一预处理：并行更新姿态，GPU 蒙皮模型单次 Compute 分派，CPU 蒙皮模型提前上传顶点。
  */
 @Mixin(LevelRenderer.class)
 public abstract class LevelRendererMixin {
     
+    @Inject(method = "renderLevel", at = @At("HEAD"))
+    private void onRenderLevelHead(CallbackInfo ci) {
+        ToonOutlinePass.beginLevel();
+        SkinningBatch.beginLevel();
+        FramePrepass.run();
+    }
+    
+    @Inject(method = "renderLevel", at = @At("RETURN"))
+    private void onRenderLevelReturn(CallbackInfo ci) {
+        ToonOutlinePass.endLevel();
+    }
+    
     @Redirect(
         method = "renderLevel",
         at = @At(value = "INVOKE", target = "Lnet/minecraft/client/Camera;isDetached()Z", ordinal = 0)
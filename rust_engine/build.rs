@@ -78,7 +78,9 @@ fn main() {
         .include(bullet3_dir)
         .include(wrapper_dir)
         .warnings(false)
-        .opt_level(2);
+        .opt_level(2)
+        // 关闭 BT_PROFILE 计时（全局 CProfileManager）：各模型的物理世界会在预处理中并行步进
+        .define("BT_NO_PROFILE", "1");
 
     // 平台特定设置
     let target = std::env::var("TARGET").unwrap_or_default();
@@ -3,58 +3,41 @@
 mod native_func;
 mod model_handle;
 mod animation_handle;
+mod registry;
 
 pub use native_func::*;
 pub use model_handle::ModelHandle;
 pub use animation_handle::AnimationHandle;
 
-use std::collections::HashMap;
-use std::sync::{Arc, Mutex, RwLock};
+use std::sync::Mutex;
 use once_cell::sync::Lazy;
 
 use crate::model::MmdModel;
 use crate::animation::VmdAnimation;
 use crate::texture::Texture;
 
+pub use registry::HandleRegistry;
+
 /// 全局模型存储
-pub static MODELS: Lazy<RwLock<HashMap<i64, Arc<Mutex<MmdModel>>>>> = 
-    Lazy::new(|| RwLock::new(HashMap::new()));
+pub static MODELS: Lazy<HandleRegistry<Mutex<MmdModel>>> = Lazy::new(HandleRegistry::new);
 
 /// 全局动画存储
-pub static ANIMATIONS: Lazy<RwLock<HashMap<i64, Arc<VmdAnimation>>>> = 
-    Lazy::new(|| RwLock::new(HashMap::new()));
+pub static ANIMATIONS: Lazy<HandleRegistry<VmdAnimation>> = Lazy::new(HandleRegistry::new);
 
 /// 全局纹理存储
-pub static TEXTURES: Lazy<RwLock<HashMap<i64, Arc<Texture>>>> = 
-    Lazy::new(|| RwLock::new(HashMap::new()));
-
-/// 生成唯一句柄 ID
-fn next_handle_id() -> i64 {
-    use std::sync::atomic::{AtomicI64, Ordering};
-    static COUNTER: AtomicI64 = AtomicI64::new(1);
-    COUNTER.fetch_add(1, Ordering::SeqCst)
-}
+pub static TEXTURES: Lazy<HandleRegistry<Texture>> = Lazy::new(HandleRegistry::new);
 
 /// 注册模型并返回句柄
 pub fn register_model(model: MmdModel) -> i64 {
-    let id = next_handle_id();
-    let mut models = MODELS.write().unwrap();
-    models.insert(id, Arc::new(Mutex::new(model)));
-    id
+    MODELS.insert(Mutex::new(model))
 }
 
 /// 注册动画并返回句柄
 pub fn register_animation(animation: VmdAnimation) -> i64 {
-    let id = next_handle_id();
-    let mut animations = ANIMATIONS.write().unwrap();
-    animations.insert(id, Arc::new(animation));
-    id
+    ANIMATIONS.insert(animation)
 }
 
 /// 注册纹理并返回句柄
 pub fn register_texture(texture: Texture) -> i64 {
-    let id = next_handle_id();
-    let mut textures = TEXTURES.write().unwrap();
-    textures.insert(id, Arc::new(texture));
-    id
+    TEXTURES.insert(texture)
 }
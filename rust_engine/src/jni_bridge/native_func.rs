@@ -4,16 +4,17 @@
 //! 使用标准 jni 0.21 API
 
 use jni::objects::{JByteBuffer, JClass, JString};
-use jni::sys::{jboolean, jbyte, jfloat, jint, jlong, jstring};
+use jni::sys::{jboolean, jbyte, jfloat, jint, jlong, jobject, jstring};
 use jni::JNIEnv;
+use rayon::prelude::*;
 use std::ptr;
 use std::sync::Arc;
 
 use crate::animation::{VmdAnimation, VmdFile};
-use crate::model::load_pmx;
+use crate::model::{load_pmx, MmdModel};
 use crate::texture::load_texture;
 
-use super::{register_animation, register_model, register_texture, ANIMATIONS, MODELS, TEXTURES};
+use super::{register_animation, register_model, register_texture, HandleRegistry, ANIMATIONS, MODELS, TEXTURES};
 
 const VERSION: &str = "v1.0.3";
 
@@ -144,8 +145,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_DeleteModel(
     _class: JClass,
     model: jlong,
 ) {
-    let mut models = MODELS.write().unwrap_or_else(|e| e.into_inner());
-    models.remove(&model);
+    MODELS.remove(model);
 }
 
 /// 更新模型
@@ -156,8 +156,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_UpdateModel(
     model: jlong,
     delta_time: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         // 更新动画（内部已包含物理更新）
         model.tick_animation(delta_time);
@@ -175,9 +174,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetVertexCount(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| m.lock().unwrap().vertex_count() as jlong)
         .unwrap_or(0)
 }
@@ -191,9 +189,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetPoss(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| {
             let mg = m.lock().unwrap();
             if mg.update_positions_raw.is_empty() { 0 } else { mg.get_positions_ptr() as jlong }
@@ -208,9 +205,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetNormals(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| {
             let mg = m.lock().unwrap();
             if mg.update_normals_raw.is_empty() { 0 } else { mg.get_normals_ptr() as jlong }
@@ -225,9 +221,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetUVs(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| {
             let mg = m.lock().unwrap();
             if mg.update_uvs_raw.is_empty() { 0 } else { mg.get_uvs_ptr() as jlong }
@@ -235,6 +230,34 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetUVs(
         .unwrap_or(0)
 }
 
+/// 获取 CPU 蒙皮输出的直接视图（NewDirectByteBuffer，上传时零拷贝）
+///
+/// slot: 双缓冲分配序号（0/1，最新输出所在序号由 ExecuteFrameCommands 输出标志给出）；
+/// stream: 0 = 位置(3f)、1 = 法线(3f)、2 = UV(2f)。
+/// 视图指向模型内部固定的分配，DeleteModel 之后不得再访问；GPU 常驻模式下返回 null
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetSkinningOutputView(
+    mut env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    slot: jint,
+    stream: jint,
+) -> jobject {
+    let region = MODELS
+        .get(model)
+        .and_then(|m| m.lock().unwrap().skinning_output_view(slot.max(0) as usize, stream.max(0) as usize));
+    match region {
+        Some((data, len)) => match unsafe { env.new_direct_byte_buffer(data, len) } {
+            Ok(buffer) => buffer.into_raw(),
+            Err(e) => {
+                log::error!("GetSkinningOutputView: 创建直接缓冲区失败: {}", e);
+                ptr::null_mut()
+            }
+        },
+        None => ptr::null_mut(),
+    }
+}
+
 // ============================================================================
 // 索引数据函数
 // ============================================================================
@@ -256,9 +279,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetIndexCount(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| m.lock().unwrap().index_count() as jlong)
         .unwrap_or(0)
 }
@@ -270,13 +292,87 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetIndices(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| m.lock().unwrap().get_indices_ptr() as jlong)
         .unwrap_or(0)
 }
 
+// ============================================================================
+// 网格 LOD 相关函数
+// ============================================================================
+
+/// 获取简化 LOD 级别数量（不含原始网格）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetLodLevelCount(
+    _env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+) -> jint {
+    MODELS
+        .get(model)
+        .map(|m| m.lock().unwrap().lod_level_count() as jint)
+        .unwrap_or(0)
+}
+
+/// 设置当前 LOD 级别（0 = 原始网格），影响 BatchGetSubMeshData 输出的索引范围
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetLodLevel(
+    _env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    level: jint,
+) {
+    if let Some(model_arc) = MODELS.get(model) {
+        model_arc.lock().unwrap().set_lod_level(level.max(0) as usize);
+    }
+}
+
+/// 获取所有 LOD 级别拼接后的索引总数
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetLodIndexCount(
+    _env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+) -> jlong {
+    MODELS
+        .get(model)
+        .map(|m| m.lock().unwrap().lod_index_count() as jlong)
+        .unwrap_or(0)
+}
+
+/// 复制所有 LOD 级别的索引到 ByteBuffer（u32，按级别拼接）
+/// Java 侧应上传到原始索引之后的位置，返回写入的索引数
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyLodIndicesToBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    buffer: JByteBuffer,
+) -> jint {
+    if let Some(model_arc) = MODELS.get(model) {
+        let model = model_arc.lock().unwrap();
+        let index_count = model.lod_index_count();
+        if index_count == 0 {
+            return 0;
+        }
+
+        let byte_size = index_count * 4;
+        let dst = match env.get_direct_buffer_address(&buffer) {
+            Ok(p) => p,
+            Err(_) => return 0,
+        };
+        let capacity = env.get_direct_buffer_capacity(&buffer).unwrap_or(0);
+        if byte_size > capacity {
+            log::error!("CopyLodIndicesToBuffer: 需要 {} 字节, 容量 {}", byte_size, capacity);
+            return 0;
+        }
+        let output = unsafe { std::slice::from_raw_parts_mut(dst as *mut u32, index_count) };
+        return model.copy_lod_indices(output) as jint;
+    }
+    0
+}
+
 // ============================================================================
 // 材质相关函数
 // ============================================================================
@@ -288,9 +384,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialCount(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| m.lock().unwrap().material_count() as jlong)
         .unwrap_or(0)
 }
@@ -303,8 +398,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialTex(
     model: jlong,
     pos: jlong,
 ) -> jstring {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let idx = pos as usize;
         if idx < model.materials.len() {
@@ -329,8 +423,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialSpTex(
     model: jlong,
     pos: jlong,
 ) -> jstring {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let idx = pos as usize;
         if idx < model.materials.len() {
@@ -355,8 +448,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialToonTex(
     model: jlong,
     pos: jlong,
 ) -> jstring {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let idx = pos as usize;
         if idx < model.materials.len() {
@@ -388,8 +480,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialAmbient(
     model: jlong,
     pos: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let idx = pos as usize;
         if idx < model.materials.len() {
@@ -418,8 +509,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialDiffuse(
     model: jlong,
     pos: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let idx = pos as usize;
         if idx < model.materials.len() {
@@ -448,8 +538,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialSpecular(
     model: jlong,
     pos: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let idx = pos as usize;
         if idx < model.materials.len() {
@@ -478,9 +567,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialSpecularPo
     model: jlong,
     pos: jlong,
 ) -> jfloat {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .and_then(|m| {
             let model = m.lock().unwrap();
             model
@@ -499,9 +587,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialAlpha(
     model: jlong,
     pos: jlong,
 ) -> jfloat {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .and_then(|m| {
             let model = m.lock().unwrap();
             model.materials.get(pos as usize).map(|mat| mat.diffuse.w)
@@ -601,9 +688,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialBothFace(
     model: jlong,
     pos: jlong,
 ) -> jboolean {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .and_then(|m| {
             let model = m.lock().unwrap();
             model
@@ -626,9 +712,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetSubMeshCount(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| m.lock().unwrap().submesh_count() as jlong)
         .unwrap_or(0)
 }
@@ -641,8 +726,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetSubMeshMaterialID(
     model: jlong,
     pos: jlong,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let idx = pos as usize;
         if idx < model.submeshes.len() {
@@ -660,8 +744,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetSubMeshBeginIndex(
     model: jlong,
     pos: jlong,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let idx = pos as usize;
         if idx < model.submeshes.len() {
@@ -679,8 +762,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetSubMeshVertexCount
     model: jlong,
     pos: jlong,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let idx = pos as usize;
         if idx < model.submeshes.len() {
@@ -704,13 +786,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_ChangeModelAnim(
     anim: jlong,
     layer: jlong,
 ) {
-    // 先读取动画并释放锁，避免同时持有 MODELS+ANIMATIONS 双锁
-    let anim_opt = {
-        let animations = ANIMATIONS.read().unwrap();
-        animations.get(&anim).cloned()
-    };
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    let anim_opt = ANIMATIONS.get(anim);
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         let layer_id = layer as usize;
         model.set_layer_animation(layer_id, anim_opt);
@@ -725,8 +802,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_ResetModelPhysics(
     _class: JClass,
     model: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.reset_physics();
     }
@@ -764,8 +840,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_DeleteAnimation(
     _class: JClass,
     anim: jlong,
 ) {
-    let mut animations = ANIMATIONS.write().unwrap_or_else(|e| e.into_inner());
-    animations.remove(&anim);
+    ANIMATIONS.remove(anim);
 }
 
 /// 查询动画是否包含相机数据
@@ -775,8 +850,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_HasCameraData(
     _class: JClass,
     anim: jlong,
 ) -> jboolean {
-    let animations = ANIMATIONS.read().unwrap();
-    if let Some(animation) = animations.get(&anim) {
+    if let Some(animation) = ANIMATIONS.get(anim) {
         if animation.has_camera() { 1u8 } else { 0u8 }
     } else {
         0u8
@@ -790,8 +864,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetAnimMaxFrame(
     _class: JClass,
     anim: jlong,
 ) -> jfloat {
-    let animations = ANIMATIONS.read().unwrap();
-    if let Some(animation) = animations.get(&anim) {
+    if let Some(animation) = ANIMATIONS.get(anim) {
         animation.max_frame() as jfloat
     } else {
         0.0
@@ -808,8 +881,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetCameraTransform(
     frame: jfloat,
     buffer: JByteBuffer,
 ) {
-    let animations = ANIMATIONS.read().unwrap();
-    if let Some(animation) = animations.get(&anim) {
+    if let Some(animation) = ANIMATIONS.get(anim) {
         let transform = animation.get_camera_transform(frame);
         
         let dst = match env.get_direct_buffer_address(&buffer) {
@@ -847,8 +919,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_HasBoneData(
     _class: JClass,
     anim: jlong,
 ) -> jboolean {
-    let animations = ANIMATIONS.read().unwrap();
-    if let Some(animation) = animations.get(&anim) {
+    if let Some(animation) = ANIMATIONS.get(anim) {
         if animation.has_bones() { 1u8 } else { 0u8 }
     } else {
         0u8
@@ -862,8 +933,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_HasMorphData(
     _class: JClass,
     anim: jlong,
 ) -> jboolean {
-    let animations = ANIMATIONS.read().unwrap();
-    if let Some(animation) = animations.get(&anim) {
+    if let Some(animation) = ANIMATIONS.get(anim) {
         if animation.has_morphs() { 1u8 } else { 0u8 }
     } else {
         0u8
@@ -881,18 +951,16 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_MergeAnimation(
 ) {
     // 先读取并克隆两个动画，避免借用冲突
     let (target_clone, source_ref) = {
-        let animations = ANIMATIONS.read().unwrap();
-        let t = animations.get(&target).cloned();
-        let s = animations.get(&source).cloned();
+        let t = ANIMATIONS.get(target);
+        let s = ANIMATIONS.get(source);
         (t, s)
     };
 
     if let (Some(target_arc), Some(source_arc)) = (target_clone, source_ref) {
         let mut merged = (*target_arc).clone();
         merged.merge(&source_arc);
-        // 写回 HashMap，替换原 target
-        let mut animations = ANIMATIONS.write().unwrap();
-        animations.insert(target, Arc::new(merged));
+        // 写回注册表，替换原 target（句柄不变）
+        ANIMATIONS.replace(target, merged);
     }
 }
 
@@ -908,8 +976,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetModelTransform(
     m20: jfloat, m21: jfloat, m22: jfloat, m23: jfloat,
     m30: jfloat, m31: jfloat, m32: jfloat, m33: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         let transform = glam::Mat4::from_cols_array(&[
             m00, m01, m02, m03,
@@ -934,8 +1001,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetModelPositionAndYa
     pos_z: jfloat,
     yaw: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_model_position_and_yaw(pos_x, pos_y, pos_z, yaw);
     }
@@ -952,8 +1018,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetHeadAngle(
     head_z: jfloat,
     _is_head_in_sync: jboolean,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_head_angle(head_x, head_y, head_z);
     }
@@ -970,8 +1035,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetEyeAngle(
     eye_x: jfloat,
     eye_y: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_eye_angle(eye_x, eye_y);
     }
@@ -986,8 +1050,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetEyeMaxAngle(
     model: jlong,
     max_angle: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_eye_max_angle(max_angle);
     }
@@ -1001,8 +1064,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetEyeTrackingEnabled
     model: jlong,
     enabled: jboolean,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_eye_tracking_enabled(enabled != 0);
     }
@@ -1015,9 +1077,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_IsEyeTrackingEnabled(
     _class: JClass,
     model: jlong,
 ) -> jboolean {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| {
             let model = m.lock().unwrap();
             if model.is_eye_tracking_enabled() { 1u8 } else { 0u8 }
@@ -1033,8 +1094,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetAutoBlinkEnabled(
     model: jlong,
     enabled: jboolean,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_auto_blink_enabled(enabled != 0);
     }
@@ -1047,9 +1107,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_IsAutoBlinkEnabled(
     _class: JClass,
     model: jlong,
 ) -> jboolean {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| {
             let model = m.lock().unwrap();
             if model.is_auto_blink_enabled() { 1u8 } else { 0u8 }
@@ -1068,8 +1127,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetBlinkParams(
     interval: jfloat,
     duration: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_blink_params(interval, duration);
     }
@@ -1088,8 +1146,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_PlayLayer(
     model: jlong,
     layer: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.play_layer(layer as usize);
     }
@@ -1104,8 +1161,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_StopLayer(
     model: jlong,
     layer: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.stop_layer(layer as usize);
     }
@@ -1120,8 +1176,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_PauseLayer(
     model: jlong,
     layer: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.pause_layer(layer as usize);
     }
@@ -1136,8 +1191,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_ResumeLayer(
     model: jlong,
     layer: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.resume_layer(layer as usize);
     }
@@ -1154,8 +1208,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetLayerWeight(
     layer: jlong,
     weight: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_layer_weight(layer as usize, weight);
     }
@@ -1172,8 +1225,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetLayerSpeed(
     layer: jlong,
     speed: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_layer_speed(layer as usize, speed);
     }
@@ -1190,8 +1242,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SeekLayer(
     layer: jlong,
     frame: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.seek_layer(layer as usize, frame);
     }
@@ -1210,8 +1261,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetLayerFadeTimes(
     fade_in: jfloat,
     fade_out: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_layer_fade_times(layer as usize, fade_in, fade_out);
     }
@@ -1236,13 +1286,11 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_TransitionLayerTo(
     transition_time: jfloat,
 ) {
     let anim = if animation != 0 {
-        let animations = ANIMATIONS.read().unwrap();
-        animations.get(&animation).cloned()
+        ANIMATIONS.get(animation)
     } else {
         None
     };
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.transition_layer_to(layer as usize, anim, transition_time);
     }
@@ -1257,8 +1305,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetLayerMaxFrame(
     model: jlong,
     layer: jlong,
 ) -> jfloat {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         return model.get_layer_max_frame(layer as usize) as jfloat;
     }
@@ -1275,8 +1322,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetLayerLoop(
     layer: jlong,
     loop_play: jboolean,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_layer_loop(layer as usize, loop_play != 0);
     }
@@ -1314,8 +1360,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_DeleteTexture(
     _class: JClass,
     tex: jlong,
 ) {
-    let mut textures = TEXTURES.write().unwrap_or_else(|e| e.into_inner());
-    textures.remove(&tex);
+    TEXTURES.remove(tex);
 }
 
 /// 获取纹理宽度
@@ -1325,8 +1370,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetTextureX(
     _class: JClass,
     tex: jlong,
 ) -> jint {
-    let textures = TEXTURES.read().unwrap();
-    textures.get(&tex).map(|t| t.width as jint).unwrap_or(0)
+    TEXTURES.get(tex).map(|t| t.width as jint).unwrap_or(0)
 }
 
 /// 获取纹理高度
@@ -1336,8 +1380,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetTextureY(
     _class: JClass,
     tex: jlong,
 ) -> jint {
-    let textures = TEXTURES.read().unwrap();
-    textures.get(&tex).map(|t| t.height as jint).unwrap_or(0)
+    TEXTURES.get(tex).map(|t| t.height as jint).unwrap_or(0)
 }
 
 /// 获取纹理数据指针
@@ -1347,9 +1390,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetTextureData(
     _class: JClass,
     tex: jlong,
 ) -> jlong {
-    let textures = TEXTURES.read().unwrap();
-    textures
-        .get(&tex)
+    TEXTURES
+        .get(tex)
         .map(|t| t.data.as_ptr() as jlong)
         .unwrap_or(0)
 }
@@ -1361,9 +1403,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_TextureHasAlpha(
     _class: JClass,
     tex: jlong,
 ) -> jboolean {
-    let textures = TEXTURES.read().unwrap();
-    textures
-        .get(&tex)
+    TEXTURES
+        .get(tex)
         .map(|t| if t.has_alpha { 1u8 } else { 0u8 })
         .unwrap_or(0u8)
 }
@@ -1375,15 +1416,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_TextureHasAlpha(
 use once_cell::sync::Lazy;
 use std::sync::Mutex;
 
-/// 矩阵存储（使用 HashMap + ID，避免 Vec 扩容导致指针失效）
-static MATRICES: Lazy<Mutex<std::collections::HashMap<i64, glam::Mat4>>> = Lazy::new(|| Mutex::new(std::collections::HashMap::new()));
-
-/// 矩阵 ID 计数器
-fn next_matrix_id() -> i64 {
-    use std::sync::atomic::{AtomicI64, Ordering};
-    static MAT_COUNTER: AtomicI64 = AtomicI64::new(1);
-    MAT_COUNTER.fetch_add(1, Ordering::SeqCst)
-}
+/// 矩阵存储（分代句柄注册表，各矩阵独立加锁）
+static MATRICES: Lazy<HandleRegistry<Mutex<glam::Mat4>>> = Lazy::new(HandleRegistry::new);
 
 /// 创建矩阵
 #[no_mangle]
@@ -1391,10 +1425,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CreateMat(
     _env: JNIEnv,
     _class: JClass,
 ) -> jlong {
-    let id = next_matrix_id();
-    let mut matrices = MATRICES.lock().unwrap();
-    matrices.insert(id, glam::Mat4::IDENTITY);
-    id
+    MATRICES.insert(Mutex::new(glam::Mat4::IDENTITY))
 }
 
 /// 删除矩阵
@@ -1404,8 +1435,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_DeleteMat(
     _class: JClass,
     mat: jlong,
 ) {
-    let mut matrices = MATRICES.lock().unwrap_or_else(|e| e.into_inner());
-    matrices.remove(&mat);
+    MATRICES.remove(mat);
 }
 
 /// 将矩阵数据复制到 ByteBuffer（64 字节 = 16 floats）
@@ -1416,8 +1446,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyMatToBuffer(
     mat: jlong,
     buffer: JByteBuffer,
 ) -> jboolean {
-    let matrices = MATRICES.lock().unwrap();
-    if let Some(m) = matrices.get(&mat) {
+    if let Some(mat_arc) = MATRICES.get(mat) {
+        let m = *mat_arc.lock().unwrap();
         let dst = match env.get_direct_buffer_address(&buffer) {
             Ok(p) => p,
             Err(_) => return 0,
@@ -1428,7 +1458,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyMatToBuffer(
             return 0;
         }
         unsafe {
-            let src = m as *const glam::Mat4 as *const u8;
+            let src = &m as *const glam::Mat4 as *const u8;
             ptr::copy_nonoverlapping(src, dst, 64);
         }
         return 1;
@@ -1444,15 +1474,12 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetRightHandMat(
     model: jlong,
     mat: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model_guard = model_arc.lock().unwrap();
         let hand_mat = model_guard.get_right_hand_matrix();
         drop(model_guard);
-        drop(models);
-        let mut matrices = MATRICES.lock().unwrap();
-        if let Some(m) = matrices.get_mut(&mat) {
-            *m = hand_mat;
+        if let Some(mat_arc) = MATRICES.get(mat) {
+            *mat_arc.lock().unwrap() = hand_mat;
         }
     }
 }
@@ -1465,15 +1492,12 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetLeftHandMat(
     model: jlong,
     mat: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model_guard = model_arc.lock().unwrap();
         let hand_mat = model_guard.get_left_hand_matrix();
         drop(model_guard);
-        drop(models);
-        let mut matrices = MATRICES.lock().unwrap();
-        if let Some(m) = matrices.get_mut(&mat) {
-            *m = hand_mat;
+        if let Some(mat_arc) = MATRICES.get(mat) {
+            *mat_arc.lock().unwrap() = hand_mat;
         }
     }
 }
@@ -1489,8 +1513,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_InitPhysics(
     _class: JClass,
     model: jlong,
 ) -> jboolean {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         if model.init_physics() {
             return 1;
@@ -1506,8 +1529,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_ResetPhysics(
     _class: JClass,
     model: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.reset_physics();
     }
@@ -1521,8 +1543,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetPhysicsEnabled(
     model: jlong,
     enabled: jboolean,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_physics_enabled(enabled != 0);
     }
@@ -1535,8 +1556,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_IsPhysicsEnabled(
     _class: JClass,
     model: jlong,
 ) -> jboolean {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         if model.is_physics_enabled() {
             return 1;
@@ -1552,8 +1572,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_HasPhysics(
     _class: JClass,
     model: jlong,
 ) -> jboolean {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         if model.has_physics() {
             return 1;
@@ -1569,8 +1588,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetPhysicsDebugInfo(
     _class: JClass,
     model: jlong,
 ) -> jstring {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let debug_info = model.get_physics_debug_info();
         if let Ok(s) = env.new_string(&debug_info) {
@@ -1594,8 +1612,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_IsMaterialVisible(
     model: jlong,
     index: jint,
 ) -> jboolean {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         if model.is_material_visible(index as usize) { 1 } else { 0 }
     } else {
@@ -1612,8 +1629,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetMaterialVisible(
     index: jint,
     visible: jboolean,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_material_visible(index as usize, visible != 0);
     }
@@ -1632,8 +1648,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetMaterialVisibleByN
         Ok(s) => s.into(),
         Err(_) => return 0,
     };
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_material_visible_by_name(&name_str, visible != 0) as jint
     } else {
@@ -1649,8 +1664,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetAllMaterialsVisibl
     model: jlong,
     visible: jboolean,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_all_materials_visible(visible != 0);
     }
@@ -1664,8 +1678,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialName(
     model: jlong,
     index: jint,
 ) -> jstring {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         if let Some(name) = model.get_material_name(index as usize) {
             if let Ok(s) = env.new_string(name) {
@@ -1685,8 +1698,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialNames(
     _class: JClass,
     model: jlong,
 ) -> jstring {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let names = model.get_material_names();
         // 构建简单的 JSON 数组
@@ -1716,9 +1728,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetBoneCount(
     _class: JClass,
     model: jlong,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| m.lock().unwrap().bone_manager.bone_count() as jint)
         .unwrap_or(0)
 }
@@ -1731,8 +1742,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetSkinningMatrices(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let matrices = model.bone_manager.get_skinning_matrices();
         if !matrices.is_empty() {
@@ -1750,8 +1760,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopySkinningMatricesT
     model: jlong,
     buffer: JByteBuffer,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let matrices = model.bone_manager.get_skinning_matrices();
         if matrices.is_empty() {
@@ -1785,8 +1794,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetBoneIndices(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let ptr = model.get_bone_indices_ptr();
         if ptr.is_null() { return 0; }
@@ -1804,8 +1812,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyBoneIndicesToBuff
     buffer: JByteBuffer,
     vertex_count: jint,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let ptr = model.get_bone_indices_ptr();
         if ptr.is_null() {
@@ -1838,8 +1845,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetBoneWeights(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let ptr = model.get_bone_weights_ptr();
         if ptr.is_null() { return 0; }
@@ -1857,8 +1863,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyBoneWeightsToBuff
     buffer: JByteBuffer,
     vertex_count: jint,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let ptr = model.get_bone_weights_ptr();
         if ptr.is_null() {
@@ -1884,6 +1889,105 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyBoneWeightsToBuff
     0
 }
 
+/// 复制 3×4 仿射蒙皮矩阵到 ByteBuffer（每骨骼 48 字节，容量不足时截断）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopySkinningMatrices3x4ToBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    buffer: JByteBuffer,
+) -> jint {
+    if let Some(model_arc) = MODELS.get(model) {
+        let model = model_arc.lock().unwrap();
+        let dst = match env.get_direct_buffer_address(&buffer) {
+            Ok(p) => p,
+            Err(_) => return 0,
+        };
+        let capacity = env.get_direct_buffer_capacity(&buffer).unwrap_or(0);
+        if capacity < 48 {
+            return 0;
+        }
+        let dst = unsafe { std::slice::from_raw_parts_mut(dst, capacity) };
+        return model.write_skinning_matrices_3x4(dst) as jint;
+    }
+    0
+}
+
+/// 复制紧凑骨骼索引到 ByteBuffer（每顶点 4 × u16，无效索引为 0xFFFF）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyCompactBoneIndicesToBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    buffer: JByteBuffer,
+    vertex_count: jint,
+) -> jint {
+    if let Some(model_arc) = MODELS.get(model) {
+        let model = model_arc.lock().unwrap();
+        let dst = match env.get_direct_buffer_address(&buffer) {
+            Ok(p) => p,
+            Err(_) => return 0,
+        };
+        let capacity = env.get_direct_buffer_capacity(&buffer).unwrap_or(0);
+        if capacity < 8 {
+            return 0;
+        }
+        let dst = unsafe { std::slice::from_raw_parts_mut(dst, capacity) };
+        return model.write_compact_bone_indices(dst, vertex_count.max(0) as usize) as jint;
+    }
+    0
+}
+
+/// 复制紧凑骨骼权重到 ByteBuffer（每顶点 4 × unorm16）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyCompactBoneWeightsToBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    buffer: JByteBuffer,
+    vertex_count: jint,
+) -> jint {
+    if let Some(model_arc) = MODELS.get(model) {
+        let model = model_arc.lock().unwrap();
+        let dst = match env.get_direct_buffer_address(&buffer) {
+            Ok(p) => p,
+            Err(_) => return 0,
+        };
+        let capacity = env.get_direct_buffer_capacity(&buffer).unwrap_or(0);
+        if capacity < 8 {
+            return 0;
+        }
+        let dst = unsafe { std::slice::from_raw_parts_mut(dst, capacity) };
+        return model.write_compact_bone_weights(dst, vertex_count.max(0) as usize) as jint;
+    }
+    0
+}
+
+/// 复制紧凑原始法线到 ByteBuffer（每顶点 4 × snorm16，第 4 分量为 0）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyCompactNormalsToBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    buffer: JByteBuffer,
+    vertex_count: jint,
+) -> jint {
+    if let Some(model_arc) = MODELS.get(model) {
+        let model = model_arc.lock().unwrap();
+        let dst = match env.get_direct_buffer_address(&buffer) {
+            Ok(p) => p,
+            Err(_) => return 0,
+        };
+        let capacity = env.get_direct_buffer_capacity(&buffer).unwrap_or(0);
+        if capacity < 8 {
+            return 0;
+        }
+        let dst = unsafe { std::slice::from_raw_parts_mut(dst, capacity) };
+        return model.write_compact_normals(dst, vertex_count.max(0) as usize) as jint;
+    }
+    0
+}
+
 /// 获取原始顶点位置数据指针（未蒙皮，用于 GPU 蒙皮）
 #[no_mangle]
 pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetOriginalPositions(
@@ -1891,8 +1995,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetOriginalPositions(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let ptr = model.get_original_positions_ptr();
         if ptr.is_null() { return 0; }
@@ -1910,8 +2013,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyOriginalPositions
     buffer: JByteBuffer,
     vertex_count: jint,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let ptr = model.get_original_positions_ptr();
         if ptr.is_null() {
@@ -1944,8 +2046,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetOriginalNormals(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let ptr = model.get_original_normals_ptr();
         if ptr.is_null() { return 0; }
@@ -1963,8 +2064,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyOriginalNormalsTo
     buffer: JByteBuffer,
     vertex_count: jint,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let ptr = model.get_original_normals_ptr();
         if ptr.is_null() {
@@ -1997,14 +2097,15 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetGpuSkinningDebugIn
     _class: JClass,
     model: jlong,
 ) -> jstring {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         
         let vertex_count = model.vertices.len();
         let bone_count = model.bone_manager.bone_count();
         let bone_indices = model.get_bone_indices();
         let bone_weights = model.get_bone_weights();
+        // GPU 常驻模式下初始化数组已释放，只统计仍在的部分
+        let counted_vertices = vertex_count.min(bone_indices.len() / 4).min(bone_weights.len() / 4);
         
         // 统计信息
         let mut max_bone_idx = -1i32;
@@ -2014,7 +2115,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetGpuSkinningDebugIn
         let mut bdef2_count = 0usize;
         let mut bdef4_count = 0usize;
         
-        for i in 0..vertex_count {
+        for i in 0..counted_vertices {
             let base = i * 4;
             let mut total_weight = 0.0f32;
             let mut valid_bones = 0;
@@ -2055,9 +2156,9 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetGpuSkinningDebugIn
         let dynamic_bones = model.get_dynamic_bone_count();
         
         let info = format!(
-            "顶点:{}, 骨骼:{}, 最大索引:{}, 无效索引:{}, 零权重:{}, BDEF1:{}, BDEF2:{}, BDEF4+:{}, 物理:{}, 动态骨骼:{}",
+            "顶点:{}, 骨骼:{}, 最大索引:{}, 无效索引:{}, 零权重:{}, BDEF1:{}, BDEF2:{}, BDEF4+:{}, 物理:{}, 动态骨骼:{}, GPU常驻:{}",
             vertex_count, bone_count, max_bone_idx, invalid_idx_count, zero_weight_count,
-            bdef1_count, bdef2_count, bdef4_count, physics_enabled, dynamic_bones
+            bdef1_count, bdef2_count, bdef4_count, physics_enabled, dynamic_bones, model.is_gpu_resident()
         );
         
         if let Ok(s) = env.new_string(&info) {
@@ -2076,13 +2177,181 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_UpdateAnimationOnly(
     model: jlong,
     delta_time: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.tick_animation_no_skinning(delta_time);
     }
 }
 
+/// 逐帧命令：输入记录字节数与标志位（与 Java 端 FrameCommandBuffer 一致）
+const FRAME_COMMAND_BYTES: usize = 64;
+const FRAME_FLAG_FULL_UPDATE: u32 = 1;
+const FRAME_FLAG_ENTITY_INPUT: u32 = 1 << 1;
+const FRAME_FLAG_EYE_SET: u32 = 1 << 2;
+const FRAME_FLAG_EYE_ENABLED: u32 = 1 << 3;
+const FRAME_FLAG_HAND_MATRICES: u32 = 1 << 4;
+/// 逐帧命令：输出记录头字节数与标志位
+const FRAME_OUTPUT_HEADER_BYTES: usize = 144;
+const FRAME_OUT_POSE_UNCHANGED: u32 = 1;
+const FRAME_OUT_MATERIAL_MORPHS: u32 = 1 << 1;
+const FRAME_OUT_HAND_MATRICES: u32 = 1 << 2;
+const FRAME_OUT_SKIN_SLOT: u32 = 1 << 3;
+
+/// 解析后的单条逐帧命令
+struct FrameCommand {
+    model: Arc<Mutex<MmdModel>>,
+    delta_time: f32,
+    flags: u32,
+    input: [f32; 10],
+    output_offset: usize,
+    material_floats: usize,
+}
+
+/// 执行逐帧命令缓冲区：应用实体输入、更新姿态并写回渲染所需输出，各模型在 rayon 线程池上并行执行
+///
+/// commands 每条 64 字节：模型句柄(i64) + deltaTime(f32，0 = 不更新姿态) + 标志(u32)
+///   + 头部角度(3f) + 眼球最大角度/角度(3f) + 物理位置与朝向(4f) + 输出偏移(u32) + 材质 Morph float 数(u32)；
+/// 标志 bit0 = 完整更新（含 CPU 蒙皮，同 UpdateModel），否则仅更新动画（同 UpdateAnimationOnly）；
+///   bit1 = 应用实体输入，bit2/bit3 = 设置眼球追踪/启用，bit4 = 输出左右手矩阵。
+/// output 中每条命令从其输出偏移开始：标志(u32，bit3 = 最新 CPU 蒙皮输出所在分配序号) + 保留(12) + 右手矩阵(64) + 左手矩阵(64)，
+///   之后是材质 Morph 结果（仅姿态变化时写入，每材质 56 float）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_ExecuteFrameCommands(
+    env: JNIEnv,
+    _class: JClass,
+    commands: JByteBuffer,
+    count: jint,
+    output: JByteBuffer,
+) {
+    let src = match env.get_direct_buffer_address(&commands) {
+        Ok(p) => p,
+        Err(_) => return,
+    };
+    let dst = match env.get_direct_buffer_address(&output) {
+        Ok(p) => p,
+        Err(_) => return,
+    };
+    let capacity = env.get_direct_buffer_capacity(&commands).unwrap_or(0);
+    let output_capacity = env.get_direct_buffer_capacity(&output).unwrap_or(0);
+    let count = (count.max(0) as usize).min(capacity / FRAME_COMMAND_BYTES);
+    let bytes = unsafe { std::slice::from_raw_parts(src as *const u8, count * FRAME_COMMAND_BYTES) };
+
+    let read_u32 = |record: &[u8], at: usize| u32::from_le_bytes(record[at..at + 4].try_into().unwrap());
+    let read_f32 = |record: &[u8], at: usize| f32::from_le_bytes(record[at..at + 4].try_into().unwrap());
+
+    // 先取出模型引用，并行执行期间各模型只持有自己的锁
+    let jobs: Vec<FrameCommand> = bytes
+        .chunks_exact(FRAME_COMMAND_BYTES)
+        .filter_map(|record| {
+            let handle = i64::from_le_bytes(record[0..8].try_into().unwrap());
+            let mut input = [0.0f32; 10];
+            for (i, value) in input.iter_mut().enumerate() {
+                *value = read_f32(record, 16 + i * 4);
+            }
+            let output_offset = read_u32(record, 56) as usize;
+            let material_floats = read_u32(record, 60) as usize;
+            if output_offset + FRAME_OUTPUT_HEADER_BYTES + material_floats * 4 > output_capacity {
+                log::error!("ExecuteFrameCommands: 输出越界（偏移 {}, 容量 {}）", output_offset, output_capacity);
+                return None;
+            }
+            MODELS.get(handle).map(|model| FrameCommand {
+                model,
+                delta_time: read_f32(record, 8),
+                flags: read_u32(record, 12),
+                input,
+                output_offset,
+                material_floats,
+            })
+        })
+        .collect();
+
+    // 各命令的输出区间互不重叠，按地址传入并行任务
+    let output_base = dst as usize;
+    jobs.par_iter().for_each(|command| {
+        let mut model = command.model.lock().unwrap();
+        let input = &command.input;
+        if command.flags & FRAME_FLAG_ENTITY_INPUT != 0 {
+            model.set_head_angle(input[0], input[1], input[2]);
+            if command.flags & FRAME_FLAG_EYE_SET != 0 {
+                let enabled = command.flags & FRAME_FLAG_EYE_ENABLED != 0;
+                model.set_eye_tracking_enabled(enabled);
+                if enabled {
+                    model.set_eye_max_angle(input[3]);
+                    model.set_eye_angle(input[4], input[5]);
+                }
+            }
+            model.set_model_position_and_yaw(input[6], input[7], input[8], input[9]);
+        }
+        if command.delta_time > 0.0 {
+            if command.flags & FRAME_FLAG_FULL_UPDATE != 0 {
+                model.tick_animation(command.delta_time);
+            } else {
+                model.tick_animation_no_skinning(command.delta_time);
+            }
+        }
+
+        let mut out_flags = 0u32;
+        let out = (output_base + command.output_offset) as *mut u8;
+        let pose_unchanged = model.is_pose_unchanged();
+        if pose_unchanged {
+            out_flags |= FRAME_OUT_POSE_UNCHANGED;
+        }
+        if model.skinning_front_slot() != 0 {
+            out_flags |= FRAME_OUT_SKIN_SLOT;
+        }
+        if command.flags & FRAME_FLAG_HAND_MATRICES != 0 {
+            let hands = [model.get_right_hand_matrix(), model.get_left_hand_matrix()];
+            for (i, hand) in hands.iter().enumerate() {
+                unsafe {
+                    ptr::copy_nonoverlapping(hand.to_cols_array().as_ptr() as *const u8, out.add(16 + i * 64), 64);
+                }
+            }
+            out_flags |= FRAME_OUT_HAND_MATRICES;
+        }
+        if command.material_floats > 0 && !pose_unchanged {
+            let flat = model.get_material_morph_results_flat();
+            let floats = flat.len().min(command.material_floats);
+            if floats > 0 {
+                unsafe {
+                    ptr::copy_nonoverlapping(flat.as_ptr() as *const u8, out.add(FRAME_OUTPUT_HEADER_BYTES), floats * 4);
+                }
+                out_flags |= FRAME_OUT_MATERIAL_MORPHS;
+            }
+        }
+        unsafe {
+            ptr::copy_nonoverlapping(out_flags.to_le_bytes().as_ptr(), out, 4);
+        }
+    });
+}
+
+/// 仅推进动画时钟（被遮挡模型：不评估姿态、不执行物理与蒙皮）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_AdvanceAnimationClock(
+    _env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    delta_time: jfloat,
+) {
+    if let Some(model_arc) = MODELS.get(model) {
+        let mut model = model_arc.lock().unwrap();
+        model.advance_animation_clock(delta_time);
+    }
+}
+
+/// 最近一次动画更新的蒙皮矩阵与 Morph 权重是否与上一次一致（可复用上一次的蒙皮输出）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_IsPoseUnchanged(
+    _env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+) -> jboolean {
+    MODELS
+        .get(model)
+        .map(|m| m.lock().unwrap().is_pose_unchanged())
+        .map(|v| if v { 1u8 } else { 0u8 })
+        .unwrap_or(0u8)
+}
+
 /// 初始化 GPU 蒙皮数据
 #[no_mangle]
 pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_InitGpuSkinningData(
@@ -2090,13 +2359,84 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_InitGpuSkinningData(
     _class: JClass,
     model: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.init_gpu_skinning_data();
     }
 }
 
+/// 进入 GPU 常驻模式（静态数据上传完成后调用），释放 CPU 侧网格副本
+///
+/// 返回释放的 Rust 堆字节数
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_EnterGpuResidentMode(
+    _env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+) -> jlong {
+    if let Some(model_arc) = MODELS.get(model) {
+        let mut model = model_arc.lock().unwrap();
+        let (before, after) = model.enter_gpu_resident_mode();
+        return before.saturating_sub(after) as jlong;
+    }
+    0
+}
+
+// ============================================================================
+// 群体动画烘焙相关函数
+// ============================================================================
+
+/// 为模型烘焙指定动画的群体播放数据（30 FPS 整数帧的蒙皮矩阵与活动 Morph 列表）
+///
+/// 返回烘焙数据块字节数（0 = 模型含物理动态骨骼或动画过长，不可烘焙；-1 = 句柄无效）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_BakeCrowdAnimation(
+    _env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    anim: jlong,
+) -> jlong {
+    let anim_opt = ANIMATIONS.get(anim);
+    let animation = match anim_opt {
+        Some(a) => a,
+        None => return -1,
+    };
+    if let Some(model_arc) = MODELS.get(model) {
+        let mut model = model_arc.lock().unwrap();
+        return model.bake_crowd_animation(&animation) as jlong;
+    }
+    -1
+}
+
+/// 取走群体动画烘焙数据块并复制到 ByteBuffer
+///
+/// 返回烘焙帧数（0 = 无烘焙数据或缓冲区容量不足）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyCrowdBakeToBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    buffer: JByteBuffer,
+) -> jint {
+    if let Some(model_arc) = MODELS.get(model) {
+        let mut model = model_arc.lock().unwrap();
+        let dst = match env.get_direct_buffer_address(&buffer) {
+            Ok(p) => p,
+            Err(_) => return 0,
+        };
+        let capacity = env.get_direct_buffer_capacity(&buffer).unwrap_or(0);
+        let blob = model.take_crowd_bake();
+        if blob.len() < 16 || capacity < blob.len() {
+            return 0;
+        }
+        unsafe {
+            ptr::copy_nonoverlapping(blob.as_ptr(), dst, blob.len());
+        }
+        return u32::from_le_bytes([blob[0], blob[1], blob[2], blob[3]]) as jint;
+    }
+    0
+}
+
 // ============================================================================
 // GPU Morph 相关函数
 // ============================================================================
@@ -2108,8 +2448,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_InitGpuMorphData(
     _class: JClass,
     model: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.init_gpu_morph_data();
     }
@@ -2122,9 +2461,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetVertexMorphCount(
     _class: JClass,
     model: jlong,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| m.lock().unwrap().get_vertex_morph_count() as jint)
         .unwrap_or(0)
 }
@@ -2136,8 +2474,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetGpuMorphOffsets(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         return model.get_gpu_morph_offsets_ptr() as jlong;
     }
@@ -2151,9 +2488,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetGpuMorphOffsetsSiz
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| m.lock().unwrap().get_gpu_morph_offsets_size() as jlong)
         .unwrap_or(0)
 }
@@ -2165,8 +2501,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetGpuMorphWeights(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         return model.get_gpu_morph_weights_ptr() as jlong;
     }
@@ -2180,8 +2515,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SyncGpuMorphWeights(
     _class: JClass,
     model: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.sync_gpu_morph_weights();
     }
@@ -2195,8 +2529,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyGpuMorphOffsetsTo
     model: jlong,
     buffer: JByteBuffer,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let size = model.get_gpu_morph_offsets_size();
         if size == 0 {
@@ -2229,8 +2562,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyGpuMorphWeightsTo
     model: jlong,
     buffer: JByteBuffer,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let morph_count = model.get_vertex_morph_count();
         if morph_count == 0 {
@@ -2263,8 +2595,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_IsGpuMorphInitialized
     _class: JClass,
     model: jlong,
 ) -> jboolean {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         if model.is_gpu_morph_initialized() {
             return 1;
@@ -2299,8 +2630,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_ApplyVpdMorph(
         Err(_) => return -1,
     };
     
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         
         match VpdFile::load(&filename_str) {
@@ -2346,8 +2676,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_ResetAllMorphs(
     _class: JClass,
     model: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.morph_manager.reset_all_weights();
         model.clear_vpd_bone_overrides();
@@ -2369,8 +2698,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetMorphWeightByName(
         Err(_) => return 0,
     };
     
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         if let Some(idx) = model.morph_manager.find_morph_by_name(&name_str) {
             model.morph_manager.set_morph_weight(idx, weight);
@@ -2388,8 +2716,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMorphCount(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         return model.morph_manager.morph_count() as jlong;
     }
@@ -2404,8 +2731,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMorphName(
     model: jlong,
     index: jint,
 ) -> jstring {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         if let Some(morph) = model.morph_manager.get_morph(index as usize) {
             if let Ok(s) = env.new_string(&morph.name) {
@@ -2426,8 +2752,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMorphWeight(
     model: jlong,
     index: jint,
 ) -> jfloat {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         if let Some(morph) = model.morph_manager.get_morph(index as usize) {
             return morph.weight;
@@ -2445,8 +2770,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetMorphWeight(
     index: jint,
     weight: jfloat,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.morph_manager.set_morph_weight(index as usize, weight);
     }
@@ -2463,8 +2787,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_InitGpuUvMorphData(
     _class: JClass,
     model: jlong,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.init_gpu_uv_morph_data();
     }
@@ -2477,9 +2800,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetUvMorphCount(
     _class: JClass,
     model: jlong,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| m.lock().unwrap().get_uv_morph_count() as jint)
         .unwrap_or(0)
 }
@@ -2491,9 +2813,8 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetGpuUvMorphOffsetsS
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    models
-        .get(&model)
+    MODELS
+        .get(model)
         .map(|m| m.lock().unwrap().get_gpu_uv_morph_offsets_size() as jlong)
         .unwrap_or(0)
 }
@@ -2506,8 +2827,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyGpuUvMorphOffsets
     model: jlong,
     buffer: JByteBuffer,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let size = model.get_gpu_uv_morph_offsets_size();
         if size == 0 {
@@ -2540,8 +2860,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyGpuUvMorphWeights
     model: jlong,
     buffer: JByteBuffer,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let morph_count = model.get_uv_morph_count();
         if morph_count == 0 {
@@ -2567,6 +2886,119 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyGpuUvMorphWeights
     0
 }
 
+/// 复制本帧活动 Morph 列表到 ByteBuffer（每条 16 字节，容量不足时截断）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyGpuActiveMorphsToBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    buffer: JByteBuffer,
+) -> jint {
+    if let Some(model_arc) = MODELS.get(model) {
+        let model = model_arc.lock().unwrap();
+        let dst = match env.get_direct_buffer_address(&buffer) {
+            Ok(p) => p,
+            Err(_) => return 0,
+        };
+        let capacity = env.get_direct_buffer_capacity(&buffer).unwrap_or(0);
+        if capacity < 16 {
+            return 0;
+        }
+        let dst = unsafe { std::slice::from_raw_parts_mut(dst, capacity) };
+        return model.write_active_gpu_morphs(dst) as jint;
+    }
+    0
+}
+
+// ====================================================================
+// GPU 材质 Morph 相关函数
+// ====================================================================
+
+/// 初始化 GPU 材质 Morph 数据（存在条目时材质 Morph 改由 GPU 求值）
+/// 返回含条目的材质 Morph 数量
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_InitGpuMaterialMorphData(
+    _env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+) -> jint {
+    if let Some(model_arc) = MODELS.get(model) {
+        let mut model = model_arc.lock().unwrap();
+        return model.init_gpu_material_morph_data() as jint;
+    }
+    0
+}
+
+/// 获取 GPU 材质 Morph 条目大小（字节）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetGpuMaterialMorphEntriesSize(
+    _env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+) -> jlong {
+    MODELS
+        .get(model)
+        .map(|m| m.lock().unwrap().get_gpu_material_morph_entries_size() as jlong)
+        .unwrap_or(0)
+}
+
+/// 复制 GPU 材质 Morph 条目到 ByteBuffer
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyGpuMaterialMorphEntriesToBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    buffer: JByteBuffer,
+) -> jlong {
+    if let Some(model_arc) = MODELS.get(model) {
+        let model = model_arc.lock().unwrap();
+        let size = model.get_gpu_material_morph_entries_size();
+        if size == 0 {
+            return 0;
+        }
+
+        let dst = match env.get_direct_buffer_address(&buffer) {
+            Ok(p) => p,
+            Err(_) => return 0,
+        };
+        let capacity = env.get_direct_buffer_capacity(&buffer).unwrap_or(0);
+        if size > capacity {
+            log::error!("CopyGpuMaterialMorphEntriesToBuffer: 需要 {} 字节, 容量 {}", size, capacity);
+            return 0;
+        }
+        unsafe {
+            let src = model.get_gpu_material_morph_entries_ptr() as *const u8;
+            ptr::copy_nonoverlapping(src, dst, size);
+        }
+        return size as jlong;
+    }
+    0
+}
+
+/// 复制本帧活动材质 Morph 列表到 ByteBuffer（每条 16 字节，容量不足时截断）
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyGpuActiveMaterialMorphsToBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    buffer: JByteBuffer,
+) -> jint {
+    if let Some(model_arc) = MODELS.get(model) {
+        let model = model_arc.lock().unwrap();
+        let dst = match env.get_direct_buffer_address(&buffer) {
+            Ok(p) => p,
+            Err(_) => return 0,
+        };
+        let capacity = env.get_direct_buffer_capacity(&buffer).unwrap_or(0);
+        if capacity < 16 {
+            return 0;
+        }
+        let dst = unsafe { std::slice::from_raw_parts_mut(dst, capacity) };
+        return model.write_active_gpu_material_morphs(dst) as jint;
+    }
+    0
+}
+
 // ====================================================================
 // 材质 Morph 结果相关函数
 // ====================================================================
@@ -2578,8 +3010,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetMaterialMorphResul
     _class: JClass,
     model: jlong,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         return model.get_material_morph_result_count() as jint;
     }
@@ -2599,8 +3030,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyMaterialMorphResu
     model: jlong,
     buffer: JByteBuffer,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         let result_count = model.get_material_morph_result_count();
         let flat = model.get_material_morph_results_flat();
@@ -2676,8 +3106,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_SetFirstPersonMode(
     model: jlong,
     enabled: jboolean,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.set_first_person_mode(enabled != 0);
     }
@@ -2690,8 +3119,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_IsFirstPersonMode(
     _class: JClass,
     model: jlong,
 ) -> jboolean {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         if model.is_first_person_enabled() { 1 } else { 0 }
     } else {
@@ -2706,8 +3134,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetHeadBonePositionY(
     _class: JClass,
     model: jlong,
 ) -> jfloat {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         model.get_head_bone_rest_position_y()
     } else {
@@ -2726,8 +3153,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetEyeBonePosition(
     model: jlong,
     out: jni::objects::JFloatArray,
 ) {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let mut model = model_arc.lock().unwrap();
         let pos = model.get_eye_bone_animated_position();
         let buf: [f32; 3] = [pos.x, pos.y, pos.z];
@@ -2741,6 +3167,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetEyeBonePosition(
 
 /// 批量获取所有子网格的渲染元数据，消除 Java 侧逐子网格 JNI 调用
 /// 每子网格 20 字节：materialID(i32) + beginIndex(i32) + vertexCount(i32) + alpha(f32) + isVisible(u8) + bothFace(u8) + pad(2)
+/// 合并组的组首条目覆盖整组索引范围，其余条目 isVisible = 0
 #[no_mangle]
 pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_BatchGetSubMeshData(
     env: JNIEnv,
@@ -2760,8 +3187,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_BatchGetSubMeshData(
         std::slice::from_raw_parts_mut(out_ptr, out_cap)
     };
     
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         model.batch_get_sub_mesh_data(output) as jint
     } else {
@@ -2769,6 +3195,35 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_BatchGetSubMeshData(
     }
 }
 
+/// 批量获取所有材质的边缘参数（屏幕空间描边使用）
+/// 每材质 20 字节：edgeColor(4 × f32) + edgeSize(f32)，无边缘标志的材质 edgeSize 为 0
+#[no_mangle]
+pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_BatchGetMaterialEdgeData(
+    env: JNIEnv,
+    _class: JClass,
+    model: jlong,
+    buffer: JByteBuffer,
+) -> jint {
+    let out_ptr = match env.get_direct_buffer_address(&buffer) {
+        Ok(p) => p,
+        Err(_) => return 0,
+    };
+    let out_cap = match env.get_direct_buffer_capacity(&buffer) {
+        Ok(c) => c,
+        Err(_) => return 0,
+    };
+    let output = unsafe {
+        std::slice::from_raw_parts_mut(out_ptr, out_cap)
+    };
+    
+    if let Some(model_arc) = MODELS.get(model) {
+        let model = model_arc.lock().unwrap();
+        model.batch_get_material_edge_data(output) as jint
+    } else {
+        0
+    }
+}
+
 // ============================================================================
 // 公共 API 相关
 // ============================================================================
@@ -2780,8 +3235,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetBoneNames(
     _class: JClass,
     model: jlong,
 ) -> jstring {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let bone_count = model.bone_manager.bone_count();
         let mut names = Vec::with_capacity(bone_count);
@@ -2809,8 +3263,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyBonePositionsToBu
     model: jlong,
     buffer: JByteBuffer,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let bone_count = model.bone_manager.bone_count();
         if bone_count == 0 {
@@ -2844,7 +3297,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyBonePositionsToBu
 }
 
 /// 复制实时 UV 数据到 ByteBuffer（经过 UV Morph 变形后）
-/// 每个顶点 2 个 float (u, v)，共 vertexCount * 8 字节
+/// 每个顶点 2 个 float (u, v)，共 vertexCount * 8 字节，按 PMX 顶点顺序排列（还原加载时的顶点重排）
 #[no_mangle]
 pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyRealtimeUVsToBuffer(
     env: JNIEnv,
@@ -2852,8 +3305,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyRealtimeUVsToBuff
     model: jlong,
     buffer: JByteBuffer,
 ) -> jint {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let model = model_arc.lock().unwrap();
         let uv_raw = &model.update_uvs_raw;
         if uv_raw.is_empty() {
@@ -2872,9 +3324,21 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_CopyRealtimeUVsToBuff
             return 0;
         }
         
-        unsafe {
-            let src = uv_raw.as_ptr() as *const u8;
-            ptr::copy_nonoverlapping(src, dst, byte_size);
+        let remap = &model.pmx_vertex_remap;
+        if remap.len() != vertex_count {
+            unsafe {
+                let src = uv_raw.as_ptr() as *const u8;
+                ptr::copy_nonoverlapping(src, dst, byte_size);
+            }
+            return vertex_count as jint;
+        }
+
+        // 逐 PMX 顶点取其运行时位置的 UV
+        let dst_floats = unsafe { std::slice::from_raw_parts_mut(dst as *mut f32, uv_raw.len()) };
+        for (pmx, &runtime) in remap.iter().enumerate() {
+            let src = runtime as usize * 2;
+            dst_floats[pmx * 2] = uv_raw[src];
+            dst_floats[pmx * 2 + 1] = uv_raw[src + 1];
         }
         return vertex_count as jint;
     }
@@ -2892,8 +3356,7 @@ pub extern "system" fn Java_com_shiroha_mmdskin_NativeFunc_GetModelMemoryUsage(
     _class: JClass,
     model: jlong,
 ) -> jlong {
-    let models = MODELS.read().unwrap();
-    if let Some(model_arc) = models.get(&model) {
+    if let Some(model_arc) = MODELS.get(model) {
         let m = model_arc.lock().unwrap();
         m.memory_usage() as jlong
     } else {
@@ -0,0 +1,468 @@
+//! 句柄注册表 - 分代槽位表
+//!
+//! Java 侧持有的 long 句柄由槽位序号（低 32 位）与代号（高 32 位）组成：
+//! 查找按序号直接定位槽位（O(1)），读路径只有原子操作，不经过全局锁；
+//! 槽位每次重新占用时代号递增，已删除对象的旧句柄查找得到 None，不会解析到复用槽位的新对象。
+//! 插入/删除由一把互斥锁串行化（只保护槽位分配与空闲队列），不阻塞并发查找。
+
+use std::collections::VecDeque;
+use std::marker::PhantomData;
+use std::ptr;
+use std::sync::atomic::{AtomicPtr, AtomicU32, Ordering};
+use std::sync::{Arc, Mutex};
+
+/// 每块槽位数（按块分配，已分配的块地址不再变化）
+const CHUNK_BITS: u32 = 8;
+const CHUNK_SIZE: usize = 1 << CHUNK_BITS;
+/// 最大块数（共 1M 个槽位）
+const MAX_CHUNKS: usize = 4096;
+/// 代号上限（保证句柄为正数），溢出后从 1 重新开始
+const GENERATION_MASK: u32 = 0x7FFF_FFFF;
+
+struct Slot<T> {
+    /// 当前（或最近一次）占用者的代号，0 表示从未使用
+    generation: AtomicU32,
+    /// Arc::into_raw 得到的指针，空闲时为 null
+    value: AtomicPtr<T>,
+    /// 正在读取该槽位的线程数，删除/替换方等待归零后才释放旧值
+    readers: AtomicU32,
+}
+
+impl<T> Slot<T> {
+    fn new() -> Self {
+        Self {
+            generation: AtomicU32::new(0),
+            value: AtomicPtr::new(ptr::null_mut()),
+            readers: AtomicU32::new(0),
+        }
+    }
+
+    /// 等待进入读路径的线程全部离开（此前已把 value 换掉，新进入的读取方看不到旧值）
+    fn wait_readers(&self) {
+        let mut spins = 0u32;
+        while self.readers.load(Ordering::SeqCst) != 0 {
+            if spins < 64 {
+                std::hint::spin_loop();
+                spins += 1;
+            } else {
+                std::thread::yield_now();
+            }
+        }
+    }
+}
+
+/// 槽位分配状态（仅插入/删除时访问）
+struct Allocator {
+    /// 已启用的槽位数
+    len: u32,
+    /// 空闲槽位（先进先出，让同一槽位的复用间隔尽量长）
+    free: VecDeque<u32>,
+}
+
+/// 分代句柄注册表
+pub struct HandleRegistry<T> {
+    chunks: Box<[AtomicPtr<Slot<T>>]>,
+    alloc: Mutex<Allocator>,
+    /// 自动 Send/Sync 与 Arc<T> 一致
+    _marker: PhantomData<Arc<T>>,
+}
+
+impl<T> HandleRegistry<T> {
+    pub fn new() -> Self {
+        Self {
+            chunks: (0..MAX_CHUNKS).map(|_| AtomicPtr::new(ptr::null_mut())).collect(),
+            alloc: Mutex::new(Allocator { len: 0, free: VecDeque::new() }),
+            _marker: PhantomData,
+        }
+    }
+
+    fn encode(index: u32, generation: u32) -> i64 {
+        ((generation as i64) << 32) | index as i64
+    }
+
+    fn decode(handle: i64) -> (u32, u32) {
+        (handle as u32, (handle >> 32) as u32)
+    }
+
+    fn slot(&self, index: u32) -> Option<&Slot<T>> {
+        let chunk = (index >> CHUNK_BITS) as usize;
+        if chunk >= MAX_CHUNKS {
+            return None;
+        }
+        let base = self.chunks[chunk].load(Ordering::Acquire);
+        if base.is_null() {
+            return None;
+        }
+        // 块在注册表销毁前不会释放
+        Some(unsafe { &*base.add(index as usize & (CHUNK_SIZE - 1)) })
+    }
+
+    fn alloc_lock(&self) -> std::sync::MutexGuard<'_, Allocator> {
+        self.alloc.lock().unwrap_or_else(|e| e.into_inner())
+    }
+
+    /// 注册对象并返回句柄（槽位耗尽时返回 0）
+    pub fn insert(&self, value: T) -> i64 {
+        let mut alloc = self.alloc_lock();
+        let index = match alloc.free.pop_front() {
+            Some(index) => index,
+            None => {
+                let index = alloc.len;
+                let chunk = index as usize >> CHUNK_BITS;
+                if chunk >= MAX_CHUNKS {
+                    log::error!("句柄注册表已满（{} 个槽位）", MAX_CHUNKS * CHUNK_SIZE);
+                    return 0;
+                }
+                if index as usize & (CHUNK_SIZE - 1) == 0 {
+                    let slots: Box<[Slot<T>]> = (0..CHUNK_SIZE).map(|_| Slot::new()).collect();
+                    self.chunks[chunk].store(Box::into_raw(slots) as *mut Slot<T>, Ordering::Release);
+                }
+                alloc.len += 1;
+                index
+            }
+        };
+
+        let slot = self.slot(index).expect("槽位块已分配");
+        let previous = slot.generation.load(Ordering::Relaxed);
+        let generation = if previous >= GENERATION_MASK { 1 } else { previous + 1 };
+        // 先发布新代号再发布指针：读取方看到新指针时一定也能看到新代号
+        slot.generation.store(generation, Ordering::SeqCst);
+        slot.value.store(Arc::into_raw(Arc::new(value)) as *mut T, Ordering::SeqCst);
+        Self::encode(index, generation)
+    }
+
+    /// 按句柄查找（无锁）；句柄无效或已删除时返回 None
+    pub fn get(&self, handle: i64) -> Option<Arc<T>> {
+        let (index, generation) = Self::decode(handle);
+        let slot = self.slot(index)?;
+        if slot.generation.load(Ordering::SeqCst) != generation {
+            return None;
+        }
+
+        slot.readers.fetch_add(1, Ordering::SeqCst);
+        let raw = slot.value.load(Ordering::SeqCst);
+        // 读到指针后复查代号：槽位若已被重新占用，指针属于新对象，旧句柄不得解析到它
+        let result = if !raw.is_null() && slot.generation.load(Ordering::SeqCst) == generation {
+            unsafe {
+                Arc::increment_strong_count(raw);
+                Some(Arc::from_raw(raw))
+            }
+        } else {
+            None
+        };
+        slot.readers.fetch_sub(1, Ordering::SeqCst);
+        result
+    }
+
+    /// 删除句柄并返回对象（其他线程已取得的引用仍然有效）
+    pub fn remove(&self, handle: i64) -> Option<Arc<T>> {
+        let (index, generation) = Self::decode(handle);
+        let mut alloc = self.alloc_lock();
+        let slot = self.slot(index)?;
+        if slot.generation.load(Ordering::Relaxed) != generation {
+            return None;
+        }
+        let raw = slot.value.swap(ptr::null_mut(), Ordering::SeqCst);
+        if raw.is_null() {
+            return None;
+        }
+        slot.wait_readers();
+        alloc.free.push_back(index);
+        drop(alloc);
+        Some(unsafe { Arc::from_raw(raw) })
+    }
+
+    /// 替换句柄对应的对象，句柄保持有效；句柄无效时返回 false
+    pub fn replace(&self, handle: i64, value: T) -> bool {
+        let (index, generation) = Self::decode(handle);
+        let alloc = self.alloc_lock();
+        let slot = match self.slot(index) {
+            Some(slot) if slot.generation.load(Ordering::Relaxed) == generation => slot,
+            _ => return false,
+        };
+        if slot.value.load(Ordering::SeqCst).is_null() {
+            return false;
+        }
+        let old = slot.value.swap(Arc::into_raw(Arc::new(value)) as *mut T, Ordering::SeqCst);
+        slot.wait_readers();
+        drop(alloc);
+        drop(unsafe { Arc::from_raw(old) });
+        true
+    }
+
+    /// 当前注册的对象数
+    pub fn len(&self) -> usize {
+        let alloc = self.alloc_lock();
+        alloc.len as usize - alloc.free.len()
+    }
+}
+
+impl<T> Default for HandleRegistry<T> {
+    fn default() -> Self {
+        Self::new()
+    }
+}
+
+impl<T> Drop for HandleRegistry<T> {
+    fn drop(&mut self) {
+        for chunk in self.chunks.iter() {
+            let base = chunk.load(Ordering::Acquire);
+            if base.is_null() {
+                continue;
+            }
+            unsafe {
+                let slots = Box::from_raw(ptr::slice_from_raw_parts_mut(base, CHUNK_SIZE));
+                for slot in slots.iter() {
+                    let raw = slot.value.load(Ordering::Relaxed);
+                    if !raw.is_null() {
+                        drop(Arc::from_raw(raw));
+                    }
+                }
+            }
+        }
+    }
+}
+
+#[cfg(test)]
+mod tests {
+    use super::*;
+    use std::sync::atomic::{AtomicBool, AtomicUsize};
+    use std::thread;
+
+    #[test]
+    fn insert_get_remove() {
+        let registry = HandleRegistry::new();
+        let a = registry.insert(1);
+        let b = registry.insert(2);
+        assert_ne!(a, 0);
+        assert_ne!(a, b);
+        assert_eq!(registry.get(a).as_deref(), Some(&1));
+        assert_eq!(registry.get(b).as_deref(), Some(&2));
+        assert_eq!(registry.len(), 2);
+
+        assert_eq!(registry.remove(a).as_deref(), Some(&1));
+        assert!(registry.get(a).is_none());
+        assert!(registry.remove(a).is_none());
+        assert_eq!(registry.get(b).as_deref(), Some(&2));
+        assert_eq!(registry.len(), 1);
+    }
+
+    #[test]
+    fn invalid_handles() {
+        let registry = HandleRegistry::new();
+        registry.insert(1);
+        assert!(registry.get(0).is_none());
+        assert!(registry.get(-1).is_none());
+        assert!(registry.get(i64::MAX).is_none());
+        assert!(registry.get(HandleRegistry::<i32>::encode(12345, 1)).is_none());
+        assert!(registry.remove(0).is_none());
+        assert!(!registry.replace(0, 5));
+    }
+
+    #[test]
+    fn stale_handle_after_slot_reuse() {
+        let registry = HandleRegistry::new();
+        let old = registry.insert("old");
+        registry.remove(old);
+        let new = registry.insert("new");
+
+        // 同一槽位，不同代号
+        assert_eq!(old as u32, new as u32);
+        assert_ne!(old, new);
+        assert!(registry.get(old).is_none());
+        assert!(registry.remove(old).is_none());
+        assert!(!registry.replace(old, "stale"));
+        assert_eq!(registry.get(new).as_deref(), Some(&"new"));
+    }
+
+    #[test]
+    fn removed_value_outlives_handle() {
+        let registry = HandleRegistry::new();
+        let handle = registry.insert(String::from("model"));
+        let held = registry.get(handle).unwrap();
+        registry.remove(handle);
+        assert_eq!(held.as_str(), "model");
+        assert_eq!(Arc::strong_count(&held), 1);
+    }
+
+    #[test]
+    fn replace_keeps_handle() {
+        let registry = HandleRegistry::new();
+        let handle = registry.insert(1);
+        let before = registry.get(handle).unwrap();
+        assert!(registry.replace(handle, 2));
+        assert_eq!(*before, 1);
+        assert_eq!(registry.get(handle).as_deref(), Some(&2));
+        assert_eq!(registry.len(), 1);
+    }
+
+    #[test]
+    fn generation_wraparound() {
+        let registry = HandleRegistry::new();
+        let handle = registry.insert(1);
+        let (index, _) = HandleRegistry::<i32>::decode(handle);
+        registry.remove(handle);
+        registry.slot(index).unwrap().generation.store(GENERATION_MASK, Ordering::SeqCst);
+
+        let wrapped = registry.insert(2);
+        let (wrapped_index, generation) = HandleRegistry::<i32>::decode(wrapped);
+        assert_eq!(wrapped_index, index);
+        assert_eq!(generation, 1);
+        assert!(wrapped > 0);
+        assert_eq!(registry.get(wrapped).as_deref(), Some(&2));
+        assert!(registry.get(HandleRegistry::<i32>::encode(index, GENERATION_MASK)).is_none());
+    }
+
+    #[test]
+    fn spans_multiple_chunks() {
+        let registry = HandleRegistry::new();
+        let handles: Vec<i64> = (0..CHUNK_SIZE * 3 + 7).map(|i| registry.insert(i)).collect();
+        for (i, handle) in handles.iter().enumerate() {
+            assert_eq!(registry.get(*handle).as_deref(), Some(&i));
+        }
+    }
+
+    #[test]
+    fn concurrent_inserts_are_unique() {
+        let registry = Arc::new(HandleRegistry::new());
+        let threads: Vec<_> = (0..8)
+            .map(|t| {
+                let registry = registry.clone();
+                thread::spawn(move || (0..500).map(|i| (registry.insert(t * 1000 + i), t * 1000 + i)).collect::<Vec<_>>())
+            })
+            .collect();
+        let mut all = Vec::new();
+        for thread in threads {
+            all.extend(thread.join().unwrap());
+        }
+
+        let mut handles: Vec<i64> = all.iter().map(|(h, _)| *h).collect();
+        handles.sort_unstable();
+        handles.dedup();
+        assert_eq!(handles.len(), 4000);
+        assert_eq!(registry.len(), 4000);
+        for (handle, value) in all {
+            assert_eq!(registry.get(handle).as_deref(), Some(&value));
+        }
+    }
+
+    /// 带校验字段与析构计数的测试对象
+    struct Tracked {
+        serial: u64,
+        canary: u64,
+        drops: Arc<AtomicUsize>,
+    }
+
+    const CANARY: u64 = 0x5EED_CAFE_F00D_BEEF;
+
+    impl Drop for Tracked {
+        fn drop(&mut self) {
+            assert_eq!(self.canary, CANARY, "重复析构");
+            self.canary = 0;
+            self.drops.fetch_add(1, Ordering::SeqCst);
+        }
+    }
+
+    /// 读取方持续用新旧句柄查找，写入方不断删除并复用槽位：
+    /// 任何一次成功查找都必须得到该句柄注册时的对象，且对象在持有期间未被释放。
+    #[test]
+    fn concurrent_lookup_during_remove_and_reuse() {
+        const SLOTS: usize = 16;
+        const ROUNDS: u64 = 20_000;
+        const READERS: usize = 6;
+
+        let registry = Arc::new(HandleRegistry::new());
+        let drops = Arc::new(AtomicUsize::new(0));
+        let stop = Arc::new(AtomicBool::new(false));
+        // 当前句柄表，写入方替换，读取方可能读到已删除的旧句柄
+        let current: Arc<Vec<std::sync::atomic::AtomicI64>> =
+            Arc::new((0..SLOTS).map(|_| std::sync::atomic::AtomicI64::new(0)).collect());
+
+        let readers: Vec<_> = (0..READERS)
+            .map(|r| {
+                let registry = registry.clone();
+                let stop = stop.clone();
+                let current = current.clone();
+                thread::spawn(move || {
+                    let mut seen = Vec::new();
+                    let mut i = r;
+                    while !stop.load(Ordering::Relaxed) {
+                        let handle = current[i % SLOTS].load(Ordering::SeqCst);
+                        if let Some(value) = registry.get(handle) {
+                            assert_eq!(value.canary, CANARY, "读取到已释放的对象");
+                            seen.push((handle, value.serial));
+                            thread::yield_now();
+                            assert_eq!(value.canary, CANARY, "持有期间对象被释放");
+                        }
+                        i += 1;
+                    }
+                    seen
+                })
+            })
+            .collect();
+
+        let mut registered = std::collections::HashMap::new();
+        for serial in 0..ROUNDS {
+            let i = serial as usize % SLOTS;
+            let old = current[i].load(Ordering::SeqCst);
+            if old != 0 {
+                assert_eq!(registry.remove(old).map(|v| v.serial), registered.get(&old).copied());
+            }
+            let handle = registry.insert(Tracked { serial, canary: CANARY, drops: drops.clone() });
+            assert!(registered.insert(handle, serial).is_none(), "句柄重复");
+            current[i].store(handle, Ordering::SeqCst);
+        }
+        stop.store(true, Ordering::SeqCst);
+
+        let mut lookups = 0;
+        for reader in readers {
+            for (handle, serial) in reader.join().unwrap() {
+                assert_eq!(registered.get(&handle), Some(&serial), "旧句柄解析到了新对象");
+                lookups += 1;
+            }
+        }
+        assert!(lookups > 0);
+
+        assert_eq!(registry.len(), SLOTS);
+        assert_eq!(drops.load(Ordering::SeqCst), ROUNDS as usize - SLOTS);
+        drop(Arc::try_unwrap(registry).ok().expect("读取线程已结束"));
+        assert_eq!(drops.load(Ordering::SeqCst), ROUNDS as usize);
+    }
+
+    /// 替换与查找并发：读取方始终得到完整的旧值或新值，被替换的值在所有引用释放后恰好析构一次
+    #[test]
+    fn concurrent_lookup_during_replace() {
+        let registry = Arc::new(HandleRegistry::new());
+        let drops = Arc::new(AtomicUsize::new(0));
+        let handle = registry.insert(Tracked { serial: 0, canary: CANARY, drops: drops.clone() });
+        let stop = Arc::new(AtomicBool::new(false));
+
+        let readers: Vec<_> = (0..4)
+            .map(|_| {
+                let registry = registry.clone();
+                let stop = stop.clone();
+                thread::spawn(move || {
+                    let mut last = 0;
+                    while !stop.load(Ordering::Relaxed) {
+                        let value = registry.get(handle).expect("替换期间句柄应保持有效");
+                        assert_eq!(value.canary, CANARY);
+                        assert!(value.serial >= last, "读取到更旧的值");
+                        last = value.serial;
+                    }
+                })
+            })
+            .collect();
+
+        for serial in 1..=5_000u64 {
+            assert!(registry.replace(handle, Tracked { serial, canary: CANARY, drops: drops.clone() }));
+        }
+        stop.store(true, Ordering::SeqCst);
+        for reader in readers {
+            reader.join().unwrap();
+        }
+
+        assert_eq!(drops.load(Ordering::SeqCst), 5_000);
+        assert_eq!(registry.remove(handle).map(|v| v.serial), Some(5_000));
+        assert_eq!(drops.load(Ordering::SeqCst), 5_001);
+    }
+}
@@ -16,7 +16,10 @@ use mmd::{
 use crate::skeleton::Bone;
 use crate::{MmdError, Result};
 
-use super::{MmdMaterial, MmdModel, RuntimeVertex, SubMesh, VertexWeight};
+use super::{
+    build_submesh_groups, generate_lod_levels, optimize_mesh, remap_morph_vertices, MmdMaterial, MmdModel, RuntimeVertex,
+    SubMesh, VertexWeight,
+};
 
 /// 从 PMX 文件加载模型
 pub fn load_pmx<P: AsRef<Path>>(path: P) -> Result<MmdModel> {
@@ -191,18 +194,36 @@ pub fn load_pmx<P: AsRef<Path>>(path: P) -> Result<MmdModel> {
         joints.push(j);
     }
 
+    // 网格优化：子网格内三角形按顶点缓存/过度绘制重排，顶点按获取顺序重排（Morph 索引同步）
+    let vertex_remap = optimize_mesh(&mut vertices, &mut weights, &mut indices, &submeshes);
+    remap_morph_vertices(&mut morph_manager, &vertex_remap);
+
     // 初始化更新缓冲区
     let update_positions: Vec<Vec3> = vertices.iter().map(|v| v.position).collect();
     let update_normals: Vec<Vec3> = vertices.iter().map(|v| v.normal).collect();
     let update_uvs: Vec<Vec2> = vertices.iter().map(|v| v.uv).collect();
 
+    // 生成简化 LOD 索引（共享同一顶点集，远距离时只替换索引）
+    let lod_levels = generate_lod_levels(&vertices, &weights, &indices, &submeshes);
+
+    // 相邻等价材质的子网格合并为一次绘制（不改动索引与材质，仅记录分组）
+    let submesh_groups = build_submesh_groups(&materials, &submeshes, &morph_manager);
+    if !submesh_groups.is_empty() {
+        let merged: usize = submesh_groups.iter().map(|g| g.count - 1).sum();
+        log::info!("子网格合并: {} 组，绘制次数 {} → {}", submesh_groups.len(),
+            submeshes.len(), submeshes.len() - merged);
+    }
+
     let mut model = MmdModel::new();
     model.name = model_name;
     model.vertices = vertices;
     model.indices = indices;
     model.weights = weights;
+    model.pmx_vertex_remap = vertex_remap;
     model.materials = materials;
     model.submeshes = submeshes;
+    model.lod_levels = lod_levels;
+    model.submesh_groups = submesh_groups;
     model.texture_paths = texture_paths;
     model.rigid_bodies = rigid_bodies;
     model.joints = joints;
@@ -0,0 +1,759 @@
+//! 网格 LOD 生成
+//!
+//! 加载时对每个子网格做二次误差度量（QEM）半边折叠简化，生成若干级简化索引缓冲。
+//! 只折叠到已有顶点，蒙皮仍作用于完整顶点集，各级 LOD 只替换索引。
+//! 子网格之间互不影响（材质边界），开放边界与 UV 接缝上的顶点锁定不动。
+//! 简化索引仍作用于蒙皮后的顶点，因此只在骨骼影响相近的顶点之间折叠（肘部、裙摆与腿部交界等处不跨越），
+//! 与所有相邻顶点骨骼影响都不同的顶点锁定。
+
+use std::cmp::Ordering;
+use std::collections::{BinaryHeap, HashMap};
+
+use glam::DVec3;
+use rayon::prelude::*;
+
+use super::{RuntimeVertex, SubMesh, VertexWeight};
+
+/// 各级 LOD 相对原始三角形数的目标比例
+pub const LOD_TARGET_RATIOS: [f32; 3] = [0.5, 0.25, 0.1];
+
+/// 三角形数低于此值的子网格不做简化（眼睛、口内等小部件）
+const MIN_SIMPLIFY_TRIANGLES: usize = 32;
+
+/// 单次折叠允许的最大误差（相对模型包围盒对角线长度）
+const MAX_ERROR_RATIO: f64 = 0.02;
+
+/// 某级索引数超过上一级的此比例时视为简化无效，丢弃该级
+const MIN_REDUCTION_RATIO: f32 = 0.9;
+
+/// 允许折叠的骨骼影响差异上限（各骨骼权重差之和的一半，0 = 相同，1 = 完全不同）
+const SKIN_WEIGHT_TOLERANCE: f32 = 0.1;
+
+/// 一级 LOD 数据
+#[derive(Clone, Debug, Default)]
+pub struct LodLevel {
+    /// 简化后的索引（各子网格按原顺序拼接）
+    pub indices: Vec<u32>,
+    /// 与原始子网格一一对应，begin_index 为拼接在原始索引及前几级之后的绝对偏移
+    pub submeshes: Vec<SubMesh>,
+}
+
+/// 为模型生成全部 LOD 级别（不含原始网格）
+pub fn generate_lod_levels(
+    vertices: &[RuntimeVertex],
+    weights: &[VertexWeight],
+    indices: &[u32],
+    submeshes: &[SubMesh],
+) -> Vec<LodLevel> {
+    if vertices.is_empty() || indices.len() < 3 || submeshes.is_empty() {
+        return Vec::new();
+    }
+
+    let positions: Vec<DVec3> = vertices.iter().map(|v| v.position.as_dvec3()).collect();
+    let seam_locked = detect_seam_vertices(vertices);
+    let skins: Vec<SkinInfluence> = weights.iter().map(SkinInfluence::from_weight).collect();
+
+    let (min, max) = positions.iter().fold(
+        (DVec3::splat(f64::MAX), DVec3::splat(f64::MIN)),
+        |(lo, hi), p| (lo.min(*p), hi.max(*p)),
+    );
+    let max_error = ((max - min).length() * MAX_ERROR_RATIO).powi(2);
+
+    // 各子网格独立简化，结果为 [子网格][级别] -> 索引
+    let per_submesh: Vec<Vec<Vec<u32>>> = submeshes
+        .par_iter()
+        .map(|sm| {
+            let begin = (sm.begin_index as usize).min(indices.len());
+            let end = (begin + sm.index_count as usize).min(indices.len());
+            let tris = &indices[begin..end - (end - begin) % 3];
+            let tri_count = tris.len() / 3;
+            if tri_count < MIN_SIMPLIFY_TRIANGLES {
+                return vec![tris.to_vec(); LOD_TARGET_RATIOS.len()];
+            }
+            let targets: Vec<usize> = LOD_TARGET_RATIOS
+                .iter()
+                .map(|r| ((tri_count as f32 * r) as usize).max(MIN_SIMPLIFY_TRIANGLES / 2))
+                .collect();
+            simplify_submesh(tris, &positions, &seam_locked, &skins, &targets, max_error)
+        })
+        .collect();
+
+    // 按级别拼接，丢弃缩减不明显的级别
+    let mut levels = Vec::with_capacity(LOD_TARGET_RATIOS.len());
+    let mut prev_count = indices.len();
+    let mut offset = indices.len() as u32;
+    for level in 0..LOD_TARGET_RATIOS.len() {
+        let count: usize = per_submesh.iter().map(|l| l[level].len()).sum();
+        if count as f32 > prev_count as f32 * MIN_REDUCTION_RATIO {
+            continue;
+        }
+
+        let mut lod = LodLevel {
+            indices: Vec::with_capacity(count),
+            submeshes: Vec::with_capacity(submeshes.len()),
+        };
+        for (sm, lods) in submeshes.iter().zip(&per_submesh) {
+            let part = &lods[level];
+            lod.submeshes.push(SubMesh::new(
+                offset + lod.indices.len() as u32,
+                part.len() as u32,
+                sm.material_id,
+            ));
+            lod.indices.extend_from_slice(part);
+        }
+        offset += lod.indices.len() as u32;
+        prev_count = count;
+        levels.push(lod);
+    }
+
+    log::info!(
+        "生成 {} 级 LOD，三角形数: {} -> {:?}",
+        levels.len(),
+        indices.len() / 3,
+        levels.iter().map(|l| l.indices.len() / 3).collect::<Vec<_>>()
+    );
+
+    levels
+}
+
+/// 检测 UV 接缝/硬边顶点：位置完全相同但索引不同的顶点全部锁定
+fn detect_seam_vertices(vertices: &[RuntimeVertex]) -> Vec<bool> {
+    let mut locked = vec![false; vertices.len()];
+    let mut first_at: HashMap<[u32; 3], usize> = HashMap::with_capacity(vertices.len());
+    for (i, v) in vertices.iter().enumerate() {
+        let key = [v.position.x.to_bits(), v.position.y.to_bits(), v.position.z.to_bits()];
+        match first_at.get(&key) {
+            Some(&first) => {
+                locked[first] = true;
+                locked[i] = true;
+            }
+            None => {
+                first_at.insert(key, i);
+            }
+        }
+    }
+    locked
+}
+
+/// 顶点骨骼影响（合并重复骨骼并按权重归一化）
+#[derive(Clone, Copy, Debug, PartialEq)]
+struct SkinInfluence {
+    bones: [i32; 4],
+    weights: [f32; 4],
+}
+
+impl Default for SkinInfluence {
+    fn default() -> Self {
+        Self { bones: [-1; 4], weights: [0.0; 4] }
+    }
+}
+
+impl SkinInfluence {
+    fn from_weight(weight: &VertexWeight) -> Self {
+        let (bones, weights) = match *weight {
+            VertexWeight::Bdef1 { bone } => ([bone, -1, -1, -1], [1.0, 0.0, 0.0, 0.0]),
+            VertexWeight::Bdef2 { bones, weight } | VertexWeight::Sdef { bones, weight, .. } => {
+                ([bones[0], bones[1], -1, -1], [weight, 1.0 - weight, 0.0, 0.0])
+            }
+            VertexWeight::Bdef4 { bones, weights } | VertexWeight::Qdef { bones, weights } => (bones, weights),
+        };
+
+        let mut s = Self::default();
+        let mut total = 0.0;
+        for (&b, &w) in bones.iter().zip(&weights) {
+            if b < 0 || w <= 0.0 {
+                continue;
+            }
+            total += w;
+            if let Some(k) = s.bones.iter().position(|&x| x == b) {
+                s.weights[k] += w;
+            } else if let Some(k) = s.bones.iter().position(|&x| x < 0) {
+                s.bones[k] = b;
+                s.weights[k] = w;
+            }
+        }
+        if total > 0.0 {
+            for w in &mut s.weights {
+                *w /= total;
+            }
+        }
+        s
+    }
+
+    /// 主骨骼（权重最大，相同时取编号较小者）
+    fn dominant(&self) -> i32 {
+        let mut best = (-1, 0.0);
+        for (&b, &w) in self.bones.iter().zip(&self.weights) {
+            if b >= 0 && (w > best.1 || (w == best.1 && b < best.0)) {
+                best = (b, w);
+            }
+        }
+        best.0
+    }
+
+    fn weight_of(&self, bone: i32) -> f32 {
+        let mut w = 0.0;
+        for k in 0..4 {
+            if self.bones[k] == bone {
+                w += self.weights[k];
+            }
+        }
+        w
+    }
+
+    /// 骨骼影响差异：各骨骼权重差绝对值之和的一半
+    fn distance(&self, other: &Self) -> f32 {
+        let mut sum = 0.0;
+        for (&b, &w) in self.bones.iter().zip(&self.weights) {
+            if b >= 0 {
+                sum += (w - other.weight_of(b)).abs();
+            }
+        }
+        for (&b, &w) in other.bones.iter().zip(&other.weights) {
+            if b >= 0 && !self.bones.contains(&b) {
+                sum += w;
+            }
+        }
+        sum * 0.5
+    }
+
+    /// 是否允许互相折叠：主骨骼相同且影响差异在容差内
+    fn compatible(&self, other: &Self) -> bool {
+        self.dominant() == other.dominant() && self.distance(other) <= SKIN_WEIGHT_TOLERANCE
+    }
+}
+
+/// 对称 4x4 误差二次型（上三角 10 个分量）
+#[derive(Clone, Copy, Default)]
+struct Quadric([f64; 10]);
+
+impl Quadric {
+    fn from_plane(n: DVec3, d: f64) -> Self {
+        Self([
+            n.x * n.x, n.x * n.y, n.x * n.z, n.x * d,
+            n.y * n.y, n.y * n.z, n.y * d,
+            n.z * n.z, n.z * d,
+            d * d,
+        ])
+    }
+
+    fn add(&mut self, other: &Quadric) {
+        for (a, b) in self.0.iter_mut().zip(other.0.iter()) {
+            *a += b;
+        }
+    }
+
+    fn sum(&self, other: &Quadric) -> Quadric {
+        let mut q = *self;
+        q.add(other);
+        q
+    }
+
+    fn eval(&self, p: DVec3) -> f64 {
+        let q = &self.0;
+        let (x, y, z) = (p.x, p.y, p.z);
+        q[0] * x * x + 2.0 * q[1] * x * y + 2.0 * q[2] * x * z + 2.0 * q[3] * x
+            + q[4] * y * y + 2.0 * q[5] * y * z + 2.0 * q[6] * y
+            + q[7] * z * z + 2.0 * q[8] * z
+            + q[9]
+    }
+}
+
+/// 折叠候选（from 折叠到 to），按误差升序出堆
+struct Candidate {
+    cost: f64,
+    from: u32,
+    to: u32,
+    from_version: u32,
+    to_version: u32,
+}
+
+impl PartialEq for Candidate {
+    fn eq(&self, other: &Self) -> bool {
+        self.cost == other.cost
+    }
+}
+
+impl Eq for Candidate {}
+
+impl PartialOrd for Candidate {
+    fn partial_cmp(&self, other: &Self) -> Option<Ordering> {
+        Some(self.cmp(other))
+    }
+}
+
+impl Ord for Candidate {
+    fn cmp(&self, other: &Self) -> Ordering {
+        other.cost.total_cmp(&self.cost)
+    }
+}
+
+/// 单个子网格的简化状态（局部顶点编号）
+struct Simplifier {
+    globals: Vec<u32>,
+    positions: Vec<DVec3>,
+    skins: Vec<SkinInfluence>,
+    quadrics: Vec<Quadric>,
+    locked: Vec<bool>,
+    removed: Vec<bool>,
+    version: Vec<u32>,
+    tris: Vec<[u32; 3]>,
+    tri_alive: Vec<bool>,
+    vertex_tris: Vec<Vec<u32>>,
+    live_tris: usize,
+    heap: BinaryHeap<Candidate>,
+}
+
+impl Simplifier {
+    fn new(tris_in: &[u32], positions: &[DVec3], seam_locked: &[bool], skins: &[SkinInfluence]) -> Self {
+        let mut local_of: HashMap<u32, u32> = HashMap::new();
+        let mut globals = Vec::new();
+        let mut tris = Vec::with_capacity(tris_in.len() / 3);
+        for t in tris_in.chunks_exact(3) {
+            let mut local = [0u32; 3];
+            for (k, &g) in t.iter().enumerate() {
+                local[k] = *local_of.entry(g).or_insert_with(|| {
+                    globals.push(g);
+                    (globals.len() - 1) as u32
+                });
+            }
+            tris.push(local);
+        }
+
+        let n = globals.len();
+        let local_positions: Vec<DVec3> = globals
+            .iter()
+            .map(|&g| positions.get(g as usize).copied().unwrap_or(DVec3::ZERO))
+            .collect();
+        let local_skins: Vec<SkinInfluence> = globals
+            .iter()
+            .map(|&g| skins.get(g as usize).copied().unwrap_or_default())
+            .collect();
+        let mut locked: Vec<bool> = globals
+            .iter()
+            .map(|&g| seam_locked.get(g as usize).copied().unwrap_or(true))
+            .collect();
+
+        let mut quadrics = vec![Quadric::default(); n];
+        let mut vertex_tris = vec![Vec::new(); n];
+        let mut tri_alive = vec![true; tris.len()];
+        let mut edge_use: HashMap<(u32, u32), u32> = HashMap::with_capacity(tris.len() * 3 / 2);
+        let mut live_tris = tris.len();
+
+        for (ti, t) in tris.iter().enumerate() {
+            // 原始数据中的退化三角形直接剔除
+            if t[0] == t[1] || t[1] == t[2] || t[0] == t[2] {
+                tri_alive[ti] = false;
+                live_tris -= 1;
+                continue;
+            }
+            let (p0, p1, p2) = (local_positions[t[0] as usize], local_positions[t[1] as usize], local_positions[t[2] as usize]);
+            let normal = (p1 - p0).cross(p2 - p0);
+            if let Some(n) = normal.try_normalize() {
+                let q = Quadric::from_plane(n, -n.dot(p0));
+                for &v in t {
+                    quadrics[v as usize].add(&q);
+                }
+            }
+            for k in 0..3 {
+                vertex_tris[t[k] as usize].push(ti as u32);
+                let (a, b) = (t[k], t[(k + 1) % 3]);
+                *edge_use.entry((a.min(b), a.max(b))).or_insert(0) += 1;
+            }
+        }
+
+        // 开放边界（子网格外沿、材质分界）与非流形边的端点锁定
+        for (&(a, b), &count) in &edge_use {
+            if count != 2 {
+                locked[a as usize] = true;
+                locked[b as usize] = true;
+            }
+        }
+
+        // 与所有相邻顶点骨骼影响都不同的顶点锁定（孤立权重，折叠到任何一侧都会在动画中拉伸）
+        let mut has_compatible = vec![false; n];
+        for &(a, b) in edge_use.keys() {
+            if local_skins[a as usize].compatible(&local_skins[b as usize]) {
+                has_compatible[a as usize] = true;
+                has_compatible[b as usize] = true;
+            }
+        }
+        for (l, &h) in locked.iter_mut().zip(&has_compatible) {
+            if !h {
+                *l = true;
+            }
+        }
+
+        let mut s = Self {
+            globals,
+            positions: local_positions,
+            skins: local_skins,
+            quadrics,
+            locked,
+            removed: vec![false; n],
+            version: vec![0; n],
+            tris,
+            tri_alive,
+            vertex_tris,
+            live_tris,
+            heap: BinaryHeap::with_capacity(edge_use.len() * 2),
+        };
+        for &(a, b) in edge_use.keys() {
+            s.push_candidate(a, b);
+            s.push_candidate(b, a);
+        }
+        s
+    }
+
+    fn push_candidate(&mut self, from: u32, to: u32) {
+        // 骨骼影响不同的顶点之间不折叠（静止姿态下误差为 0 的折叠在动画中也会撕裂）
+        if self.locked[from as usize] || !self.skins[from as usize].compatible(&self.skins[to as usize]) {
+            return;
+        }
+        let q = self.quadrics[from as usize].sum(&self.quadrics[to as usize]);
+        let cost = q.eval(self.positions[to as usize]).max(0.0);
+        self.heap.push(Candidate {
+            cost,
+            from,
+            to,
+            from_version: self.version[from as usize],
+            to_version: self.version[to as usize],
+        });
+    }
+
+    /// 检查折叠是否会翻转或压扁相邻三角形
+    fn can_collapse(&self, from: u32, to: u32) -> bool {
+        let target = self.positions[to as usize];
+        for &ti in &self.vertex_tris[from as usize] {
+            if !self.tri_alive[ti as usize] {
+                continue;
+            }
+            let t = self.tris[ti as usize];
+            if t.contains(&to) {
+                continue;
+            }
+            let p = t.map(|v| self.positions[v as usize]);
+            let old_n = (p[1] - p[0]).cross(p[2] - p[0]);
+            let moved = t.map(|v| if v == from { target } else { self.positions[v as usize] });
+            let new_n = (moved[1] - moved[0]).cross(moved[2] - moved[0]);
+            let new_len = new_n.length();
+            if new_len < 1e-12 || old_n.dot(new_n) <= 0.2 * old_n.length() * new_len {
+                return false;
+            }
+        }
+        true
+    }
+
+    fn collapse(&mut self, from: u32, to: u32) {
+        let from_tris = std::mem::take(&mut self.vertex_tris[from as usize]);
+        for ti in from_tris {
+            if !self.tri_alive[ti as usize] {
+                continue;
+            }
+            let t = &mut self.tris[ti as usize];
+            if t.contains(&to) {
+                self.tri_alive[ti as usize] = false;
+                self.live_tris -= 1;
+            } else {
+                for v in t.iter_mut() {
+                    if *v == from {
+                        *v = to;
+                    }
+                }
+                self.vertex_tris[to as usize].push(ti);
+            }
+        }
+
+        let q = self.quadrics[from as usize];
+        self.quadrics[to as usize].add(&q);
+        self.removed[from as usize] = true;
+        self.version[from as usize] += 1;
+        self.version[to as usize] += 1;
+
+        let alive = &self.tri_alive;
+        self.vertex_tris[to as usize].retain(|&ti| alive[ti as usize]);
+
+        // 目标顶点误差变化，重新评估其所有相邻边
+        let mut neighbors: Vec<u32> = self.vertex_tris[to as usize]
+            .iter()
+            .flat_map(|&ti| self.tris[ti as usize])
+            .filter(|&v| v != to)
+            .collect();
+        neighbors.sort_unstable();
+        neighbors.dedup();
+        for n in neighbors {
+            self.push_candidate(to, n);
+            self.push_candidate(n, to);
+        }
+    }
+
+    fn collect(&self) -> Vec<u32> {
+        let mut out = Vec::with_capacity(self.live_tris * 3);
+        for (t, &alive) in self.tris.iter().zip(&self.tri_alive) {
+            if alive {
+                out.extend(t.iter().map(|&v| self.globals[v as usize]));
+            }
+        }
+        out
+    }
+}
+
+/// 简化单个子网格，按目标三角形数（降序）依次输出各级索引
+fn simplify_submesh(
+    tris: &[u32],
+    positions: &[DVec3],
+    seam_locked: &[bool],
+    skins: &[SkinInfluence],
+    targets: &[usize],
+    max_error: f64,
+) -> Vec<Vec<u32>> {
+    let mut s = Simplifier::new(tris, positions, seam_locked, skins);
+    let mut outputs = Vec::with_capacity(targets.len());
+
+    while outputs.len() < targets.len() {
+        if s.live_tris <= targets[outputs.len()] {
+            outputs.push(s.collect());
+            continue;
+        }
+        let Some(c) = s.heap.pop() else { break };
+        if c.cost > max_error {
+            break;
+        }
+        let (from, to) = (c.from as usize, c.to as usize);
+        if s.removed[from] || s.removed[to]
+            || s.version[from] != c.from_version
+            || s.version[to] != c.to_version
+        {
+            continue;
+        }
+        if !s.can_collapse(c.from, c.to) {
+            continue;
+        }
+        s.collapse(c.from, c.to);
+    }
+
+    // 误差上限提前终止时，剩余级别沿用当前结果
+    while outputs.len() < targets.len() {
+        outputs.push(s.collect());
+    }
+    outputs
+}
+
+#[cfg(test)]
+mod tests {
+    use super::*;
+    use glam::{Vec2, Vec3};
+
+    /// 生成 n×n 平面网格（XY 平面，每格两个三角形，法线朝 +Z）
+    fn grid(n: u32, origin: Vec3) -> (Vec<RuntimeVertex>, Vec<u32>) {
+        let mut vertices = Vec::new();
+        for y in 0..=n {
+            for x in 0..=n {
+                vertices.push(RuntimeVertex {
+                    position: origin + Vec3::new(x as f32, y as f32, 0.0),
+                    normal: Vec3::Z,
+                    uv: Vec2::new(x as f32 / n as f32, y as f32 / n as f32),
+                });
+            }
+        }
+        let mut indices = Vec::new();
+        for y in 0..n {
+            for x in 0..n {
+                let i = y * (n + 1) + x;
+                indices.extend_from_slice(&[i, i + 1, i + n + 1, i + 1, i + n + 2, i + n + 1]);
+            }
+        }
+        (vertices, indices)
+    }
+
+    fn positions(vertices: &[RuntimeVertex]) -> Vec<DVec3> {
+        vertices.iter().map(|v| v.position.as_dvec3()).collect()
+    }
+
+    fn single_bone(count: usize) -> Vec<SkinInfluence> {
+        vec![SkinInfluence::from_weight(&VertexWeight::Bdef1 { bone: 0 }); count]
+    }
+
+    fn is_border(i: u32, n: u32) -> bool {
+        let (x, y) = (i % (n + 1), i / (n + 1));
+        x == 0 || y == 0 || x == n || y == n
+    }
+
+    #[test]
+    fn test_triangle_targets() {
+        let (vertices, indices) = grid(16, Vec3::ZERO);
+        let targets = [384, 256, 128];
+        let levels = simplify_submesh(
+            &indices,
+            &positions(&vertices),
+            &vec![false; vertices.len()],
+            &single_bone(vertices.len()),
+            &targets,
+            f64::MAX,
+        );
+
+        assert_eq!(levels.len(), targets.len());
+        for (level, &target) in levels.iter().zip(&targets) {
+            assert_eq!(level.len() % 3, 0);
+            assert!(level.len() / 3 <= target, "三角形数 {} 超过目标 {}", level.len() / 3, target);
+        }
+    }
+
+    #[test]
+    fn test_seam_and_border_vertices_kept() {
+        let n = 16;
+        let (vertices, indices) = grid(n, Vec3::ZERO);
+        // 中间一列模拟 UV 接缝
+        let mut seam_locked = vec![false; vertices.len()];
+        for y in 0..=n {
+            seam_locked[(y * (n + 1) + n / 2) as usize] = true;
+        }
+        let levels = simplify_submesh(
+            &indices,
+            &positions(&vertices),
+            &seam_locked,
+            &single_bone(vertices.len()),
+            &[256, 192],
+            f64::MAX,
+        );
+
+        for level in &levels {
+            assert!(level.len() / 3 <= 256);
+            for i in 0..vertices.len() as u32 {
+                if seam_locked[i as usize] || is_border(i, n) {
+                    assert!(level.contains(&i), "锁定顶点 {} 被折叠", i);
+                }
+            }
+        }
+    }
+
+    #[test]
+    fn test_no_flipped_triangles() {
+        let (vertices, indices) = grid(16, Vec3::ZERO);
+        let pos = positions(&vertices);
+        // 目标远低于可达下限，简化会一直进行到所有剩余折叠都被拒绝
+        let levels = simplify_submesh(
+            &indices,
+            &pos,
+            &vec![false; vertices.len()],
+            &single_bone(vertices.len()),
+            &[16],
+            f64::MAX,
+        );
+
+        assert!(levels[0].len() < indices.len());
+        for t in levels[0].chunks_exact(3) {
+            let (p0, p1, p2) = (pos[t[0] as usize], pos[t[1] as usize], pos[t[2] as usize]);
+            let normal = (p1 - p0).cross(p2 - p0);
+            assert!(normal.z > 0.0, "三角形 {:?} 翻转或退化", t);
+        }
+    }
+
+    #[test]
+    fn test_level_offsets_follow_original_indices() {
+        // 两个子网格（不同材质），第二个网格平移开，避免位置重合被当作接缝
+        let (mut vertices, mut indices) = grid(16, Vec3::ZERO);
+        let first_vertices = vertices.len() as u32;
+        let first_indices = indices.len() as u32;
+        let (v2, i2) = grid(16, Vec3::new(32.0, 0.0, 0.0));
+        vertices.extend(v2);
+        indices.extend(i2.iter().map(|i| i + first_vertices));
+        let submeshes = vec![
+            SubMesh::new(0, first_indices, 3),
+            SubMesh::new(first_indices, indices.len() as u32 - first_indices, 7),
+        ];
+        let weights = vec![VertexWeight::Bdef1 { bone: 0 }; vertices.len()];
+
+        let levels = generate_lod_levels(&vertices, &weights, &indices, &submeshes);
+        assert!(!levels.is_empty());
+
+        let mut offset = indices.len() as u32;
+        let mut prev_count = indices.len();
+        for level in &levels {
+            assert!(level.indices.len() as f32 <= prev_count as f32 * MIN_REDUCTION_RATIO);
+            assert_eq!(level.submeshes.len(), submeshes.len());
+
+            let mut begin = offset;
+            for (k, (sm, orig)) in level.submeshes.iter().zip(&submeshes).enumerate() {
+                assert_eq!(sm.begin_index, begin);
+                assert_eq!(sm.material_id, orig.material_id);
+                // 局部范围内的索引只引用本子网格的顶点
+                let local = (sm.begin_index - offset) as usize;
+                for &i in &level.indices[local..local + sm.index_count as usize] {
+                    assert_eq!(i >= first_vertices, k == 1);
+                }
+                begin += sm.index_count;
+            }
+            assert_eq!(begin - offset, level.indices.len() as u32);
+
+            offset += level.indices.len() as u32;
+            prev_count = level.indices.len();
+        }
+    }
+
+    #[test]
+    fn test_skin_influence_compatibility() {
+        let a = SkinInfluence::from_weight(&VertexWeight::Bdef2 { bones: [1, 2], weight: 0.7 });
+        // 骨骼顺序不同、重复骨骼合并、未归一化的权重都视为同一影响
+        let b = SkinInfluence::from_weight(&VertexWeight::Bdef4 { bones: [2, 1, 1, -1], weights: [0.6, 0.8, 0.6, 0.0] });
+        assert!(a.distance(&b) < 1e-5);
+        assert!(a.compatible(&b));
+
+        let near = SkinInfluence::from_weight(&VertexWeight::Bdef2 { bones: [1, 2], weight: 0.65 });
+        assert!(a.compatible(&near));
+
+        let far = SkinInfluence::from_weight(&VertexWeight::Bdef2 { bones: [1, 2], weight: 0.55 });
+        assert!(!a.compatible(&far));
+
+        let other_bone = SkinInfluence::from_weight(&VertexWeight::Bdef2 { bones: [2, 1], weight: 0.7 });
+        assert!(!a.compatible(&other_bone));
+
+        // 五五开时按编号较小的骨骼为主骨骼，与骨骼顺序无关
+        let even_a = SkinInfluence::from_weight(&VertexWeight::Bdef2 { bones: [1, 2], weight: 0.5 });
+        let even_b = SkinInfluence::from_weight(&VertexWeight::Bdef2 { bones: [2, 1], weight: 0.5 });
+        assert!(even_a.compatible(&even_b));
+    }
+
+    #[test]
+    fn test_isolated_influence_vertex_locked() {
+        let n = 16;
+        let (vertices, indices) = grid(n, Vec3::ZERO);
+        let center = n / 2 * (n + 1) + n / 2;
+        let mut skins = single_bone(vertices.len());
+        skins[center as usize] = SkinInfluence::from_weight(&VertexWeight::Bdef1 { bone: 1 });
+
+        let levels = simplify_submesh(
+            &indices,
+            &positions(&vertices),
+            &vec![false; vertices.len()],
+            &skins,
+            &[256, 128],
+            f64::MAX,
+        );
+        for level in &levels {
+            assert!(level.len() / 3 <= 256);
+            assert!(level.contains(&center));
+        }
+    }
+
+    #[test]
+    fn test_differing_influences_block_collapse() {
+        // 每个顶点各自绑定一根骨骼：任何折叠都会跨越骨骼影响，不生成 LOD
+        let (vertices, indices) = grid(16, Vec3::ZERO);
+        let weights: Vec<VertexWeight> = (0..vertices.len() as i32).map(|bone| VertexWeight::Bdef1 { bone }).collect();
+        let skins: Vec<SkinInfluence> = weights.iter().map(SkinInfluence::from_weight).collect();
+
+        let levels = simplify_submesh(
+            &indices,
+            &positions(&vertices),
+            &vec![false; vertices.len()],
+            &skins,
+            &[256],
+            f64::MAX,
+        );
+        assert_eq!(levels[0], indices);
+
+        let submeshes = vec![SubMesh::new(0, indices.len() as u32, 0)];
+        assert!(generate_lod_levels(&vertices, &weights, &indices, &submeshes).is_empty());
+    }
+}
@@ -0,0 +1,507 @@
+//! 网格加载时优化
+//!
+//! 1. 顶点缓存优化：逐子网格按 Forsyth 线性时间算法重排三角形，提高变换后顶点缓存命中率
+//! 2. 过度绘制优化：在缓存完全失效的位置切分簇，按簇朝外程度排序（外侧先画），ACMR 劣化超阈值时放弃
+//! 3. 顶点获取优化：按索引首次引用顺序重排顶点，同步重映射骨骼权重与 Morph 顶点索引
+//!
+//! 三角形只在各自子网格（材质）范围内移动，材质区间保持不变。
+
+use std::collections::HashMap;
+
+use glam::Vec3;
+use rayon::prelude::*;
+
+use crate::morph::MorphManager;
+
+use super::{RuntimeVertex, SubMesh, VertexWeight};
+
+/// 评分用的模拟 LRU 缓存大小
+const FORSYTH_CACHE_SIZE: usize = 32;
+const CACHE_DECAY_POWER: f32 = 1.5;
+const LAST_TRI_SCORE: f32 = 0.75;
+const VALENCE_BOOST_SCALE: f32 = 2.0;
+const VALENCE_BOOST_POWER: f32 = 0.5;
+
+/// ACMR 统计与过度绘制切簇使用的 FIFO 缓存大小（近似常见硬件）
+pub const ACMR_CACHE_SIZE: usize = 16;
+
+/// 过度绘制排序后 ACMR 允许的最大劣化比例
+const OVERDRAW_ACMR_THRESHOLD: f32 = 1.05;
+
+/// 平均缓存未命中率（ACMR）：每个三角形平均需要变换的顶点数，越低越好（理想值约 0.5）
+pub fn compute_acmr(indices: &[u32], cache_size: usize) -> f32 {
+    let tri_count = indices.len() / 3;
+    if tri_count == 0 || cache_size == 0 {
+        return 0.0;
+    }
+    let mut cache: Vec<u32> = vec![u32::MAX; cache_size];
+    let mut head = 0usize;
+    let mut misses = 0usize;
+    for &v in &indices[..tri_count * 3] {
+        if !cache.contains(&v) {
+            cache[head] = v;
+            head = (head + 1) % cache_size;
+            misses += 1;
+        }
+    }
+    misses as f32 / tri_count as f32
+}
+
+/// 优化网格并返回顶点重映射表（remap[旧索引] = 新索引）
+///
+/// 就地重排 `indices`（子网格范围不变）、`vertices` 与 `weights`，
+/// Morph 等其他按顶点索引的数据需调用方使用返回的重映射表同步更新。
+pub fn optimize_mesh(
+    vertices: &mut Vec<RuntimeVertex>,
+    weights: &mut Vec<VertexWeight>,
+    indices: &mut [u32],
+    submeshes: &[SubMesh],
+) -> Vec<u32> {
+    let vertex_count = vertices.len();
+    let acmr_before = compute_acmr(indices, ACMR_CACHE_SIZE);
+
+    // 逐子网格重排三角形（互不重叠，可并行）
+    let reordered: Vec<Option<Vec<u32>>> = {
+        let indices_ref: &[u32] = indices;
+        let verts_ref: &[RuntimeVertex] = vertices;
+        submeshes
+            .par_iter()
+            .map(|sm| {
+                let begin = sm.begin_index as usize;
+                let end = begin + sm.index_count as usize;
+                if end > indices_ref.len() || sm.index_count < 6 {
+                    return None;
+                }
+                let range = &indices_ref[begin..end - (end - begin) % 3];
+                if range.iter().any(|&i| i as usize >= vertex_count) {
+                    return None;
+                }
+                let cache_order = optimize_vertex_cache(range);
+                Some(optimize_overdraw(&cache_order, verts_ref))
+            })
+            .collect()
+    };
+    for (sm, result) in submeshes.iter().zip(reordered) {
+        if let Some(tris) = result {
+            let begin = sm.begin_index as usize;
+            indices[begin..begin + tris.len()].copy_from_slice(&tris);
+        }
+    }
+
+    // 顶点按首次引用顺序重排
+    let remap = build_vertex_fetch_remap(indices, vertex_count);
+    for index in indices.iter_mut() {
+        if (*index as usize) < vertex_count {
+            *index = remap[*index as usize];
+        }
+    }
+    apply_remap(vertices, &remap);
+    if weights.len() == vertex_count {
+        apply_remap(weights, &remap);
+    }
+
+    log::info!(
+        "网格优化: {} 顶点, {} 三角形, ACMR {:.3} -> {:.3}",
+        vertex_count,
+        indices.len() / 3,
+        acmr_before,
+        compute_acmr(indices, ACMR_CACHE_SIZE)
+    );
+    remap
+}
+
+/// 使用顶点重映射表更新顶点 Morph 与 UV Morph 的顶点索引
+pub fn remap_morph_vertices(morph_manager: &mut MorphManager, remap: &[u32]) {
+    for i in 0..morph_manager.morph_count() {
+        if let Some(morph) = morph_manager.get_morph_mut(i) {
+            for offset in &mut morph.vertex_offsets {
+                if let Some(&new_index) = remap.get(offset.vertex_index as usize) {
+                    offset.vertex_index = new_index;
+                }
+            }
+            for offset in &mut morph.uv_offsets {
+                if let Some(&new_index) = remap.get(offset.vertex_index as usize) {
+                    offset.vertex_index = new_index;
+                }
+            }
+        }
+    }
+}
+
+/// 按重映射表重排逐顶点数据
+fn apply_remap<T: Clone>(data: &mut Vec<T>, remap: &[u32]) {
+    let mut slots: Vec<Option<T>> = vec![None; data.len()];
+    for (old, item) in data.drain(..).enumerate() {
+        slots[remap[old] as usize] = Some(item);
+    }
+    data.extend(slots.into_iter().map(|s| s.expect("顶点重映射表不是一一映射")));
+}
+
+/// 顶点获取重映射：按索引首次引用顺序编号，未被引用的顶点保持原相对顺序排在末尾
+fn build_vertex_fetch_remap(indices: &[u32], vertex_count: usize) -> Vec<u32> {
+    let mut remap = vec![u32::MAX; vertex_count];
+    let mut next = 0u32;
+    for &index in indices {
+        let i = index as usize;
+        if i < vertex_count && remap[i] == u32::MAX {
+            remap[i] = next;
+            next += 1;
+        }
+    }
+    for slot in remap.iter_mut() {
+        if *slot == u32::MAX {
+            *slot = next;
+            next += 1;
+        }
+    }
+    remap
+}
+
+fn vertex_score(cache_position: i32, remaining_valence: u32) -> f32 {
+    if remaining_valence == 0 {
+        return -1.0;
+    }
+    let mut score = 0.0;
+    if cache_position >= 0 {
+        if cache_position < 3 {
+            score = LAST_TRI_SCORE;
+        } else {
+            let scaler = 1.0 / (FORSYTH_CACHE_SIZE - 3) as f32;
+            score = (1.0 - (cache_position - 3) as f32 * scaler).powf(CACHE_DECAY_POWER);
+        }
+    }
+    score + VALENCE_BOOST_SCALE * (remaining_valence as f32).powf(-VALENCE_BOOST_POWER)
+}
+
+/// Forsyth 顶点缓存优化（输入输出均为全局顶点索引）
+fn optimize_vertex_cache(indices: &[u32]) -> Vec<u32> {
+    let tri_count = indices.len() / 3;
+    if tri_count == 0 {
+        return Vec::new();
+    }
+
+    // 压缩为子网格局部顶点编号
+    let mut local_of: HashMap<u32, u32> = HashMap::with_capacity(indices.len());
+    let local: Vec<u32> = indices[..tri_count * 3]
+        .iter()
+        .map(|&g| {
+            let next = local_of.len() as u32;
+            *local_of.entry(g).or_insert(next)
+        })
+        .collect();
+    let vcount = local_of.len();
+
+    // 顶点 → 三角形邻接表（CSR），前 remaining[v] 项为尚未输出的三角形
+    let mut remaining = vec![0u32; vcount];
+    for &v in &local {
+        remaining[v as usize] += 1;
+    }
+    let mut adj_offset = vec![0usize; vcount + 1];
+    for v in 0..vcount {
+        adj_offset[v + 1] = adj_offset[v] + remaining[v] as usize;
+    }
+    let mut adj = vec![0u32; local.len()];
+    let mut fill = adj_offset.clone();
+    for (corner, &v) in local.iter().enumerate() {
+        let v = v as usize;
+        adj[fill[v]] = (corner / 3) as u32;
+        fill[v] += 1;
+    }
+
+    let mut cache_pos = vec![-1i32; vcount];
+    let mut vscore: Vec<f32> = remaining.iter().map(|&r| vertex_score(-1, r)).collect();
+    let tri_score_of = |t: usize, vscore: &[f32]| -> f32 {
+        vscore[local[t * 3] as usize] + vscore[local[t * 3 + 1] as usize] + vscore[local[t * 3 + 2] as usize]
+    };
+    let mut tscore: Vec<f32> = (0..tri_count).map(|t| tri_score_of(t, &vscore)).collect();
+    let mut emitted = vec![false; tri_count];
+
+    let mut best = (0..tri_count).max_by(|&a, &b| tscore[a].total_cmp(&tscore[b]));
+    let mut scan_cursor = 0usize;
+    let mut cache: Vec<u32> = Vec::with_capacity(FORSYTH_CACHE_SIZE + 3);
+    let mut new_cache: Vec<u32> = Vec::with_capacity(FORSYTH_CACHE_SIZE + 3);
+    let mut out = Vec::with_capacity(tri_count * 3);
+
+    for _ in 0..tri_count {
+        let t = match best {
+            Some(t) => t,
+            None => {
+                while emitted[scan_cursor] {
+                    scan_cursor += 1;
+                }
+                scan_cursor
+            }
+        };
+        emitted[t] = true;
+        out.extend_from_slice(&indices[t * 3..t * 3 + 3]);
+
+        // 从邻接表中移除该三角形
+        for k in 0..3 {
+            let v = local[t * 3 + k] as usize;
+            let start = adj_offset[v];
+            let end = start + remaining[v] as usize;
+            if let Some(pos) = adj[start..end].iter().position(|&x| x as usize == t) {
+                adj.swap(start + pos, end - 1);
+                remaining[v] -= 1;
+            }
+        }
+
+        // 更新 LRU 缓存：本三角形顶点移到最前
+        new_cache.clear();
+        for k in 0..3 {
+            let v = local[t * 3 + k];
+            if !new_cache.contains(&v) {
+                new_cache.push(v);
+            }
+        }
+        for &v in &cache {
+            if !new_cache.contains(&v) {
+                new_cache.push(v);
+            }
+        }
+        for (i, &v) in new_cache.iter().enumerate() {
+            cache_pos[v as usize] = if i < FORSYTH_CACHE_SIZE { i as i32 } else { -1 };
+        }
+        for &v in &new_cache {
+            let v = v as usize;
+            vscore[v] = vertex_score(cache_pos[v], remaining[v]);
+        }
+
+        // 只需重算缓存内（及刚被挤出）顶点相邻的三角形
+        best = None;
+        let mut best_score = f32::MIN;
+        for &v in &new_cache {
+            let v = v as usize;
+            let start = adj_offset[v];
+            for &at in &adj[start..start + remaining[v] as usize] {
+                let at = at as usize;
+                let score = tri_score_of(at, &vscore);
+                tscore[at] = score;
+                if score > best_score {
+                    best_score = score;
+                    best = Some(at);
+                }
+            }
+        }
+
+        new_cache.truncate(FORSYTH_CACHE_SIZE);
+        std::mem::swap(&mut cache, &mut new_cache);
+    }
+    out
+}
+
+/// 过度绘制优化：在 FIFO 缓存完全未命中的三角形处切簇，按簇朝外程度降序排列
+fn optimize_overdraw(indices: &[u32], vertices: &[RuntimeVertex]) -> Vec<u32> {
+    let tri_count = indices.len() / 3;
+    if tri_count < 2 {
+        return indices.to_vec();
+    }
+
+    // 切簇
+    let mut cluster_starts = vec![0usize];
+    let mut cache: Vec<u32> = vec![u32::MAX; ACMR_CACHE_SIZE];
+    let mut head = 0usize;
+    for t in 0..tri_count {
+        let mut misses = 0;
+        for &v in &indices[t * 3..t * 3 + 3] {
+            if !cache.contains(&v) {
+                cache[head] = v;
+                head = (head + 1) % ACMR_CACHE_SIZE;
+                misses += 1;
+            }
+        }
+        if misses == 3 && t > 0 {
+            cluster_starts.push(t);
+        }
+    }
+    if cluster_starts.len() < 2 {
+        return indices.to_vec();
+    }
+    cluster_starts.push(tri_count);
+
+    // 簇的面积加权中心与法线（使用顶点法线，避免依赖绕序）
+    let mut mesh_center = Vec3::ZERO;
+    let mut mesh_area = 0.0f32;
+    let mut clusters: Vec<(usize, usize, Vec3, Vec3)> = Vec::with_capacity(cluster_starts.len() - 1);
+    for w in cluster_starts.windows(2) {
+        let (start, end) = (w[0], w[1]);
+        let mut center = Vec3::ZERO;
+        let mut normal = Vec3::ZERO;
+        let mut area_sum = 0.0f32;
+        for t in start..end {
+            let a = &vertices[indices[t * 3] as usize];
+            let b = &vertices[indices[t * 3 + 1] as usize];
+            let c = &vertices[indices[t * 3 + 2] as usize];
+            let area = (b.position - a.position).cross(c.position - a.position).length() * 0.5;
+            center += (a.position + b.position + c.position) * (area / 3.0);
+            normal += (a.normal + b.normal + c.normal) * area;
+            area_sum += area;
+        }
+        mesh_center += center;
+        mesh_area += area_sum;
+        let center = if area_sum > 0.0 { center / area_sum } else { Vec3::ZERO };
+        clusters.push((start, end, center, normal.normalize_or_zero()));
+    }
+    if mesh_area <= 0.0 {
+        return indices.to_vec();
+    }
+    mesh_center /= mesh_area;
+
+    let mut order: Vec<(f32, usize)> = clusters
+        .iter()
+        .enumerate()
+        .map(|(i, &(_, _, center, normal))| ((center - mesh_center).dot(normal), i))
+        .collect();
+    order.sort_by(|a, b| b.0.total_cmp(&a.0));
+
+    let mut out = Vec::with_capacity(tri_count * 3);
+    for &(_, i) in &order {
+        let (start, end, _, _) = clusters[i];
+        out.extend_from_slice(&indices[start * 3..end * 3]);
+    }
+
+    // 排序导致缓存效率明显下降时保留纯缓存优化结果
+    let base_acmr = compute_acmr(indices, ACMR_CACHE_SIZE);
+    if compute_acmr(&out, ACMR_CACHE_SIZE) > base_acmr * OVERDRAW_ACMR_THRESHOLD {
+        return indices.to_vec();
+    }
+    out
+}
+
+#[cfg(test)]
+mod tests {
+    use super::*;
+    use glam::Vec2;
+
+    /// 生成 n×n 网格（每格两个三角形），三角形按伪随机顺序打乱
+    fn shuffled_grid(n: u32) -> (Vec<RuntimeVertex>, Vec<u32>) {
+        let mut vertices = Vec::new();
+        for y in 0..=n {
+            for x in 0..=n {
+                vertices.push(RuntimeVertex {
+                    position: Vec3::new(x as f32, y as f32, 0.0),
+                    normal: Vec3::Z,
+                    uv: Vec2::new(x as f32 / n as f32, y as f32 / n as f32),
+                });
+            }
+        }
+        let mut tris: Vec<[u32; 3]> = Vec::new();
+        for y in 0..n {
+            for x in 0..n {
+                let i = y * (n + 1) + x;
+                tris.push([i, i + 1, i + n + 1]);
+                tris.push([i + 1, i + n + 2, i + n + 1]);
+            }
+        }
+        // 线性同余打乱（确定性）
+        let mut seed = 12345u64;
+        for i in (1..tris.len()).rev() {
+            seed = seed.wrapping_mul(6364136223846793005).wrapping_add(1442695040888963407);
+            let j = (seed >> 33) as usize % (i + 1);
+            tris.swap(i, j);
+        }
+        (vertices, tris.into_iter().flatten().collect())
+    }
+
+    fn sorted_triangles(indices: &[u32], positions: &[Vec3]) -> Vec<[i64; 9]> {
+        let mut tris: Vec<[i64; 9]> = indices
+            .chunks(3)
+            .map(|t| {
+                // 旋转到最小顶点在前（保持绕序）
+                let p: Vec<[i64; 3]> = t
+                    .iter()
+                    .map(|&i| {
+                        let v = positions[i as usize];
+                        [v.x as i64, v.y as i64, v.z as i64]
+                    })
+                    .collect();
+                let m = (0..3).min_by_key(|&k| p[k]).unwrap();
+                let r = [p[m], p[(m + 1) % 3], p[(m + 2) % 3]];
+                [r[0][0], r[0][1], r[0][2], r[1][0], r[1][1], r[1][2], r[2][0], r[2][1], r[2][2]]
+            })
+            .collect();
+        tris.sort();
+        tris
+    }
+
+    #[test]
+    fn test_acmr_improves_on_shuffled_grid() {
+        let (mut vertices, mut indices) = shuffled_grid(48);
+        let mut weights = vec![VertexWeight::default(); vertices.len()];
+        let submeshes = vec![SubMesh::new(0, indices.len() as u32, 0)];
+
+        let before = compute_acmr(&indices, ACMR_CACHE_SIZE);
+        optimize_mesh(&mut vertices, &mut weights, &mut indices, &submeshes);
+        let after = compute_acmr(&indices, ACMR_CACHE_SIZE);
+
+        assert!(before > 2.0, "打乱后的网格 ACMR 应接近 3，实际 {}", before);
+        assert!(after < 1.0, "优化后 ACMR 应低于 1.0，实际 {}", after);
+        assert!(after < before * 0.5);
+    }
+
+    #[test]
+    fn test_triangles_and_ranges_preserved() {
+        let (vertices0, indices0) = shuffled_grid(16);
+        let half = (indices0.len() / 2) as u32;
+        let submeshes = vec![SubMesh::new(0, half, 0), SubMesh::new(half, indices0.len() as u32 - half, 1)];
+        let positions0: Vec<Vec3> = vertices0.iter().map(|v| v.position).collect();
+
+        let mut vertices = vertices0.clone();
+        let mut weights: Vec<VertexWeight> = (0..vertices.len() as i32).map(|b| VertexWeight::Bdef1 { bone: b }).collect();
+        let mut indices = indices0.clone();
+        let remap = optimize_mesh(&mut vertices, &mut weights, &mut indices, &submeshes);
+        let positions: Vec<Vec3> = vertices.iter().map(|v| v.position).collect();
+
+        // 每个子网格内的三角形集合（含绕序）不变
+        for sm in &submeshes {
+            let r = sm.begin_index as usize..(sm.begin_index + sm.index_count) as usize;
+            assert_eq!(
+                sorted_triangles(&indices0[r.clone()], &positions0),
+                sorted_triangles(&indices[r], &positions)
+            );
+        }
+
+        // 顶点与权重随重映射一起移动
+        for (old, &new) in remap.iter().enumerate() {
+            assert_eq!(positions0[old], positions[new as usize]);
+            match weights[new as usize] {
+                VertexWeight::Bdef1 { bone } => assert_eq!(bone as usize, old),
+                _ => panic!("权重类型错误"),
+            }
+        }
+
+        // 顶点按首次引用顺序编号
+        let mut next = 0u32;
+        for &i in &indices {
+            assert!(i <= next);
+            if i == next {
+                next += 1;
+            }
+        }
+    }
+
+    #[test]
+    fn test_morph_indices_follow_remap() {
+        use crate::morph::{Morph, MorphType, VertexMorphOffset};
+
+        let (mut vertices, mut indices) = shuffled_grid(8);
+        let positions0: Vec<Vec3> = vertices.iter().map(|v| v.position).collect();
+        let mut weights = vec![VertexWeight::default(); vertices.len()];
+        let submeshes = vec![SubMesh::new(0, indices.len() as u32, 0)];
+
+        let mut manager = MorphManager::new();
+        let mut morph = Morph::new("test".to_string(), MorphType::Vertex);
+        morph.vertex_offsets = (0..vertices.len() as u32)
+            .map(|i| VertexMorphOffset { vertex_index: i, offset: positions0[i as usize] })
+            .collect();
+        manager.add_morph(morph);
+
+        let remap = optimize_mesh(&mut vertices, &mut weights, &mut indices, &submeshes);
+        remap_morph_vertices(&mut manager, &remap);
+
+        // 每个偏移仍指向原来的那个顶点
+        for offset in &manager.get_morph(0).unwrap().vertex_offsets {
+            assert_eq!(vertices[offset.vertex_index as usize].position, offset.offset);
+        }
+    }
+}
@@ -4,11 +4,15 @@ mod runtime;
 mod loader;
 mod material;
 mod submesh;
+mod lod;
+mod mesh_optimize;
 
 pub use runtime::MmdModel;
 pub use loader::load_pmx;
 pub use material::MmdMaterial;
-pub use submesh::SubMesh;
+pub use submesh::{build_submesh_groups, SubMesh, SubMeshGroup};
+pub use lod::{generate_lod_levels, LodLevel};
+pub use mesh_optimize::{compute_acmr, optimize_mesh, remap_morph_vertices};
 
 use glam::{Vec2, Vec3};
 
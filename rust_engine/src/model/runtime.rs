@@ -10,7 +10,24 @@ use std::collections::HashMap;
 use std::sync::Arc;
 use std::time::{SystemTime, UNIX_EPOCH};
 
-use super::{MmdMaterial, RuntimeVertex, SubMesh, VertexWeight};
+use super::{LodLevel, MmdMaterial, RuntimeVertex, SubMesh, SubMeshGroup, VertexWeight};
+
+/// 姿态未变判定阈值：蒙皮矩阵元素与 Morph 权重的最大绝对差
+const POSE_EPSILON: f32 = 1.0e-6;
+
+/// GPU Morph 活动阈值：权重绝对值不超过该值的 Morph 不参与 GPU 求值
+const GPU_MORPH_WEIGHT_EPSILON: f32 = 0.001;
+
+/// 活动 Morph 记录的目标：顶点位置 / UV
+const GPU_MORPH_TARGET_POSITION: u32 = 0;
+const GPU_MORPH_TARGET_UV: u32 = 1;
+
+/// GPU 材质 Morph 条目字长（u32 × 8）：材质索引（i32，-1 = 全部材质）、运算（0 = 乘算，1 = 加算）、
+/// diffuse.a、边缘色 rgba、边缘大小（f32 位模式）
+const GPU_MATERIAL_MORPH_ENTRY_WORDS: usize = 8;
+
+/// 群体动画烘焙的蒙皮矩阵上限（字节），超出的片段不烘焙，按逐帧求值播放
+const CROWD_BAKE_MAX_MATRIX_BYTES: usize = 32 * 1024 * 1024;
 
 thread_local! {
     /// 线程局部 PRNG 状态（xorshift32），避免多线程竞态
@@ -43,8 +60,15 @@ pub struct MmdModel {
     pub vertices: Vec<RuntimeVertex>,
     pub indices: Vec<u32>,
     pub weights: Vec<VertexWeight>,
+    /// PMX 顶点序号 → 运行时顶点序号（加载时网格优化按首次引用顺序重排了顶点，
+    /// 对外按顶点返回的数据据此还原为 PMX 顺序；为空表示未重排）
+    pub pmx_vertex_remap: Vec<u32>,
     pub materials: Vec<MmdMaterial>,
     pub submeshes: Vec<SubMesh>,
+    /// 加载时生成的简化 LOD 级别（不含原始网格，级别 1 起）
+    pub lod_levels: Vec<LodLevel>,
+    /// 加载时检测到的可合并相邻子网格组（仅 2 个及以上子网格的组）
+    pub submesh_groups: Vec<SubMeshGroup>,
     pub texture_paths: Vec<String>,
     pub rigid_bodies: Vec<mmd::pmx::rigid_body::RigidBody>,
     pub joints: Vec<mmd::pmx::joint::Joint>,
@@ -57,6 +81,14 @@ pub struct MmdModel {
     pub update_positions_raw: Vec<f32>,
     pub update_normals_raw: Vec<f32>,
     pub update_uvs_raw: Vec<f32>,
+    /// 双缓冲的另一组平铺输出（导出直接视图后启用，update() 写入前与上面一组交换）
+    skin_back_positions: Vec<f32>,
+    skin_back_normals: Vec<f32>,
+    skin_back_uvs: Vec<f32>,
+    /// update_*_raw 当前所在的分配序号（0/1），导出直接视图后每次蒙皮翻转
+    skin_front_slot: u8,
+    /// 是否已向 Java 导出直接视图（此后两组平铺缓冲区固定，不再重新分配）
+    skin_views_exported: bool,
 
     // 子系统
     pub bone_manager: BoneManager,
@@ -114,8 +146,10 @@ pub struct MmdModel {
     original_normals: Vec<f32>,
     
     // GPU Morph 数据缓冲区
-    /// 顶点 Morph 偏移数据（密集格式：morph_count * vertex_count * 3）
-    gpu_morph_offsets: Vec<f32>,
+    /// 顶点 Morph 稀疏条目（每条 4 × u32：顶点索引 + xyz 偏移的 f32 位模式，按 Morph 连续存放）
+    gpu_morph_offsets: Vec<u32>,
+    /// 每个顶点 Morph 在稀疏条目中的区间（起始条目, 条目数）
+    gpu_morph_ranges: Vec<(u32, u32)>,
     /// Morph 权重数组（用于 GPU）
     gpu_morph_weights: Vec<f32>,
     /// 顶点 Morph 索引映射（GPU Morph 索引 -> MorphManager 索引）
@@ -126,8 +160,10 @@ pub struct MmdModel {
     gpu_morph_initialized: bool,
     
     // GPU UV Morph 数据缓冲区
-    /// UV Morph 偏移数据（密集格式：uv_morph_count * vertex_count * 2）
-    gpu_uv_morph_offsets: Vec<f32>,
+    /// UV Morph 稀疏条目（每条 4 × u32：顶点索引 + uv 偏移的 f32 位模式 + 0）
+    gpu_uv_morph_offsets: Vec<u32>,
+    /// 每个 UV Morph 在稀疏条目中的区间（起始条目, 条目数）
+    gpu_uv_morph_ranges: Vec<(u32, u32)>,
     /// UV Morph 权重数组（用于 GPU）
     gpu_uv_morph_weights: Vec<f32>,
     /// UV Morph 索引映射（GPU UV Morph 索引 -> MorphManager 索引）
@@ -137,9 +173,22 @@ pub struct MmdModel {
     /// GPU UV Morph 数据是否已初始化
     gpu_uv_morph_initialized: bool,
     
+    // GPU 材质 Morph 数据缓冲区
+    /// 材质 Morph 条目（按 Morph 连续存放，格式见 GPU_MATERIAL_MORPH_ENTRY_WORDS）
+    gpu_material_morph_entries: Vec<u32>,
+    /// 每个 Morph 在条目数组中的区间（起始条目, 条目数），按 MorphManager 索引，非材质 Morph 为空区间
+    gpu_material_morph_ranges: Vec<(u32, u32)>,
+    /// 含条目的材质 Morph 数量（活动列表上限）
+    gpu_material_morph_count: usize,
+    /// GPU 材质 Morph 数据是否已初始化
+    gpu_material_morph_initialized: bool,
+    
     /// 材质 Morph 结果展平缓存（避免每帧分配）
     material_morph_results_flat_cache: Vec<f32>,
     
+    /// 群体动画烘焙数据块（bake_crowd_animation 生成，take_crowd_bake 取走）
+    crowd_bake: Vec<u8>,
+    
     // VPD 骨骼姿势覆盖（骨骼索引 -> (位移, 旋转)）
     vpd_bone_overrides: HashMap<usize, (Vec3, Quat)>,
     
@@ -168,6 +217,22 @@ pub struct MmdModel {
     transition_duration: f32,
     /// 是否正在过渡
     is_transitioning: bool,
+    
+    // ======== 网格 LOD ========
+    /// 当前使用的 LOD 级别（0 = 原始网格）
+    lod_level: usize,
+
+    // ======== 姿态未变检测（静止模型跳过蒙皮与上传） ========
+    /// 上一次更新的最终蒙皮矩阵快照
+    prev_skinning_matrices: Vec<Mat4>,
+    /// 上一次更新的 Morph 权重快照
+    prev_morph_weights: Vec<f32>,
+    /// 最近一次更新的蒙皮矩阵与 Morph 权重是否与上一次一致
+    pose_unchanged: bool,
+    /// CPU 蒙皮输出是否已至少计算过一次
+    cpu_skinned: bool,
+    /// GPU 常驻模式：静态数据已上传到 GPU，CPU 蒙皮输入/输出与上传用数组已释放
+    gpu_resident: bool,
 }
 
 impl MmdModel {
@@ -178,8 +243,11 @@ impl MmdModel {
             vertices: Vec::new(),
             indices: Vec::new(),
             weights: Vec::new(),
+            pmx_vertex_remap: Vec::new(),
             materials: Vec::new(),
             submeshes: Vec::new(),
+            lod_levels: Vec::new(),
+            submesh_groups: Vec::new(),
             texture_paths: Vec::new(),
             rigid_bodies: Vec::new(),
             joints: Vec::new(),
@@ -189,6 +257,11 @@ impl MmdModel {
             update_positions_raw: Vec::new(),
             update_normals_raw: Vec::new(),
             update_uvs_raw: Vec::new(),
+            skin_back_positions: Vec::new(),
+            skin_back_normals: Vec::new(),
+            skin_back_uvs: Vec::new(),
+            skin_front_slot: 0,
+            skin_views_exported: false,
             bone_manager: BoneManager::new(),
             morph_manager: MorphManager::new(),
             animation_layer_manager: AnimationLayerManager::new(4), // 默认4层
@@ -221,16 +294,23 @@ impl MmdModel {
             original_positions: Vec::new(),
             original_normals: Vec::new(),
             gpu_morph_offsets: Vec::new(),
+            gpu_morph_ranges: Vec::new(),
             gpu_morph_weights: Vec::new(),
             vertex_morph_indices: Vec::new(),
             vertex_morph_count: 0,
             gpu_morph_initialized: false,
             gpu_uv_morph_offsets: Vec::new(),
+            gpu_uv_morph_ranges: Vec::new(),
             gpu_uv_morph_weights: Vec::new(),
             uv_morph_indices: Vec::new(),
             uv_morph_count: 0,
             gpu_uv_morph_initialized: false,
+            gpu_material_morph_entries: Vec::new(),
+            gpu_material_morph_ranges: Vec::new(),
+            gpu_material_morph_count: 0,
+            gpu_material_morph_initialized: false,
             material_morph_results_flat_cache: Vec::new(),
+            crowd_bake: Vec::new(),
             vpd_bone_overrides: HashMap::new(),
             transition_matrices: Vec::new(),
             transition_progress: 0.0,
@@ -243,6 +323,12 @@ impl MmdModel {
             material_visible_backup: Vec::new(),
             eye_bone_index: None,
             eye_bone_pair: None,
+            lod_level: 0,
+            prev_skinning_matrices: Vec::new(),
+            prev_morph_weights: Vec::new(),
+            pose_unchanged: false,
+            cpu_skinned: false,
+            gpu_resident: false,
         }
     }
 
@@ -589,10 +675,9 @@ impl MmdModel {
     /// 更新 Morph 动画
     pub fn update_morph_animation(&mut self) {
         // 先将 update_positions 重置为原始顶点位置（因为 apply_morphs 是累加操作）
-        for (i, vertex) in self.vertices.iter().enumerate() {
-            if i < self.update_positions.len() {
-                self.update_positions[i] = vertex.position;
-            }
+        // GPU 常驻模式下 update_positions 为空，顶点 Morph 由 GPU 按权重求值
+        for (pos, vertex) in self.update_positions.iter_mut().zip(self.vertices.iter()) {
+            *pos = vertex.position;
         }
         // 应用所有 Morph 变形（顶点/骨骼/材质/UV/Group）
         self.morph_manager
@@ -616,6 +701,17 @@ impl MmdModel {
 
     /// 更新顶点（蒙皮计算）- 使用 rayon 并行加速
     pub fn update(&mut self) {
+        // GPU 常驻模式没有 CPU 蒙皮输入/输出缓冲区
+        if self.gpu_resident {
+            return;
+        }
+        // 已导出直接视图：写入后台一组再作为前台，Java 正在读取的上一次输出保持不变
+        if self.skin_views_exported {
+            std::mem::swap(&mut self.update_positions_raw, &mut self.skin_back_positions);
+            std::mem::swap(&mut self.update_normals_raw, &mut self.skin_back_normals);
+            std::mem::swap(&mut self.update_uvs_raw, &mut self.skin_back_uvs);
+            self.skin_front_slot ^= 1;
+        }
         let bone_matrices = self.bone_manager.get_skinning_matrices();
         let vertex_count = self.vertices.len();
         let raw_len = vertex_count * 3;
@@ -678,6 +774,8 @@ impl MmdModel {
                 norm_chunk[2] = norm.z;
             });
 
+        self.cpu_skinned = true;
+
         // 调试日志（只在首次执行）
         if !self.debug_logged {
             self.debug_logged = true;
@@ -706,6 +804,7 @@ impl MmdModel {
         self.update_node_animation(true);
 
         self.end_animation();
+        self.pose_unchanged = false;
         self.update();
     }
 
@@ -848,9 +947,71 @@ impl MmdModel {
         // 应用矩阵插值过渡
         self.apply_transition_blend(elapsed);
         
-        self.update();
+        // 姿态与 Morph 权重与上一帧一致时沿用上一次的蒙皮输出
+        self.refresh_pose_unchanged();
+        if !(self.pose_unchanged && self.cpu_skinned) {
+            self.update();
+        }
     }
-    
+
+    /// 最近一次动画更新的最终蒙皮矩阵与 Morph 权重是否与上一次一致（误差 POSE_EPSILON 内）
+    ///
+    /// 为 true 时上一次的蒙皮输出（CPU 顶点缓冲 / GPU 输出缓冲）仍然有效，调用方可跳过拷贝、上传与分派
+    pub fn is_pose_unchanged(&self) -> bool {
+        self.pose_unchanged
+    }
+
+    /// 比较当前蒙皮矩阵与 Morph 权重和上一次的快照，并将快照更新为当前值
+    fn refresh_pose_unchanged(&mut self) {
+        let matrices = self.bone_manager.get_skinning_matrices();
+        let morph_count = self.morph_manager.morph_count();
+
+        let unchanged = !matrices.is_empty()
+            && self.prev_skinning_matrices.len() == matrices.len()
+            && self.prev_morph_weights.len() == morph_count
+            && self.prev_skinning_matrices
+                .iter()
+                .zip(matrices.iter())
+                .all(|(prev, cur)| prev.abs_diff_eq(*cur, POSE_EPSILON))
+            && self.prev_morph_weights
+                .iter()
+                .enumerate()
+                .all(|(i, &w)| (w - self.morph_manager.get_morph_weight(i)).abs() <= POSE_EPSILON);
+        self.pose_unchanged = unchanged;
+        if unchanged {
+            return;
+        }
+
+        self.prev_skinning_matrices.clear();
+        self.prev_skinning_matrices.extend_from_slice(matrices);
+        self.prev_morph_weights.clear();
+        for i in 0..morph_count {
+            self.prev_morph_weights.push(self.morph_manager.get_morph_weight(i));
+        }
+    }
+
+    /// 仅推进动画时钟（模型被遮挡等不可见时调用）
+    ///
+    /// 动画层播放时间与过渡进度照常前进，跳过姿态评估、物理与蒙皮；
+    /// 重新可见后的下一次完整更新从正确的时间点继续
+    pub fn advance_animation_clock(&mut self, elapsed: f32) {
+        self.animation_layer_manager.update(elapsed);
+
+        if self.is_transitioning {
+            if self.transition_duration <= 0.0 {
+                self.is_transitioning = false;
+                self.transition_matrices.clear();
+                return;
+            }
+            self.transition_progress += elapsed / self.transition_duration;
+            if self.transition_progress >= 1.0 {
+                self.transition_progress = 1.0;
+                self.is_transitioning = false;
+                self.transition_matrices.clear();
+            }
+        }
+    }
+
     /// 应用矩阵插值过渡
     fn apply_transition_blend(&mut self, elapsed: f32) {
         if !self.is_transitioning {
@@ -1184,19 +1345,96 @@ impl MmdModel {
         self.update_uvs_raw.as_ptr()
     }
 
+    /// 导出 CPU 蒙皮输出的直接视图区域（零拷贝上传用）
+    ///
+    /// 首次调用时两组平铺缓冲区按最终大小分配（后台一组复制前台内容）并固定，
+    /// 之后 update() 交替写入两组，模型释放前地址不变。
+    /// slot 为分配序号（0/1），stream 为 0 = 位置、1 = 法线、2 = UV；GPU 常驻模式下返回 None
+    pub fn skinning_output_view(&mut self, slot: usize, stream: usize) -> Option<(*mut u8, usize)> {
+        if self.gpu_resident || slot > 1 || stream > 2 {
+            return None;
+        }
+        if !self.skin_views_exported {
+            let raw_len = self.vertices.len() * 3;
+            let uv_len = self.update_uvs.len() * 2;
+            self.update_positions_raw.resize(raw_len, 0.0);
+            self.update_normals_raw.resize(raw_len, 0.0);
+            self.update_uvs_raw.resize(uv_len, 0.0);
+            self.skin_back_positions = self.update_positions_raw.clone();
+            self.skin_back_normals = self.update_normals_raw.clone();
+            self.skin_back_uvs = self.update_uvs_raw.clone();
+            self.skin_views_exported = true;
+        }
+        let front = slot == self.skin_front_slot as usize;
+        let data = match (stream, front) {
+            (0, true) => &mut self.update_positions_raw,
+            (0, false) => &mut self.skin_back_positions,
+            (1, true) => &mut self.update_normals_raw,
+            (1, false) => &mut self.skin_back_normals,
+            (_, true) => &mut self.update_uvs_raw,
+            (_, false) => &mut self.skin_back_uvs,
+        };
+        if data.is_empty() {
+            return None;
+        }
+        Some((data.as_mut_ptr() as *mut u8, data.len() * 4))
+    }
+
+    /// 最新 CPU 蒙皮输出所在的分配序号（与 skinning_output_view 的 slot 对应）
+    pub fn skinning_front_slot(&self) -> u8 {
+        self.skin_front_slot
+    }
+
     /// 获取索引数据指针
     pub fn get_indices_ptr(&self) -> *const u32 {
         self.indices.as_ptr()
     }
     
+    // ========== 网格 LOD ==========
+    
+    /// 获取简化 LOD 级别数量（不含原始网格）
+    pub fn lod_level_count(&self) -> usize {
+        self.lod_levels.len()
+    }
+    
+    /// 设置当前 LOD 级别（0 = 原始网格，超出范围时取最低级）
+    pub fn set_lod_level(&mut self, level: usize) {
+        self.lod_level = level.min(self.lod_levels.len());
+    }
+    
+    /// 获取当前 LOD 级别
+    pub fn lod_level(&self) -> usize {
+        self.lod_level
+    }
+    
+    /// 获取所有 LOD 级别拼接后的索引总数
+    pub fn lod_index_count(&self) -> usize {
+        self.lod_levels.iter().map(|l| l.indices.len()).sum()
+    }
+    
+    /// 将所有 LOD 级别的索引按级别顺序拼接写入 output，返回写入的索引数
+    /// 上传时应紧跟在原始索引之后，子网格 begin_index 已按此布局计算
+    pub fn copy_lod_indices(&self, output: &mut [u32]) -> usize {
+        let total = self.lod_index_count();
+        if output.len() < total {
+            return 0;
+        }
+        let mut offset = 0;
+        for level in &self.lod_levels {
+            output[offset..offset + level.indices.len()].copy_from_slice(&level.indices);
+            offset += level.indices.len();
+        }
+        total
+    }
+    
     // ========== 批量子网格元数据（G3 优化）==========
     
     /// 批量获取所有子网格的渲染元数据，避免 Java 侧逐子网格 JNI 调用
     ///
     /// 输出布局（每子网格 20 字节）：
     /// - offset  0: i32 materialID
-    /// - offset  4: i32 beginIndex
-    /// - offset  8: i32 vertexCount
+    /// - offset  4: i32 beginIndex（当前 LOD 级别）
+    /// - offset  8: i32 vertexCount（当前 LOD 级别）
     /// - offset 12: f32 alpha（基础材质 alpha，Java 侧再叠加 morph）
     /// - offset 16: u8  isVisible (0/1)
     /// - offset 17: u8  bothFace  (0/1)
@@ -1210,10 +1448,16 @@ impl MmdModel {
             return 0;
         }
         
+        let lod_submeshes = match self.lod_level {
+            0 => None,
+            level => self.lod_levels.get(level - 1).map(|l| &l.submeshes),
+        };
+        
         for (i, submesh) in self.submeshes.iter().enumerate() {
             let mat_id = submesh.material_id as i32;
-            let begin = submesh.begin_index as i32;
-            let vert_count = submesh.index_count as i32;
+            let range = lod_submeshes.and_then(|l| l.get(i)).unwrap_or(submesh);
+            let begin = range.begin_index as i32;
+            let vert_count = range.index_count as i32;
             let alpha = self.materials.get(submesh.material_id as usize)
                 .map(|m| m.diffuse.w)
                 .unwrap_or(1.0f32);
@@ -1234,6 +1478,51 @@ impl MmdModel {
             }
         }
         
+        // 合并等价材质的相邻子网格：组内材质全部可见且当前 LOD 下索引范围仍首尾相接时，
+        // 由组首条目覆盖整组范围，其余条目标记为不可见（Java 侧跳过），材质 ID 保持原样
+        for group in &self.submesh_groups {
+            let members = group.first..group.first + group.count;
+            let range_of = |i: usize| lod_submeshes.and_then(|l| l.get(i)).unwrap_or(&self.submeshes[i]);
+            let all_visible = members.clone()
+                .all(|i| self.is_material_visible(self.submeshes[i].material_id as usize));
+            let contiguous = (group.first + 1..group.first + group.count)
+                .all(|i| range_of(i - 1).begin_index + range_of(i - 1).index_count == range_of(i).begin_index);
+            if !all_visible || !contiguous {
+                continue;
+            }
+            let total: u32 = members.clone().map(|i| range_of(i).index_count).sum();
+            unsafe {
+                let head = output.as_mut_ptr().add(group.first * STRIDE);
+                (head.add(8) as *mut i32).write_unaligned(total as i32);
+                for i in members.skip(1) {
+                    *output.as_mut_ptr().add(i * STRIDE + 16) = 0;
+                }
+            }
+        }
+        
+        count
+    }
+    
+    /// 批量获取所有材质的边缘（描边）参数
+    /// 每材质 20 字节：edgeColor(4 × f32) + edgeSize(f32)，未开启边缘标志的材质 edgeSize 为 0
+    pub fn batch_get_material_edge_data(&self, output: &mut [u8]) -> usize {
+        const STRIDE: usize = 20;
+        let count = self.materials.len();
+        if output.len() < count * STRIDE {
+            return 0;
+        }
+        
+        for (i, mat) in self.materials.iter().enumerate() {
+            let size = if mat.has_edge() { mat.edge_scale } else { 0.0 };
+            let values = [mat.edge_color.x, mat.edge_color.y, mat.edge_color.z, mat.edge_color.w, size];
+            unsafe {
+                let p = output.as_mut_ptr().add(i * STRIDE) as *mut f32;
+                for (j, v) in values.iter().enumerate() {
+                    p.add(j).write_unaligned(*v);
+                }
+            }
+        }
+        
         count
     }
     
@@ -1377,10 +1666,200 @@ impl MmdModel {
         self.original_normals.as_ptr()
     }
     
+    /// 进入 GPU 常驻模式（GPU 蒙皮模型的静态数据全部上传后调用）
+    ///
+    /// 释放 GPU 路径不再读取的 CPU 侧网格副本：CPU 蒙皮输入（weights）与输出（update_* 及平铺缓冲区）、
+    /// 仅用于上传的 GPU 蒙皮初始化数组，以及逐顶点 UV Morph 偏移。
+    /// 此后 update() 为空操作，Morph 只更新骨骼与权重；GetPoss/GetNormals/GetUVs 返回空指针。
+    ///
+    /// 返回 (释放前, 释放后) 的 memory_usage 字节数
+    pub fn enter_gpu_resident_mode(&mut self) -> (u64, u64) {
+        let before = self.memory_usage();
+        if !self.gpu_resident {
+            self.gpu_resident = true;
+            self.cpu_skinned = false;
+            self.weights = Vec::new();
+            self.update_positions = Vec::new();
+            self.update_normals = Vec::new();
+            self.update_uvs = Vec::new();
+            self.update_positions_raw = Vec::new();
+            self.update_normals_raw = Vec::new();
+            self.update_uvs_raw = Vec::new();
+            self.bone_indices = Vec::new();
+            self.bone_weights = Vec::new();
+            self.original_positions = Vec::new();
+            self.original_normals = Vec::new();
+            self.morph_manager.release_uv_morph_deltas();
+        }
+        let after = self.memory_usage();
+        log::info!(
+            "GPU 常驻模式: Rust 堆 {:.2} MB -> {:.2} MB（释放 {:.2} MB）",
+            before as f64 / 1048576.0,
+            after as f64 / 1048576.0,
+            before.saturating_sub(after) as f64 / 1048576.0,
+        );
+        (before, after)
+    }
+    
+    /// 是否处于 GPU 常驻模式
+    pub fn is_gpu_resident(&self) -> bool {
+        self.gpu_resident
+    }
+    
+    // ========== GPU 蒙皮紧凑输入格式 ==========
+    
+    /// 写入紧凑骨骼索引（每顶点 4 × u16，无效索引写 0xFFFF），返回写入的顶点数
+    pub fn write_compact_bone_indices(&self, dst: &mut [u8], vertex_count: usize) -> usize {
+        let count = vertex_count.min(self.bone_indices.len() / 4).min(dst.len() / 8);
+        for (i, &idx) in self.bone_indices[..count * 4].iter().enumerate() {
+            let packed = if (0..0xFFFF).contains(&idx) { idx as u16 } else { 0xFFFF };
+            dst[i * 2..i * 2 + 2].copy_from_slice(&packed.to_le_bytes());
+        }
+        count
+    }
+    
+    /// 写入紧凑骨骼权重（每顶点 4 × unorm16），返回写入的顶点数
+    pub fn write_compact_bone_weights(&self, dst: &mut [u8], vertex_count: usize) -> usize {
+        let count = vertex_count.min(self.bone_weights.len() / 4).min(dst.len() / 8);
+        for (i, &w) in self.bone_weights[..count * 4].iter().enumerate() {
+            let packed = (w.clamp(0.0, 1.0) * 65535.0).round() as u16;
+            dst[i * 2..i * 2 + 2].copy_from_slice(&packed.to_le_bytes());
+        }
+        count
+    }
+    
+    /// 写入紧凑原始法线（每顶点 4 × snorm16，第 4 分量为 0），返回写入的顶点数
+    pub fn write_compact_normals(&self, dst: &mut [u8], vertex_count: usize) -> usize {
+        let count = vertex_count.min(self.original_normals.len() / 3).min(dst.len() / 8);
+        for i in 0..count {
+            let n = &self.original_normals[i * 3..i * 3 + 3];
+            let record = &mut dst[i * 8..i * 8 + 8];
+            for c in 0..3 {
+                let packed = (n[c].clamp(-1.0, 1.0) * 32767.0).round() as i16;
+                record[c * 2..c * 2 + 2].copy_from_slice(&packed.to_le_bytes());
+            }
+            record[6..8].copy_from_slice(&0i16.to_le_bytes());
+        }
+        count
+    }
+    
+    /// 写入 3×4 仿射蒙皮矩阵（每骨骼 3 行 vec4，即矩阵前三行，共 48 字节），返回写入的骨骼数
+    pub fn write_skinning_matrices_3x4(&self, dst: &mut [u8]) -> usize {
+        let matrices = self.bone_manager.get_skinning_matrices();
+        let count = matrices.len().min(dst.len() / 48);
+        for (i, m) in matrices[..count].iter().enumerate() {
+            let record = &mut dst[i * 48..i * 48 + 48];
+            for row in 0..3 {
+                let r = m.row(row);
+                for (c, v) in [r.x, r.y, r.z, r.w].iter().enumerate() {
+                    let at = row * 16 + c * 4;
+                    record[at..at + 4].copy_from_slice(&v.to_le_bytes());
+                }
+            }
+        }
+        count
+    }
+    
+    // ========== 群体动画烘焙 ==========
+    
+    /// 烘焙群体动画：按 30 FPS 整数帧逐帧求值 VMD，生成由 GPU 采样的蒙皮矩阵与活动 Morph 列表
+    ///
+    /// 每帧执行与 tick_animation_no_skinning 相同的求值流程（含 IK 与骨骼 Morph），
+    /// 不含物理、头部/眼球追踪、自动眨眼与 VPD 覆盖。存在物理动态骨骼的模型不烘焙，由调用方回退到逐帧求值。
+    /// 烘焙会覆盖当前骨骼与 Morph 状态，下一次动画更新时按动画层重新求值。
+    ///
+    /// 数据块布局（小端 u32 / f32）：
+    /// - 头部 4 × u32：帧数、骨骼数、顶点/UV Morph 记录总数、材质 Morph 记录总数
+    /// - 蒙皮矩阵：帧数 × 骨骼数 × 48 字节（格式同 write_skinning_matrices_3x4）
+    /// - 顶点/UV Morph 帧索引：(帧数 + 1) × u32，第 f 帧的记录为 [index[f], index[f + 1])
+    /// - 顶点/UV Morph 记录：每条 16 字节（格式同 write_active_gpu_morphs）
+    /// - 材质 Morph 帧索引与记录（格式同 write_active_gpu_material_morphs）
+    ///
+    /// 返回数据块字节数（0 = 不可烘焙）
+    pub fn bake_crowd_animation(&mut self, animation: &VmdAnimation) -> usize {
+        self.crowd_bake = Vec::new();
+        if self.is_physics_enabled() && self.get_dynamic_bone_count() > 0 {
+            log::info!("群体动画烘焙跳过: 模型 '{}' 含物理动态骨骼", self.name);
+            return 0;
+        }
+        let bone_count = self.bone_manager.bone_count();
+        let frame_count = animation.max_frame() as usize + 1;
+        let matrix_stride = bone_count * 48;
+        if bone_count == 0 || frame_count * matrix_stride > CROWD_BAKE_MAX_MATRIX_BYTES {
+            log::warn!("群体动画烘焙跳过: {} 帧 × {} 骨骼超出上限", frame_count, bone_count);
+            return 0;
+        }
+        
+        let mut matrices = vec![0u8; frame_count * matrix_stride];
+        let mut morph_scratch = vec![0u8; (self.vertex_morph_count + self.uv_morph_count) * 16];
+        let mut material_scratch = vec![0u8; self.gpu_material_morph_count * 16];
+        let mut morph_index = Vec::with_capacity(frame_count + 1);
+        let mut material_index = Vec::with_capacity(frame_count + 1);
+        let mut morph_records = Vec::new();
+        let mut material_records = Vec::new();
+        morph_index.push(0u32);
+        material_index.push(0u32);
+        
+        for frame in 0..frame_count {
+            self.morph_manager.reset_all_weights();
+            self.begin_animation();
+            animation.evaluate(frame as f32, &mut self.bone_manager, &mut self.morph_manager);
+            self.update_morph_animation();
+            self.sync_gpu_morph_weights();
+            self.sync_gpu_uv_morph_weights();
+            self.update_node_animation(false);
+            self.update_node_animation(true);
+            self.end_animation();
+            
+            self.write_skinning_matrices_3x4(&mut matrices[frame * matrix_stride..(frame + 1) * matrix_stride]);
+            let written = self.write_active_gpu_morphs(&mut morph_scratch);
+            morph_records.extend_from_slice(&morph_scratch[..written * 16]);
+            morph_index.push((morph_records.len() / 16) as u32);
+            let written = self.write_active_gpu_material_morphs(&mut material_scratch);
+            material_records.extend_from_slice(&material_scratch[..written * 16]);
+            material_index.push((material_records.len() / 16) as u32);
+        }
+        
+        // 烘焙覆盖了当前姿态：下一次更新重新判定姿态变化
+        self.pose_unchanged = false;
+        self.prev_skinning_matrices.clear();
+        
+        let morph_total = (morph_records.len() / 16) as u32;
+        let material_total = (material_records.len() / 16) as u32;
+        let mut blob = Vec::with_capacity(
+            16 + matrices.len() + (morph_index.len() + material_index.len()) * 4
+                + morph_records.len() + material_records.len(),
+        );
+        for word in [frame_count as u32, bone_count as u32, morph_total, material_total] {
+            blob.extend_from_slice(&word.to_le_bytes());
+        }
+        blob.extend_from_slice(&matrices);
+        for word in &morph_index {
+            blob.extend_from_slice(&word.to_le_bytes());
+        }
+        blob.extend_from_slice(&morph_records);
+        for word in &material_index {
+            blob.extend_from_slice(&word.to_le_bytes());
+        }
+        blob.extend_from_slice(&material_records);
+        
+        log::info!(
+            "群体动画烘焙完成: {} 帧, {} 骨骼, {} 条 Morph 记录, {} 条材质 Morph 记录, {:.2} KB",
+            frame_count, bone_count, morph_total, material_total, blob.len() as f64 / 1024.0
+        );
+        self.crowd_bake = blob;
+        self.crowd_bake.len()
+    }
+    
+    /// 取走群体动画烘焙数据块（取走后模型不再持有）
+    pub fn take_crowd_bake(&mut self) -> Vec<u8> {
+        std::mem::take(&mut self.crowd_bake)
+    }
+    
     // ========== GPU Morph 相关方法 ==========
     
     /// 初始化 GPU Morph 数据
-    /// 将稀疏的顶点 Morph 偏移转换为密集格式，供 GPU Compute Shader 使用
+    /// 将顶点 Morph 偏移整理为按 Morph 连续存放的稀疏条目，供 GPU Compute Shader 按活动 Morph 散射累加
     pub fn init_gpu_morph_data(&mut self) {
         if self.gpu_morph_initialized {
             return;
@@ -1408,32 +1887,37 @@ impl MmdModel {
             return;
         }
         
-        // 分配密集格式的偏移数据：morph_count * vertex_count * 3 (xyz)
-        let total_floats = self.vertex_morph_count * vertex_count * 3;
-        self.gpu_morph_offsets = vec![0.0f32; total_floats];
         self.gpu_morph_weights = vec![0.0f32; self.vertex_morph_count];
+        self.gpu_morph_ranges = Vec::with_capacity(self.vertex_morph_count);
+        self.gpu_morph_offsets.clear();
         
-        // 填充稀疏数据到密集格式
-        for (morph_idx, &global_morph_idx) in self.vertex_morph_indices.iter().enumerate() {
+        // 逐 Morph 追加条目（只保存受影响的顶点）
+        for &global_morph_idx in &self.vertex_morph_indices {
+            let start = (self.gpu_morph_offsets.len() / 4) as u32;
             if let Some(morph) = self.morph_manager.get_morph(global_morph_idx) {
-                let base_offset = morph_idx * vertex_count * 3;
                 for offset in &morph.vertex_offsets {
-                    let vid = offset.vertex_index as usize;
-                    if vid < vertex_count {
-                        let idx = base_offset + vid * 3;
-                        self.gpu_morph_offsets[idx] = offset.offset.x;
-                        self.gpu_morph_offsets[idx + 1] = offset.offset.y;
-                        self.gpu_morph_offsets[idx + 2] = offset.offset.z;
+                    if (offset.vertex_index as usize) < vertex_count {
+                        self.gpu_morph_offsets.extend_from_slice(&[
+                            offset.vertex_index,
+                            offset.offset.x.to_bits(),
+                            offset.offset.y.to_bits(),
+                            offset.offset.z.to_bits(),
+                        ]);
                     }
                 }
             }
+            let end = (self.gpu_morph_offsets.len() / 4) as u32;
+            self.gpu_morph_ranges.push((start, end - start));
         }
+        self.gpu_morph_offsets.shrink_to_fit();
         
         self.gpu_morph_initialized = true;
         log::info!(
-            "GPU Morph 数据初始化完成: {} 个顶点 Morph, 数据大小 {:.2} MB",
+            "GPU Morph 数据初始化完成: {} 个顶点 Morph, {} 个条目, 数据大小 {:.2} KB（密集格式需 {:.2} MB）",
             self.vertex_morph_count,
-            (total_floats * 4) as f64 / 1024.0 / 1024.0
+            self.gpu_morph_offsets.len() / 4,
+            (self.gpu_morph_offsets.len() * 4) as f64 / 1024.0,
+            (self.vertex_morph_count * vertex_count * 12) as f64 / 1024.0 / 1024.0
         );
     }
     
@@ -1458,12 +1942,12 @@ impl MmdModel {
         self.vertex_morph_count
     }
     
-    /// 获取 GPU Morph 偏移数据指针
-    pub fn get_gpu_morph_offsets_ptr(&self) -> *const f32 {
+    /// 获取 GPU Morph 稀疏条目指针
+    pub fn get_gpu_morph_offsets_ptr(&self) -> *const u32 {
         self.gpu_morph_offsets.as_ptr()
     }
     
-    /// 获取 GPU Morph 偏移数据大小（字节）
+    /// 获取 GPU Morph 稀疏条目大小（字节）
     pub fn get_gpu_morph_offsets_size(&self) -> usize {
         self.gpu_morph_offsets.len() * 4
     }
@@ -1481,7 +1965,7 @@ impl MmdModel {
     // ========== GPU UV Morph 相关方法 ==========
     
     /// 初始化 GPU UV Morph 数据
-    /// 将稀疏的 UV Morph 偏移转换为密集格式，供 GPU Compute Shader 使用
+    /// 将 UV Morph 偏移整理为按 Morph 连续存放的稀疏条目（格式同顶点 Morph，第 4 分量为 0）
     pub fn init_gpu_uv_morph_data(&mut self) {
         if self.gpu_uv_morph_initialized {
             return;
@@ -1512,31 +1996,35 @@ impl MmdModel {
             return;
         }
         
-        // 分配密集格式的偏移数据：uv_morph_count * vertex_count * 2 (uv)
-        let total_floats = self.uv_morph_count * vertex_count * 2;
-        self.gpu_uv_morph_offsets = vec![0.0f32; total_floats];
         self.gpu_uv_morph_weights = vec![0.0f32; self.uv_morph_count];
+        self.gpu_uv_morph_ranges = Vec::with_capacity(self.uv_morph_count);
+        self.gpu_uv_morph_offsets.clear();
         
-        // 填充稀疏数据到密集格式
-        for (morph_idx, &global_morph_idx) in self.uv_morph_indices.iter().enumerate() {
+        for &global_morph_idx in &self.uv_morph_indices {
+            let start = (self.gpu_uv_morph_offsets.len() / 4) as u32;
             if let Some(morph) = self.morph_manager.get_morph(global_morph_idx) {
-                let base_offset = morph_idx * vertex_count * 2;
                 for offset in &morph.uv_offsets {
-                    let vid = offset.vertex_index as usize;
-                    if vid < vertex_count {
-                        let idx = base_offset + vid * 2;
-                        self.gpu_uv_morph_offsets[idx] = offset.offset.x;
-                        self.gpu_uv_morph_offsets[idx + 1] = offset.offset.y;
+                    if (offset.vertex_index as usize) < vertex_count {
+                        self.gpu_uv_morph_offsets.extend_from_slice(&[
+                            offset.vertex_index,
+                            offset.offset.x.to_bits(),
+                            offset.offset.y.to_bits(),
+                            0,
+                        ]);
                     }
                 }
             }
+            let end = (self.gpu_uv_morph_offsets.len() / 4) as u32;
+            self.gpu_uv_morph_ranges.push((start, end - start));
         }
+        self.gpu_uv_morph_offsets.shrink_to_fit();
         
         self.gpu_uv_morph_initialized = true;
         log::info!(
-            "GPU UV Morph 数据初始化完成: {} 个 UV Morph, 数据大小 {:.2} KB",
+            "GPU UV Morph 数据初始化完成: {} 个 UV Morph, {} 个条目, 数据大小 {:.2} KB",
             self.uv_morph_count,
-            (total_floats * 4) as f64 / 1024.0
+            self.gpu_uv_morph_offsets.len() / 4,
+            (self.gpu_uv_morph_offsets.len() * 4) as f64 / 1024.0
         );
     }
     
@@ -1559,12 +2047,12 @@ impl MmdModel {
         self.uv_morph_count
     }
     
-    /// 获取 GPU UV Morph 偏移数据指针
-    pub fn get_gpu_uv_morph_offsets_ptr(&self) -> *const f32 {
+    /// 获取 GPU UV Morph 稀疏条目指针
+    pub fn get_gpu_uv_morph_offsets_ptr(&self) -> *const u32 {
         self.gpu_uv_morph_offsets.as_ptr()
     }
     
-    /// 获取 GPU UV Morph 偏移数据大小（字节）
+    /// 获取 GPU UV Morph 稀疏条目大小（字节）
     pub fn get_gpu_uv_morph_offsets_size(&self) -> usize {
         self.gpu_uv_morph_offsets.len() * 4
     }
@@ -1579,6 +2067,141 @@ impl MmdModel {
         self.gpu_uv_morph_initialized
     }
     
+    /// 写出本帧活动 Morph 列表（顶点 Morph 在前，UV Morph 在后）
+    ///
+    /// 每条 16 字节（小端 u32 × 4）：起始条目（相对各自的稀疏条目数组）、条目数、权重（f32 位模式）、目标
+    /// （0 = 位置，1 = UV）。只写出权重非零且有条目的 Morph，dst 不足时截断。
+    ///
+    /// 返回写出的记录数
+    pub fn write_active_gpu_morphs(&self, dst: &mut [u8]) -> usize {
+        let max_records = dst.len() / 16;
+        let vertex = self.gpu_morph_weights.iter()
+            .zip(&self.gpu_morph_ranges)
+            .map(|(&w, &range)| (w, range, GPU_MORPH_TARGET_POSITION));
+        let uv = self.gpu_uv_morph_weights.iter()
+            .zip(&self.gpu_uv_morph_ranges)
+            .map(|(&w, &range)| (w, range, GPU_MORPH_TARGET_UV));
+        
+        let mut written = 0;
+        for (weight, (start, count), target) in vertex.chain(uv) {
+            if count == 0 || weight.abs() <= GPU_MORPH_WEIGHT_EPSILON {
+                continue;
+            }
+            if written == max_records {
+                break;
+            }
+            let record = &mut dst[written * 16..written * 16 + 16];
+            record[0..4].copy_from_slice(&start.to_le_bytes());
+            record[4..8].copy_from_slice(&count.to_le_bytes());
+            record[8..12].copy_from_slice(&weight.to_bits().to_le_bytes());
+            record[12..16].copy_from_slice(&target.to_le_bytes());
+            written += 1;
+        }
+        written
+    }
+    
+    // ========== GPU 材质 Morph 相关方法 ==========
+    
+    /// 初始化 GPU 材质 Morph 数据
+    ///
+    /// 将材质 Morph 偏移整理为按 Morph 连续存放的条目，只保留渲染使用的字段（diffuse.a 与边缘参数）。
+    /// 存在条目时切换 MorphManager 为延迟模式：此后每帧只累计材质 Morph 的有效权重，
+    /// 逐材质的乘算/加算由 GPU 完成，get_material_morph_results 保持单位值。
+    ///
+    /// 返回含条目的材质 Morph 数量
+    pub fn init_gpu_material_morph_data(&mut self) -> usize {
+        if self.gpu_material_morph_initialized {
+            return self.gpu_material_morph_count;
+        }
+        
+        let material_count = self.materials.len() as i32;
+        let morph_count = self.morph_manager.morph_count();
+        self.gpu_material_morph_ranges = vec![(0, 0); morph_count];
+        self.gpu_material_morph_entries.clear();
+        self.gpu_material_morph_count = 0;
+        
+        for i in 0..morph_count {
+            let morph = match self.morph_manager.get_morph(i) {
+                Some(m) if m.morph_type == crate::morph::MorphType::Material => m,
+                _ => continue,
+            };
+            let start = (self.gpu_material_morph_entries.len() / GPU_MATERIAL_MORPH_ENTRY_WORDS) as u32;
+            for offset in &morph.material_offsets {
+                if offset.material_index >= material_count {
+                    continue;
+                }
+                self.gpu_material_morph_entries.extend_from_slice(&[
+                    offset.material_index as u32,
+                    offset.operation as u32,
+                    offset.diffuse.w.to_bits(),
+                    offset.edge_color.x.to_bits(),
+                    offset.edge_color.y.to_bits(),
+                    offset.edge_color.z.to_bits(),
+                    offset.edge_color.w.to_bits(),
+                    offset.edge_size.to_bits(),
+                ]);
+            }
+            let end = (self.gpu_material_morph_entries.len() / GPU_MATERIAL_MORPH_ENTRY_WORDS) as u32;
+            if end > start {
+                self.gpu_material_morph_ranges[i] = (start, end - start);
+                self.gpu_material_morph_count += 1;
+            }
+        }
+        self.gpu_material_morph_entries.shrink_to_fit();
+        self.gpu_material_morph_initialized = true;
+        
+        if self.gpu_material_morph_count == 0 {
+            self.gpu_material_morph_ranges = Vec::new();
+            log::info!("模型没有材质 Morph，跳过 GPU 材质 Morph 初始化");
+            return 0;
+        }
+        self.morph_manager.set_defer_material_morphs(true);
+        log::info!(
+            "GPU 材质 Morph 数据初始化完成: {} 个材质 Morph, {} 个条目",
+            self.gpu_material_morph_count,
+            self.gpu_material_morph_entries.len() / GPU_MATERIAL_MORPH_ENTRY_WORDS
+        );
+        self.gpu_material_morph_count
+    }
+    
+    /// 获取 GPU 材质 Morph 条目指针
+    pub fn get_gpu_material_morph_entries_ptr(&self) -> *const u32 {
+        self.gpu_material_morph_entries.as_ptr()
+    }
+    
+    /// 获取 GPU 材质 Morph 条目大小（字节）
+    pub fn get_gpu_material_morph_entries_size(&self) -> usize {
+        self.gpu_material_morph_entries.len() * 4
+    }
+    
+    /// 写出本帧活动材质 Morph 列表
+    ///
+    /// 每条 16 字节（小端 u32 × 4）：起始条目、条目数、有效权重（f32 位模式，已展开 Group/Flip）、保留。
+    /// dst 不足时截断。返回写出的记录数
+    pub fn write_active_gpu_material_morphs(&self, dst: &mut [u8]) -> usize {
+        if self.gpu_material_morph_count == 0 {
+            return 0;
+        }
+        let max_records = dst.len() / 16;
+        let mut written = 0;
+        for (morph_idx, weight) in self.morph_manager.deferred_material_morphs() {
+            let (start, count) = match self.gpu_material_morph_ranges.get(morph_idx) {
+                Some(&range) if range.1 > 0 => range,
+                _ => continue,
+            };
+            if written == max_records {
+                break;
+            }
+            let record = &mut dst[written * 16..written * 16 + 16];
+            record[0..4].copy_from_slice(&start.to_le_bytes());
+            record[4..8].copy_from_slice(&count.to_le_bytes());
+            record[8..12].copy_from_slice(&weight.to_bits().to_le_bytes());
+            record[12..16].copy_from_slice(&0u32.to_le_bytes());
+            written += 1;
+        }
+        written
+    }
+    
     // ========== 材质 Morph 结果访问 ==========
     
     /// 获取材质 Morph 结果数量
@@ -1677,6 +2300,9 @@ impl MmdModel {
         
         // 应用矩阵插值过渡（GPU蒙皮模式也需要）
         self.apply_transition_blend(elapsed);
+
+        // 姿态未变检测（Java 侧据此跳过矩阵上传与 Compute 分派）
+        self.refresh_pose_unchanged();
         
         // 调试日志（仅首次）
         if !self.debug_logged && physics_enabled {
@@ -1857,8 +2483,15 @@ impl MmdModel {
         total += (self.vertices.capacity() * size_of::<RuntimeVertex>()) as u64;
         total += (self.indices.capacity() * size_of::<u32>()) as u64;
         total += (self.weights.capacity() * size_of::<VertexWeight>()) as u64;
+        total += (self.pmx_vertex_remap.capacity() * size_of::<u32>()) as u64;
         total += (self.materials.capacity() * size_of::<MmdMaterial>()) as u64;
         total += (self.submeshes.capacity() * size_of::<SubMesh>()) as u64;
+        for level in &self.lod_levels {
+            total += (level.indices.capacity() * size_of::<u32>()) as u64;
+            total += (level.submeshes.capacity() * size_of::<SubMesh>()) as u64;
+        }
+        total += (self.lod_levels.capacity() * size_of::<LodLevel>()) as u64;
+        total += (self.submesh_groups.capacity() * size_of::<SubMeshGroup>()) as u64;
         // texture_paths: 每个 String 有堆分配
         for s in &self.texture_paths {
             total += s.capacity() as u64;
@@ -1876,6 +2509,9 @@ impl MmdModel {
         total += (self.update_positions_raw.capacity() * size_of::<f32>()) as u64;
         total += (self.update_normals_raw.capacity() * size_of::<f32>()) as u64;
         total += (self.update_uvs_raw.capacity() * size_of::<f32>()) as u64;
+        total += (self.skin_back_positions.capacity() * size_of::<f32>()) as u64;
+        total += (self.skin_back_normals.capacity() * size_of::<f32>()) as u64;
+        total += (self.skin_back_uvs.capacity() * size_of::<f32>()) as u64;
         
         // GPU 蒙皮缓冲区
         total += (self.bone_indices.capacity() * size_of::<i32>()) as u64;
@@ -1883,23 +2519,36 @@ impl MmdModel {
         total += (self.original_positions.capacity() * size_of::<f32>()) as u64;
         total += (self.original_normals.capacity() * size_of::<f32>()) as u64;
         
-        // GPU Morph 缓冲区（可能非常大）
-        total += (self.gpu_morph_offsets.capacity() * size_of::<f32>()) as u64;
+        // GPU Morph 缓冲区（稀疏条目 + 区间表）
+        total += (self.gpu_morph_offsets.capacity() * size_of::<u32>()) as u64;
+        total += (self.gpu_morph_ranges.capacity() * size_of::<(u32, u32)>()) as u64;
         total += (self.gpu_morph_weights.capacity() * size_of::<f32>()) as u64;
         total += (self.vertex_morph_indices.capacity() * size_of::<usize>()) as u64;
         
         // GPU UV Morph 缓冲区
-        total += (self.gpu_uv_morph_offsets.capacity() * size_of::<f32>()) as u64;
+        total += (self.gpu_uv_morph_offsets.capacity() * size_of::<u32>()) as u64;
+        total += (self.gpu_uv_morph_ranges.capacity() * size_of::<(u32, u32)>()) as u64;
         total += (self.gpu_uv_morph_weights.capacity() * size_of::<f32>()) as u64;
         total += (self.uv_morph_indices.capacity() * size_of::<usize>()) as u64;
         
+        // GPU 材质 Morph 条目
+        total += (self.gpu_material_morph_entries.capacity() * size_of::<u32>()) as u64;
+        total += (self.gpu_material_morph_ranges.capacity() * size_of::<(u32, u32)>()) as u64;
+        
         // 材质 Morph 结果缓存
         total += (self.material_morph_results_flat_cache.capacity() * size_of::<f32>()) as u64;
         
+        // 尚未取走的群体动画烘焙数据
+        total += self.crowd_bake.capacity() as u64;
+        
         // 物理缓冲区
         total += (self.physics_bone_transforms_buf.capacity() * size_of::<Mat4>()) as u64;
         total += (self.transition_matrices.capacity() * size_of::<Mat4>()) as u64;
         
+        // 姿态未变检测快照
+        total += (self.prev_skinning_matrices.capacity() * size_of::<Mat4>()) as u64;
+        total += (self.prev_morph_weights.capacity() * size_of::<f32>()) as u64;
+        
         // 材质可见性
         total += (self.material_visible.capacity() * size_of::<bool>()) as u64;
         total += (self.material_visible_backup.capacity() * size_of::<bool>()) as u64;
@@ -1,5 +1,9 @@
 //! 子网格定义
 
+use crate::morph::MorphManager;
+
+use super::MmdMaterial;
+
 /// 子网格
 #[derive(Clone, Debug)]
 pub struct SubMesh {
@@ -13,3 +17,76 @@ impl SubMesh {
         Self { begin_index, index_count, material_id }
     }
 }
+
+/// 合并子网格组：submeshes[first .. first + count] 的材质渲染状态等价且索引范围首尾相接，
+/// 绘制时可用一次 draw call 覆盖整组（原始子网格与材质索引保持不变）
+#[derive(Clone, Debug, PartialEq)]
+pub struct SubMeshGroup {
+    pub first: usize,
+    pub count: usize,
+}
+
+/// 两个材质的渲染状态是否等价（纹理/Toon/Sphere/绘制标志，以及 Java 侧逐材质使用的 alpha 与边缘参数）
+fn material_state_equal(a: &MmdMaterial, b: &MmdMaterial) -> bool {
+    a.texture_index == b.texture_index
+        && a.environment_index == b.environment_index
+        && a.toon_index == b.toon_index
+        && a.draw_flags == b.draw_flags
+        && a.diffuse.w == b.diffuse.w
+        && a.edge_color == b.edge_color
+        && a.edge_scale == b.edge_scale
+}
+
+/// 加载时检测可合并的相邻子网格
+///
+/// 只合并绘制顺序上相邻的子网格，保持 MMD 的材质绘制顺序（半透明混合结果不变）。
+/// 被材质 Morph 作用的材质不参与合并（存在作用于全部材质的 Morph 时整体不合并）。
+/// 只返回包含 2 个及以上子网格的组。
+pub fn build_submesh_groups(
+    materials: &[MmdMaterial],
+    submeshes: &[SubMesh],
+    morph_manager: &MorphManager,
+) -> Vec<SubMeshGroup> {
+    let mut morph_target = vec![false; materials.len()];
+    for i in 0..morph_manager.morph_count() {
+        if let Some(morph) = morph_manager.get_morph(i) {
+            for offset in &morph.material_offsets {
+                if offset.material_index < 0 {
+                    return Vec::new();
+                }
+                if let Some(flag) = morph_target.get_mut(offset.material_index as usize) {
+                    *flag = true;
+                }
+            }
+        }
+    }
+
+    let mergeable = |i: usize| -> Option<&MmdMaterial> {
+        let id = submeshes[i].material_id;
+        if id < 0 || morph_target.get(id as usize).copied().unwrap_or(true) {
+            return None;
+        }
+        materials.get(id as usize)
+    };
+
+    let mut groups = Vec::new();
+    let mut start = 0;
+    while start < submeshes.len() {
+        let mut end = start + 1;
+        if let Some(head) = mergeable(start) {
+            while end < submeshes.len() {
+                let prev = &submeshes[end - 1];
+                let contiguous = prev.begin_index + prev.index_count == submeshes[end].begin_index;
+                match mergeable(end) {
+                    Some(mat) if contiguous && material_state_equal(head, mat) => end += 1,
+                    _ => break,
+                }
+            }
+        }
+        if end - start >= 2 {
+            groups.push(SubMeshGroup { first: start, count: end - start });
+        }
+        start = end;
+    }
+    groups
+}
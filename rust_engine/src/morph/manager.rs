@@ -135,6 +135,22 @@ pub struct MorphManager {
     uv_morph_deltas: Vec<Vec2>,
     /// 顶点数量（由外部设置）
     vertex_count: usize,
+    
+    /// 材质 Morph 是否延迟到 GPU 求值（GPU 蒙皮模式）：为 true 时 apply_morphs 只累计有效权重
+    defer_material_morphs: bool,
+    /// 本帧各材质 Morph 的有效权重（按 Morph 索引，已展开 Group/Flip），仅延迟模式使用
+    material_morph_weights: Vec<f32>,
+    /// 本帧有效权重非零的材质 Morph 索引
+    active_material_morphs: Vec<usize>,
+}
+
+/// 材质 Morph 的去向：立即求值到逐材质结果，或只累计有效权重（由 GPU 求值）
+enum MaterialMorphTarget<'a> {
+    Evaluate(&'a mut [MaterialMorphResult]),
+    Defer {
+        weights: &'a mut [f32],
+        active: &'a mut Vec<usize>,
+    },
 }
 
 impl MorphManager {
@@ -146,6 +162,9 @@ impl MorphManager {
             material_count: 0,
             uv_morph_deltas: Vec::new(),
             vertex_count: 0,
+            defer_material_morphs: false,
+            material_morph_weights: Vec::new(),
+            active_material_morphs: Vec::new(),
         }
     }
     
@@ -222,6 +241,34 @@ impl MorphManager {
         &self.uv_morph_deltas
     }
     
+    /// 释放逐顶点 UV Morph 偏移（GPU 常驻模式：UV Morph 由 GPU 按权重求值，CPU 侧不再累积）
+    pub fn release_uv_morph_deltas(&mut self) {
+        self.uv_morph_deltas = Vec::new();
+    }
+    
+    /// 设置材质 Morph 是否延迟到 GPU 求值
+    ///
+    /// 延迟模式下 apply_morphs 不再逐材质累积乘算/加算结果（结果保持单位值），
+    /// 只记录每个材质 Morph 经 Group/Flip 展开后的有效权重，由 deferred_material_morphs 取出。
+    pub fn set_defer_material_morphs(&mut self, defer: bool) {
+        self.defer_material_morphs = defer;
+        self.material_morph_weights = if defer { vec![0.0; self.morphs.len()] } else { Vec::new() };
+        self.active_material_morphs.clear();
+        for result in &mut self.material_morph_results {
+            result.reset();
+        }
+    }
+    
+    /// 本帧有效权重非零的材质 Morph（Morph 索引, 有效权重），仅延迟模式有内容
+    ///
+    /// 同一 Morph 经多个 Group 引用时权重合并为一项：加算与 CPU 求值一致，
+    /// 乘算按 lerp(1, offset, Σw) 计算（CPU 为各项 lerp 连乘），仅在这种少见情况下略有差异。
+    pub fn deferred_material_morphs(&self) -> impl Iterator<Item = (usize, f32)> + '_ {
+        self.active_material_morphs.iter()
+            .map(move |&i| (i, self.material_morph_weights[i]))
+            .filter(|&(_, w)| w.abs() > MORPH_WEIGHT_EPSILON)
+    }
+    
     /// 应用所有 Morph（完整流水线）
     ///
     /// 处理顺序遵循 MMD 规范：
@@ -229,9 +276,16 @@ impl MorphManager {
     /// 2. 遍历所有 Morph，按类型分发处理
     /// 3. Group Morph 递归展开子项
     pub fn apply_morphs(&mut self, bone_manager: &mut BoneManager, positions: &mut [Vec3]) {
-        // 重置材质 Morph 结果
-        for result in &mut self.material_morph_results {
-            result.reset();
+        // 重置材质 Morph 结果（延迟模式下只清零上一帧记录的权重）
+        if self.defer_material_morphs {
+            for &i in &self.active_material_morphs {
+                self.material_morph_weights[i] = 0.0;
+            }
+            self.active_material_morphs.clear();
+        } else {
+            for result in &mut self.material_morph_results {
+                result.reset();
+            }
         }
         // 重置 UV 偏移
         for delta in &mut self.uv_morph_deltas {
@@ -244,11 +298,19 @@ impl MorphManager {
             .map(|(i, m)| (i, m.weight))
             .collect();
         
+        // 拆分借用：morphs 只读，材质结果（或延迟权重）/ uv_morph_deltas 可写
+        let mut material_target = if self.defer_material_morphs {
+            MaterialMorphTarget::Defer {
+                weights: &mut self.material_morph_weights,
+                active: &mut self.active_material_morphs,
+            }
+        } else {
+            MaterialMorphTarget::Evaluate(&mut self.material_morph_results)
+        };
         for (morph_idx, weight) in active_morphs {
-            // 拆分借用：morphs 只读，material_morph_results / uv_morph_deltas 可写
             apply_single_morph(
                 &self.morphs,
-                &mut self.material_morph_results,
+                &mut material_target,
                 &mut self.uv_morph_deltas,
                 morph_idx,
                 weight,
@@ -268,6 +330,8 @@ impl MorphManager {
         total += (self.name_to_index.capacity() * (size_of::<String>() + size_of::<usize>())) as u64;
         total += (self.material_morph_results.capacity() * size_of::<MaterialMorphResult>()) as u64;
         total += (self.uv_morph_deltas.capacity() * size_of::<Vec2>()) as u64;
+        total += (self.material_morph_weights.capacity() * size_of::<f32>()) as u64;
+        total += (self.active_material_morphs.capacity() * size_of::<usize>()) as u64;
         total
     }
 }
@@ -277,7 +341,7 @@ impl MorphManager {
 /// 独立函数，通过拆分字段借用避免 clone 偏移数组的开销
 fn apply_single_morph(
     morphs: &[Morph],
-    material_morph_results: &mut [MaterialMorphResult],
+    material_target: &mut MaterialMorphTarget<'_>,
     uv_morph_deltas: &mut [Vec2],
     morph_idx: usize,
     effective_weight: f32,
@@ -315,7 +379,7 @@ fn apply_single_morph(
                 .collect();
             for (sub_idx, sub_weight) in subs {
                 apply_single_morph(
-                    morphs, material_morph_results, uv_morph_deltas,
+                    morphs, material_target, uv_morph_deltas,
                     sub_idx, sub_weight, bone_manager, positions, depth + 1,
                 );
             }
@@ -330,15 +394,25 @@ fn apply_single_morph(
                 let sub_influence = sub.influence;
                 if sub_idx < morphs.len() && sub_idx != morph_idx {
                     apply_single_morph(
-                        morphs, material_morph_results, uv_morph_deltas,
+                        morphs, material_target, uv_morph_deltas,
                         sub_idx, sub_influence, bone_manager, positions, depth + 1,
                     );
                 }
             }
         }
-        MorphType::Material => {
-            apply_material_morph(&morph.material_offsets, effective_weight, material_morph_results);
-        }
+        MorphType::Material => match material_target {
+            MaterialMorphTarget::Evaluate(results) => {
+                apply_material_morph(&morph.material_offsets, effective_weight, results);
+            }
+            MaterialMorphTarget::Defer { weights, active } => {
+                if let Some(w) = weights.get_mut(morph_idx) {
+                    if *w == 0.0 && !active.contains(&morph_idx) {
+                        active.push(morph_idx);
+                    }
+                    *w += effective_weight;
+                }
+            }
+        },
         MorphType::Uv | MorphType::AdditionalUv1 => {
             apply_uv_morph(&morph.uv_offsets, effective_weight, uv_morph_deltas);
         }